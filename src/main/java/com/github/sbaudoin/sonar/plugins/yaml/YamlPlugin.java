@@ -17,7 +17,9 @@ package com.github.sbaudoin.sonar.plugins.yaml;
 
 import com.github.sbaudoin.sonar.plugins.yaml.languages.YamlLanguage;
 import com.github.sbaudoin.sonar.plugins.yaml.languages.YamlQualityProfile;
+import com.github.sbaudoin.sonar.plugins.yaml.rules.SharedRuleState;
 import com.github.sbaudoin.sonar.plugins.yaml.rules.YamlRulesDefinition;
+import com.github.sbaudoin.sonar.plugins.yaml.rules.YamlProjectSensor;
 import com.github.sbaudoin.sonar.plugins.yaml.rules.YamlSensor;
 import com.github.sbaudoin.sonar.plugins.yaml.settings.YamlSettings;
 import org.sonar.api.Plugin;
@@ -40,7 +42,7 @@ public class YamlPlugin implements Plugin {
         // Add plugin settings (file extensions, etc.)
         context.addExtensions(YamlSettings.getProperties(hasBuiltinYamlSupport));
 
-        context.addExtensions(YamlRulesDefinition.class, YamlSensor.class);
+        context.addExtensions(YamlRulesDefinition.class, SharedRuleState.class, YamlSensor.class, YamlProjectSensor.class);
     }
 
     /**
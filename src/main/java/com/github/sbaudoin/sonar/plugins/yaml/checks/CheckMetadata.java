@@ -0,0 +1,225 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import org.sonar.check.Rule;
+import org.sonar.check.RuleProperty;
+
+import javax.annotation.CheckForNull;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Metadata of a check class: its ID, rule key and rule properties. The metadata of a class is computed once, the first
+ * time it is requested, and then kept for the lifetime of the class, so that the checks do not need to use reflection
+ * for every file they analyze.
+ */
+public final class CheckMetadata {
+    private static final ClassValue<CheckMetadata> METADATA = new ClassValue<CheckMetadata>() {
+        @Override
+        protected CheckMetadata computeValue(Class<?> type) {
+            return new CheckMetadata(type);
+        }
+    };
+
+
+    private final String id;
+
+    private final String ruleKey;
+
+    private final List<Property> properties;
+
+    private final List<Property> allProperties;
+
+
+    /**
+     * Constructor
+     *
+     * @param checkClass the check class
+     */
+    private CheckMetadata(Class<?> checkClass) {
+        this.id = computeId(checkClass);
+        Rule rule = checkClass.getAnnotation(Rule.class);
+        this.ruleKey = rule == null ? null : rule.key();
+        List<Property> props = new ArrayList<>();
+        for (Field f : checkClass.getDeclaredFields()) {
+            RuleProperty rp = f.getAnnotation(RuleProperty.class);
+            if (rp != null) {
+                props.add(new Property(rp, f));
+            }
+        }
+        this.properties = Collections.unmodifiableList(props);
+        Class<?> superclass = checkClass.getSuperclass();
+        if (superclass != null && YamlCheck.class.isAssignableFrom(superclass)) {
+            List<Property> all = new ArrayList<>(props);
+            all.addAll(of(superclass).getAllProperties());
+            this.allProperties = Collections.unmodifiableList(all);
+        } else {
+            this.allProperties = properties;
+        }
+    }
+
+
+    /**
+     * Returns the metadata of the passed check class
+     *
+     * @param checkClass a check class
+     * @return the metadata of the check class
+     */
+    public static CheckMetadata of(Class<?> checkClass) {
+        return METADATA.get(checkClass);
+    }
+
+    /**
+     * Returns the default ID of the checks of this class
+     *
+     * @return the default ID of the checks of this class
+     * @see YamlCheck#getId()
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the key declared by the {@link Rule} annotation of the class
+     *
+     * @return the rule key or {@code null} if the class is not annotated with {@link Rule}
+     */
+    @CheckForNull
+    public String getRuleKey() {
+        return ruleKey;
+    }
+
+    /**
+     * Returns the rule properties declared by the class, i.e. its fields annotated with {@link RuleProperty}. The
+     * fields inherited from a superclass are not returned.
+     *
+     * @return the rule properties, in the order returned by {@link Class#getDeclaredFields()}
+     */
+    public List<Property> getProperties() {
+        return properties;
+    }
+
+    /**
+     * Returns the rule properties of the checks of the class, i.e. the rule properties declared by the class and by its
+     * superclasses up to {@link YamlCheck}
+     *
+     * @return the rule properties, those of the class first
+     */
+    public List<Property> getAllProperties() {
+        return allProperties;
+    }
+
+
+    /**
+     * Calculates the default check ID from the check class name
+     *
+     * @param checkClass the check class
+     * @return the check ID
+     */
+    private static String computeId(Class<?> checkClass) {
+        return checkClass.getName().replaceAll("^.*\\.([^.])", "$1").replaceAll("Check$", "").replaceAll("([A-Z])", "-$1").substring(1).toLowerCase();
+    }
+
+
+    /**
+     * A rule property, i.e. a field annotated with {@link RuleProperty}
+     */
+    public static final class Property {
+        private final RuleProperty annotation;
+
+        private final Field field;
+
+
+        /**
+         * Constructor
+         *
+         * @param annotation the {@code RuleProperty} annotation of the field
+         * @param field the field
+         */
+        private Property(RuleProperty annotation, Field field) {
+            this.annotation = annotation;
+            this.field = field;
+        }
+
+
+        /**
+         * Returns the property key
+         *
+         * @return the property key
+         */
+        public String getKey() {
+            return annotation.key();
+        }
+
+        /**
+         * Returns the {@code RuleProperty} annotation of the field
+         *
+         * @return the {@code RuleProperty} annotation of the field
+         */
+        public RuleProperty getAnnotation() {
+            return annotation;
+        }
+
+        /**
+         * Returns the name of the field
+         *
+         * @return the name of the field
+         */
+        public String getFieldName() {
+            return field.getName();
+        }
+
+        /**
+         * Returns the value of the property for the passed check
+         *
+         * @param check a check of the class that declares the property
+         * @return the property value
+         * @throws IllegalAccessException if the field is not accessible (e.g. if it is private)
+         */
+        public Object getValue(YamlCheck check) throws IllegalAccessException {
+            return field.get(check);
+        }
+
+        /**
+         * Sets the value of the property for the passed check, as the rule parameters are set by SonarQube
+         *
+         * @param check a check of the class that declares the property
+         * @param value the value of the property, converted to the type of the field ({@code String}, {@code int},
+         *              {@code long}, {@code double} or {@code boolean})
+         * @throws IllegalAccessException if the field is not accessible (e.g. if it is private)
+         * @throws IllegalArgumentException if the value cannot be converted to the type of the field
+         */
+        public void setValue(YamlCheck check, String value) throws IllegalAccessException {
+            Class<?> type = field.getType();
+            if (type == int.class || type == Integer.class) {
+                field.set(check, Integer.parseInt(value.trim()));
+            } else if (type == long.class || type == Long.class) {
+                field.set(check, Long.parseLong(value.trim()));
+            } else if (type == double.class || type == Double.class) {
+                field.set(check, Double.parseDouble(value.trim()));
+            } else if (type == boolean.class || type == Boolean.class) {
+                field.set(check, Boolean.parseBoolean(value.trim()));
+            } else if (type == String.class) {
+                field.set(check, value);
+            } else {
+                throw new IllegalArgumentException("Unsupported type of rule property " + getKey() + ": " + type.getName());
+            }
+        }
+    }
+}
@@ -16,7 +16,12 @@
 package com.github.sbaudoin.sonar.plugins.yaml.checks;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Check repository: registry for all checks
@@ -46,6 +51,7 @@ public class CheckRepository {
             FloatValuesCheck.class,
             ForbiddenKeyCheck.class,
             ForbiddenValueCheck.class,
+            HardcodedSecretCheck.class,
             HyphensCheck.class,
             IndentationCheck.class,
             KeyDuplicatesCheck.class,
@@ -59,15 +65,22 @@ public class CheckRepository {
             TrailingSpacesCheck.class,
             TruthyCheck.class,
             QuotedStringsCheck.class,
-            IntValueInRangeCheck.class
+            IntValueInRangeCheck.class,
+            JsonSchemaCheck.class,
+            DuplicateResourceCheck.class,
+            MissingConfigMapCheck.class,
+            InconsistentImageTagCheck.class
         );
 
-    private static final List<String> TEMPLATE_RULE_KEYS = Arrays.asList(
-            "ForbiddenKeyCheck",
-            "ForbiddenValueCheck",
-            "RequiredKeyCheck",
-            "IntValueInRangeCheck"
-    );
+    private static final List<String> TEMPLATE_RULE_KEYS = Collections.unmodifiableList(Stream.of(
+            ForbiddenKeyCheck.class,
+            ForbiddenValueCheck.class,
+            RequiredKeyCheck.class,
+            IntValueInRangeCheck.class,
+            JsonSchemaCheck.class
+    ).map(c -> CheckMetadata.of(c).getRuleKey()).collect(Collectors.toList()));
+
+    private static final Set<String> TEMPLATE_RULE_KEY_SET = new HashSet<>(TEMPLATE_RULE_KEYS);
 
 
     /**
@@ -103,4 +116,14 @@ public class CheckRepository {
     public static List<String> getTemplateRuleKeys() {
         return TEMPLATE_RULE_KEYS;
     }
+
+    /**
+     * Tells if the passed rule key is the key of a rule template
+     *
+     * @param ruleKey a rule key
+     * @return {@code true} if the rule is a template, {@code false} otherwise
+     */
+    public static boolean isTemplate(String ruleKey) {
+        return TEMPLATE_RULE_KEY_SET.contains(ruleKey);
+    }
 }
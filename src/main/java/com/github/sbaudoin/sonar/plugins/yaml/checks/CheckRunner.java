@@ -0,0 +1,66 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import com.github.sbaudoin.sonar.plugins.yaml.monitoring.AnalysisEvents;
+import com.github.sbaudoin.sonar.plugins.yaml.monitoring.Timing;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Runner of the checks that apply to a file, shared by the SonarQube sensor and the local analyzer so that both
+ * validate the files the same way: the {@link RequiredKeyCheck}s are evaluated by groups of checks that share the same
+ * predicates (see {@link RequiredKeyEvaluator}) and the other checks are validated by a {@link YamlLintBatch}, which
+ * lints the source code once for all the yamllint-based checks.
+ */
+public class CheckRunner {
+    private final List<RequiredKeyEvaluator> requiredKeyEvaluators;
+    private final YamlLintConfigCache lintConfigCache;
+
+
+    /**
+     * Constructor
+     *
+     * @param checks all the checks that may be run, from which the {@link RequiredKeyCheck}s are grouped
+     * @param lintConfigCache the cache of the yamllint configurations, possibly {@code null}
+     */
+    public CheckRunner(Collection<? extends YamlCheck> checks, @Nullable YamlLintConfigCache lintConfigCache) {
+        this.requiredKeyEvaluators = RequiredKeyEvaluator.group(checks);
+        this.lintConfigCache = lintConfigCache;
+    }
+
+
+    /**
+     * Runs the passed checks against the passed source code. The issues are added to the source code.
+     *
+     * @param sourceCode the source code to be checked
+     * @param activeChecks the checks that apply to the source code, among the checks passed to the constructor
+     */
+    public void run(YamlSourceCode sourceCode, List<YamlCheck> activeChecks) {
+        // Required key checks are validated below, together with the checks that share the same predicates
+        YamlLintBatch.validate(sourceCode, activeChecks.stream().filter(check -> !(check instanceof RequiredKeyCheck)).collect(Collectors.toList()), lintConfigCache);
+        for (RequiredKeyEvaluator evaluator : requiredKeyEvaluators) {
+            // The checks of an evaluator are validated together: the event is attributed to all of them
+            Timing timing = AnalysisEvents.beginCheckValidation(() -> evaluator.getChecks().stream().map(YamlCheck::getRuleKey).collect(Collectors.toList()), sourceCode.getYamlFile().uri());
+            int issueCount = sourceCode.getYamlIssues().size();
+            evaluator.validate(sourceCode, activeChecks);
+            timing.end(sourceCode.getYamlIssues().size() - issueCount);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Selector of the documents a check applies to, as per its {@code document-selector} property: a comma-separated list
+ * of document kinds (e.g. {@code Deployment,StatefulSet}), each possibly prefixed by an API version (e.g.
+ * {@code apps/v1/Deployment}). In kinds and API versions, {@code *} matches any sequence of characters.
+ * <p>Selectors are parsed once and shared between the checks. Instances are thread-safe.</p>
+ *
+ * @see YamlDocuments
+ */
+public final class DocumentSelector {
+    private static final Map<String, DocumentSelector> CACHE = new ConcurrentHashMap<>();
+
+    private final String selector;
+    private final List<Predicate<String>> apiVersions = new ArrayList<>();
+    private final List<Predicate<String>> kinds = new ArrayList<>();
+
+
+    private DocumentSelector(String selector) {
+        this.selector = selector;
+        for (String entry : selector.split(",")) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int slash = trimmed.lastIndexOf('/');
+            apiVersions.add(slash < 0 ? null : compile(trimmed.substring(0, slash)));
+            kinds.add(compile(trimmed.substring(slash + 1)));
+        }
+    }
+
+
+    /**
+     * Returns the (shared) selector for the passed property value
+     *
+     * @param selector a comma-separated list of document kinds, possibly prefixed by API versions
+     * @return the selector, or {@code null} if the passed value is empty, meaning that all the documents are selected
+     */
+    public static DocumentSelector of(@Nullable String selector) {
+        if (selector == null || selector.trim().isEmpty()) {
+            return null;
+        }
+        return CACHE.computeIfAbsent(selector.trim(), DocumentSelector::new);
+    }
+
+
+    /**
+     * Tells if a document is selected
+     *
+     * @param apiVersion the API version of the document, possibly {@code null}
+     * @param kind the kind of the document, possibly {@code null}
+     * @return {@code true} if the document matches one of the entries of this selector
+     */
+    public boolean matches(@Nullable String apiVersion, @Nullable String kind) {
+        String k = kind == null ? "" : kind;
+        String v = apiVersion == null ? "" : apiVersion;
+        for (int i = 0; i < kinds.size(); i++) {
+            if (kinds.get(i).test(k) && (apiVersions.get(i) == null || apiVersions.get(i).test(v))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tells if a document is selected
+     *
+     * @param documents the documents of a source code
+     * @param index the index of the document
+     * @return {@code true} if the document matches one of the entries of this selector
+     */
+    public boolean matches(YamlDocuments documents, int index) {
+        return matches(documents.getApiVersion(index), documents.getKind(index));
+    }
+
+    @Override
+    public String toString() {
+        return selector;
+    }
+
+
+    private static Predicate<String> compile(String glob) {
+        if (glob.indexOf('*') < 0) {
+            return glob::equals;
+        }
+        StringBuilder regex = new StringBuilder();
+        int start = 0;
+        for (int star = glob.indexOf('*'); star >= 0; star = glob.indexOf('*', start)) {
+            if (star > start) {
+                regex.append(Pattern.quote(glob.substring(start, star)));
+            }
+            regex.append(".*");
+            start = star + 1;
+        }
+        if (start < glob.length()) {
+            regex.append(Pattern.quote(glob.substring(start)));
+        }
+        Pattern pattern = Pattern.compile(regex.toString());
+        return s -> pattern.matcher(s).matches();
+    }
+}
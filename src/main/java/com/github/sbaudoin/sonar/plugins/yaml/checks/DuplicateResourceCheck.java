@@ -0,0 +1,40 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import org.sonar.check.Rule;
+
+/**
+ * Check that the Kubernetes resources are not defined more than once in the project: the resources of the same API
+ * group and kind, with the same name and namespace, are reported, but the first one
+ */
+@Rule(key = "DuplicateResourceCheck")
+public class DuplicateResourceCheck extends ProjectCheck {
+    @Override
+    protected void check(ProjectIndex index) {
+        index.forEach(ProjectIndex.Category.RESOURCE, (key, postings) -> {
+            if (postings.size() < 2) {
+                return;
+            }
+            // Key: group/kind/namespace/name
+            String[] parts = key.split("/", 4);
+            String resource = parts[1] + " '" + parts[3] + "'" + (parts[2].isEmpty() ? "" : " in namespace '" + parts[2] + "'");
+            for (int i = 1; i < postings.size(); i++) {
+                addViolation(postings.getFile(i), postings.getLine(i), "Duplicate " + resource + ", already defined in " + getLocation(index, postings, 0));
+            }
+        });
+    }
+}
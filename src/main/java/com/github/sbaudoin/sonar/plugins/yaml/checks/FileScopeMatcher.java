@@ -0,0 +1,152 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import org.sonar.api.utils.WildcardPattern;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Matcher that computes the subset of the checks that apply to a file, as per their {@code included-files} and
+ * {@code excluded-files} properties. The patterns are matched against the paths of the files relative to the base
+ * directory of the analysis, or against their absolute paths for the files outside of this directory.
+ * <p>All the patterns of all the checks are compiled once when this class is instantiated. Identical patterns are
+ * shared between checks so that every distinct pattern is evaluated at most once per file.</p>
+ */
+public class FileScopeMatcher {
+    private static final Map<String, WildcardPattern> PATTERN_CACHE = new ConcurrentHashMap<>();
+
+    private final WildcardPattern[] patterns;
+    private final List<YamlCheck> checks;
+    private final int[][] includes;
+    private final int[][] excludes;
+    private final boolean scoped;
+
+
+    /**
+     * Constructor
+     *
+     * @param checks the checks to be matched against the analyzed files
+     */
+    public FileScopeMatcher(Collection<? extends YamlCheck> checks) {
+        Map<String, Integer> patternIds = new LinkedHashMap<>();
+        this.checks = new ArrayList<>(checks);
+        this.includes = new int[this.checks.size()][];
+        this.excludes = new int[this.checks.size()][];
+        boolean anyScope = false;
+        for (int i = 0; i < this.checks.size(); i++) {
+            YamlCheck check = this.checks.get(i);
+            includes[i] = getPatternIds(check.getIncludedFiles(), patternIds);
+            excludes[i] = getPatternIds(check.getExcludedFiles(), patternIds);
+            anyScope |= includes[i].length > 0 || excludes[i].length > 0;
+        }
+        this.scoped = anyScope;
+        this.patterns = patternIds.keySet().stream().map(FileScopeMatcher::compile).toArray(WildcardPattern[]::new);
+    }
+
+
+    /**
+     * Returns the checks that apply to a file
+     *
+     * @param baseDir the base directory of the analysis, which the patterns are relative to
+     * @param file the analyzed file
+     * @return the checks that apply to the file, in the order they were passed to the constructor
+     */
+    public List<YamlCheck> getChecks(Path baseDir, Path file) {
+        return scoped ? getChecks(getRelativePath(baseDir, file)) : checks;
+    }
+
+    /**
+     * Returns the checks that apply to the file whose path is passed
+     *
+     * @param path the path of the analyzed file the patterns are matched against, with / as file separator
+     * @return the checks that apply to the file, in the order they were passed to the constructor
+     */
+    public List<YamlCheck> getChecks(String path) {
+        if (!scoped) {
+            return checks;
+        }
+
+        // 0: not evaluated yet, 1: match, -1: no match
+        byte[] matches = new byte[patterns.length];
+        List<YamlCheck> result = new ArrayList<>(checks.size());
+        for (int i = 0; i < checks.size(); i++) {
+            if ((includes[i].length == 0 || anyMatch(includes[i], matches, path)) && !anyMatch(excludes[i], matches, path)) {
+                result.add(checks.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the compiled version of the passed Ant-style pattern. Compiled patterns are cached.
+     *
+     * @param pattern an Ant-style pattern
+     * @return the compiled pattern
+     */
+    public static WildcardPattern compile(String pattern) {
+        return PATTERN_CACHE.computeIfAbsent(pattern, WildcardPattern::create);
+    }
+
+
+    /**
+     * Returns the path of a file relative to a directory
+     *
+     * @param baseDir a directory
+     * @param file a file
+     * @return the path of the file relative to the directory with / as file separator, or the absolute path of the file
+     * if it is not in the directory
+     */
+    public static String getRelativePath(Path baseDir, Path file) {
+        Path base = baseDir.toAbsolutePath().normalize();
+        Path path = file.toAbsolutePath().normalize();
+        return (path.startsWith(base) ? base.relativize(path) : path).toString().replace(File.separatorChar, '/');
+    }
+
+
+    private boolean anyMatch(int[] ids, byte[] matches, String path) {
+        for (int id : ids) {
+            if (matches[id] == 0) {
+                matches[id] = (byte) (patterns[id].match(path) ? 1 : -1);
+            }
+            if (matches[id] == 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] getPatternIds(@Nullable String patternList, Map<String, Integer> patternIds) {
+        if (patternList == null || patternList.trim().isEmpty()) {
+            return new int[0];
+        }
+        return Arrays.stream(patternList.split(","))
+                .map(String::trim)
+                .filter(p -> !p.isEmpty())
+                .mapToInt(p -> patternIds.computeIfAbsent(p, k -> patternIds.size()))
+                .distinct()
+                .toArray();
+    }
+}
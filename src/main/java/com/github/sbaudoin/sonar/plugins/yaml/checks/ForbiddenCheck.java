@@ -20,16 +20,14 @@ import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.check.RuleProperty;
 import org.yaml.snakeyaml.reader.StreamReader;
-import org.yaml.snakeyaml.tokens.BlockEndToken;
-import org.yaml.snakeyaml.tokens.BlockMappingStartToken;
-import org.yaml.snakeyaml.tokens.KeyToken;
-import org.yaml.snakeyaml.tokens.ScalarToken;
 import org.yaml.snakeyaml.tokens.Token;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.Deque;
-import java.util.regex.Pattern;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Abstract class used to implement to forbidden key/scalar value checks
@@ -37,6 +35,11 @@ import java.util.regex.Pattern;
 public abstract class ForbiddenCheck extends YamlCheck {
     private static final Logger LOGGER = Loggers.get(ForbiddenCheck.class);
 
+    /**
+     * Classes that override none of the {@code checkNextToken()} methods, already reported in the logs
+     */
+    private static final Set<String> INCOMPLETE_CLASSES = ConcurrentHashMap.newKeySet();
+
 
     @RuleProperty(key = "key-name", description = "Regexp that matches the forbidden key name")
     String keyName;
@@ -47,6 +50,9 @@ public abstract class ForbiddenCheck extends YamlCheck {
     @RuleProperty(key = "excluded-ancestors", description = "Regexp that matches the key's ancestors to exclude, for example '.*:nesting2:nesting3'")
     String excludedAncestors;
 
+    @RuleProperty(key = "document-selector", description = "Comma-separated list of the kinds of the documents this rule applies to, possibly prefixed by their API version, for example 'Deployment,StatefulSet' or 'networking.k8s.io/v1/Ingress'. Leave empty to apply the rule to all documents.")
+    String documentSelector;
+
     /* future enhancement:
     @RuleProperty(key = "description", description = "Short description of this specific check")
     String description;
@@ -54,17 +60,19 @@ public abstract class ForbiddenCheck extends YamlCheck {
     @RuleProperty(key = "doc-url", description = "URL to documentation of this specific check")
     String docUrl;
     */
-    private Pattern keyNamePattern;
-    private Pattern inclAncestorsPattern;
-    private Pattern exclAncestorsPattern;
+    private RegexMemo keyNamePattern;
+    private RegexMemo inclAncestorsPattern;
+    private RegexMemo exclAncestorsPattern;
+    private int reportedToken = -1;
+    private LintScanner legacyScanner;
 
     /**
-     * Compiles the regular expressions for better performance
+     * Gets the (shared and memoized) regular expressions for better performance
      */
     protected void initializePatterns() {
-        keyNamePattern = Pattern.compile(keyName);
-        inclAncestorsPattern = includedAncestors != null && !includedAncestors.isEmpty() ? Pattern.compile(includedAncestors) : null;
-        exclAncestorsPattern = excludedAncestors != null && !excludedAncestors.isEmpty() ? Pattern.compile(excludedAncestors) : null;
+        keyNamePattern = RegexMemo.matching(keyName);
+        inclAncestorsPattern = includedAncestors != null && !includedAncestors.isEmpty() ? RegexMemo.matching(includedAncestors) : null;
+        exclAncestorsPattern = excludedAncestors != null && !excludedAncestors.isEmpty() ? RegexMemo.matching(excludedAncestors) : null;
     }
 
     @Override
@@ -73,34 +81,23 @@ public abstract class ForbiddenCheck extends YamlCheck {
             throw new IllegalStateException("Source code not set, cannot validate anything");
         }
         try {
-            LintScanner parser = new LintScanner(new StreamReader(yamlSourceCode.getContent()));
+            YamlTokens tokens = yamlSourceCode.getTokens();
             if (!yamlSourceCode.hasCorrectSyntax()) {
                 LOGGER.warn("Syntax error found, cannot continue checking keys: " + yamlSourceCode.getSyntaxError().getMessage());
                 return;
             }
             initializePatterns();
-            Deque<String> ancestors = new ArrayDeque<>();
-            String lastKeyScalarValue = "<root>";
-            boolean ancestorsCheck = (includedAncestors != null && !includedAncestors.isEmpty()) || (excludedAncestors != null && !excludedAncestors.isEmpty());
-
-            while (parser.hasMoreTokens()) {
-                Token t1 = parser.getToken();
-                if (ancestorsCheck) {
-                    if (t1 instanceof BlockMappingStartToken) {
-                        ancestors.push(lastKeyScalarValue);
-                    } else if (t1 instanceof BlockEndToken && !ancestors.isEmpty()) {
-                        ancestors.pop();
-                    }
-                }
-                if (t1 instanceof KeyToken && parser.hasMoreTokens()) {
-                    // Peek token (instead of get) in order to leave it in the stack so that it processed again when looping
-                    Token t2 = parser.peekToken();
-                    if (t2 instanceof ScalarToken) {
-                        String keyScalarValue = ((ScalarToken) t2).getValue();
-                        if (keyNamePattern.matcher(keyScalarValue).matches() && ancestorsMatch(ancestors, inclAncestorsPattern, exclAncestorsPattern)) {
-                            checkNextToken(parser);
-                        }
-                        lastKeyScalarValue = keyScalarValue;
+            legacyScanner = null;
+            DocumentSelector selector = DocumentSelector.of(documentSelector);
+            if (selector == null) {
+                // Walk through the resolved tokens so that the values that come from aliases and merge keys are checked too
+                walk(tokens, yamlSourceCode.resolvedCursor());
+            } else {
+                // Only walk through the documents of the selected kinds
+                YamlDocuments documents = yamlSourceCode.getDocuments();
+                for (int i = 0; i < documents.size(); i++) {
+                    if (selector.matches(documents, i)) {
+                        walk(tokens, yamlSourceCode.resolvedCursor(documents.getStartToken(i), documents.getEndToken(i)));
                     }
                 }
             }
@@ -108,38 +105,189 @@ public abstract class ForbiddenCheck extends YamlCheck {
             // Should not happen: a first call to getYamlSourceCode().getContent() was done in the constructor of
             // the YamlSourceCode instance of this check, but in case...
             LOGGER.warn("Cannot read source code", e);
+        } finally {
+            legacyScanner = null;
         }
     }
 
 
-    private boolean ancestorsMatch(Deque<String> ancestors, Pattern inclAncestorsPattern, Pattern exclAncestorsPattern) {
-        String ancestorsString = String.join(":", (Iterable<String>) ancestors::descendingIterator);
-        boolean match = inclAncestorsPattern == null || inclAncestorsPattern.matcher(ancestorsString).matches();
-        match = match && (exclAncestorsPattern == null || !exclAncestorsPattern.matcher(ancestorsString).matches());
+    /**
+     * Walks through the tokens of the passed cursor and calls {@link #checkNextToken(YamlTokens.Cursor)} for the keys
+     * that match the {@code key-name} regex and the ancestor regexes
+     *
+     * @param tokens the tokens of the analyzed YAML source
+     * @param cursor the cursor on the (resolved) tokens to be checked
+     */
+    private void walk(YamlTokens tokens, YamlTokens.Cursor cursor) {
+        Deque<Ancestors> ancestors = new ArrayDeque<>();
+        String lastKeyScalarValue = "<root>";
+        boolean ancestorsCheck = (includedAncestors != null && !includedAncestors.isEmpty()) || (excludedAncestors != null && !excludedAncestors.isEmpty());
+
+        while (cursor.hasMoreTokens()) {
+            Token.ID t1 = tokens.getType(cursor.getToken());
+            if (ancestorsCheck) {
+                if (t1 == Token.ID.BlockMappingStart) {
+                    ancestors.push(new Ancestors(ancestors.peek(), lastKeyScalarValue));
+                } else if (t1 == Token.ID.BlockEnd && !ancestors.isEmpty()) {
+                    ancestors.pop();
+                }
+            }
+            if (t1 == Token.ID.Key && cursor.hasMoreTokens()) {
+                // Peek token (instead of get) in order to leave it in the stack so that it processed again when looping
+                if (cursor.peekTokenType() == Token.ID.Scalar) {
+                    String keyScalarValue = tokens.getValue(cursor.peekToken());
+                    if (keyNamePattern.test(keyScalarValue) && (!ancestorsCheck || ancestorsMatch(ancestors.peek()))) {
+                        // Issues on keys that come from an alias or a merged mapping are reported on the alias or the merge key
+                        int site = cursor.peekSite();
+                        reportedToken = site != cursor.peekToken() ? site : -1;
+                        checkNextToken(cursor);
+                        reportedToken = -1;
+                    }
+                    lastKeyScalarValue = keyScalarValue;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Tells if the ancestors of a key match the ancestor regexes. The result is computed once per mapping and shared by
+     * all its keys.
+     *
+     * @param ancestors the ancestors of the key, {@code null} if the key is not in a block mapping
+     * @return {@code true} if the ancestors are included and not excluded
+     */
+    private boolean ancestorsMatch(@Nullable Ancestors ancestors) {
+        if (ancestors == null) {
+            return ancestorsMatch("");
+        }
+        if (ancestors.match == null) {
+            ancestors.match = ancestorsMatch(ancestors.path);
+        }
+        return ancestors.match;
+    }
+
+    private boolean ancestorsMatch(String ancestorsString) {
+        boolean match = inclAncestorsPattern == null || inclAncestorsPattern.test(ancestorsString);
+        match = match && (exclAncestorsPattern == null || !exclAncestorsPattern.test(ancestorsString));
         return match;
     }
 
+    /**
+     * Callback method used to implement a specific behavior when a key matching the {@code key-name} regex is found.
+     * Implementations should carefully use the {@code peekToken()} and {@code getToken()} methods to make sure relevant,
+     * unmatched tokens still remain in the stack of the cursor.
+     * <p>
+     * The default implementation calls {@link #checkNextToken(LintScanner)} for the subclasses written against the
+     * former scanner-based API. The source code is scanned again once per file, the scanner being moved forward to the
+     * key scalar token of each matching key. As the scanner only sees the tokens as they are written, the keys that come
+     * from an alias or a merged mapping are passed at the position of the anchored key, so these subclasses report their
+     * issues on the anchor rather than on the alias or the merge key. Subclasses should override this method instead.
+     *
+     * @param cursor the cursor currently used to walk through the tokens of the YAML source file. The next token of the
+     *               cursor is a key scalar token that matches the {@code key-name} regex.
+     */
+    protected void checkNextToken(YamlTokens.Cursor cursor) {
+        YamlTokens tokens = cursor.getTokens();
+        int key = cursor.peekToken();
+        try {
+            checkNextToken(moveLegacyScanner(tokens.getLine(key), tokens.getColumn(key)));
+        } catch (IOException e) {
+            LOGGER.warn("Cannot read source code", e);
+        }
+    }
+
+    /**
+     * Moves the scanner passed to the legacy subclasses forward to the scalar token that starts at the passed position.
+     * The scanner is only created again if the position is behind it, which only happens for the keys that come from
+     * aliases or merged mappings.
+     *
+     * @param line the (0-based) line of the key scalar token
+     * @param column the (0-based) column of the key scalar token
+     * @return the scanner whose next token is the key scalar token
+     * @throws IOException if the source code cannot be read
+     */
+    private LintScanner moveLegacyScanner(int line, int column) throws IOException {
+        if (legacyScanner == null || !legacyScanner.hasMoreTokens() || compare(legacyScanner.peekToken(), line, column) > 0) {
+            legacyScanner = new LintScanner(new StreamReader(getYamlSourceCode().getContent()));
+        }
+        while (legacyScanner.hasMoreTokens()) {
+            // Zero-length tokens (e.g. block mapping starts or keys) may start at the same position as the scalar
+            Token next = legacyScanner.peekToken();
+            int comparison = compare(next, line, column);
+            if (comparison > 0 || (comparison == 0 && next.getTokenId() == Token.ID.Scalar)) {
+                break;
+            }
+            legacyScanner.getToken();
+        }
+        return legacyScanner;
+    }
+
+    private static int compare(Token token, int line, int column) {
+        int comparison = Integer.compare(token.getStartMark().getLine(), line);
+        return comparison != 0 ? comparison : Integer.compare(token.getStartMark().getColumn(), column);
+    }
+
     /**
      * Callback method used to implement a specific behavior when a key matching the {@code key-name} regex is found.
      * Implementations should carefully use the {@code peekToken()} and {@code getToken()} methods to make sure relevant,
      * unmatched tokens still remain in the stack of the scanner.
      *
-     * @param parser the scanner/parser currently used to parse the YAML source file. The parser currently points to a
-     *               key token that matches the {@code key-name} regex.
+     * @param parser the scanner/parser currently used to parse the YAML source file. The next token of the parser is a
+     *               key scalar token that matches the {@code key-name} regex.
+     * @deprecated override {@link #checkNextToken(YamlTokens.Cursor)} instead, which does not scan the source code again
+     *             and reports the issues on the aliases and merge keys the keys come from
+     */
+    @Deprecated
+    protected void checkNextToken(LintScanner parser) {
+        // A subclass must override either this method or checkNextToken(YamlTokens.Cursor)
+        if (INCOMPLETE_CLASSES.add(getClass().getName())) {
+            LOGGER.warn("{} overrides neither checkNextToken(YamlTokens.Cursor) nor checkNextToken(LintScanner), no issue will be reported", getClass().getName());
+        }
+    }
+
+    /**
+     * Adds a violation to the analyzed Yaml source for the passed token. If the key being checked comes from an alias or
+     * a merged mapping, the violation is added for the alias or the merge key instead.
+     *
+     * @param message the message that describes the violation
+     * @param tokens the tokens of the analyzed Yaml source
+     * @param token the index of the token for which a violation is to be added
      */
-    protected abstract void checkNextToken(LintScanner parser);
+    protected void addViolation(String message, YamlTokens tokens, int token) {
+        int reported = reportedToken >= 0 ? reportedToken : token;
+        addViolation(message, tokens.getLine(reported) + 1, tokens.getColumn(reported) + 1);
+    }
 
     /**
      * Adds a violation to the analyzed Yaml source for the passed token
      *
      * @param message the message that describes the violation
      * @param t the token for which a violation is to be added
+     * @deprecated use {@link #addViolation(String, YamlTokens, int)}, which reports the violations on the aliases and
+     * merge keys the checked keys come from
      */
+    @Deprecated
     protected void addViolation(String message, Token t) {
-        getYamlSourceCode().addViolation(new YamlIssue(
-                getRuleKey(),
-                message,
-                t.getStartMark().getLine() + 1,
-                t.getStartMark().getColumn() + 1));
+        addViolation(message, t.getStartMark().getLine() + 1, t.getStartMark().getColumn() + 1);
+    }
+
+
+    private void addViolation(String message, int line, int column) {
+        getYamlSourceCode().addViolation(new YamlIssue(getRuleKey(), message, line, column));
+    }
+
+
+    /**
+     * The ancestors of the keys of a block mapping: their path, built once when the mapping starts, and whether it
+     * matches the ancestor regexes, computed for the first matching key
+     */
+    private static final class Ancestors {
+        private final String path;
+        private Boolean match = null;
+
+        Ancestors(@Nullable Ancestors parent, String key) {
+            path = parent == null ? key : parent.path + ":" + key;
+        }
     }
 }
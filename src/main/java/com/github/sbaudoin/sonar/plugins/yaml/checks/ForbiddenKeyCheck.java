@@ -16,7 +16,6 @@
 package com.github.sbaudoin.sonar.plugins.yaml.checks;
 
 import org.sonar.check.Rule;
-import com.github.sbaudoin.yamllint.LintScanner;
 
 
 /**
@@ -25,8 +24,8 @@ import com.github.sbaudoin.yamllint.LintScanner;
 @Rule(key = "ForbiddenKeyCheck")
 public class ForbiddenKeyCheck extends ForbiddenCheck {
     @Override
-    protected void checkNextToken(LintScanner parser) {
+    protected void checkNextToken(YamlTokens.Cursor cursor) {
         // Just report new error
-        addViolation("Forbidden key found", parser.getToken());
+        addViolation("Forbidden key found", cursor.getTokens(), cursor.getToken());
     }
 }
@@ -15,15 +15,9 @@
  */
 package com.github.sbaudoin.sonar.plugins.yaml.checks;
 
-import com.github.sbaudoin.yamllint.LintScanner;
 import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
-import org.yaml.snakeyaml.tokens.ScalarToken;
 import org.yaml.snakeyaml.tokens.Token;
-import org.yaml.snakeyaml.tokens.ValueToken;
-
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Check to be used that the YAML file does not contain forbidden values
@@ -33,32 +27,31 @@ public class ForbiddenValueCheck extends ForbiddenCheck {
     @RuleProperty(key = "value", description = "Regexp that matches the forbidden value")
     String value;
 
-    Pattern forbiddenValuePattern = null;
+    RegexMemo forbiddenValuePattern = null;
 
     @Override
     protected void initializePatterns() {
         super.initializePatterns();
-        forbiddenValuePattern = Pattern.compile("(?m)" + value);
+        forbiddenValuePattern = RegexMemo.finding("(?m)" + value);
     }
 
     /**
      * Takes the next token and, if it is a key that matches the {@code key-name} regex, analyzes its value against the
      * {@code value} regex, possibly returning an issue if there is a match
      *
-     * @param parser the scanner that holds the tokens
+     * @param cursor the cursor that walks through the tokens
      */
     @Override
-    protected void checkNextToken(LintScanner parser) {
+    protected void checkNextToken(YamlTokens.Cursor cursor) {
+        YamlTokens tokens = cursor.getTokens();
         // Accepted token type: remove it from stack
-        Token t = parser.getToken();
-        if (parser.peekToken() instanceof ValueToken) {
-            parser.getToken();
-            Token t3 = parser.peekToken();
-            if (t3 instanceof ScalarToken) {
-                Matcher m = forbiddenValuePattern.matcher(((ScalarToken)t3).getValue());
-                if (m.find()) {
+        int t = cursor.getToken();
+        if (cursor.peekTokenType() == Token.ID.Value) {
+            cursor.getToken();
+            if (cursor.peekTokenType() == Token.ID.Scalar) {
+                if (forbiddenValuePattern.test(tokens.getValue(cursor.peekToken()))) {
                     // Report new error
-                    addViolation("Forbidden value found", t);
+                    addViolation("Forbidden value found", tokens, t);
                 }
             }
         }
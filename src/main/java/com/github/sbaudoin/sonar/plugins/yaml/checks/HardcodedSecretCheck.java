@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.check.Rule;
+import org.sonar.check.RuleProperty;
+import org.yaml.snakeyaml.tokens.Token;
+
+import java.io.IOException;
+
+/**
+ * Check for hardcoded secrets: every scalar value is scanned once for known credential formats and the values of the
+ * keys that hold secrets (passwords, tokens, etc.) are reported if they look random enough to be actual secrets
+ */
+@Rule(key = "HardcodedSecretCheck")
+public class HardcodedSecretCheck extends YamlCheck {
+    private static final Logger LOGGER = Loggers.get(HardcodedSecretCheck.class);
+
+    /**
+     * Minimal entropy (in bits per character) of a value reported without the context of a secret key
+     */
+    public static final double HIGH_ENTROPY = 4.5;
+
+    /**
+     * Minimal length of a value reported without the context of a secret key
+     */
+    public static final int HIGH_ENTROPY_MIN_LENGTH = 32;
+
+
+    @RuleProperty(key = "secret-keys", description = "Regexp that matches the names of the keys whose values are secrets", defaultValue = "(?i).*(password|passwd|pwd|secret|token|api[-_.]?key|access[-_.]?key|private[-_.]?key|credentials?)")
+    String secretKeys = "(?i).*(password|passwd|pwd|secret|token|api[-_.]?key|access[-_.]?key|private[-_.]?key|credentials?)";
+
+    @RuleProperty(key = "min-length", description = "Minimal length of the values of the secret keys to be reported", defaultValue = "8")
+    int minLength = 8;
+
+    @RuleProperty(key = "min-entropy", description = "Minimal Shannon entropy (in bits per character) of the values of the secret keys to be reported", defaultValue = "2.5")
+    double minEntropy = 2.5;
+
+    @RuleProperty(key = "check-all-values", description = "Also report the long, high-entropy values of any key (\"true\") or not (\"false\", default)", defaultValue = "false")
+    boolean checkAllValues = false;
+
+
+    @Override
+    public void validate() {
+        if (yamlSourceCode == null) {
+            throw new IllegalStateException("Source code not set, cannot validate anything");
+        }
+        try {
+            YamlTokens tokens = yamlSourceCode.getTokens();
+            if (!yamlSourceCode.hasCorrectSyntax()) {
+                LOGGER.warn("Syntax error found, cannot continue checking secrets: " + yamlSourceCode.getSyntaxError().getMessage());
+                return;
+            }
+            RegexMemo secretKeysPattern = secretKeys == null || secretKeys.isEmpty() ? null : RegexMemo.matching(secretKeys);
+
+            String key = null;
+            Token.ID previous = null;
+            for (int t = 0; t < tokens.size(); t++) {
+                Token.ID type = tokens.getType(t);
+                if (type == Token.ID.Scalar) {
+                    String value = tokens.getValue(t);
+                    if (previous == Token.ID.Key) {
+                        key = value;
+                    } else {
+                        boolean secretKey = previous == Token.ID.Value && key != null && secretKeysPattern != null && secretKeysPattern.test(key);
+                        checkValue(tokens, t, value, secretKey ? key : null);
+                    }
+                }
+                previous = type;
+            }
+        } catch (IOException e) {
+            // Should not happen: a first call to getYamlSourceCode().getContent() was done in the constructor of
+            // the YamlSourceCode instance of this check, but in case...
+            LOGGER.warn("Cannot read source code", e);
+        }
+    }
+
+
+    /**
+     * Checks a scalar value
+     *
+     * @param tokens the tokens of the source code
+     * @param token the index of the scalar token
+     * @param value the value of the scalar
+     * @param secretKey the key of the value if it is a secret key, {@code null} otherwise
+     */
+    private void checkValue(YamlTokens tokens, int token, String value, String secretKey) {
+        String format = SecretMatcher.find(value);
+        if (format != null) {
+            addViolation("Hardcoded " + format + " found", tokens, token);
+        } else if (secretKey != null) {
+            if (value.length() >= minLength && !isPlaceholder(value) && SecretMatcher.entropy(value) >= minEntropy) {
+                addViolation("Hardcoded secret found for key '" + secretKey + "'", tokens, token);
+            }
+        } else if (checkAllValues && value.length() >= HIGH_ENTROPY_MIN_LENGTH && !isPlaceholder(value)
+                && value.chars().noneMatch(Character::isWhitespace) && SecretMatcher.entropy(value) >= HIGH_ENTROPY) {
+            addViolation("Hardcoded high-entropy value found", tokens, token);
+        }
+    }
+
+    /**
+     * Tells if the passed value is a reference to a secret rather than a secret: variable or template expression,
+     * encrypted value, file path, etc.
+     *
+     * @param value a scalar value
+     * @return {@code true} if the value is a placeholder
+     */
+    static boolean isPlaceholder(String value) {
+        return value.startsWith("$") || value.startsWith("/") || value.startsWith("ENC[") || value.startsWith("vault:")
+                || (value.startsWith("<") && value.endsWith(">"))
+                || value.contains("${") || value.contains("{{") || value.contains("((") || value.contains("#{");
+    }
+
+    /**
+     * Adds a violation to the analyzed Yaml source for the passed token
+     *
+     * @param message the message that describes the violation
+     * @param tokens the tokens of the analyzed Yaml source
+     * @param token the index of the token for which a violation is to be added
+     */
+    private void addViolation(String message, YamlTokens tokens, int token) {
+        getYamlSourceCode().addViolation(new YamlIssue(getRuleKey(), message, tokens.getLine(token) + 1, tokens.getColumn(token) + 1));
+    }
+}
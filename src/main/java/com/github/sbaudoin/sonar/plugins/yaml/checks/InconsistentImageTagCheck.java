@@ -0,0 +1,57 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import org.sonar.check.Rule;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Check that the container images are used with the same tag throughout the project: the uses of an image with
+ * another tag than its most common tag are reported
+ */
+@Rule(key = "InconsistentImageTagCheck")
+public class InconsistentImageTagCheck extends ProjectCheck {
+    @Override
+    protected void check(ProjectIndex index) {
+        index.forEach(ProjectIndex.Category.IMAGE, (repository, postings) -> {
+            if (postings.size() < 2) {
+                return;
+            }
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            for (int i = 0; i < postings.size(); i++) {
+                counts.merge(postings.getValue(i), 1, Integer::sum);
+            }
+            if (counts.size() < 2) {
+                return;
+            }
+            // Most common tag, the first one found in case of a tie
+            String tag = null;
+            for (Map.Entry<String, Integer> count : counts.entrySet()) {
+                if (tag == null || count.getValue() > counts.get(tag)) {
+                    tag = count.getKey();
+                }
+            }
+            for (int i = 0; i < postings.size(); i++) {
+                if (!tag.equals(postings.getValue(i))) {
+                    addViolation(postings.getFile(i), postings.getLine(i), "Image '" + repository + "' is used with tag '" + postings.getValue(i)
+                            + "' but with tag '" + tag + "' in " + counts.get(tag) + " other place" + (counts.get(tag) > 1 ? "s" : ""));
+                }
+            }
+        });
+    }
+}
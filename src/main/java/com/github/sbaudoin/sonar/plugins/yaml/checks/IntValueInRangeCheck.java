@@ -15,15 +15,13 @@
  */
 package com.github.sbaudoin.sonar.plugins.yaml.checks;
 
-import com.github.sbaudoin.yamllint.LintScanner;
 import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
-import org.yaml.snakeyaml.tokens.ScalarToken;
 import org.yaml.snakeyaml.tokens.Token;
-import org.yaml.snakeyaml.tokens.ValueToken;
 
 /**
- * Check to be used that the YAML file does not contain values out of the specified range
+ * Check to be used that the YAML file does not contain values out of the specified range. Depending on the
+ * {@code value-type} property, the values are integers, decimal numbers or Kubernetes resource quantities.
  */
 @Rule(key = "IntValueInRangeCheck")
 public class IntValueInRangeCheck extends ForbiddenCheck {
@@ -33,30 +31,89 @@ public class IntValueInRangeCheck extends ForbiddenCheck {
     @RuleProperty(key = "maxValue", description = "Maximum value")
     int maxValue;
 
+    @RuleProperty(key = "value-type", description = "Type of the values: int (decimal int), yaml-int (integer in any YAML notation such as 0x1f or 1_000), number or quantity (Kubernetes resource quantity such as 500m or 1Gi)", defaultValue = "int")
+    String valueType = "int";
+
+    @RuleProperty(key = "min-bound", description = "Minimum value, written like the values (e.g. 100m or 64Mi for quantities). Overrides minValue if set")
+    String minBound;
+
+    @RuleProperty(key = "max-bound", description = "Maximum value, written like the values (e.g. 2 or 4Gi for quantities). Overrides maxValue if set")
+    String maxBound;
+
+    private NumericValues.Type type;
+    private double min;
+    private double max;
+    private String rangeMessage;
+    private String parseErrorMessage;
+
+
+    /**
+     * Gets the regular expressions of the parent class, and parses the type of the values and the bounds of the range
+     *
+     * @throws IllegalArgumentException if the type of the values or one of the bounds is invalid
+     */
+    @Override
+    protected void initializePatterns() {
+        super.initializePatterns();
+        type = valueType == null || valueType.trim().isEmpty() ? NumericValues.Type.INT : NumericValues.Type.of(valueType);
+        if (type == null) {
+            throw new IllegalArgumentException("Invalid value-type for int-value-range-check: " + valueType);
+        }
+        String minLabel = isSet(minBound) ? minBound.trim() : String.valueOf(minValue);
+        String maxLabel = isSet(maxBound) ? maxBound.trim() : String.valueOf(maxValue);
+        min = isSet(minBound) ? parseBound("min-bound", minLabel) : minValue;
+        max = isSet(maxBound) ? parseBound("max-bound", maxLabel) : maxValue;
+        rangeMessage = "Value out of range found. Range: min=" + minLabel + " max=" + maxLabel;
+        switch (type) {
+            case NUMBER:
+                parseErrorMessage = "Parse error: Non-numeric value found for int-value-range-check";
+                break;
+            case QUANTITY:
+                parseErrorMessage = "Parse error: Invalid quantity found for int-value-range-check";
+                break;
+            default:
+                parseErrorMessage = "Parse error: Non-integer value found for int-value-range-check";
+        }
+    }
+
+    private double parseBound(String key, String bound) {
+        double value = NumericValues.parse(bound, type);
+        if (Double.isNaN(value)) {
+            throw new IllegalArgumentException("Invalid " + key + " for int-value-range-check: " + bound);
+        }
+        return value;
+    }
+
+    private static boolean isSet(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+
     /**
      * Takes the next token and, if it is a key that matches the {@code key-name} regex, analyzes its value against the
-     * {@code value} regex, possibly returning an issue if there is a match
+     * range, possibly returning an issue if the value is out of the range or is not a value of the expected type.
+     * Template expressions (such as <code>{{ .Values.replicas }}</code>) are not resolved at analysis time and are
+     * therefore ignored.
      *
-     * @param parser the scanner that holds the tokens
+     * @param cursor the cursor that walks through the tokens
      */
     @Override
-    protected void checkNextToken(LintScanner parser) {
+    protected void checkNextToken(YamlTokens.Cursor cursor) {
+        YamlTokens tokens = cursor.getTokens();
         // Accepted token type: remove it from stack
-        Token t = parser.getToken();
-        if (parser.peekToken() instanceof ValueToken) {
-            parser.getToken();
-            Token t3 = parser.peekToken();
-            if (t3 instanceof ScalarToken) {
-                String strVal = ((ScalarToken)t3).getValue();
-                try {
-                    int val = Integer.parseInt(strVal);
-                    if (val < minValue || val > maxValue) {
-                        // Report new error
-                        addViolation("Value out of range found. Range: min=" + minValue + " max=" + maxValue, t);
-                    }
+        int t = cursor.getToken();
+        if (cursor.peekTokenType() == Token.ID.Value) {
+            cursor.getToken();
+            if (cursor.peekTokenType() == Token.ID.Scalar) {
+                String strVal = tokens.getValue(cursor.peekToken());
+                if (strVal.contains("{{")) {
+                    return;
                 }
-                catch(NumberFormatException e) {
-                    addViolation("Parse error: Non-integer value found for int-value-range-check", t);
+                double val = NumericValues.parse(strVal, type);
+                if (Double.isNaN(val)) {
+                    addViolation(parseErrorMessage, tokens, t);
+                } else if (val < min || val > max) {
+                    // Report new error
+                    addViolation(rangeMessage, tokens, t);
                 }
             }
         }
@@ -0,0 +1,90 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import org.sonar.api.rule.RuleKey;
+
+import java.util.Arrays;
+
+/**
+ * Issues of a rule that were not kept because the issue limits of the analyzed file were reached
+ *
+ * @see YamlSourceCode#setIssueLimits(int, int)
+ */
+public class IssueOverflow {
+    /**
+     * Maximum number of lines remembered for the overflowed issues
+     */
+    public static final int MAX_LINES = 100;
+
+    private final RuleKey ruleKey;
+    private int count = 0;
+    private int[] lines = new int[8];
+    private int linesSize = 0;
+
+
+    /**
+     * Constructor
+     *
+     * @param ruleKey the key of the rule whose issues overflowed
+     */
+    public IssueOverflow(RuleKey ruleKey) {
+        this.ruleKey = ruleKey;
+    }
+
+
+    /**
+     * Records an overflowed issue
+     *
+     * @param line the line of the issue. Only the first {@value #MAX_LINES} lines are remembered.
+     */
+    public void add(int line) {
+        count++;
+        if (linesSize < MAX_LINES) {
+            if (linesSize == lines.length) {
+                lines = Arrays.copyOf(lines, Math.min(lines.length * 2, MAX_LINES));
+            }
+            lines[linesSize++] = line;
+        }
+    }
+
+    /**
+     * Returns the key of the rule whose issues overflowed
+     *
+     * @return the key of the rule whose issues overflowed
+     */
+    public RuleKey getRuleKey() {
+        return ruleKey;
+    }
+
+    /**
+     * Returns the number of issues that overflowed
+     *
+     * @return the number of issues that overflowed
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the lines of the first overflowed issues (at most {@value #MAX_LINES})
+     *
+     * @return the lines of the first overflowed issues
+     */
+    public int[] getLines() {
+        return Arrays.copyOf(lines, linesSize);
+    }
+}
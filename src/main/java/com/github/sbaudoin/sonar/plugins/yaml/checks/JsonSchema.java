@@ -0,0 +1,359 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A compiled JSON schema (or sub-schema): the keywords of the schema are read, checked and compiled (regular
+ * expressions, bounds, etc.) once, so that the schema can be applied to any number of YAML documents without being
+ * parsed again.
+ * <p>The following keywords are supported: {@code type}, {@code enum}, {@code const}, {@code minimum},
+ * {@code maximum}, {@code exclusiveMinimum}, {@code exclusiveMaximum} (boolean or numeric), {@code multipleOf},
+ * {@code minLength}, {@code maxLength}, {@code pattern}, {@code properties}, {@code patternProperties},
+ * {@code additionalProperties}, {@code required}, {@code minProperties}, {@code maxProperties}, {@code items}
+ * (schema or array of schemas), {@code prefixItems}, {@code additionalItems}, {@code minItems}, {@code maxItems},
+ * {@code allOf}, {@code anyOf}, {@code oneOf}, {@code not} and {@code $ref}. The other keywords (such as
+ * {@code format}) are ignored. The boolean schemas {@code true} and {@code false} are supported as well.</p>
+ * <p>References ({@code $ref}) are resolved lazily, on first use, and then cached: this is what allows recursive
+ * schemas. Instances are thread-safe.</p>
+ *
+ * @see JsonSchemaCatalog
+ * @see JsonSchemaValidator
+ */
+public final class JsonSchema {
+    private static final Logger LOGGER = Loggers.get(JsonSchema.class);
+
+    /**
+     * The schema every value is valid against
+     */
+    static final JsonSchema TRUE = new JsonSchema(null, "#", true);
+
+    /**
+     * The schema no value is valid against
+     */
+    static final JsonSchema FALSE = new JsonSchema(null, "#", false);
+
+    private final JsonSchemaCatalog.SchemaDocument document;
+    private final String pointer;
+    private final boolean valid;
+
+    Set<String> types = null;
+    List<Object> enumValues = null;
+    double minimum = Double.NaN;
+    double maximum = Double.NaN;
+    double exclusiveMinimum = Double.NaN;
+    double exclusiveMaximum = Double.NaN;
+    double multipleOf = Double.NaN;
+    int minLength = -1;
+    int maxLength = -1;
+    Pattern pattern = null;
+    Map<String, JsonSchema> properties = Collections.emptyMap();
+    Map<Pattern, JsonSchema> patternProperties = Collections.emptyMap();
+    JsonSchema additionalProperties = null;
+    List<String> required = Collections.emptyList();
+    int minProperties = -1;
+    int maxProperties = -1;
+    JsonSchema items = null;
+    List<JsonSchema> prefixItems = Collections.emptyList();
+    int minItems = -1;
+    int maxItems = -1;
+    List<JsonSchema> allOf = Collections.emptyList();
+    List<JsonSchema> anyOf = Collections.emptyList();
+    List<JsonSchema> oneOf = Collections.emptyList();
+    JsonSchema not = null;
+    String ref = null;
+
+    private volatile JsonSchema resolvedRef = null;
+
+
+    private JsonSchema(JsonSchemaCatalog.SchemaDocument document, String pointer, boolean valid) {
+        this.document = document;
+        this.pointer = pointer;
+        this.valid = valid;
+    }
+
+
+    /**
+     * Compiles a schema
+     *
+     * @param document the schema document the schema comes from
+     * @param pointer the JSON pointer of the schema in its document, for the error messages
+     * @param node the schema, as loaded from the document: a boolean or a map
+     * @return the compiled schema
+     * @throws IllegalArgumentException if the schema is invalid
+     */
+    static JsonSchema compile(JsonSchemaCatalog.SchemaDocument document, String pointer, Object node) {
+        if (node instanceof Boolean) {
+            return new JsonSchema(document, pointer, (Boolean) node);
+        }
+        if (!(node instanceof Map)) {
+            throw invalid(document, pointer, "a schema must be an object or a boolean");
+        }
+        Map<?, ?> map = (Map<?, ?>) node;
+        JsonSchema schema = new JsonSchema(document, pointer, true);
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            String keyword = String.valueOf(entry.getKey());
+            schema.compileKeyword(keyword, pointer + "/" + escape(keyword), entry.getValue(), map);
+        }
+        return schema;
+    }
+
+    private void compileKeyword(String keyword, String path, Object value, Map<?, ?> schema) {
+        switch (keyword) {
+            case "type":
+                types = new LinkedHashSet<>();
+                for (Object type : value instanceof List ? (List<?>) value : Collections.singletonList(value)) {
+                    types.add(String.valueOf(type));
+                }
+                break;
+            case "enum":
+                enumValues = new ArrayList<>(toList(path, value));
+                break;
+            case "const":
+                enumValues = Collections.singletonList(value);
+                break;
+            case "minimum":
+                minimum = toNumber(path, value);
+                break;
+            case "maximum":
+                maximum = toNumber(path, value);
+                break;
+            case "exclusiveMinimum":
+                if (value instanceof Boolean) {
+                    // Draft 4: the minimum is exclusive
+                    exclusiveMinimum = Boolean.TRUE.equals(value) && schema.containsKey("minimum") ? toNumber(path, schema.get("minimum")) : Double.NaN;
+                } else {
+                    exclusiveMinimum = toNumber(path, value);
+                }
+                break;
+            case "exclusiveMaximum":
+                if (value instanceof Boolean) {
+                    // Draft 4: the maximum is exclusive
+                    exclusiveMaximum = Boolean.TRUE.equals(value) && schema.containsKey("maximum") ? toNumber(path, schema.get("maximum")) : Double.NaN;
+                } else {
+                    exclusiveMaximum = toNumber(path, value);
+                }
+                break;
+            case "multipleOf":
+                multipleOf = toNumber(path, value);
+                break;
+            case "minLength":
+                minLength = toCount(path, value);
+                break;
+            case "maxLength":
+                maxLength = toCount(path, value);
+                break;
+            case "pattern":
+                pattern = toPattern(path, value);
+                break;
+            case "properties":
+                properties = new LinkedHashMap<>();
+                for (Map.Entry<?, ?> property : toMap(path, value).entrySet()) {
+                    String name = String.valueOf(property.getKey());
+                    properties.put(name, compile(document, path + "/" + escape(name), property.getValue()));
+                }
+                break;
+            case "patternProperties":
+                patternProperties = new LinkedHashMap<>();
+                for (Map.Entry<?, ?> property : toMap(path, value).entrySet()) {
+                    String name = String.valueOf(property.getKey());
+                    patternProperties.put(toPattern(path, name), compile(document, path + "/" + escape(name), property.getValue()));
+                }
+                break;
+            case "additionalProperties":
+                additionalProperties = compile(document, path, value);
+                break;
+            case "required":
+                // Draft 3 used a boolean, which is ignored
+                if (!(value instanceof Boolean)) {
+                    required = new ArrayList<>();
+                    for (Object name : toList(path, value)) {
+                        required.add(String.valueOf(name));
+                    }
+                }
+                break;
+            case "minProperties":
+                minProperties = toCount(path, value);
+                break;
+            case "maxProperties":
+                maxProperties = toCount(path, value);
+                break;
+            case "items":
+                if (value instanceof List) {
+                    // Before draft 2020-12, an array of schemas describes the items by position
+                    prefixItems = compileAll(path, value);
+                    if (items == null) {
+                        items = schema.containsKey("additionalItems") ? null : TRUE;
+                    }
+                } else {
+                    items = compile(document, path, value);
+                }
+                break;
+            case "prefixItems":
+                prefixItems = compileAll(path, value);
+                break;
+            case "additionalItems":
+                if (schema.get("items") instanceof List) {
+                    items = compile(document, path, value);
+                }
+                break;
+            case "minItems":
+                minItems = toCount(path, value);
+                break;
+            case "maxItems":
+                maxItems = toCount(path, value);
+                break;
+            case "allOf":
+                allOf = compileAll(path, value);
+                break;
+            case "anyOf":
+                anyOf = compileAll(path, value);
+                break;
+            case "oneOf":
+                oneOf = compileAll(path, value);
+                break;
+            case "not":
+                not = compile(document, path, value);
+                break;
+            case "$ref":
+                ref = String.valueOf(value);
+                break;
+            default:
+                // Annotations, definitions and unsupported keywords
+                break;
+        }
+    }
+
+
+    /**
+     * Tells if no value is valid against this schema, i.e. if this schema is the boolean schema {@code false}
+     *
+     * @return {@code true} if this schema is {@code false}
+     */
+    boolean isFalse() {
+        return !valid;
+    }
+
+    /**
+     * Returns the schema referenced by the {@code $ref} keyword of this schema. The reference is resolved on the first
+     * call. A reference that cannot be resolved is logged and then ignored, i.e. it is replaced with the schema
+     * {@code true}.
+     *
+     * @return the referenced schema, or {@code null} if this schema has no reference
+     */
+    JsonSchema getRefSchema() {
+        if (ref == null) {
+            return null;
+        }
+        JsonSchema schema = resolvedRef;
+        if (schema == null) {
+            try {
+                schema = document.resolve(ref);
+            } catch (IllegalArgumentException e) {
+                LOGGER.warn(e.getMessage());
+                schema = TRUE;
+            }
+            resolvedRef = schema;
+        }
+        return schema;
+    }
+
+    /**
+     * Returns the location of this schema, made of the schema file and of the JSON pointer of the schema in the file
+     *
+     * @return the location of this schema
+     */
+    String getLocation() {
+        return document == null ? pointer : document.getFile().getName() + pointer;
+    }
+
+    @Override
+    public String toString() {
+        return getLocation();
+    }
+
+
+    private List<JsonSchema> compileAll(String path, Object value) {
+        List<?> list = toList(path, value);
+        List<JsonSchema> schemas = new ArrayList<>(list.size());
+        for (int i = 0; i < list.size(); i++) {
+            schemas.add(compile(document, path + "/" + i, list.get(i)));
+        }
+        return schemas;
+    }
+
+    private List<?> toList(String path, Object value) {
+        if (!(value instanceof List)) {
+            throw invalid(document, path, "an array is expected");
+        }
+        return (List<?>) value;
+    }
+
+    private Map<?, ?> toMap(String path, Object value) {
+        if (!(value instanceof Map)) {
+            throw invalid(document, path, "an object is expected");
+        }
+        return (Map<?, ?>) value;
+    }
+
+    private double toNumber(String path, Object value) {
+        if (!(value instanceof Number)) {
+            throw invalid(document, path, "a number is expected");
+        }
+        return ((Number) value).doubleValue();
+    }
+
+    private int toCount(String path, Object value) {
+        if (!(value instanceof Number) || ((Number) value).intValue() < 0) {
+            throw invalid(document, path, "a non-negative integer is expected");
+        }
+        return ((Number) value).intValue();
+    }
+
+    private Pattern toPattern(String path, Object value) {
+        try {
+            return Pattern.compile(String.valueOf(value));
+        } catch (PatternSyntaxException e) {
+            throw invalid(document, path, "invalid regular expression: " + e.getDescription());
+        }
+    }
+
+    private static IllegalArgumentException invalid(JsonSchemaCatalog.SchemaDocument document, String path, String reason) {
+        return new IllegalArgumentException("Invalid JSON schema " + (document == null ? "" : document.getFile().getName()) + path + ": " + reason);
+    }
+
+    /**
+     * Escapes a property name so that it can be used in a JSON pointer
+     *
+     * @param name a property name
+     * @return the escaped name
+     */
+    static String escape(String name) {
+        return name.replace("~", "~0").replace("/", "~1");
+    }
+}
@@ -0,0 +1,196 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.error.YAMLException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Catalog of the local JSON schema files: every schema file (JSON or YAML) is read and compiled once and shared between
+ * the checks and the analyzed files. A file is read again only if it has changed since it was last read. The schema
+ * files referenced by the {@code $ref} keywords are loaded through the catalog as well, so that they are also compiled
+ * only once. Remote schemas are not supported: the analysis does not need any network access.
+ * <p>This class is thread-safe.</p>
+ */
+public final class JsonSchemaCatalog {
+    private static final Logger LOGGER = Loggers.get(JsonSchemaCatalog.class);
+
+    private static final Map<String, SchemaDocument> DOCUMENTS = new ConcurrentHashMap<>();
+
+
+    /**
+     * Hide constructor
+     */
+    private JsonSchemaCatalog() {
+    }
+
+
+    /**
+     * Returns the compiled schema of the passed schema file
+     *
+     * @param file a JSON schema file, in JSON or YAML
+     * @return the compiled schema
+     * @throws IllegalArgumentException if the file cannot be read or if it does not contain a valid schema
+     */
+    public static JsonSchema load(File file) {
+        return getDocument(file).getRoot();
+    }
+
+    /**
+     * Returns the (possibly cached) schema document of the passed file
+     *
+     * @param file a JSON schema file
+     * @return the schema document of the file
+     */
+    static SchemaDocument getDocument(File file) {
+        File normalized = file.getAbsoluteFile().toPath().normalize().toFile();
+        long lastModified = normalized.lastModified();
+        long length = normalized.length();
+        return DOCUMENTS.compute(normalized.getPath(), (path, document) ->
+                document == null || document.lastModified != lastModified || document.length != length
+                        ? new SchemaDocument(normalized, lastModified, length)
+                        : document);
+    }
+
+
+    /**
+     * A schema file read and compiled. The fragments of the file referenced by {@code $ref} keywords (such as
+     * {@code #/definitions/foo}) are compiled on first use and cached.
+     */
+    static final class SchemaDocument {
+        private final File file;
+        private final long lastModified;
+        private final long length;
+        private final Object tree;
+        private final JsonSchema root;
+        private final IllegalArgumentException error;
+        private final Map<String, JsonSchema> fragments = new ConcurrentHashMap<>();
+
+
+        private SchemaDocument(File file, long lastModified, long length) {
+            this.file = file;
+            this.lastModified = lastModified;
+            this.length = length;
+            Object loaded = null;
+            JsonSchema compiled = null;
+            IllegalArgumentException failure = null;
+            try (InputStream in = Files.newInputStream(file.toPath()); Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                loaded = new Yaml(new SafeConstructor(new LoaderOptions())).load(reader);
+                compiled = JsonSchema.compile(this, "#", loaded);
+            } catch (IOException | YAMLException e) {
+                failure = new IllegalArgumentException("Cannot read JSON schema " + file + ": " + (e instanceof NoSuchFileException ? "file not found" : e.getMessage()), e);
+            } catch (IllegalArgumentException e) {
+                failure = e;
+            }
+            if (failure != null) {
+                LOGGER.warn(failure.getMessage());
+            } else {
+                LOGGER.debug("JSON schema {} compiled", file);
+            }
+            this.tree = loaded;
+            this.root = compiled;
+            this.error = failure;
+        }
+
+
+        /**
+         * Returns the schema file
+         *
+         * @return the schema file
+         */
+        File getFile() {
+            return file;
+        }
+
+        /**
+         * Returns the root schema of this document
+         *
+         * @return the root schema
+         * @throws IllegalArgumentException if the document could not be read or compiled
+         */
+        JsonSchema getRoot() {
+            if (error != null) {
+                throw error;
+            }
+            return root;
+        }
+
+        /**
+         * Resolves a reference found in this document: {@code #/json/pointer}, {@code other.json} or
+         * {@code other.json#/json/pointer}, the file names being relative to the directory of this document
+         *
+         * @param ref the value of a {@code $ref} keyword
+         * @return the referenced schema
+         * @throws IllegalArgumentException if the reference cannot be resolved
+         */
+        JsonSchema resolve(String ref) {
+            int hash = ref.indexOf('#');
+            String location = hash < 0 ? ref : ref.substring(0, hash);
+            String fragment = hash < 0 ? "" : ref.substring(hash + 1);
+            SchemaDocument target = this;
+            if (!location.isEmpty()) {
+                if (location.contains("://")) {
+                    throw new IllegalArgumentException("Cannot resolve $ref " + ref + " in " + file + ": remote schemas are not supported");
+                }
+                File targetFile = new File(location);
+                target = getDocument(targetFile.isAbsolute() ? targetFile : new File(file.getParentFile(), location));
+            }
+            return target.getFragment(ref, fragment);
+        }
+
+        private JsonSchema getFragment(String ref, String fragment) {
+            JsonSchema schema = getRoot();
+            if (fragment.isEmpty() || "/".equals(fragment)) {
+                return schema;
+            }
+            if (!fragment.startsWith("/")) {
+                throw new IllegalArgumentException("Cannot resolve $ref " + ref + " in " + file + ": only JSON pointers are supported");
+            }
+            return fragments.computeIfAbsent(fragment, f -> JsonSchema.compile(this, "#" + f, navigate(ref, f)));
+        }
+
+        private Object navigate(String ref, String pointer) {
+            Object node = tree;
+            for (String token : pointer.substring(1).split("/", -1)) {
+                String name = token.replace("~1", "/").replace("~0", "~");
+                if (node instanceof Map && ((Map<?, ?>) node).containsKey(name)) {
+                    node = ((Map<?, ?>) node).get(name);
+                } else if (node instanceof List && name.matches("\\d{1,9}") && Integer.parseInt(name) < ((List<?>) node).size()) {
+                    node = ((List<?>) node).get(Integer.parseInt(name));
+                } else {
+                    throw new IllegalArgumentException("Cannot resolve $ref " + ref + " in " + file + ": not found");
+                }
+            }
+            return node;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.check.Rule;
+import org.sonar.check.RuleProperty;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.DocumentStartEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.ScalarEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Iterator;
+
+/**
+ * Check that the YAML documents are valid against a local JSON schema. The schema is compiled once per analysis and
+ * shared by all the files; the documents are validated as they are parsed.
+ * <p>Use the {@code included-files} property to map the schema to the files it describes.</p>
+ *
+ * @see JsonSchemaCatalog
+ * @see JsonSchemaValidator
+ */
+@Rule(key = "JsonSchemaCheck")
+public class JsonSchemaCheck extends YamlCheck {
+    private static final Logger LOGGER = Loggers.get(JsonSchemaCheck.class);
+
+    @RuleProperty(key = "schema", description = "Path of the JSON schema file (in JSON or YAML) the documents must be valid against, absolute or relative to the project base directory")
+    String schema;
+
+    @RuleProperty(key = "document-selector", description = "Comma-separated list of the kinds of the documents this rule applies to, possibly prefixed by their API version, for example 'Deployment,StatefulSet' or 'networking.k8s.io/v1/Ingress'. Leave empty to apply the rule to all documents.")
+    String documentSelector;
+
+
+    @Override
+    public void validate() {
+        if (yamlSourceCode == null) {
+            throw new IllegalStateException("Source code not set, cannot validate anything");
+        }
+        if (schema == null || schema.trim().isEmpty()) {
+            return;
+        }
+        try {
+            YamlTokens tokens = yamlSourceCode.getTokens();
+            if (!yamlSourceCode.hasCorrectSyntax()) {
+                LOGGER.warn("Syntax error found, cannot continue checking the schema: " + yamlSourceCode.getSyntaxError().getMessage());
+                return;
+            }
+            JsonSchema compiled;
+            try {
+                compiled = JsonSchemaCatalog.load(getSchemaFile());
+            } catch (IllegalArgumentException e) {
+                // Already logged when the schema was loaded
+                LOGGER.debug("Schema not available, cannot check schema: {}", e.getMessage());
+                return;
+            }
+            validate(tokens, compiled, DocumentSelector.of(documentSelector));
+        } catch (IOException e) {
+            // Should not happen: a first call to getYamlSourceCode().getContent() was done in the constructor of
+            // the YamlSourceCode instance of this check, but in case...
+            LOGGER.warn("Cannot read source code", e);
+        } catch (YAMLException e) {
+            LOGGER.debug("Parsing stopped on syntax error: {}", e.getMessage());
+        }
+    }
+
+
+    /**
+     * Returns the schema file, resolving its path against the base directory of the project if it is relative
+     *
+     * @return the schema file
+     */
+    File getSchemaFile() {
+        File file = new File(schema.trim());
+        if (!file.isAbsolute() && yamlSourceCode.getBaseDir() != null) {
+            return new File(yamlSourceCode.getBaseDir(), schema.trim());
+        }
+        return file;
+    }
+
+    /**
+     * Validates the documents of the source code against the schema
+     *
+     * @param tokens the tokens of the analyzed YAML source
+     * @param compiled the compiled schema
+     * @param selector the selector of the documents to be validated, {@code null} to validate all documents
+     * @throws IOException if the source code cannot be read
+     */
+    private void validate(YamlTokens tokens, JsonSchema compiled, DocumentSelector selector) throws IOException {
+        YamlDocuments documents = selector == null ? null : yamlSourceCode.getDocuments();
+        int document = 0;
+        Iterator<Event> events = parse(yamlSourceCode.getContent());
+        while (events.hasNext()) {
+            if (!(events.next() instanceof DocumentStartEvent)) {
+                continue;
+            }
+            Event root = events.next();
+            JsonSchema documentSchema = compiled;
+            if (isEmpty(root)) {
+                documentSchema = JsonSchema.TRUE;
+            } else if (selector != null) {
+                int line = root.getStartMark().getLine();
+                while (document + 1 < documents.size() && tokens.getLine(documents.getStartToken(document + 1)) <= line) {
+                    document++;
+                }
+                if (document >= documents.size() || !selector.matches(documents, document)) {
+                    documentSchema = JsonSchema.TRUE;
+                }
+            }
+            for (JsonSchemaValidator.Violation violation : JsonSchemaValidator.validate(documentSchema, root, events)) {
+                addViolation(violation);
+            }
+        }
+    }
+
+    /**
+     * Returns the parser events of the passed source code. The events are produced as they are consumed.
+     */
+    private static Iterator<Event> parse(String content) {
+        LoaderOptions options = new LoaderOptions();
+        // Large files are handled by the sensor, which may not analyze them
+        options.setCodePointLimit(Integer.MAX_VALUE);
+        return new Yaml(options).parse(new StringReader(content)).iterator();
+    }
+
+    /**
+     * Tells if the passed root event is the one of an empty document
+     */
+    private static boolean isEmpty(Event root) {
+        return root instanceof ScalarEvent && ((ScalarEvent) root).getValue().isEmpty() && ((ScalarEvent) root).getImplicit().canOmitTagInPlainScalar();
+    }
+
+    /**
+     * Adds a violation to the analyzed Yaml source
+     *
+     * @param violation a schema violation
+     */
+    private void addViolation(JsonSchemaValidator.Violation violation) {
+        String location = violation.getPath().isEmpty() ? "" : " at " + violation.getPath();
+        getYamlSourceCode().addViolation(new YamlIssue(getRuleKey(), "Schema violation" + location + ": " + violation.getMessage(), violation.getLine(), violation.getColumn()));
+    }
+}
@@ -0,0 +1,528 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import org.yaml.snakeyaml.error.Mark;
+import org.yaml.snakeyaml.events.AliasEvent;
+import org.yaml.snakeyaml.events.CollectionEndEvent;
+import org.yaml.snakeyaml.events.CollectionStartEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.MappingEndEvent;
+import org.yaml.snakeyaml.events.MappingStartEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.events.SequenceEndEvent;
+import org.yaml.snakeyaml.events.SequenceStartEvent;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Validator of YAML documents against a {@link JsonSchema}. The document is validated as it is parsed, from its parser
+ * events: the document is never loaded in memory, only the schemas that apply to the current node and the keys of the
+ * current mappings are kept. The schemas of the keywords {@code anyOf}, {@code oneOf} and {@code not} are all applied
+ * at once to the nodes, their violations being recorded separately until the end of the nodes.
+ * <p>Scalars are typed as per the YAML 1.1 rules: {@code 12} is an integer but {@code "12"} is a string,
+ * {@code yes} is a boolean, etc. The aliases are not validated (the anchored nodes are, where they are defined) and
+ * neither are the values of the merge keys ({@code <<}). The {@code required} and {@code minProperties} keywords are
+ * not checked on mappings with merge keys. Values with template expressions ({@code {{ ... }}}) are ignored.</p>
+ */
+public final class JsonSchemaValidator {
+    /**
+     * Maximum number of {@code $ref} or {@code allOf} schemas chained on a single node: references that do not go
+     * down into the document, such as {@code {"$ref": "#"}}, would loop forever otherwise
+     */
+    public static final int MAX_DEPTH = 32;
+
+    private static final Resolver RESOLVER = new Resolver();
+    private static final String MERGE_KEY = "<<";
+
+    private final Iterator<Event> events;
+
+
+    private JsonSchemaValidator(Iterator<Event> events) {
+        this.events = events;
+    }
+
+
+    /**
+     * Validates a node against a schema. The events of the node, and only them, are consumed.
+     *
+     * @param schema the schema the node must be valid against
+     * @param node the first event of the node (typically, the event that follows the start of a document), already
+     *             consumed
+     * @param events the parser events that follow {@code node}
+     * @return the violations found, in the order of the document
+     */
+    public static List<Violation> validate(JsonSchema schema, Event node, Iterator<Event> events) {
+        Sink root = new Sink();
+        new JsonSchemaValidator(events).node(Collections.singletonList(new Frame(schema, root)), "", node);
+        root.violations.sort((v1, v2) -> v1.line != v2.line ? Integer.compare(v1.line, v2.line) : Integer.compare(v1.column, v2.column));
+        return root.violations;
+    }
+
+
+    private void node(List<Frame> frames, String path, Event event) {
+        if (frames.isEmpty()) {
+            // No schema applies to this node: its content is not validated
+            skip(event);
+            return;
+        }
+        List<Frame> applied = new ArrayList<>();
+        List<Combinator> combinators = new ArrayList<>();
+        for (Frame frame : frames) {
+            expand(frame.schema, frame.sink, applied, combinators, 0);
+        }
+        for (Frame frame : applied) {
+            if (frame.schema.isFalse()) {
+                frame.sink.add(path, "no value is allowed here", event.getStartMark());
+            }
+        }
+
+        if (event instanceof ScalarEvent) {
+            scalar(applied, path, (ScalarEvent) event);
+        } else if (event instanceof MappingStartEvent) {
+            mapping(applied, path, event);
+        } else if (event instanceof SequenceStartEvent) {
+            sequence(applied, path, event);
+        }
+
+        // Nested combinators come after their parent: evaluate them first
+        for (int i = combinators.size() - 1; i >= 0; i--) {
+            combinators.get(i).evaluate(path, event.getStartMark());
+        }
+    }
+
+    private static void expand(JsonSchema schema, Sink sink, List<Frame> applied, List<Combinator> combinators, int depth) {
+        if (depth > MAX_DEPTH) {
+            return;
+        }
+        applied.add(new Frame(schema, sink));
+        JsonSchema ref = schema.getRefSchema();
+        if (ref != null) {
+            expand(ref, sink, applied, combinators, depth + 1);
+        }
+        for (JsonSchema s : schema.allOf) {
+            expand(s, sink, applied, combinators, depth + 1);
+        }
+        if (!schema.anyOf.isEmpty()) {
+            branch(Combinator.Kind.ANY_OF, schema.anyOf, sink, applied, combinators, depth);
+        }
+        if (!schema.oneOf.isEmpty()) {
+            branch(Combinator.Kind.ONE_OF, schema.oneOf, sink, applied, combinators, depth);
+        }
+        if (schema.not != null) {
+            branch(Combinator.Kind.NOT, Collections.singletonList(schema.not), sink, applied, combinators, depth);
+        }
+    }
+
+    private static void branch(Combinator.Kind kind, List<JsonSchema> schemas, Sink sink, List<Frame> applied, List<Combinator> combinators, int depth) {
+        Combinator combinator = new Combinator(kind, sink);
+        combinators.add(combinator);
+        for (JsonSchema s : schemas) {
+            Sink branch = new Sink();
+            combinator.branches.add(branch);
+            expand(s, branch, applied, combinators, depth + 1);
+        }
+    }
+
+
+    private void scalar(List<Frame> applied, String path, ScalarEvent event) {
+        String value = event.getValue();
+        if (value.contains("{{")) {
+            return;
+        }
+        String type = getType(event);
+        double number = "integer".equals(type) || "number".equals(type) ? NumericValues.parse(value, NumericValues.Type.NUMBER) : Double.NaN;
+        boolean integer = "integer".equals(type) || (!Double.isNaN(number) && !Double.isInfinite(number) && number == Math.rint(number));
+        Mark mark = event.getStartMark();
+        for (Frame frame : applied) {
+            JsonSchema schema = frame.schema;
+            if (schema.types != null && !matchesType(schema.types, type, integer)) {
+                frame.sink.add(path, "expected " + describe(schema.types) + " but found " + type, mark);
+            }
+            if (schema.enumValues != null && !isEnumValue(schema.enumValues, type, value, number)) {
+                frame.sink.add(path, "unexpected value '" + value + "', expected " + describeValues(schema.enumValues), mark);
+            }
+            if (!Double.isNaN(number)) {
+                checkNumber(frame, path, value, number, mark);
+            } else if ("string".equals(type)) {
+                checkString(frame, path, value, mark);
+            }
+        }
+    }
+
+    private static void checkNumber(Frame frame, String path, String value, double number, Mark mark) {
+        JsonSchema schema = frame.schema;
+        if (number < schema.minimum) {
+            frame.sink.add(path, "value " + value + " is less than the minimum " + format(schema.minimum), mark);
+        }
+        if (number > schema.maximum) {
+            frame.sink.add(path, "value " + value + " is greater than the maximum " + format(schema.maximum), mark);
+        }
+        if (number <= schema.exclusiveMinimum) {
+            frame.sink.add(path, "value " + value + " is not greater than " + format(schema.exclusiveMinimum), mark);
+        }
+        if (number >= schema.exclusiveMaximum) {
+            frame.sink.add(path, "value " + value + " is not less than " + format(schema.exclusiveMaximum), mark);
+        }
+        if (schema.multipleOf > 0) {
+            double quotient = number / schema.multipleOf;
+            if (Math.abs(quotient - Math.rint(quotient)) > 1e-9) {
+                frame.sink.add(path, "value " + value + " is not a multiple of " + format(schema.multipleOf), mark);
+            }
+        }
+    }
+
+    private static void checkString(Frame frame, String path, String value, Mark mark) {
+        JsonSchema schema = frame.schema;
+        if (schema.minLength >= 0 || schema.maxLength >= 0) {
+            int length = value.codePointCount(0, value.length());
+            if (schema.minLength >= 0 && length < schema.minLength) {
+                frame.sink.add(path, "string is shorter than " + schema.minLength + " characters", mark);
+            }
+            if (schema.maxLength >= 0 && length > schema.maxLength) {
+                frame.sink.add(path, "string is longer than " + schema.maxLength + " characters", mark);
+            }
+        }
+        if (schema.pattern != null && !schema.pattern.matcher(value).find()) {
+            frame.sink.add(path, "string does not match the pattern '" + schema.pattern.pattern() + "'", mark);
+        }
+    }
+
+
+    private void mapping(List<Frame> applied, String path, Event start) {
+        for (Frame frame : applied) {
+            checkStructure(frame, path, "object", start);
+        }
+
+        Set<String> keys = new HashSet<>();
+        boolean merged = false;
+        Event keyEvent;
+        while (!((keyEvent = events.next()) instanceof MappingEndEvent)) {
+            if (!(keyEvent instanceof ScalarEvent)) {
+                // Complex or aliased key: the entry cannot be matched against the properties of the schema
+                skip(keyEvent);
+                node(Collections.emptyList(), path, events.next());
+                continue;
+            }
+            ScalarEvent keyScalar = (ScalarEvent) keyEvent;
+            String key = keyScalar.getValue();
+            if (MERGE_KEY.equals(key) && keyScalar.getImplicit().canOmitTagInPlainScalar()) {
+                merged = true;
+                node(Collections.emptyList(), path, events.next());
+                continue;
+            }
+            keys.add(key);
+            String childPath = path + "/" + JsonSchema.escape(key);
+            List<Frame> children = new ArrayList<>();
+            for (Frame frame : applied) {
+                if (!frame.schema.isFalse()) {
+                    addPropertySchemas(frame, key, childPath, keyEvent.getStartMark(), children);
+                }
+            }
+            node(children, childPath, events.next());
+        }
+
+        for (Frame frame : applied) {
+            JsonSchema schema = frame.schema;
+            if (!merged) {
+                for (String name : schema.required) {
+                    if (!keys.contains(name)) {
+                        frame.sink.add(path, "missing required property '" + name + "'", start.getStartMark());
+                    }
+                }
+                if (schema.minProperties >= 0 && keys.size() < schema.minProperties) {
+                    frame.sink.add(path, "object has fewer than " + schema.minProperties + " properties", start.getStartMark());
+                }
+            }
+            if (schema.maxProperties >= 0 && keys.size() > schema.maxProperties) {
+                frame.sink.add(path, "object has more than " + schema.maxProperties + " properties", start.getStartMark());
+            }
+        }
+    }
+
+    private static void addPropertySchemas(Frame frame, String key, String childPath, Mark keyMark, List<Frame> children) {
+        JsonSchema schema = frame.schema;
+        List<JsonSchema> matched = new ArrayList<>(1);
+        JsonSchema property = schema.properties.get(key);
+        if (property != null) {
+            matched.add(property);
+        }
+        for (Map.Entry<Pattern, JsonSchema> patternProperty : schema.patternProperties.entrySet()) {
+            if (patternProperty.getKey().matcher(key).find()) {
+                matched.add(patternProperty.getValue());
+            }
+        }
+        if (matched.isEmpty() && schema.additionalProperties != null) {
+            matched.add(schema.additionalProperties);
+        }
+        for (JsonSchema child : matched) {
+            if (child.isFalse()) {
+                frame.sink.add(childPath, "property '" + key + "' is not allowed", keyMark);
+            } else {
+                children.add(new Frame(child, frame.sink));
+            }
+        }
+    }
+
+    private void sequence(List<Frame> applied, String path, Event start) {
+        for (Frame frame : applied) {
+            checkStructure(frame, path, "array", start);
+        }
+
+        int count = 0;
+        Event itemEvent;
+        while (!((itemEvent = events.next()) instanceof SequenceEndEvent)) {
+            List<Frame> children = new ArrayList<>();
+            for (Frame frame : applied) {
+                JsonSchema schema = frame.schema;
+                JsonSchema item = count < schema.prefixItems.size() ? schema.prefixItems.get(count) : schema.items;
+                if (item != null && !schema.isFalse()) {
+                    children.add(new Frame(item, frame.sink));
+                }
+            }
+            node(children, path + "/" + count, itemEvent);
+            count++;
+        }
+
+        for (Frame frame : applied) {
+            JsonSchema schema = frame.schema;
+            if (schema.minItems >= 0 && count < schema.minItems) {
+                frame.sink.add(path, "array has fewer than " + schema.minItems + " items", start.getStartMark());
+            }
+            if (schema.maxItems >= 0 && count > schema.maxItems) {
+                frame.sink.add(path, "array has more than " + schema.maxItems + " items", start.getStartMark());
+            }
+        }
+    }
+
+    private static void checkStructure(Frame frame, String path, String type, Event start) {
+        JsonSchema schema = frame.schema;
+        if (schema.types != null && !schema.types.contains(type)) {
+            frame.sink.add(path, "expected " + describe(schema.types) + " but found " + type, start.getStartMark());
+        }
+        if (schema.enumValues != null && schema.enumValues.stream().noneMatch(v -> v instanceof Map || v instanceof List)) {
+            // Structured values cannot be compared without loading them: only the obvious mismatches are reported
+            frame.sink.add(path, "unexpected " + type + ", expected " + describeValues(schema.enumValues), start.getStartMark());
+        }
+    }
+
+    /**
+     * Consumes the remaining events of a node
+     *
+     * @param first the first event of the node, already consumed
+     */
+    private void skip(Event first) {
+        if (!(first instanceof CollectionStartEvent)) {
+            return;
+        }
+        int depth = 1;
+        while (depth > 0) {
+            Event event = events.next();
+            if (event instanceof CollectionStartEvent) {
+                depth++;
+            } else if (event instanceof CollectionEndEvent) {
+                depth--;
+            }
+        }
+    }
+
+
+    /**
+     * Returns the JSON type of a scalar: {@code null}, {@code boolean}, {@code integer}, {@code number} or
+     * {@code string}
+     *
+     * @param event a scalar event
+     * @return the JSON type of the scalar
+     */
+    static String getType(ScalarEvent event) {
+        String tag = event.getTag();
+        if (tag == null || "!".equals(tag)) {
+            tag = event.getImplicit().canOmitTagInPlainScalar() ? RESOLVER.resolve(NodeId.scalar, event.getValue(), true).getValue() : Tag.STR.getValue();
+        }
+        if (Tag.NULL.getValue().equals(tag)) {
+            return "null";
+        } else if (Tag.BOOL.getValue().equals(tag)) {
+            return "boolean";
+        } else if (Tag.INT.getValue().equals(tag)) {
+            return "integer";
+        } else if (Tag.FLOAT.getValue().equals(tag)) {
+            return "number";
+        }
+        return "string";
+    }
+
+    private static boolean matchesType(Set<String> types, String type, boolean integer) {
+        return types.contains(type)
+                || ("integer".equals(type) && types.contains("number"))
+                || ("number".equals(type) && integer && types.contains("integer"));
+    }
+
+    private static boolean isEnumValue(List<Object> values, String type, String value, double number) {
+        for (Object expected : values) {
+            if (expected == null ? "null".equals(type)
+                    : expected instanceof Boolean ? "boolean".equals(type) && expected.equals(isTrue(value))
+                    : expected instanceof Number ? ((Number) expected).doubleValue() == number
+                    : expected instanceof String && "string".equals(type) && expected.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isTrue(String value) {
+        String lower = value.toLowerCase();
+        return "true".equals(lower) || "yes".equals(lower) || "on".equals(lower);
+    }
+
+    private static String describe(Set<String> types) {
+        return types.size() == 1 ? types.iterator().next() : "one of " + types;
+    }
+
+    private static String describeValues(List<Object> values) {
+        return values.size() == 1 ? String.valueOf(values.get(0)) : "one of " + values;
+    }
+
+    private static String format(double number) {
+        return number == Math.rint(number) && Math.abs(number) < 1e15 ? Long.toString((long) number) : Double.toString(number);
+    }
+
+
+    /**
+     * A violation of a schema
+     */
+    public static final class Violation {
+        private final String path;
+        private final String message;
+        private final int line;
+        private final int column;
+
+
+        private Violation(String path, String message, int line, int column) {
+            this.path = path;
+            this.message = message;
+            this.line = line;
+            this.column = column;
+        }
+
+
+        /**
+         * Returns the JSON pointer of the invalid node, such as {@code /spec/replicas} (empty for the root node)
+         *
+         * @return the JSON pointer of the invalid node
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * Returns the description of the violation
+         *
+         * @return the description of the violation
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * Returns the line of the violation
+         *
+         * @return the line of the violation, starting at 1
+         */
+        public int getLine() {
+            return line;
+        }
+
+        /**
+         * Returns the column of the violation
+         *
+         * @return the column of the violation, starting at 1
+         */
+        public int getColumn() {
+            return column;
+        }
+
+        @Override
+        public String toString() {
+            return (path.isEmpty() ? "/" : path) + ": " + message + " (line " + line + ")";
+        }
+    }
+
+    /**
+     * Violations found against a schema, or against a branch of a combinator
+     */
+    private static final class Sink {
+        private final List<Violation> violations = new ArrayList<>();
+
+        void add(String path, String message, Mark mark) {
+            violations.add(new Violation(path, message, mark.getLine() + 1, mark.getColumn() + 1));
+        }
+
+        boolean isValid() {
+            return violations.isEmpty();
+        }
+    }
+
+    /**
+     * A schema applied to a node, with the sink of its violations
+     */
+    private static final class Frame {
+        private final JsonSchema schema;
+        private final Sink sink;
+
+        Frame(JsonSchema schema, Sink sink) {
+            this.schema = schema;
+            this.sink = sink;
+        }
+    }
+
+    /**
+     * A combinator ({@code anyOf}, {@code oneOf} or {@code not}) applied to a node: its branches are validated
+     * separately and the result is reported when the node ends
+     */
+    private static final class Combinator {
+        enum Kind { ANY_OF, ONE_OF, NOT }
+
+        private final Kind kind;
+        private final Sink sink;
+        private final List<Sink> branches = new ArrayList<>();
+
+        Combinator(Kind kind, Sink sink) {
+            this.kind = kind;
+            this.sink = sink;
+        }
+
+        void evaluate(String path, Mark mark) {
+            int valid = (int) branches.stream().filter(Sink::isValid).count();
+            if (kind == Kind.ANY_OF && valid == 0) {
+                sink.add(path, "value does not match any of the schemas of anyOf", mark);
+            } else if (kind == Kind.ONE_OF && valid != 1) {
+                sink.add(path, valid == 0 ? "value does not match any of the schemas of oneOf" : "value matches " + valid + " schemas of oneOf instead of one", mark);
+            } else if (kind == Kind.NOT && valid == 1) {
+                sink.add(path, "value must not match the schema of not", mark);
+            }
+        }
+    }
+}
@@ -18,6 +18,8 @@ package com.github.sbaudoin.sonar.plugins.yaml.checks;
 import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
 
+import java.io.IOException;
+
 /**
  * Check for line length
  */
@@ -31,4 +33,17 @@ public class LineLengthCheck extends YamlLintCheck {
 
     @RuleProperty(key = "allow-non-breakable-inline-mappings", description = "Implies allow-non-breakable-words and extends it to also allow non-breakable words in inline mappings", defaultValue = "false")
     boolean allowNonBreakableInlineMappings;
+
+
+    /**
+     * Tells if the longest line may exceed the maximum length. Line lengths are counted in characters, which is never
+     * less than the number of code points counted by YAML Lint.
+     *
+     * @return {@code false} if no line is longer than the maximum length, {@code true} otherwise
+     * @throws IOException if an error occurred reading the source code
+     */
+    @Override
+    protected boolean mayRaiseIssues() throws IOException {
+        return config != null || getYamlSourceCode().getLines().getMaxLineLength() > max;
+    }
 }
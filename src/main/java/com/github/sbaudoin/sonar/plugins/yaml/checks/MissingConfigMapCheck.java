@@ -0,0 +1,62 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.check.Rule;
+
+/**
+ * Check that the ConfigMaps referenced by the Kubernetes resources ({@code configMapRef}, {@code configMapKeyRef} and
+ * {@code configMap} volumes that are not optional) are defined in the project, in the same namespace. Resources or
+ * ConfigMaps without namespace match any namespace.
+ */
+@Rule(key = "MissingConfigMapCheck")
+public class MissingConfigMapCheck extends ProjectCheck {
+    private static final Logger LOGGER = Loggers.get(MissingConfigMapCheck.class);
+
+
+    @Override
+    protected void check(ProjectIndex index) {
+        if (index.isTruncated()) {
+            // Some ConfigMaps may not have been indexed
+            LOGGER.warn("Project index incomplete, cannot check the ConfigMap references");
+            return;
+        }
+        index.forEach(ProjectIndex.Category.CONFIG_MAP_REFERENCE, (name, references) -> {
+            ProjectIndex.Postings definitions = index.get(ProjectIndex.Category.CONFIG_MAP, name);
+            for (int i = 0; i < references.size(); i++) {
+                if (!isDefined(definitions, references.getValue(i))) {
+                    String namespace = references.getValue(i);
+                    addViolation(references.getFile(i), references.getLine(i), "ConfigMap '" + name + "' is not defined" + (namespace.isEmpty() ? "" : " in namespace '" + namespace + "'"));
+                }
+            }
+        });
+    }
+
+    private static boolean isDefined(ProjectIndex.Postings definitions, String namespace) {
+        if (definitions == null) {
+            return false;
+        }
+        for (int i = 0; i < definitions.size(); i++) {
+            String definitionNamespace = definitions.getValue(i);
+            if (namespace.isEmpty() || definitionNamespace.isEmpty() || namespace.equals(definitionNamespace)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
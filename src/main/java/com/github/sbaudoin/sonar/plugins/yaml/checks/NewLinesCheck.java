@@ -18,6 +18,8 @@ package com.github.sbaudoin.sonar.plugins.yaml.checks;
 import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
 
+import java.io.IOException;
+
 /**
  * Check for new line characters
  */
@@ -25,4 +27,18 @@ import org.sonar.check.RuleProperty;
 public class NewLinesCheck extends YamlLintCheck {
     @RuleProperty(key = "type", description = "UNIX-typed ('unix'), DOS-typed ('dos') or platform-dependent ('platform') new line characters", defaultValue = "unix")
     String type;
+
+
+    /**
+     * Tells if the source code may have wrong new line characters. UNIX-typed new line characters can only be wrong
+     * if the source code contains carriage returns.
+     *
+     * @return {@code false} if UNIX-typed new line characters are expected and there is no carriage return in the
+     * source code, {@code true} otherwise
+     * @throws IOException if an error occurred reading the source code
+     */
+    @Override
+    protected boolean mayRaiseIssues() throws IOException {
+        return config != null || !"unix".equals(type) || getYamlSourceCode().getLines().hasCarriageReturn();
+    }
 }
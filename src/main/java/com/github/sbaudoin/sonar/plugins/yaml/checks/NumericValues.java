@@ -0,0 +1,374 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import java.util.Locale;
+
+/**
+ * Parser of the numeric values found in YAML documents. Unlike {@code Integer.parseInt()} or
+ * {@code Double.parseDouble()}, parsing never throws exceptions: values that cannot be parsed are returned as
+ * {@code Double.NaN}, so that the (very common) non-numeric values cost no more than the numeric ones.
+ */
+final class NumericValues {
+    /**
+     * Types of the values that can be parsed
+     */
+    enum Type {
+        /**
+         * Decimal integers in the range of {@code int}, as accepted by {@code Integer.parseInt()}: {@code 010} is 10,
+         * {@code 0x10} and {@code 1_000} are not integers
+         */
+        INT,
+        /**
+         * Integers in any YAML notation: decimal, hexadecimal ({@code 0x1f}), octal ({@code 0o17} or {@code 017}),
+         * binary ({@code 0b101}), possibly with {@code _} digit separators
+         */
+        YAML_INT,
+        /**
+         * YAML integers as above and decimal numbers ({@code 1.5}, {@code .5}, {@code 2.5e3})
+         */
+        NUMBER,
+        /**
+         * Kubernetes resource quantities: decimal numbers with an optional exponent ({@code 2.5e3}), decimal SI suffix
+         * ({@code 500m}, {@code 1k}, {@code 2G}) or binary SI suffix ({@code 128Mi}, {@code 1Gi})
+         */
+        QUANTITY;
+
+        /**
+         * Returns the type whose name is passed, case insensitively and with {@code -} standing for {@code _}
+         *
+         * @param name the name of a type, such as {@code yaml-int}
+         * @return the type or {@code null} if there is no type with this name
+         */
+        static Type of(String name) {
+            String normalized = name.trim().toUpperCase(Locale.ROOT).replace('-', '_');
+            for (Type type : values()) {
+                if (type.name().equals(normalized)) {
+                    return type;
+                }
+            }
+            return null;
+        }
+    }
+
+
+    /**
+     * Maximum mantissa that is exactly represented by a double
+     */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    /**
+     * Powers of ten that are exactly represented by a double
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+
+    /**
+     * Hide constructor
+     */
+    private NumericValues() {
+    }
+
+
+    /**
+     * Parses the passed value
+     *
+     * @param value the value to be parsed
+     * @param type the type of the value
+     * @return the parsed value or {@code Double.NaN} if the value is not a valid value of the passed type
+     */
+    static double parse(String value, Type type) {
+        if (type == Type.INT) {
+            return parseInt(value);
+        }
+        int length = value.length();
+        int i = 0;
+        boolean negative = false;
+        if (i < length && (value.charAt(i) == '+' || value.charAt(i) == '-')) {
+            negative = value.charAt(i) == '-';
+            i++;
+        }
+        if (i >= length) {
+            return Double.NaN;
+        }
+
+        double result;
+        if (type != Type.QUANTITY && value.charAt(i) == '0' && i + 1 < length && !isDecimalPartStart(value.charAt(i + 1))) {
+            result = parseRadix(value, i + 1);
+        } else {
+            result = parseDecimal(value, i, type);
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * Parses a decimal integer with the semantics of {@code Integer.parseInt()}
+     *
+     * @param value the value to be parsed
+     * @return the parsed value or {@code Double.NaN} if {@code Integer.parseInt()} would throw a
+     *         {@code NumberFormatException}
+     */
+    private static double parseInt(String value) {
+        int length = value.length();
+        int i = 0;
+        boolean negative = false;
+        if (i < length && (value.charAt(i) == '+' || value.charAt(i) == '-')) {
+            negative = value.charAt(i) == '-';
+            i++;
+        }
+        if (i >= length) {
+            return Double.NaN;
+        }
+        long result = 0;
+        long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+        for (; i < length; i++) {
+            int digit = Character.digit(value.charAt(i), 10);
+            if (digit < 0) {
+                return Double.NaN;
+            }
+            result = result * 10 + digit;
+            if (result > limit) {
+                return Double.NaN;
+            }
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * Tells if the passed character, following a leading zero, is the start of the fraction or exponent of a decimal
+     * number rather than of an integer in another radix
+     */
+    private static boolean isDecimalPartStart(char c) {
+        return c == '.' || c == 'e' || c == 'E';
+    }
+
+    /**
+     * Parses a YAML hexadecimal, octal or binary integer
+     *
+     * @param value the value to be parsed
+     * @param start the index of the character that follows the leading {@code 0}
+     * @return the parsed value or {@code Double.NaN}
+     */
+    private static double parseRadix(String value, int start) {
+        int radix;
+        int i = start;
+        switch (value.charAt(i)) {
+            case 'x':
+                radix = 16;
+                i++;
+                break;
+            case 'o':
+                radix = 8;
+                i++;
+                break;
+            case 'b':
+                radix = 2;
+                i++;
+                break;
+            default:
+                // YAML 1.1 octal integer, such as 017
+                radix = 8;
+        }
+        double result = 0;
+        boolean digits = false;
+        for (; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '_') {
+                continue;
+            }
+            int digit = Character.digit(c, radix);
+            if (digit < 0) {
+                return Double.NaN;
+            }
+            result = result * radix + digit;
+            digits = true;
+        }
+        return digits ? result : Double.NaN;
+    }
+
+    /**
+     * Parses a decimal integer, number or quantity
+     *
+     * @param value the value to be parsed
+     * @param start the index of the first digit
+     * @param type the type of the value
+     * @return the parsed value or {@code Double.NaN}
+     */
+    private static double parseDecimal(String value, int start, Type type) {
+        int length = value.length();
+        int i = start;
+        long mantissa = 0;
+        int exponent = 0;
+        boolean digits = false;
+
+        // Integer part
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (mantissa < MAX_EXACT_MANTISSA / 10) {
+                    mantissa = mantissa * 10 + (c - '0');
+                } else {
+                    // Further digits are beyond the precision of a double
+                    exponent++;
+                }
+                digits = true;
+            } else if (c != '_' || type == Type.QUANTITY) {
+                break;
+            }
+        }
+
+        // Fraction
+        if (i < length && value.charAt(i) == '.') {
+            if (type == Type.YAML_INT) {
+                return Double.NaN;
+            }
+            for (i++; i < length; i++) {
+                char c = value.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    if (mantissa < MAX_EXACT_MANTISSA / 10) {
+                        mantissa = mantissa * 10 + (c - '0');
+                        exponent--;
+                    }
+                    digits = true;
+                } else if (c != '_' || type == Type.QUANTITY) {
+                    break;
+                }
+            }
+        }
+        if (!digits) {
+            return Double.NaN;
+        }
+
+        // Exponent and suffix
+        double multiplier = 1;
+        if (i < length && type != Type.YAML_INT) {
+            char c = value.charAt(i);
+            if ((c == 'e' || c == 'E') && i + 1 < length) {
+                int e = parseExponent(value, i + 1);
+                if (e == Integer.MIN_VALUE) {
+                    return Double.NaN;
+                }
+                exponent += e;
+                i = length;
+            } else if (type == Type.QUANTITY) {
+                String suffix = value.substring(i);
+                int suffixExponent = decimalSuffixExponent(suffix);
+                if (suffixExponent != Integer.MIN_VALUE) {
+                    exponent += suffixExponent;
+                } else {
+                    multiplier = binarySuffixMultiplier(suffix);
+                    if (multiplier == 0) {
+                        return Double.NaN;
+                    }
+                }
+                i = length;
+            }
+        }
+        if (i < length) {
+            return Double.NaN;
+        }
+        return scale(mantissa, exponent) * multiplier;
+    }
+
+    /**
+     * Parses the signed integer exponent of a decimal number
+     *
+     * @return the exponent or {@code Integer.MIN_VALUE} if it is invalid
+     */
+    private static int parseExponent(String value, int start) {
+        int i = start;
+        boolean negative = false;
+        if (value.charAt(i) == '+' || value.charAt(i) == '-') {
+            negative = value.charAt(i) == '-';
+            i++;
+        }
+        if (i >= value.length()) {
+            return Integer.MIN_VALUE;
+        }
+        int exponent = 0;
+        for (; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return Integer.MIN_VALUE;
+            }
+            // Exponents out of the range of doubles all give 0 or infinity anyway
+            exponent = Math.min(exponent * 10 + (c - '0'), 10000);
+        }
+        return negative ? -exponent : exponent;
+    }
+
+    /**
+     * Returns the power of ten of a decimal SI suffix
+     *
+     * @return the power of ten or {@code Integer.MIN_VALUE} if the suffix is not a decimal SI suffix
+     */
+    private static int decimalSuffixExponent(String suffix) {
+        if (suffix.length() != 1) {
+            return Integer.MIN_VALUE;
+        }
+        switch (suffix.charAt(0)) {
+            case 'n':
+                return -9;
+            case 'u':
+                return -6;
+            case 'm':
+                return -3;
+            case 'k':
+                return 3;
+            case 'M':
+                return 6;
+            case 'G':
+                return 9;
+            case 'T':
+                return 12;
+            case 'P':
+                return 15;
+            case 'E':
+                return 18;
+            default:
+                return Integer.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Returns the multiplier of a binary SI suffix
+     *
+     * @return the multiplier or 0 if the suffix is not a binary SI suffix
+     */
+    private static double binarySuffixMultiplier(String suffix) {
+        if (suffix.length() != 2 || suffix.charAt(1) != 'i') {
+            return 0;
+        }
+        int index = "KMGTPE".indexOf(suffix.charAt(0));
+        return index < 0 ? 0 : Math.scalb(1.0, 10 * (index + 1));
+    }
+
+    /**
+     * Returns {@code mantissa * 10^exponent}. When possible, the exact powers of ten are used so that the same
+     * quantity written in different ways (e.g. {@code 0.5} and {@code 500m}) gives the same double.
+     */
+    private static double scale(long mantissa, int exponent) {
+        if (exponent == 0 || mantissa == 0) {
+            return mantissa;
+        }
+        if (exponent > 0) {
+            return exponent < POWERS_OF_TEN.length ? mantissa * POWERS_OF_TEN[exponent] : mantissa * Math.pow(10, exponent);
+        }
+        return -exponent < POWERS_OF_TEN.length ? mantissa / POWERS_OF_TEN[-exponent] : mantissa / Math.pow(10, -exponent);
+    }
+}
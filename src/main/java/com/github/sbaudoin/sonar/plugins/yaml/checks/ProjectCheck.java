@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Abstract class of the checks that need the whole project, such as the detection of resources defined in several
+ * files: these checks do not validate the files one by one but evaluate the {@link ProjectIndex} filled with all the
+ * analyzed files, once all the files have been analyzed.
+ */
+public abstract class ProjectCheck extends YamlCheck {
+    private Map<Integer, List<YamlIssue>> issues = null;
+
+
+    /**
+     * Does nothing: the files are indexed by the sensor and the check is evaluated by {@link #evaluate(ProjectIndex)}
+     */
+    @Override
+    public void validate() {
+        // Nothing to validate file by file
+    }
+
+    /**
+     * Evaluates this check against the index of the project
+     *
+     * @param index the index of all the analyzed files
+     * @return the issues found, by identifier of the file they were found in
+     * @see ProjectIndex#getFile(int)
+     */
+    public Map<Integer, List<YamlIssue>> evaluate(ProjectIndex index) {
+        issues = new TreeMap<>();
+        check(index);
+        Map<Integer, List<YamlIssue>> result = issues;
+        issues = null;
+        return result;
+    }
+
+    /**
+     * Evaluates this check against the index of the project, calling {@link #addViolation(int, int, String)} for every
+     * violation found
+     *
+     * @param index the index of all the analyzed files
+     */
+    protected abstract void check(ProjectIndex index);
+
+    /**
+     * Adds a violation
+     *
+     * @param file the identifier of the file of the violation
+     * @param line the line of the violation
+     * @param message the message that describes the violation
+     */
+    protected void addViolation(int file, int line, String message) {
+        issues.computeIfAbsent(file, f -> new ArrayList<>()).add(new YamlIssue(getRuleKey(), message, line, 1));
+    }
+
+    /**
+     * Returns the location of a posting, for the messages
+     *
+     * @param index the index of the project
+     * @param postings postings
+     * @param i the index of a posting
+     * @return the file and line of the posting
+     */
+    protected static String getLocation(ProjectIndex index, ProjectIndex.Postings postings, int i) {
+        return index.getFile(postings.getFile(i)) + ":" + postings.getLine(i);
+    }
+}
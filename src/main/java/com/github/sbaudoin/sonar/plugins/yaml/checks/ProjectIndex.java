@@ -0,0 +1,418 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.yaml.snakeyaml.tokens.Token;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Index of the Kubernetes facts found in all the files of a project, filled during the analysis of the files and then
+ * evaluated by the {@link ProjectCheck cross-file checks}: the resources defined (by API group, kind, namespace and
+ * name), the ConfigMaps defined and referenced, and the container images used.
+ * <p>The index only keeps compact postings (file, line and value, as integers) under keys shared by all the files. The
+ * values are interned. The total number of postings is bounded: once the limit is reached, the index is marked as
+ * truncated and no more postings are added.</p>
+ * <p>The facts of a file are first {@link #collect(YamlSourceCode) collected}, so that they can be kept with the
+ * analysis result of the file and indexed again for the files with the same content. This class is not thread-safe:
+ * the files are indexed one after the other.</p>
+ */
+public final class ProjectIndex {
+    private static final Logger LOGGER = Loggers.get(ProjectIndex.class);
+
+    private static final String METADATA_KEY = "metadata";
+    private static final String NAME_KEY = "name";
+    private static final String NAMESPACE_KEY = "namespace";
+    private static final String IMAGE_KEY = "image";
+    private static final String OPTIONAL_KEY = "optional";
+    private static final String CONFIG_MAP_KIND = "ConfigMap";
+    private static final List<String> CONFIG_MAP_REFERENCE_KEYS = Arrays.asList("configMapRef", "configMapKeyRef", "configMap");
+
+    /**
+     * Categories of the postings
+     */
+    public enum Category {
+        /**
+         * Resources, keyed by {@code group/kind/namespace/name}
+         */
+        RESOURCE,
+        /**
+         * ConfigMaps, keyed by name, valued by namespace
+         */
+        CONFIG_MAP,
+        /**
+         * References to ConfigMaps, keyed by name, valued by the namespace of the referencing resource
+         */
+        CONFIG_MAP_REFERENCE,
+        /**
+         * Container images, keyed by repository, valued by tag (or digest)
+         */
+        IMAGE
+    }
+
+    private final int maxEntries;
+    private final List<InputFile> files = new ArrayList<>();
+    private final Map<Category, Map<String, Postings>> postings = new EnumMap<>(Category.class);
+    private final Map<String, Integer> symbols = new HashMap<>();
+    private final List<String> symbolValues = new ArrayList<>();
+    private int entries = 0;
+    private boolean truncated = false;
+
+
+    /**
+     * Constructor
+     *
+     * @param maxEntries the maximum number of postings of the index
+     */
+    public ProjectIndex(int maxEntries) {
+        this.maxEntries = maxEntries;
+        for (Category category : Category.values()) {
+            postings.put(category, new HashMap<>());
+        }
+    }
+
+
+    /**
+     * Collects the facts of the documents of a source code
+     *
+     * @param sourceCode a source code
+     * @return the facts of the source code, to be passed to {@link #index(InputFile, Facts)}
+     * @throws IOException if the source code cannot be read
+     */
+    public static Facts collect(YamlSourceCode sourceCode) throws IOException {
+        Facts facts = new Facts();
+        YamlTokens tokens = sourceCode.getTokens();
+        YamlDocuments documents = sourceCode.getDocuments();
+        for (int d = 0; d < documents.size(); d++) {
+            collectDocument(facts, tokens, documents, d);
+        }
+        return facts;
+    }
+
+    /**
+     * Indexes the documents of a file
+     *
+     * @param sourceCode the source code of the file
+     * @throws IOException if the source code cannot be read
+     */
+    public void index(YamlSourceCode sourceCode) throws IOException {
+        index(sourceCode.getYamlFile(), collect(sourceCode));
+    }
+
+    /**
+     * Indexes the facts of a file
+     *
+     * @param inputFile the file
+     * @param facts the facts of the file or of a file with the same content, as returned by
+     *              {@link #collect(YamlSourceCode)}
+     */
+    public void index(InputFile inputFile, Facts facts) {
+        files.add(inputFile);
+        int file = files.size() - 1;
+        for (int i = 0; i < facts.size; i++) {
+            add(facts.categories[i], facts.keys[i], file, facts.lines[i], facts.values[i]);
+        }
+    }
+
+    /**
+     * Returns a file of the index
+     *
+     * @param file the identifier of the file, as found in the postings
+     * @return the file
+     */
+    public InputFile getFile(int file) {
+        return files.get(file);
+    }
+
+    /**
+     * Returns the number of files indexed
+     *
+     * @return the number of files indexed
+     */
+    public int getFileCount() {
+        return files.size();
+    }
+
+    /**
+     * Adds a posting to the index, unless the index is full
+     *
+     * @param category the category of the posting
+     * @param key the key of the posting
+     * @param file the identifier of the file
+     * @param line the line (starting at 1)
+     * @param value the value of the posting, possibly {@code null}
+     */
+    void add(Category category, String key, int file, int line, @Nullable String value) {
+        if (truncated || ++entries > maxEntries) {
+            if (!truncated) {
+                truncated = true;
+                LOGGER.warn("Project index full ({} entries): the cross-file rules will not see all the files", maxEntries);
+            }
+            return;
+        }
+        int symbol = value == null ? -1 : intern(value);
+        postings.get(category).computeIfAbsent(key, k -> new Postings()).add(file, line, symbol);
+    }
+
+    /**
+     * Tells if some postings could not be added because the index is full
+     *
+     * @return {@code true} if the index is incomplete
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Returns the postings of a key
+     *
+     * @param category the category of the postings
+     * @param key a key
+     * @return the postings of the key, {@code null} if none
+     */
+    public Postings get(Category category, String key) {
+        return postings.get(category).get(key);
+    }
+
+    /**
+     * Iterates over the keys of a category and their postings. The index must not be modified during the iteration.
+     *
+     * @param category a category
+     * @param consumer the consumer of the keys and postings
+     */
+    public void forEach(Category category, BiConsumer<String, Postings> consumer) {
+        postings.get(category).forEach(consumer);
+    }
+
+
+    private int intern(String value) {
+        return symbols.computeIfAbsent(value, v -> {
+            symbolValues.add(v);
+            return symbolValues.size() - 1;
+        });
+    }
+
+    private String getSymbol(int symbol) {
+        return symbol < 0 ? null : symbolValues.get(symbol);
+    }
+
+
+    /**
+     * Collects the facts of a document: its name, namespace, ConfigMap references and images
+     */
+    private static void collectDocument(Facts facts, YamlTokens tokens, YamlDocuments documents, int document) {
+        Deque<Frame> frames = new ArrayDeque<>();
+        List<String> references = new ArrayList<>();
+        List<Integer> referenceLines = new ArrayList<>();
+        String name = null;
+        int nameLine = 0;
+        String namespace = "";
+        String key = null;
+        Token.ID previous = null;
+        for (int t = documents.getStartToken(document); t < documents.getEndToken(document); t++) {
+            Token.ID type = tokens.getType(t);
+            if (type == Token.ID.BlockMappingStart || type == Token.ID.FlowMappingStart
+                    || type == Token.ID.BlockSequenceStart || type == Token.ID.FlowSequenceStart) {
+                frames.push(new Frame(key));
+            } else if ((type == Token.ID.BlockEnd || type == Token.ID.FlowMappingEnd || type == Token.ID.FlowSequenceEnd) && !frames.isEmpty()) {
+                Frame frame = frames.pop();
+                key = frame.parentKey;
+                if (frame.reference != null && !frame.optional) {
+                    references.add(frame.reference);
+                    referenceLines.add(frame.referenceLine);
+                }
+            } else if (type == Token.ID.Scalar && previous == Token.ID.Key) {
+                key = tokens.getValue(t);
+            } else if (type == Token.ID.Scalar && previous == Token.ID.Value && !frames.isEmpty() && key != null) {
+                String value = tokens.getValue(t);
+                int line = tokens.getLine(t) + 1;
+                Frame frame = frames.peek();
+                if (value.contains("{{")) {
+                    // Template expression
+                } else if (frames.size() == 2 && METADATA_KEY.equals(frame.parentKey) && NAME_KEY.equals(key)) {
+                    name = value;
+                    nameLine = line;
+                } else if (frames.size() == 2 && METADATA_KEY.equals(frame.parentKey) && NAMESPACE_KEY.equals(key)) {
+                    namespace = value;
+                } else if (IMAGE_KEY.equals(key)) {
+                    addImage(facts, line, value);
+                } else if (NAME_KEY.equals(key) && CONFIG_MAP_REFERENCE_KEYS.contains(frame.parentKey)) {
+                    frame.reference = value;
+                    frame.referenceLine = line;
+                } else if (OPTIONAL_KEY.equals(key) && "true".equals(value)) {
+                    frame.optional = true;
+                }
+            }
+            if (type != Token.ID.Anchor && type != Token.ID.Tag) {
+                previous = type;
+            }
+        }
+
+        String kind = documents.getKind(document);
+        if (kind != null && name != null) {
+            String apiVersion = documents.getApiVersion(document);
+            int slash = apiVersion == null ? -1 : apiVersion.indexOf('/');
+            String group = slash < 0 ? "" : apiVersion.substring(0, slash);
+            facts.add(Category.RESOURCE, group + "/" + kind + "/" + namespace + "/" + name, nameLine, null);
+            if (CONFIG_MAP_KIND.equals(kind) && group.isEmpty()) {
+                facts.add(Category.CONFIG_MAP, name, nameLine, namespace);
+            }
+        }
+        for (int i = 0; i < references.size(); i++) {
+            facts.add(Category.CONFIG_MAP_REFERENCE, references.get(i), referenceLines.get(i), namespace);
+        }
+    }
+
+    /**
+     * Collects an image reference, such as {@code registry:5000/team/app:1.0}, under its repository
+     */
+    private static void addImage(Facts facts, int line, String image) {
+        int at = image.indexOf('@');
+        String repository = at < 0 ? image : image.substring(0, at);
+        String tag = at < 0 ? null : image.substring(at);
+        int colon = repository.lastIndexOf(':');
+        if (colon > repository.lastIndexOf('/')) {
+            tag = tag == null ? repository.substring(colon + 1) : tag;
+            repository = repository.substring(0, colon);
+        }
+        if (!repository.isEmpty() && !repository.contains("$")) {
+            facts.add(Category.IMAGE, repository, line, tag == null ? "latest" : tag);
+        }
+    }
+
+
+    /**
+     * Postings of a key: the files, lines and values where the key was found, in the order they were indexed
+     */
+    public final class Postings {
+        private int[] data = new int[3];
+        private int size = 0;
+
+
+        private void add(int file, int line, int symbol) {
+            if (size * 3 == data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            data[size * 3] = file;
+            data[size * 3 + 1] = line;
+            data[size * 3 + 2] = symbol;
+            size++;
+        }
+
+        /**
+         * Returns the number of postings
+         *
+         * @return the number of postings
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Returns the file of a posting
+         *
+         * @param index the index of the posting
+         * @return the identifier of the file of the posting
+         * @see ProjectIndex#getFile(int)
+         */
+        public int getFile(int index) {
+            return data[index * 3];
+        }
+
+        /**
+         * Returns the line of a posting
+         *
+         * @param index the index of the posting
+         * @return the line of the posting, starting at 1
+         */
+        public int getLine(int index) {
+            return data[index * 3 + 1];
+        }
+
+        /**
+         * Returns the value of a posting
+         *
+         * @param index the index of the posting
+         * @return the value of the posting, possibly {@code null}
+         */
+        public String getValue(int index) {
+            return getSymbol(data[index * 3 + 2]);
+        }
+    }
+
+    /**
+     * Facts of a file, not yet indexed: categories, keys, lines and values of the postings to add for the file. The
+     * facts do not depend on the file and can be indexed for any file with the same content.
+     */
+    public static final class Facts {
+        private Category[] categories = new Category[4];
+        private String[] keys = new String[4];
+        private int[] lines = new int[4];
+        private String[] values = new String[4];
+        private int size = 0;
+
+
+        private void add(Category category, String key, int line, @Nullable String value) {
+            if (size == keys.length) {
+                categories = Arrays.copyOf(categories, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+                lines = Arrays.copyOf(lines, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            categories[size] = category;
+            keys[size] = key;
+            lines[size] = line;
+            values[size] = value;
+            size++;
+        }
+
+        /**
+         * Returns the number of facts
+         *
+         * @return the number of postings the facts add to the index
+         */
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * A mapping or a sequence of the document being indexed
+     */
+    private static final class Frame {
+        private final String parentKey;
+        private String reference = null;
+        private int referenceLine = 0;
+        private boolean optional = false;
+
+        Frame(String parentKey) {
+            this.parentKey = parentKey;
+        }
+    }
+}
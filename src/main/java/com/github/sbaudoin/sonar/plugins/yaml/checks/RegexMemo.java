@@ -0,0 +1,189 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Regular expression whose results are memoized, so that the same key or value strings found again and again in
+ * YAML files (such as {@code metadata}, {@code name} or {@code image}) are matched without running the regular
+ * expression again.
+ * <p>Instances are shared across files and checks: there is one instance per regular expression and match mode.
+ * The number of memoized results per instance is bounded and long strings are never memoized. Instances are
+ * thread-safe.</p>
+ */
+public final class RegexMemo {
+    private static final Logger LOGGER = Loggers.get(RegexMemo.class);
+    private static final Map<String, RegexMemo> REGISTRY = new ConcurrentHashMap<>();
+
+    /**
+     * Maximum length of the strings whose match result is memoized
+     */
+    public static final int MAX_MEMOIZED_LENGTH = 256;
+    /**
+     * Maximum number of memoized results per regular expression
+     */
+    public static final int MAX_ENTRIES = 4096;
+
+    private final String regex;
+    private final Pattern pattern;
+    private final boolean find;
+    private final Map<String, Boolean> results = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+
+    private RegexMemo(String regex, boolean find) {
+        this.regex = regex;
+        this.pattern = Pattern.compile(regex);
+        this.find = find;
+    }
+
+
+    /**
+     * Returns the shared memo that tells if strings entirely match the passed regular expression
+     *
+     * @param regex a regular expression
+     * @return the memo of {@code Pattern.compile(regex).matcher(s).matches()}
+     * @throws java.util.regex.PatternSyntaxException if the regular expression is invalid
+     */
+    public static RegexMemo matching(String regex) {
+        return REGISTRY.computeIfAbsent("m:" + regex, k -> new RegexMemo(regex, false));
+    }
+
+    /**
+     * Returns the shared memo that tells if strings contain a match of the passed regular expression
+     *
+     * @param regex a regular expression
+     * @return the memo of {@code Pattern.compile(regex).matcher(s).find()}
+     * @throws java.util.regex.PatternSyntaxException if the regular expression is invalid
+     */
+    public static RegexMemo finding(String regex) {
+        return REGISTRY.computeIfAbsent("f:" + regex, k -> new RegexMemo(regex, true));
+    }
+
+    /**
+     * Returns all the memos created so far
+     *
+     * @return all the memos
+     */
+    public static Collection<RegexMemo> all() {
+        return new ArrayList<>(REGISTRY.values());
+    }
+
+    /**
+     * Logs the hit rate of all the memos, in debug mode
+     */
+    public static void logStatistics() {
+        if (LOGGER.isDebugEnabled()) {
+            for (RegexMemo memo : REGISTRY.values()) {
+                LOGGER.debug("Regex memo for '{}': {} hit(s), {} miss(es), hit rate {}%", memo.regex, memo.getHits(), memo.getMisses(), Math.round(memo.getHitRate() * 100));
+            }
+        }
+    }
+
+    /**
+     * Removes all the memos
+     */
+    static void clear() {
+        REGISTRY.clear();
+    }
+
+
+    /**
+     * Tells if the passed string matches the regular expression, as per the match mode of this memo
+     *
+     * @param input a string
+     * @return {@code true} if the string matches, {@code false} otherwise
+     */
+    public boolean test(String input) {
+        if (input.length() > MAX_MEMOIZED_LENGTH) {
+            misses.increment();
+            return evaluate(input);
+        }
+        Boolean result = results.get(input);
+        if (result != null) {
+            hits.increment();
+            return result;
+        }
+        misses.increment();
+        boolean match = evaluate(input);
+        if (results.size() < MAX_ENTRIES) {
+            results.put(input, match);
+        }
+        return match;
+    }
+
+    /**
+     * Returns the regular expression of this memo
+     *
+     * @return the regular expression
+     */
+    public String getRegex() {
+        return regex;
+    }
+
+    /**
+     * Returns the number of results returned from the memo
+     *
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of results that required running the regular expression
+     *
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the ratio of hits to the total number of tests
+     *
+     * @return the hit rate, between 0 and 1 (0 if nothing was tested)
+     */
+    public double getHitRate() {
+        long h = getHits();
+        long total = h + getMisses();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /**
+     * Returns the number of memoized results
+     *
+     * @return the number of memoized results
+     */
+    public int size() {
+        return results.size();
+    }
+
+
+    private boolean evaluate(String input) {
+        return find ? pattern.matcher(input).find() : pattern.matcher(input).matches();
+    }
+}
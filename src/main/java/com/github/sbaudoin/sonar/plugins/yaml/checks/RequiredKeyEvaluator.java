@@ -0,0 +1,284 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.yaml.snakeyaml.tokens.Token;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Evaluator of a group of {@link RequiredKeyCheck}s that share the same predicates (parent key name and value, parent
+ * key position, ancestors and document selector) and only differ by their required key name. The tokens are walked once for the whole
+ * group: the parent and ancestor conditions are evaluated once per key and all the required key names of the group
+ * are checked together.
+ */
+public class RequiredKeyEvaluator {
+    private static final Logger LOGGER = Loggers.get(RequiredKeyEvaluator.class);
+    private static final int FIRST_COLUMN = 0;
+
+    private final List<RequiredKeyCheck> checks;
+
+
+    /**
+     * Constructor
+     *
+     * @param checks the checks of the group. They must all have the same predicates.
+     */
+    public RequiredKeyEvaluator(List<RequiredKeyCheck> checks) {
+        if (checks.isEmpty()) {
+            throw new IllegalArgumentException("At least one check is required");
+        }
+        this.checks = new ArrayList<>(checks);
+    }
+
+
+    /**
+     * Groups the {@link RequiredKeyCheck}s among the passed checks by predicates
+     *
+     * @param checks checks of any type
+     * @return one evaluator per distinct set of predicates, in the order the predicates are first found
+     */
+    public static List<RequiredKeyEvaluator> group(Collection<?> checks) {
+        Map<List<String>, List<RequiredKeyCheck>> groups = new LinkedHashMap<>();
+        for (Object check : checks) {
+            if (check instanceof RequiredKeyCheck) {
+                RequiredKeyCheck c = (RequiredKeyCheck) check;
+                groups.computeIfAbsent(Arrays.asList(c.parentKeyName, c.parentKeyValue, c.isParentKeyAtRoot, c.includedAncestors, c.excludedAncestors, c.documentSelector),
+                        k -> new ArrayList<>()).add(c);
+            }
+        }
+        return groups.values().stream().map(RequiredKeyEvaluator::new).collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the checks of this group
+     *
+     * @return the checks of this group
+     */
+    public List<RequiredKeyCheck> getChecks() {
+        return Collections.unmodifiableList(checks);
+    }
+
+    /**
+     * Validates all the checks of this group against the passed source code
+     *
+     * @param sourceCode the source code to be validated
+     */
+    public void validate(YamlSourceCode sourceCode) {
+        evaluate(sourceCode, checks);
+    }
+
+    /**
+     * Validates the checks of this group that are among the passed checks against the passed source code
+     *
+     * @param sourceCode the source code to be validated
+     * @param activeChecks the checks that apply to the source code. The checks of this group that are not part of this
+     *                     collection are ignored.
+     */
+    public void validate(YamlSourceCode sourceCode, Collection<? extends YamlCheck> activeChecks) {
+        Set<YamlCheck> active = Collections.newSetFromMap(new IdentityHashMap<>());
+        active.addAll(activeChecks);
+        List<RequiredKeyCheck> members = checks.stream().filter(active::contains).collect(Collectors.toList());
+        if (!members.isEmpty()) {
+            evaluate(sourceCode, members);
+        }
+    }
+
+
+    private void evaluate(YamlSourceCode sourceCode, List<RequiredKeyCheck> members) {
+        for (RequiredKeyCheck check : members) {
+            check.setYamlSourceCode(sourceCode);
+        }
+        try {
+            YamlTokens tokens = sourceCode.getTokens();
+            if (!sourceCode.hasCorrectSyntax()) {
+                LOGGER.warn("Syntax error found, cannot continue checking keys: " + sourceCode.getSyntaxError().getMessage());
+                return;
+            }
+            // Walk through the resolved tokens so that the keys that come from merged mappings are found too
+            DocumentSelector selector = DocumentSelector.of(checks.get(0).documentSelector);
+            if (selector == null) {
+                evaluate(tokens, sourceCode.resolvedCursor(), members);
+            } else {
+                // Only the documents of the selected kinds are evaluated, each on its own
+                YamlDocuments documents = sourceCode.getDocuments();
+                for (int i = 0; i < documents.size(); i++) {
+                    if (selector.matches(documents, i)) {
+                        evaluate(tokens, sourceCode.resolvedCursor(documents.getStartToken(i), documents.getEndToken(i)), members);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // Should not happen: a first call to getYamlSourceCode().getContent() was done in the constructor of
+            // the YamlSourceCode instance of this check, but in case...
+            LOGGER.warn("Cannot read source code", e);
+        }
+    }
+
+    private void evaluate(YamlTokens tokens, YamlTokens.Cursor cursor, List<RequiredKeyCheck> members) {
+        // All checks share the same predicates: take them from the first one
+        RequiredKeyCheck predicates = checks.get(0);
+        final String includedAncestors = predicates.includedAncestors;
+        final String excludedAncestors = predicates.excludedAncestors;
+        final boolean parentCheck = predicates.parentKeyName != null && !predicates.parentKeyName.isEmpty();
+        final boolean ancestorsCheck = (includedAncestors != null && !includedAncestors.isEmpty()) || (excludedAncestors != null && !excludedAncestors.isEmpty());
+        final RegexMemo parentKeyNamePattern = parentCheck ? RegexMemo.matching(predicates.parentKeyName) : null;
+        final RegexMemo parentValuePattern = parentCheck ? RegexMemo.finding("(?m)" + predicates.parentKeyValue) : null;
+        final RegexMemo inclAncestorsPattern = includedAncestors != null && !includedAncestors.isEmpty() ? RegexMemo.matching(includedAncestors) : null;
+        final RegexMemo exclAncestorsPattern = excludedAncestors != null && !excludedAncestors.isEmpty() ? RegexMemo.matching(excludedAncestors) : null;
+
+        final int n = members.size();
+        final RegexMemo[] reqKeyNamePatterns = new RegexMemo[n];
+        for (int i = 0; i < n; i++) {
+            reqKeyNamePatterns[i] = RegexMemo.matching(members.get(i).requiredKeyName);
+        }
+        final boolean[] isRequiredKeyPresent = new boolean[n];
+
+        final Deque<String> ancestors = new ArrayDeque<>();
+        String prevKeyScalarValue = "<root>";
+        boolean prevAncestorsMatch = false;
+        int ancestorLine = 0;
+        int issueLine = 0;
+
+        boolean parentMatch = false;
+
+        while (cursor.hasMoreTokens()) {
+            int t1 = cursor.getToken();
+            // Tokens that come from an alias or a merged mapping are located on the alias or the merge key
+            int t1Site = cursor.getSite();
+            Token.ID t1Type = tokens.getType(t1);
+            if (ancestorsCheck) {
+                if (t1Type == Token.ID.BlockMappingStart) {
+                    ancestors.push(prevKeyScalarValue);
+                    ancestorLine = t1Site == t1 ? tokens.getLine(t1) - 1 : tokens.getLine(t1Site); // one line up
+                } else if (t1Type == Token.ID.BlockEnd && !ancestors.isEmpty()) {
+                    ancestors.pop();
+                }
+            }
+            if (t1Type != Token.ID.Key || !cursor.hasMoreTokens()) {
+                continue;
+            }
+            // Peek token (instead of get) in order to leave it in the stack so that it processed again when looping
+            int t2 = cursor.peekToken();
+            if (tokens.getType(t2) != Token.ID.Scalar) {
+                continue;
+            }
+            int t2Site = cursor.peekSite();
+            String keyScalarValue = tokens.getValue(t2);
+            boolean ancestorsMatch = ancestorsCheck && ancestorsMatch(ancestors, inclAncestorsPattern, exclAncestorsPattern);
+            boolean newAncestorsMatch = !prevAncestorsMatch && ancestorsMatch;
+            boolean justLostAncestorsMatch = prevAncestorsMatch && !ancestorsMatch;
+            if (parentCheck && parentKeyNamePattern.test(keyScalarValue)) {
+                boolean newParentMatch = parentValueMatches(cursor, parentValuePattern);
+                int column = tokens.getColumn(t1Site);
+                if ((predicates.isParentKeyAtRoot.equalsIgnoreCase("yes") && column != 0) ||
+                        (predicates.isParentKeyAtRoot.equalsIgnoreCase("not") && column == 0)) {
+                    continue;
+                }
+
+                for (int i = 0; i < n; i++) {
+                    if (parentMatch && newParentMatch && !isRequiredKeyPresent[i]) {
+                        addViolation(members.get(i), issueLine);
+                    }
+                    isRequiredKeyPresent[i] = (!newParentMatch) && isRequiredKeyPresent[i];
+                }
+                parentMatch = newParentMatch;
+                issueLine = (newParentMatch) ? tokens.getLine(t2Site) : issueLine;
+            } else {
+                for (int i = 0; i < n; i++) {
+                    if (reqKeyNamePatterns[i].test(keyScalarValue)) {
+                        if (parentCheck && ancestorsCheck) {
+                            isRequiredKeyPresent[i] = parentMatch && ancestorsMatch;
+                        } else if (parentCheck) {
+                            isRequiredKeyPresent[i] = parentMatch;
+                        } else if (ancestorsCheck) {
+                            isRequiredKeyPresent[i] = ancestorsMatch;
+                        }
+                    }
+                }
+                issueLine = newAncestorsMatch ? ancestorLine : issueLine;
+                if (justLostAncestorsMatch && (!parentCheck || parentMatch)) {
+                    for (int i = 0; i < n; i++) {
+                        if (!isRequiredKeyPresent[i]) {
+                            addViolation(members.get(i), issueLine);
+                        } else {
+                            isRequiredKeyPresent[i] = false; // start over
+                        }
+                    }
+                }
+            }
+            prevKeyScalarValue = keyScalarValue;
+            prevAncestorsMatch = ancestorsMatch;
+        }
+        if ((!parentCheck || parentMatch) && (!ancestorsCheck || prevAncestorsMatch)) {
+            for (int i = 0; i < n; i++) {
+                if (!isRequiredKeyPresent[i]) {
+                    addViolation(members.get(i), issueLine);
+                }
+            }
+        }
+    }
+
+    private static boolean ancestorsMatch(Deque<String> ancestors, RegexMemo inclAncestorsPattern, RegexMemo exclAncestorsPattern) {
+        String ancestorsString = String.join(":", (Iterable<String>) ancestors::descendingIterator);
+        boolean match = inclAncestorsPattern == null || inclAncestorsPattern.test(ancestorsString);
+        match = match && (exclAncestorsPattern == null || !exclAncestorsPattern.test(ancestorsString));
+        return match;
+    }
+
+    private static boolean parentValueMatches(YamlTokens.Cursor cursor, RegexMemo parentValuePattern) {
+        boolean isMatchingValue = false;
+        cursor.getToken();
+        if (cursor.peekTokenType() == Token.ID.Value) {
+            cursor.getToken();
+            if (cursor.peekTokenType() == Token.ID.Scalar && parentValuePattern.test(cursor.getTokens().getValue(cursor.peekToken()))) {
+                isMatchingValue = true;
+            }
+        }
+        return isMatchingValue;
+    }
+
+    /**
+     * Adds a "required key not found" violation to the source code analyzed by the passed check
+     *
+     * @param check the check whose required key was not found
+     * @param issueLine the line of the issue, starting from 0
+     */
+    private static void addViolation(RequiredKeyCheck check, int issueLine) {
+        check.getYamlSourceCode()
+            .addViolation(new YamlIssue(
+                check.getRuleKey(),
+                "Required " + check.requiredKeyName + " key not found",
+                issueLine + 1,
+                FIRST_COLUMN + 1
+            )
+        );
+    }
+}
@@ -0,0 +1,448 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import org.yaml.snakeyaml.tokens.Token;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolved view of the tokens of a YAML source code, where anchors, aliases and merge keys are resolved:
+ * <ul>
+ *     <li>an alias ({@code *name}) is replaced by the tokens of the node of its anchor</li>
+ *     <li>a merge key ({@code <<: *name} or {@code <<: [*name1, *name2]}) is replaced by the entries of the merged
+ *     mappings whose keys are not already defined by the mapping that contains the merge key</li>
+ *     <li>anchor ({@code &name}) and tag ({@code !tag}) tokens are removed, so that node values directly follow the
+ *     {@code Value} tokens</li>
+ * </ul>
+ * <p>The view is a sequence of indexes of the original tokens, with for each of them the index of the token the
+ * issues are to be reported on (the alias or the merge key for the tokens that come from an anchor). Each anchor is
+ * expanded once and its expansion is memoized. In order to protect against alias bombs, the number of tokens added
+ * by the expansions and the nesting depth of the aliases are limited: the aliases beyond these limits are left as is.</p>
+ */
+final class ResolvedTokens {
+    /**
+     * Maximum number of tokens that can be added to the original tokens by the expansion of the aliases
+     */
+    static final int MAX_ADDED_TOKENS = 100000;
+    /**
+     * Maximum nesting depth of the aliases
+     */
+    static final int MAX_DEPTH = 32;
+
+    private static final String MERGE_KEY = "<<";
+
+    private final YamlTokens tokens;
+    private final int[] aliasTargets;
+    private final Map<Integer, int[]> expansions = new HashMap<>();
+    private final Set<Integer> expanding = new HashSet<>();
+    private int budget;
+    private boolean complete = true;
+
+    private final IntList order;
+    private final IntList sites;
+    private int[] orderArray;
+    private int[] sitesArray;
+
+
+    private ResolvedTokens(YamlTokens tokens) {
+        this.tokens = tokens;
+        this.aliasTargets = new int[tokens.size()];
+        this.budget = MAX_ADDED_TOKENS;
+        this.order = new IntList(tokens.size());
+        this.sites = new IntList(tokens.size());
+    }
+
+
+    /**
+     * Resolves the anchors, aliases and merge keys of the passed tokens
+     *
+     * @param tokens the tokens of a YAML source code
+     * @return the resolved view of the tokens
+     */
+    static ResolvedTokens resolve(YamlTokens tokens) {
+        ResolvedTokens resolved = new ResolvedTokens(tokens);
+        resolved.indexAnchors();
+        resolved.copy(0, tokens.size(), resolved.order, resolved.sites, -1, 0);
+        resolved.orderArray = resolved.order.toArray();
+        resolved.sitesArray = resolved.sites.toArray();
+        resolved.expansions.clear();
+        return resolved;
+    }
+
+
+    /**
+     * Returns the indexes of the tokens of the resolved view
+     *
+     * @return the indexes of the original tokens, in the order of the resolved view. The array must not be modified.
+     */
+    int[] getOrder() {
+        return orderArray;
+    }
+
+    /**
+     * Returns the indexes of the tokens the issues are to be reported on
+     *
+     * @return for each token of the resolved view, the index of the token itself or, for the tokens that come from an
+     * anchor, the index of the alias or the merge key they were expanded from. The sites are in ascending order. The
+     * array must not be modified.
+     */
+    int[] getSites() {
+        return sitesArray;
+    }
+
+    /**
+     * Tells if all the aliases could be resolved
+     *
+     * @return {@code false} if some aliases were left as is because of the limits
+     * @see #MAX_ADDED_TOKENS
+     * @see #MAX_DEPTH
+     */
+    boolean isComplete() {
+        return complete;
+    }
+
+
+    /**
+     * Links each alias to the latest anchor of the same name defined before it
+     */
+    private void indexAnchors() {
+        Map<String, Integer> anchors = new HashMap<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            Token.ID type = tokens.getType(i);
+            if (type == Token.ID.Anchor) {
+                anchors.put(tokens.getText(i).substring(1), i);
+            } else if (type == Token.ID.Alias) {
+                aliasTargets[i] = anchors.getOrDefault(tokens.getText(i).substring(1), -1);
+            } else if (type == Token.ID.DocumentStart || type == Token.ID.DocumentEnd) {
+                // Anchors are local to their document
+                anchors.clear();
+            }
+        }
+    }
+
+    /**
+     * Copies the tokens {@code [from, to)} to the passed lists, resolving the aliases and merge keys
+     *
+     * @param out the list of the copied tokens
+     * @param outSites the list of the reporting sites of the copied tokens, {@code null} when copying into an expansion
+     * @param site the reporting site of all the copied tokens, or {@code -1} to report on each token itself
+     * @param depth the nesting depth of the aliases
+     */
+    private void copy(int from, int to, IntList out, IntList outSites, int site, int depth) {
+        for (int i = from; i < to; i++) {
+            Token.ID type = tokens.getType(i);
+            if (type == Token.ID.Anchor || type == Token.ID.Tag) {
+                continue;
+            }
+            if (type == Token.ID.Alias) {
+                int[] expansion = expandAlias(i, depth);
+                if (expansion != null && reserve(expansion.length)) {
+                    add(out, outSites, expansion, 0, expansion.length, site >= 0 ? site : i);
+                    continue;
+                }
+            } else if (type == Token.ID.Key && isMergeKey(i + 1)) {
+                int end = merge(i, out, outSites, site, depth);
+                if (end > 0) {
+                    i = end - 1;
+                    continue;
+                }
+            }
+            out.add(i);
+            if (outSites != null) {
+                outSites.add(site >= 0 ? site : i);
+            }
+        }
+    }
+
+    /**
+     * Replaces a merge entry with the entries of the merged mappings
+     *
+     * @param key the {@code Key} token of the merge entry
+     * @return the index of the token that follows the merge entry, or {@code -1} if the merge entry cannot be resolved
+     */
+    private int merge(int key, IntList out, IntList outSites, int site, int depth) {
+        int value = skipProperties(key + 3);
+        if (value >= tokens.size()) {
+            return -1;
+        }
+        int end;
+        int[] aliases;
+        if (tokens.getType(value) == Token.ID.Alias) {
+            aliases = new int[] { value };
+            end = value + 1;
+        } else if (tokens.getType(value) == Token.ID.FlowSequenceStart) {
+            IntList list = new IntList(4);
+            int i = value + 1;
+            for (; i < tokens.size() && tokens.getType(i) != Token.ID.FlowSequenceEnd; i++) {
+                if (tokens.getType(i) == Token.ID.Alias) {
+                    list.add(i);
+                } else if (tokens.getType(i) != Token.ID.FlowEntry) {
+                    return -1;
+                }
+            }
+            aliases = list.toArray();
+            end = i + 1;
+        } else {
+            return -1;
+        }
+
+        int[][] mappings = new int[aliases.length][];
+        for (int a = 0; a < aliases.length; a++) {
+            mappings[a] = expandAlias(aliases[a], depth);
+            if (mappings[a] == null || !isMapping(mappings[a])) {
+                return -1;
+            }
+        }
+
+        // The keys of the mapping and of the first merged mappings override those of the next merged mappings
+        Set<String> keys = getMappingKeys(key);
+        int reportedOn = site >= 0 ? site : key + 1;
+        for (int[] mapping : mappings) {
+            int last = mapping.length - 1;
+            int entry = 1;
+            while (entry < last) {
+                int next = nextEntry(mapping, entry, last);
+                String name = tokens.getType(mapping[entry]) == Token.ID.Key && entry + 1 < last ? tokens.getValue(mapping[entry + 1]) : null;
+                if ((name == null || keys.add(name)) && reserve(next - entry)) {
+                    add(out, outSites, mapping, entry, next, reportedOn);
+                }
+                entry = next;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Returns the memoized expansion of the node of the anchor of an alias
+     *
+     * @param alias the index of an {@code Alias} token
+     * @param depth the nesting depth of the alias
+     * @return the expanded tokens of the node, or {@code null} if the alias cannot be resolved
+     */
+    private int[] expandAlias(int alias, int depth) {
+        int anchor = aliasTargets[alias];
+        if (anchor < 0) {
+            return null;
+        }
+        int[] expansion = expansions.get(anchor);
+        if (expansion != null) {
+            return expansion;
+        }
+        if (depth >= MAX_DEPTH) {
+            complete = false;
+            return null;
+        }
+        if (!expanding.add(anchor)) {
+            // Recursive alias: cannot be expanded
+            return null;
+        }
+        IntList out = new IntList(16);
+        int start = anchor + 1;
+        copy(start, nodeEnd(skipProperties(start)), out, null, -1, depth + 1);
+        expanding.remove(anchor);
+        expansion = out.toArray();
+        expansions.put(anchor, expansion);
+        return expansion;
+    }
+
+    /**
+     * Returns the keys of the mapping that contains a key
+     *
+     * @param key the index of a {@code Key} token
+     * @return the values of the scalar keys of the mapping, without the merge key
+     */
+    private Set<String> getMappingKeys(int key) {
+        // Find the start of the mapping
+        int start = key - 1;
+        for (int depth = 0; start >= 0; start--) {
+            Token.ID type = tokens.getType(start);
+            if (isCollectionEnd(type)) {
+                depth++;
+            } else if (isCollectionStart(type)) {
+                if (depth == 0) {
+                    break;
+                }
+                depth--;
+            }
+        }
+        Set<String> keys = new HashSet<>();
+        for (int i = start + 1, depth = 0; i < tokens.size() && depth >= 0; i++) {
+            Token.ID type = tokens.getType(i);
+            if (isCollectionStart(type)) {
+                depth++;
+            } else if (isCollectionEnd(type)) {
+                depth--;
+            } else if (depth == 0 && type == Token.ID.Key && i + 1 < tokens.size() && tokens.getType(i + 1) == Token.ID.Scalar && !isMergeKey(i + 1)) {
+                keys.add(tokens.getValue(i + 1));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Returns the index of the token that ends the node starting at the passed token
+     *
+     * @param start the index of the first token of a node, anchor and tag excluded
+     * @return the index of the token that follows the node
+     */
+    private int nodeEnd(int start) {
+        if (start >= tokens.size()) {
+            return start;
+        }
+        Token.ID type = tokens.getType(start);
+        if (type == Token.ID.Scalar || type == Token.ID.Alias) {
+            return start + 1;
+        }
+        int i = start;
+        int depth = 0;
+        if (isCollectionStart(type)) {
+            do {
+                type = tokens.getType(i++);
+                if (isCollectionStart(type)) {
+                    depth++;
+                } else if (isCollectionEnd(type)) {
+                    depth--;
+                }
+            } while (depth > 0 && i < tokens.size());
+        } else if (type == Token.ID.BlockEntry) {
+            // Sequence not indented under its key: no start and end tokens
+            for (; i < tokens.size(); i++) {
+                type = tokens.getType(i);
+                if (depth == 0 && type != Token.ID.BlockEntry && (type == Token.ID.Key || isCollectionEnd(type) || type == Token.ID.Value ||
+                        type == Token.ID.DocumentStart || type == Token.ID.DocumentEnd || type == Token.ID.StreamEnd)) {
+                    break;
+                }
+                if (isCollectionStart(type)) {
+                    depth++;
+                } else if (isCollectionEnd(type)) {
+                    depth--;
+                }
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Returns the index of the start of the next entry of an expanded mapping
+     */
+    private int nextEntry(int[] mapping, int entry, int last) {
+        int i = entry + 1;
+        for (int depth = 0; i < last; i++) {
+            Token.ID type = tokens.getType(mapping[i]);
+            if (depth == 0 && type == Token.ID.Key) {
+                break;
+            }
+            if (isCollectionStart(type)) {
+                depth++;
+            } else if (isCollectionEnd(type)) {
+                depth--;
+            }
+        }
+        return i;
+    }
+
+    private boolean isMergeKey(int index) {
+        return index < tokens.size() && tokens.getType(index) == Token.ID.Scalar
+                // Plain scalar only: a quoted "<<" is a regular key
+                && tokens.getEndOffset(index) - tokens.getStartOffset(index) == MERGE_KEY.length()
+                && MERGE_KEY.equals(tokens.getValue(index))
+                && index + 1 < tokens.size() && tokens.getType(index + 1) == Token.ID.Value;
+    }
+
+    private boolean isMapping(int[] expansion) {
+        if (expansion.length < 2) {
+            return false;
+        }
+        Token.ID first = tokens.getType(expansion[0]);
+        Token.ID last = tokens.getType(expansion[expansion.length - 1]);
+        return (first == Token.ID.BlockMappingStart && last == Token.ID.BlockEnd) || (first == Token.ID.FlowMappingStart && last == Token.ID.FlowMappingEnd);
+    }
+
+    private int skipProperties(int index) {
+        int i = index;
+        while (i < tokens.size() && (tokens.getType(i) == Token.ID.Anchor || tokens.getType(i) == Token.ID.Tag)) {
+            i++;
+        }
+        return i;
+    }
+
+    private boolean reserve(int count) {
+        if (count > budget) {
+            complete = false;
+            return false;
+        }
+        budget -= count;
+        return true;
+    }
+
+    private static void add(IntList out, IntList outSites, int[] expansion, int from, int to, int site) {
+        out.addAll(expansion, from, to);
+        if (outSites != null) {
+            for (int i = from; i < to; i++) {
+                outSites.add(site);
+            }
+        }
+    }
+
+    private static boolean isCollectionStart(Token.ID type) {
+        return type == Token.ID.BlockMappingStart || type == Token.ID.BlockSequenceStart || type == Token.ID.FlowMappingStart || type == Token.ID.FlowSequenceStart;
+    }
+
+    private static boolean isCollectionEnd(Token.ID type) {
+        return type == Token.ID.BlockEnd || type == Token.ID.FlowMappingEnd || type == Token.ID.FlowSequenceEnd;
+    }
+
+
+    /**
+     * Growable list of {@code int}s
+     */
+    private static final class IntList {
+        private int[] values;
+        private int size = 0;
+
+
+        IntList(int capacity) {
+            values = new int[Math.max(capacity, 4)];
+        }
+
+
+        void add(int value) {
+            ensureCapacity(size + 1);
+            values[size++] = value;
+        }
+
+        void addAll(int[] source, int from, int to) {
+            ensureCapacity(size + to - from);
+            System.arraycopy(source, from, values, size, to - from);
+            size += to - from;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > values.length) {
+                values = Arrays.copyOf(values, Math.max(capacity, values.length * 2));
+            }
+        }
+    }
+}
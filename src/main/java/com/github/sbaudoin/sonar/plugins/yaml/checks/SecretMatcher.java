@@ -0,0 +1,214 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import javax.annotation.CheckForNull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Matcher of the known credential formats (cloud provider keys, personal access tokens, private keys, etc.). All the
+ * signatures are looked for in a single pass over a text: signatures are indexed by the first character of their
+ * prefix so that, at each position of the text, only the signatures that may start with the current character are
+ * tried. No regular expression is involved.
+ */
+final class SecretMatcher {
+    private static final String UPPER = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final String ALNUM = UPPER + "abcdefghijklmnopqrstuvwxyz0123456789";
+    private static final String UPPER_DIGITS = UPPER + "0123456789";
+    private static final String BASE64URL = ALNUM + "-_";
+
+    private static final List<Signature> SIGNATURES = Arrays.asList(
+            new Signature("AWS access key ID", new String[] { "AKIA", "ASIA", "AGPA", "AIDA", "AROA", "ANPA", "ANVA", "AIPA" }, UPPER_DIGITS, 16, 16),
+            new Signature("GitHub token", new String[] { "ghp_", "gho_", "ghu_", "ghs_", "ghr_" }, ALNUM, 36, 36),
+            new Signature("GitHub token", new String[] { "github_pat_" }, ALNUM + "_", 82, 82),
+            new Signature("GitLab token", new String[] { "glpat-" }, ALNUM + "-_", 20, 20),
+            new Signature("Slack token", new String[] { "xoxb-", "xoxp-", "xoxa-", "xoxr-", "xoxs-" }, ALNUM + "-", 10, 250),
+            new Signature("Stripe key", new String[] { "sk_live_", "rk_live_" }, ALNUM, 24, 99),
+            new Signature("Google API key", new String[] { "AIza" }, BASE64URL, 35, 35),
+            new Signature("npm token", new String[] { "npm_" }, ALNUM, 36, 36),
+            new Signature("private key", new String[] { "-----BEGIN " }, UPPER + " ", 11, 30) {
+                @Override
+                int match(String text, int start) {
+                    int end = super.match(text, start);
+                    return end >= 0 && text.startsWith("PRIVATE KEY-----", end - "PRIVATE KEY".length()) ? end : -1;
+                }
+            });
+
+    /**
+     * Signatures by first character (ASCII only)
+     */
+    private static final Signature[][] INDEX = new Signature[128][];
+
+    static {
+        List<List<Signature>> index = new ArrayList<>(INDEX.length);
+        for (int i = 0; i < INDEX.length; i++) {
+            index.add(new ArrayList<>());
+        }
+        for (Signature signature : SIGNATURES) {
+            for (String prefix : signature.prefixes) {
+                List<Signature> signatures = index.get(prefix.charAt(0));
+                if (!signatures.contains(signature)) {
+                    signatures.add(signature);
+                }
+            }
+        }
+        for (int i = 0; i < INDEX.length; i++) {
+            INDEX[i] = index.get(i).isEmpty() ? null : index.get(i).toArray(new Signature[0]);
+        }
+    }
+
+
+    /**
+     * Hide constructor
+     */
+    private SecretMatcher() {
+    }
+
+
+    /**
+     * Looks for a known credential format in the passed text
+     *
+     * @param text a text
+     * @return the name of the first credential format found, or {@code null} if none
+     */
+    @CheckForNull
+    static String find(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= INDEX.length || INDEX[c] == null || (i > 0 && isWordChar(text.charAt(i - 1)))) {
+                continue;
+            }
+            for (Signature signature : INDEX[c]) {
+                if (signature.match(text, i) >= 0) {
+                    return signature.name;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the Shannon entropy of the passed text, in bits per character
+     *
+     * @param text a text
+     * @return the entropy of the text, 0 for an empty text
+     */
+    static double entropy(CharSequence text) {
+        int length = text.length();
+        if (length == 0) {
+            return 0;
+        }
+        int[] counts = new int[128];
+        int[] others = null;
+        int otherCount = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < counts.length) {
+                counts[c]++;
+            } else {
+                // Non-ASCII characters are rare in secrets: count them in a small sorted array
+                if (others == null) {
+                    others = new int[length - i];
+                }
+                others[otherCount++] = c;
+            }
+        }
+        double entropy = 0;
+        for (int count : counts) {
+            entropy -= term(count, length);
+        }
+        if (others != null) {
+            Arrays.sort(others, 0, otherCount);
+            int run = 1;
+            for (int i = 1; i <= otherCount; i++) {
+                if (i < otherCount && others[i] == others[i - 1]) {
+                    run++;
+                } else {
+                    entropy -= term(run, length);
+                    run = 1;
+                }
+            }
+        }
+        return entropy;
+    }
+
+
+    private static double term(int count, int length) {
+        if (count == 0) {
+            return 0;
+        }
+        double p = (double) count / length;
+        return p * Math.log(p) / Math.log(2);
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+
+    /**
+     * A credential format: one of several literal prefixes followed by a number of characters of a given set
+     */
+    private static class Signature {
+        private final String name;
+        private final String[] prefixes;
+        private final boolean[] charset = new boolean[128];
+        private final int minLength;
+        private final int maxLength;
+
+
+        Signature(String name, String[] prefixes, String charset, int minLength, int maxLength) {
+            this.name = name;
+            this.prefixes = prefixes;
+            for (int i = 0; i < charset.length(); i++) {
+                this.charset[charset.charAt(i)] = true;
+            }
+            this.minLength = minLength;
+            this.maxLength = maxLength;
+        }
+
+
+        /**
+         * Tells if the text matches this signature at the passed position
+         *
+         * @param text a text
+         * @param start the position in the text
+         * @return the end position of the match, or {@code -1} if the text does not match
+         */
+        int match(String text, int start) {
+            for (String prefix : prefixes) {
+                if (text.startsWith(prefix, start)) {
+                    int i = start + prefix.length();
+                    int limit = Math.min(text.length(), i + maxLength);
+                    while (i < limit && isInCharset(text.charAt(i))) {
+                        i++;
+                    }
+                    int length = i - start - prefix.length();
+                    if (length >= minLength && (i == text.length() || !isInCharset(text.charAt(i)) && !isWordChar(text.charAt(i)))) {
+                        return i;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        private boolean isInCharset(char c) {
+            return c < charset.length && charset[c];
+        }
+    }
+}
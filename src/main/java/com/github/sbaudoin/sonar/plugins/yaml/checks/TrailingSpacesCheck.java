@@ -17,9 +17,21 @@ package com.github.sbaudoin.sonar.plugins.yaml.checks;
 
 import org.sonar.check.Rule;
 
+import java.io.IOException;
+
 /**
  * Check for trailing spaces
  */
 @Rule(key = "TrailingSpacesCheck")
 public class TrailingSpacesCheck extends YamlLintCheck {
+    /**
+     * Tells if at least one line of the source code ends with a space or a tab
+     *
+     * @return {@code false} if no line ends with a space or a tab, {@code true} otherwise
+     * @throws IOException if an error occurred reading the source code
+     */
+    @Override
+    protected boolean mayRaiseIssues() throws IOException {
+        return config != null || getYamlSourceCode().getLines().hasTrailingWhitespace();
+    }
 }
@@ -15,15 +15,12 @@
  */
 package com.github.sbaudoin.sonar.plugins.yaml.checks;
 
-import com.github.sbaudoin.yamllint.YamlLintConfig;
-import com.github.sbaudoin.yamllint.YamlLintConfigException;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
 import org.yaml.snakeyaml.Yaml;
 
-import java.lang.reflect.Field;
 
 /**
  * Check for truthies
@@ -41,30 +38,33 @@ public class TruthyCheck extends YamlLintCheck {
 
 
     @Override
-    protected YamlLintConfig getYamlLintconfig() throws YamlLintConfigException {
+    protected boolean usesLocalConfig() {
+        // The rule properties always take precedence over the local YAML Lint configuration
+        return false;
+    }
+
+    @Override
+    protected CharSequence getYamlLintconfigProperties() {
         Yaml yaml = new Yaml();
         StringBuilder propsSB = new StringBuilder();
-        for (Field f : getClass().getDeclaredFields()) {
-            RuleProperty rp = f.getAnnotation(RuleProperty.class);
-            LOGGER.debug("Got RuleProperty " + rp);
-            if (rp != null) {
-                try {
-                    if ("allowed-values".equals(rp.key())) {
-                        if (f.get(this) != null && !"".equals(f.get(this))) {
-                            propsSB.append("    ").append(rp.key()).append(": ").append(yaml.dump(((String) f.get(this)).split(" ?, ?")));
-                        } else {
-                            propsSB.append("    ").append(rp.key()).append(": []\n");
-                        }
+        for (CheckMetadata.Property p : CheckMetadata.of(getClass()).getProperties()) {
+            try {
+                Object value = p.getValue(this);
+                if ("allowed-values".equals(p.getKey())) {
+                    if (value != null && !"".equals(value)) {
+                        propsSB.append("    ").append(p.getKey()).append(": ").append(yaml.dump(((String) value).split(" ?, ?")));
                     } else {
-                        propsSB.append("    ").append(rp.key()).append(": ").append(f.get(this)).append("\n");
+                        propsSB.append("    ").append(p.getKey()).append(": []\n");
                     }
-                } catch (IllegalAccessException e) {
-                    LOGGER.warn("Cannot get field value for '" + f.getName() + "'", e);
-                    return null;
+                } else {
+                    propsSB.append("    ").append(p.getKey()).append(": ").append(value).append("\n");
                 }
+            } catch (IllegalAccessException e) {
+                LOGGER.warn("Cannot get field value for '" + p.getFieldName() + "'", e);
+                return null;
             }
         }
 
-        return getYamlLintconfig(propsSB);
+        return propsSB;
     }
 }
@@ -17,11 +17,18 @@ package com.github.sbaudoin.sonar.plugins.yaml.checks;
 
 import com.github.sbaudoin.yamllint.YamlLintConfig;
 import org.sonar.api.rule.RuleKey;
+import org.sonar.check.RuleProperty;
 
 /**
  * Abstract class that all YAML checks should extend
  */
-public abstract class YamlCheck {
+public abstract class YamlCheck implements Cloneable {
+    @RuleProperty(key = "included-files", description = "Comma-separated list of Ant-style patterns of the paths of the files this rule applies to, relative to the project base directory, for example 'charts/**/values.yaml'. Leave empty to apply the rule to all files.")
+    String includedFiles;
+
+    @RuleProperty(key = "excluded-files", description = "Comma-separated list of Ant-style patterns of the paths of the files this rule does not apply to, relative to the project base directory, for example '**/templates/**'. Leave empty to exclude no file.")
+    String excludedFiles;
+
     /**
      * Pointer to the YAMLLint configuration
      */
@@ -86,6 +93,42 @@ public abstract class YamlCheck {
         this.config = config;
     }
 
+    /**
+     * Returns the Ant-style patterns of the files this check applies to
+     *
+     * @return a comma-separated list of Ant-style patterns, possibly {@code null} or empty if this check applies to
+     * all files
+     */
+    public String getIncludedFiles() {
+        return includedFiles;
+    }
+
+    /**
+     * Returns the Ant-style patterns of the files this check does not apply to
+     *
+     * @return a comma-separated list of Ant-style patterns, possibly {@code null} or empty if no file is excluded
+     */
+    public String getExcludedFiles() {
+        return excludedFiles;
+    }
+
+    /**
+     * Returns a copy of this check, with the same rule key, properties and configuration, so that the same rule can be
+     * applied to several source codes at the same time. The copy has no source code set.
+     *
+     * @return a copy of this check
+     */
+    public YamlCheck copy() {
+        try {
+            YamlCheck copy = (YamlCheck) super.clone();
+            copy.yamlSourceCode = null;
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            // Cannot happen: this class implements Cloneable
+            throw new IllegalStateException(e);
+        }
+    }
+
     /**
      * Returns a (unique) ID for this check. By default, the rule ID is calculated from the class name as follows:
      * <ul>
@@ -98,7 +141,7 @@ public abstract class YamlCheck {
      * @return a string that uniquely identifies this rule
      */
     public String getId() {
-        return this.getClass().getName().replaceAll("^.*\\.([^.])", "$1").replaceAll("Check$", "").replaceAll("([A-Z])", "-$1").substring(1).toLowerCase();
+        return CheckMetadata.of(getClass()).getId();
     }
 
     /**
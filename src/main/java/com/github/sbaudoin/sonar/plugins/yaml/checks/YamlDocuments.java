@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import org.yaml.snakeyaml.tokens.Token;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Classification of the documents of a YAML source code by their {@code apiVersion} and kind (the value of the
+ * {@code kind} key or of another discriminator key), as found at the root of each document. Documents that are not
+ * mappings or that do not have these keys have a {@code null} API version or kind.
+ * <p>Documents are described by the range of their tokens, so that the checks can walk through the documents they
+ * apply to only.</p>
+ */
+public final class YamlDocuments {
+    /**
+     * Default discriminator key
+     */
+    public static final String DEFAULT_KIND_KEY = "kind";
+
+    private static final String API_VERSION_KEY = "apiVersion";
+
+    private final int[] starts;
+    private final int[] ends;
+    private final String[] apiVersions;
+    private final String[] kinds;
+
+
+    private YamlDocuments(int[] starts, int[] ends, String[] apiVersions, String[] kinds) {
+        this.starts = starts;
+        this.ends = ends;
+        this.apiVersions = apiVersions;
+        this.kinds = kinds;
+    }
+
+
+    /**
+     * Splits the passed tokens into documents and classifies them
+     *
+     * @param tokens the tokens of a YAML source code
+     * @param kindKey the discriminator key whose value at the root of a document gives its kind
+     * @return the documents of the source code, in order
+     */
+    public static YamlDocuments classify(YamlTokens tokens, String kindKey) {
+        List<int[]> ranges = new ArrayList<>();
+        List<String[]> classes = new ArrayList<>();
+        int start = 0;
+        int depth = 0;
+        boolean content = false;
+        String apiVersion = null;
+        String kind = null;
+        for (int i = 0; i < tokens.size(); i++) {
+            Token.ID type = tokens.getType(i);
+            if (type == Token.ID.DocumentStart || type == Token.ID.DocumentEnd || type == Token.ID.StreamEnd) {
+                // A document end marker belongs to the document it ends
+                int end = type == Token.ID.DocumentEnd ? i + 1 : i;
+                if (content) {
+                    ranges.add(new int[] { start, end });
+                    classes.add(new String[] { apiVersion, kind });
+                }
+                start = end;
+                depth = 0;
+                content = false;
+                apiVersion = null;
+                kind = null;
+                continue;
+            }
+            if (type == Token.ID.BlockMappingStart || type == Token.ID.BlockSequenceStart || type == Token.ID.FlowMappingStart || type == Token.ID.FlowSequenceStart) {
+                depth++;
+            } else if (type == Token.ID.BlockEnd || type == Token.ID.FlowMappingEnd || type == Token.ID.FlowSequenceEnd) {
+                depth--;
+            } else if (depth == 1 && type == Token.ID.Key && (apiVersion == null || kind == null)) {
+                String key = i + 1 < tokens.size() ? tokens.getValue(i + 1) : null;
+                if (API_VERSION_KEY.equals(key) && apiVersion == null) {
+                    apiVersion = getScalarValue(tokens, i + 2);
+                } else if (kindKey.equals(key) && kind == null) {
+                    kind = getScalarValue(tokens, i + 2);
+                }
+            }
+            content |= type != Token.ID.StreamStart;
+        }
+        int n = ranges.size();
+        int[] starts = new int[n];
+        int[] ends = new int[n];
+        String[] apiVersions = new String[n];
+        String[] kinds = new String[n];
+        for (int i = 0; i < n; i++) {
+            starts[i] = ranges.get(i)[0];
+            ends[i] = ranges.get(i)[1];
+            apiVersions[i] = classes.get(i)[0];
+            kinds[i] = classes.get(i)[1];
+        }
+        return new YamlDocuments(starts, ends, apiVersions, kinds);
+    }
+
+
+    /**
+     * Returns the number of documents
+     *
+     * @return the number of documents
+     */
+    public int size() {
+        return starts.length;
+    }
+
+    /**
+     * Returns the index of the first token of a document
+     *
+     * @param index the index of the document
+     * @return the index of the first token of the document
+     */
+    public int getStartToken(int index) {
+        return starts[index];
+    }
+
+    /**
+     * Returns the index of the token that follows a document
+     *
+     * @param index the index of the document
+     * @return the index of the token that follows the last token of the document
+     */
+    public int getEndToken(int index) {
+        return ends[index];
+    }
+
+    /**
+     * Returns the API version of a document
+     *
+     * @param index the index of the document
+     * @return the scalar value of the {@code apiVersion} key at the root of the document, or {@code null}
+     */
+    public String getApiVersion(int index) {
+        return apiVersions[index];
+    }
+
+    /**
+     * Returns the kind of a document
+     *
+     * @param index the index of the document
+     * @return the scalar value of the discriminator key at the root of the document, or {@code null}
+     */
+    public String getKind(int index) {
+        return kinds[index];
+    }
+
+
+    /**
+     * Returns the value of the scalar that follows a {@code Value} token, anchor and tag excluded
+     */
+    private static String getScalarValue(YamlTokens tokens, int index) {
+        if (index >= tokens.size() || tokens.getType(index) != Token.ID.Value) {
+            return null;
+        }
+        int i = index + 1;
+        while (i < tokens.size() && (tokens.getType(i) == Token.ID.Anchor || tokens.getType(i) == Token.ID.Tag)) {
+            i++;
+        }
+        return i < tokens.size() ? tokens.getValue(i) : null;
+    }
+}
@@ -80,6 +80,16 @@ public class YamlIssue {
         this.syntaxError = syntaxError;
     }
 
+    /**
+     * Returns a copy of this issue at another line, for example when the issue was found in a part of a file
+     *
+     * @param newLine the line number of the copy
+     * @return a copy of this issue, of the same class, with the passed line number
+     */
+    public YamlIssue atLine(int newLine) {
+        return new YamlIssue(ruleKey, message, newLine, column, syntaxError);
+    }
+
     /**
      * Returns a message describing the issue
      *
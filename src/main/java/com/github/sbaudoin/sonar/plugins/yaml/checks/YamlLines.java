@@ -0,0 +1,286 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import java.util.Arrays;
+
+/**
+ * Line-level facts about a YAML source code, computed in a single pass over its characters: line offsets, blank and
+ * comment lines, lines with trailing whitespace and the length of the longest line. Lines are split on {@code \n}
+ * only, as done by yamllint: a {@code \r} before a {@code \n} is not part of the line.
+ */
+public final class YamlLines {
+    private static final byte BLANK = 1;
+    private static final byte COMMENT = 2;
+    private static final byte TRAILING_WHITESPACE = 4;
+
+    private final int[] lineStarts;
+    private final int[] lineEnds;
+    private final byte[] flags;
+    private final int lineCount;
+    private final int maxLineLength;
+    private final boolean carriageReturn;
+    private final boolean trailingWhitespace;
+
+
+    /**
+     * Constructor. Scans the passed source code.
+     *
+     * @param content a YAML source code
+     */
+    public YamlLines(String content) {
+        int capacity = Math.max(16, content.length() / 32);
+        int[] starts = new int[capacity];
+        int[] ends = new int[capacity];
+        byte[] lineFlags = new byte[capacity];
+        int count = 0;
+        int maxLength = 0;
+        boolean anyCarriageReturn = false;
+        boolean anyTrailingWhitespace = false;
+
+        int length = content.length();
+        int start = 0;
+        while (true) {
+            int next = content.indexOf('\n', start);
+            int end = next == -1 ? length : next;
+            if (next != -1 && next > start && content.charAt(next - 1) == '\r') {
+                end--;
+            }
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+                lineFlags = Arrays.copyOf(lineFlags, count * 2);
+            }
+            starts[count] = start;
+            ends[count] = end;
+            lineFlags[count] = classify(content, start, end);
+            anyTrailingWhitespace |= (lineFlags[count] & TRAILING_WHITESPACE) != 0;
+            maxLength = Math.max(maxLength, end - start);
+            count++;
+            if (next == -1) {
+                break;
+            }
+            anyCarriageReturn |= end != next;
+            start = next + 1;
+        }
+        anyCarriageReturn |= content.indexOf('\r') >= 0;
+
+        this.lineStarts = starts;
+        this.lineEnds = ends;
+        this.flags = lineFlags;
+        this.lineCount = count;
+        this.maxLineLength = maxLength;
+        this.carriageReturn = anyCarriageReturn;
+        this.trailingWhitespace = anyTrailingWhitespace;
+    }
+
+
+    /**
+     * Returns the number of lines. A source code that ends with a line break has an empty last line.
+     *
+     * @return the number of lines
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Returns the offset (in characters) of the start of a line
+     *
+     * @param line a line number, starting from 1
+     * @return the offset of the first character of the line
+     */
+    public int getLineStart(int line) {
+        checkLine(line);
+        return lineStarts[line - 1];
+    }
+
+    /**
+     * Returns the offset (in characters) of the end of a line
+     *
+     * @param line a line number, starting from 1
+     * @return the offset of the character that follows the last character of the line (excluding the line break)
+     */
+    public int getLineEnd(int line) {
+        checkLine(line);
+        return lineEnds[line - 1];
+    }
+
+    /**
+     * Tells if a line is blank
+     *
+     * @param line a line number, starting from 1
+     * @return {@code true} if the line only contains whitespace characters
+     */
+    public boolean isBlank(int line) {
+        checkLine(line);
+        return (flags[line - 1] & BLANK) != 0;
+    }
+
+    /**
+     * Tells if a line is a comment line, i.e. a line with only a non-empty comment
+     *
+     * @param line a line number, starting from 1
+     * @return {@code true} if the line only contains a non-empty comment, {@code false} otherwise (inline comments
+     * return {@code false})
+     */
+    public boolean isComment(int line) {
+        checkLine(line);
+        return (flags[line - 1] & COMMENT) != 0;
+    }
+
+    /**
+     * Tells if a line ends with a space or a tab
+     *
+     * @param line a line number, starting from 1
+     * @return {@code true} if the line ends with a space or a tab (possibly followed by other whitespace characters)
+     */
+    public boolean hasTrailingWhitespace(int line) {
+        checkLine(line);
+        return (flags[line - 1] & TRAILING_WHITESPACE) != 0;
+    }
+
+    /**
+     * Tells if at least one line ends with a space or a tab
+     *
+     * @return {@code true} if at least one line ends with a space or a tab
+     */
+    public boolean hasTrailingWhitespace() {
+        return trailingWhitespace;
+    }
+
+    /**
+     * Returns the length (in characters) of the longest line
+     *
+     * @return the length of the longest line, line break excluded
+     */
+    public int getMaxLineLength() {
+        return maxLineLength;
+    }
+
+    /**
+     * Tells if the source code contains a carriage return character ({@code \r}), whether in a DOS line break or not
+     *
+     * @return {@code true} if the source code contains at least one {@code \r}
+     */
+    public boolean hasCarriageReturn() {
+        return carriageReturn;
+    }
+
+
+    private void checkLine(int line) {
+        if (line < 1 || line > lineCount) {
+            throw new IndexOutOfBoundsException("Line: " + line + ", line count: " + lineCount);
+        }
+    }
+
+    /**
+     * Classifies a line
+     *
+     * @param content the source code
+     * @param start the offset of the start of the line
+     * @param end the offset of the end of the line
+     * @return the flags of the line
+     */
+    private static byte classify(String content, int start, int end) {
+        byte result = 0;
+
+        // Trailing whitespace, as detected by yamllint: the trailing whitespace characters start with a space or a tab
+        int pos = end;
+        while (pos > start && isYamlLintWhitespace(content.charAt(pos - 1))) {
+            pos--;
+        }
+        if (pos != end && (content.charAt(pos) == ' ' || content.charAt(pos) == '\t')) {
+            result |= TRAILING_WHITESPACE;
+        }
+
+        if (isBlank(content, start, end)) {
+            return (byte) (result | BLANK);
+        }
+
+        // Same as String.trim(): skip the characters lower than or equal to a space
+        int first = start;
+        while (first < end && content.charAt(first) <= ' ') {
+            first++;
+        }
+        int last = end - 1;
+        while (last >= first && content.charAt(last) <= ' ') {
+            last--;
+        }
+        if (isComment(content, first, last + 1)) {
+            result |= COMMENT;
+        }
+        return result;
+    }
+
+    private static boolean isYamlLintWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\u000B' || c == '\f';
+    }
+
+    private static boolean isBlank(String content, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(content.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tells if the passed trimmed line matches {@code \h*#\h*\S.*}
+     *
+     * @param content the source code
+     * @param start the offset of the start of the trimmed line
+     * @param end the offset of the end of the trimmed line
+     * @return {@code true} if the trimmed line is a comment line
+     */
+    private static boolean isComment(String content, int start, int end) {
+        int i = start;
+        while (i < end && content.charAt(i) != '#' && isHorizontalWhitespace(content.charAt(i))) {
+            i++;
+        }
+        if (i == end || content.charAt(i) != '#') {
+            return false;
+        }
+        i++;
+
+        // "\h*\S" may backtrack: the non-whitespace character may be any horizontal whitespace but a space or a tab
+        boolean nonSpaceHorizontalWhitespace = false;
+        while (i < end && isHorizontalWhitespace(content.charAt(i))) {
+            nonSpaceHorizontalWhitespace |= content.charAt(i) != ' ' && content.charAt(i) != '\t';
+            i++;
+        }
+        if (nonSpaceHorizontalWhitespace && hasNoLineTerminator(content, i, end)) {
+            return true;
+        }
+        return i < end && " \t\n\u000B\f\r".indexOf(content.charAt(i)) < 0 && hasNoLineTerminator(content, i + 1, end);
+    }
+
+    private static boolean hasNoLineTerminator(String content, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = content.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isHorizontalWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\u00A0' || c == '\u1680' || c == '\u180E' || (c >= '\u2000' && c <= '\u200A')
+                || c == '\u202F' || c == '\u205F' || c == '\u3000';
+    }
+}
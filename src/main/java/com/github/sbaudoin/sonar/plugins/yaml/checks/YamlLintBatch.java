@@ -0,0 +1,183 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import com.github.sbaudoin.sonar.plugins.yaml.monitoring.AnalysisEvents;
+import com.github.sbaudoin.sonar.plugins.yaml.monitoring.Timing;
+import com.github.sbaudoin.yamllint.LintProblem;
+import com.github.sbaudoin.yamllint.Linter;
+import com.github.sbaudoin.yamllint.YamlLintConfig;
+import com.github.sbaudoin.yamllint.YamlLintConfigException;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Runs YAML Lint once for a group of {@link YamlLintCheck}s instead of once per check. The configurations of the
+ * checks are merged into a single YAML Lint configuration (or, when the checks use a local yamllint configuration
+ * file, this configuration is used as is), the source code is linted once and the problems are dispatched to the
+ * checks by rule ID.
+ * <p>Checks that cannot be linted together (checks with their own validation logic, checks whose configuration cannot
+ * be built, several checks for the same YAML Lint rule) are validated one by one, as are the checks that are not
+ * YAML Lint checks.</p>
+ */
+public final class YamlLintBatch {
+    private static final Logger LOGGER = Loggers.get(YamlLintBatch.class);
+
+    private static final ClassValue<Boolean> DEFAULT_VALIDATION = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("validate").getDeclaringClass() == YamlLintCheck.class;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
+
+
+    /**
+     * Hide constructor
+     */
+    private YamlLintBatch() {
+    }
+
+
+    /**
+     * Validates the passed checks against the passed source code
+     *
+     * @param sourceCode the source code to be checked
+     * @param checks the checks to validate. Their source code is set by this method.
+     */
+    public static void validate(YamlSourceCode sourceCode, Collection<? extends YamlCheck> checks) {
+        validate(sourceCode, checks, null);
+    }
+
+    /**
+     * Validates the passed checks against the passed source code
+     *
+     * @param sourceCode the source code to be checked
+     * @param checks the checks to validate. Their source code is set by this method.
+     * @param configCache the cache of the shared YAML Lint configurations, {@code null} to build them for every call
+     */
+    public static void validate(YamlSourceCode sourceCode, Collection<? extends YamlCheck> checks, @Nullable YamlLintConfigCache configCache) {
+        // Checks linted together, grouped by the local configuration they use (the null key is for the checks that use
+        // their own configuration)
+        Map<YamlLintConfig, Map<String, YamlLintCheck>> groups = new IdentityHashMap<>();
+        List<YamlCheck> others = new ArrayList<>();
+        for (YamlCheck check : checks) {
+            check.setYamlSourceCode(sourceCode);
+            if (check instanceof YamlLintCheck && DEFAULT_VALIDATION.get(check.getClass())) {
+                YamlLintCheck lintCheck = (YamlLintCheck) check;
+                Map<String, YamlLintCheck> group = groups.computeIfAbsent(lintCheck.usesLocalConfig() ? lintCheck.config : null, k -> new LinkedHashMap<>());
+                if (group.putIfAbsent(lintCheck.getLintRuleId(), lintCheck) == null) {
+                    continue;
+                }
+            }
+            others.add(check);
+        }
+
+        for (Map.Entry<YamlLintConfig, Map<String, YamlLintCheck>> group : groups.entrySet()) {
+            others.addAll(lint(sourceCode, group.getKey(), group.getValue(), configCache));
+        }
+        for (YamlCheck check : others) {
+            LOGGER.debug("Checking rule: {}", check.getRuleKey());
+            Timing timing = AnalysisEvents.beginCheckValidation(check.getRuleKey(), sourceCode.getYamlFile().uri());
+            int issueCount = sourceCode.getYamlIssues().size();
+            check.validate();
+            timing.end(sourceCode.getYamlIssues().size() - issueCount);
+        }
+    }
+
+
+    /**
+     * Lints the source code once for the passed checks
+     *
+     * @param sourceCode the source code to be checked
+     * @param localConfig the local configuration used by all the checks, {@code null} if the checks use their own
+     *                    configuration
+     * @param checks the checks, by YAML Lint rule ID
+     * @param configCache the cache of the shared YAML Lint configurations, possibly {@code null}
+     * @return the checks that could not be linted together and that must be validated one by one
+     */
+    private static List<YamlLintCheck> lint(YamlSourceCode sourceCode, @Nullable YamlLintConfig localConfig, Map<String, YamlLintCheck> checks, @Nullable YamlLintConfigCache configCache) {
+        List<YamlLintCheck> rejected = new ArrayList<>();
+        try {
+            Map<String, YamlLintCheck> linted = new LinkedHashMap<>();
+            StringBuilder confSB = new StringBuilder("---\nrules:\n");
+            for (YamlLintCheck check : checks.values()) {
+                if (!check.mayRaiseIssues()) {
+                    LOGGER.debug("Rule {} cannot raise issues on this file, skipping", check.getLintRuleId());
+                    continue;
+                }
+                if (localConfig == null) {
+                    CharSequence props = check.getYamlLintconfigProperties();
+                    if (props == null) {
+                        rejected.add(check);
+                        continue;
+                    }
+                    confSB.append(check.getYamlLintRuleConf(props)).append("\n");
+                }
+                linted.put(check.getLintRuleId(), check);
+            }
+            if (linted.isEmpty()) {
+                return rejected;
+            }
+            YamlLintConfig config = localConfig;
+            if (config == null) {
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("YAMLLint config for rules {}: '{}'", linted.keySet(), confSB);
+                }
+                Timing timing = AnalysisEvents.beginLintConfig(() -> linted.values().stream().map(YamlCheck::getRuleKey).collect(Collectors.toList()));
+                config = configCache == null ? new YamlLintConfig(confSB.toString()) : configCache.get(confSB.toString());
+                timing.end(0);
+            }
+            Map<String, List<LintProblem>> problems = new HashMap<>();
+            for (LintProblem problem : Linter.getCosmeticProblems(sourceCode.getContent(), config, null)) {
+                if (linted.containsKey(problem.getRuleId())) {
+                    problems.computeIfAbsent(problem.getRuleId(), k -> new ArrayList<>()).add(problem);
+                }
+            }
+            // Violations are created rule by rule, as if the checks had been validated one after the other, so that the
+            // issue limits apply the same way
+            for (YamlLintCheck check : linted.values()) {
+                for (LintProblem problem : problems.getOrDefault(check.getLintRuleId(), Collections.emptyList())) {
+                    LOGGER.debug("Creating violation for {}", problem);
+                    check.createViolation(problem);
+                }
+            }
+        } catch (YamlLintConfigException e) {
+            // Fall back to one check at a time so that the faulty configuration is reported for the right rule
+            LOGGER.debug("Cannot build a shared YamlLintConfig, checking rules one by one", e);
+            rejected.clear();
+            rejected.addAll(checks.values());
+        } catch (IOException e) {
+            LOGGER.warn("Cannot read source code", e);
+        }
+        return rejected;
+    }
+}
@@ -15,7 +15,8 @@
  */
 package com.github.sbaudoin.sonar.plugins.yaml.checks;
 
-import org.sonar.api.utils.WildcardPattern;
+import com.github.sbaudoin.sonar.plugins.yaml.monitoring.AnalysisEvents;
+import com.github.sbaudoin.sonar.plugins.yaml.monitoring.Timing;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.check.RuleProperty;
@@ -26,7 +27,6 @@ import com.github.sbaudoin.yamllint.YamlLintConfigException;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
-import java.lang.reflect.Field;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -44,12 +44,19 @@ public abstract class YamlLintCheck extends YamlCheck {
         }
 
         try {
-            List<LintProblem> allProblems = Linter.getCosmeticProblems(getYamlSourceCode().getContent(), getYamlLintconfig(), null);
+            Timing timing = AnalysisEvents.beginLintConfig(getRuleKey());
+            YamlLintConfig yamlLintConfig = getYamlLintconfig();
+            timing.end(0);
+            if (!mayRaiseIssues()) {
+                LOGGER.debug("Rule {} cannot raise issues on this file, skipping", getLintRuleId());
+                return;
+            }
+            List<LintProblem> allProblems = Linter.getCosmeticProblems(getYamlSourceCode().getContent(), yamlLintConfig, null);
             // Filter out problems other than those coming from the current rule
             List<LintProblem> problems = allProblems.stream().filter(p -> p.getRuleId().equals(getLintRuleId())).collect(Collectors.toList());
-            LOGGER.debug("Problems found: " + problems);
+            LOGGER.debug("Problems found: {}", problems);
             for (LintProblem problem : problems) {
-                LOGGER.debug("Creating violation for " + problem);
+                LOGGER.debug("Creating violation for {}", problem);
                 createViolation(problem);
             }
         } catch (YamlLintConfigException e) {
@@ -63,6 +70,21 @@ public abstract class YamlLintCheck extends YamlCheck {
     }
 
 
+    /**
+     * Tells if this check may raise issues on the current source code. This is a cheap prefilter, evaluated before
+     * running YAML Lint: if this method returns {@code false}, YAML Lint is not run at all for this check. The default
+     * implementation always returns {@code true}; checks may override it with a test that never returns {@code false}
+     * when YAML Lint would report a problem.
+     *
+     * @return {@code false} if this check is sure not to raise any issue, {@code true} otherwise
+     * @throws IOException if an error occurred reading the source code
+     * @see YamlSourceCode#getLines()
+     */
+    protected boolean mayRaiseIssues() throws IOException {
+        return true;
+    }
+
+
     /**
      * Registers a violation that is no a syntax error
      *
@@ -93,7 +115,7 @@ public abstract class YamlLintCheck extends YamlCheck {
      */
     protected boolean isFileIncluded(@Nullable String filePattern) {
         if (filePattern != null) {
-            return WildcardPattern.create(filePattern)
+            return FileScopeMatcher.compile(filePattern)
                     .match(getYamlSourceCode().getYamlFile().uri().getPath());
 
         } else {
@@ -119,25 +141,43 @@ public abstract class YamlLintCheck extends YamlCheck {
      * @see YamlLintConfig
      */
     protected YamlLintConfig getYamlLintconfig() throws YamlLintConfigException {
-        if (config != null) {
+        if (config != null && usesLocalConfig()) {
             return config;
         }
 
+        CharSequence props = getYamlLintconfigProperties();
+        return props == null ? null : getYamlLintconfig(props);
+    }
+
+    /**
+     * Tells if this check uses the local YAML Lint configuration file of the project, when there is one, instead of its
+     * own rule properties
+     *
+     * @return {@code true} by default
+     */
+    protected boolean usesLocalConfig() {
+        return true;
+    }
+
+    /**
+     * Returns the configuration of the current rule in the YAML syntax, as expected by
+     * {@link #getYamlLintconfig(CharSequence)}. By default, every field annotated with {@link RuleProperty} is written
+     * as is.
+     *
+     * @return the rule configuration or {@code null} if a property cannot be read
+     */
+    protected CharSequence getYamlLintconfigProperties() {
         StringBuilder propsSB = new StringBuilder();
-        for (Field f : getClass().getDeclaredFields()) {
-            RuleProperty rp = f.getAnnotation(RuleProperty.class);
-            LOGGER.debug("Got RuleProperty " + rp);
-            if (rp != null) {
-                try {
-                    propsSB.append("    ").append(rp.key()).append(": ").append(f.get(this)).append("\n");
-                } catch (IllegalAccessException e) {
-                    LOGGER.warn("Cannot get field value for '" + f.getName() + "'", e);
-                    return null;
-                }
+        for (CheckMetadata.Property p : CheckMetadata.of(getClass()).getProperties()) {
+            try {
+                propsSB.append("    ").append(p.getKey()).append(": ").append(p.getValue(this)).append("\n");
+            } catch (IllegalAccessException e) {
+                LOGGER.warn("Cannot get field value for '" + p.getFieldName() + "'", e);
+                return null;
             }
         }
 
-        return getYamlLintconfig(propsSB);
+        return propsSB;
     }
 
     /**
@@ -155,14 +195,27 @@ public abstract class YamlLintCheck extends YamlCheck {
      * @see YamlLintConfig
      */
     protected YamlLintConfig getYamlLintconfig(CharSequence conf) throws YamlLintConfigException {
-        StringBuilder confSB = new StringBuilder("---\n").append("rules:\n").append("  ").append(getLintRuleId()).append(":");
+        StringBuilder confSB = new StringBuilder("---\n").append("rules:\n").append(getYamlLintRuleConf(conf));
+
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("YAMLLint config for rule {}/{}: '{}'", getRuleKey(), getLintRuleId(), confSB);
+        }
+        return new YamlLintConfig(confSB.toString());
+    }
+
+    /**
+     * Returns the entry of the current rule in the {@code rules} section of a YAML Lint configuration
+     *
+     * @param conf the rule configuration, as passed to {@link #getYamlLintconfig(CharSequence)}
+     * @return the rule entry, indented with 2 spaces
+     */
+    String getYamlLintRuleConf(CharSequence conf) {
+        StringBuilder confSB = new StringBuilder("  ").append(getLintRuleId()).append(":");
         if (conf.length() == 0) {
             confSB.append(" enable");
         } else {
             confSB.append("\n").append(conf);
         }
-
-        LOGGER.debug("YAMLLint config for rule " + getRuleKey() + "/" + getLintRuleId() + ": '" + confSB + "'");
-        return new YamlLintConfig(confSB.toString());
+        return confSB.toString();
     }
 }
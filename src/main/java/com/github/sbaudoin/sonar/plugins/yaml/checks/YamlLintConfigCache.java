@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import com.github.sbaudoin.yamllint.YamlLintConfig;
+import com.github.sbaudoin.yamllint.YamlLintConfigException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe cache of the {@code YamlLintConfig}s built from a YAML Lint configuration text, so that the same
+ * configuration is not parsed again for every file. Once the maximum number of entries is reached, new configurations
+ * are still built but no longer cached. Configurations that cannot be built are not cached.
+ */
+public final class YamlLintConfigCache {
+    private final int maxEntries;
+    private final Map<String, YamlLintConfig> configs = new ConcurrentHashMap<>();
+
+
+    /**
+     * Constructor
+     *
+     * @param maxEntries the maximum number of cached configurations
+     */
+    public YamlLintConfigCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+
+    /**
+     * Returns the {@code YamlLintConfig} that corresponds to the passed configuration text
+     *
+     * @param conf a YAML Lint configuration
+     * @return the corresponding {@code YamlLintConfig}
+     * @throws YamlLintConfigException if the configuration is invalid
+     */
+    public YamlLintConfig get(String conf) throws YamlLintConfigException {
+        YamlLintConfig config = configs.get(conf);
+        if (config == null) {
+            config = new YamlLintConfig(conf);
+            if (configs.size() < maxEntries) {
+                YamlLintConfig previous = configs.putIfAbsent(conf, config);
+                if (previous != null) {
+                    config = previous;
+                }
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Returns the number of cached configurations
+     *
+     * @return the number of cached configurations
+     */
+    public int size() {
+        return configs.size();
+    }
+}
@@ -42,4 +42,22 @@ public class YamlLintIssue extends YamlIssue {
     public YamlLintIssue(LintProblem problem, RuleKey ruleKey, boolean syntaxError) {
         super(ruleKey, problem.getMessage(), problem.getLine(), problem.getColumn(), syntaxError);
     }
+
+    /**
+     * Constructor
+     *
+     * @param ruleKey the key of the rule that identified the issue
+     * @param message a message describing the issue
+     * @param line the line number at which the issue was found
+     * @param column the column number at which the issue was found
+     * @param syntaxError {@code true} if this issue corresponds to a syntax error, {@code false} if not
+     */
+    private YamlLintIssue(RuleKey ruleKey, String message, int line, int column, boolean syntaxError) {
+        super(ruleKey, message, line, column, syntaxError);
+    }
+
+    @Override
+    public YamlLintIssue atLine(int newLine) {
+        return new YamlLintIssue(getRuleKey(), getMessage(), newLine, getColumn(), isSyntaxError());
+    }
 }
@@ -16,14 +16,20 @@
 package com.github.sbaudoin.sonar.plugins.yaml.checks;
 
 import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.rule.RuleKey;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import com.github.sbaudoin.yamllint.LintProblem;
 import com.github.sbaudoin.yamllint.Linter;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -34,11 +40,22 @@ public class YamlSourceCode {
 
 
     private final List<YamlIssue> yamlIssues = new ArrayList<>();
+    private final Map<RuleKey, Integer> issueCountPerRule = new HashMap<>();
+    private final Map<RuleKey, IssueOverflow> overflows = new LinkedHashMap<>();
+    private int maxIssuesPerFile = 0;
+    private int maxIssuesPerRule = 0;
+    private int issueCount = 0;
 
     private YamlIssue syntaxError = null;
     private boolean filter;
     private InputFile yamlFile;
     private String content = null;
+    private YamlTokens tokens = null;
+    private YamlLines lines = null;
+    private boolean resolutionChecked = false;
+    private String documentKindKey = YamlDocuments.DEFAULT_KIND_KEY;
+    private YamlDocuments documents = null;
+    private File baseDir = null;
 
 
     /**
@@ -50,16 +67,54 @@ public class YamlSourceCode {
      * @throws IOException if there is a problem reading the passed file
      */
     public YamlSourceCode(InputFile yamlFile, Optional<Boolean> filter) throws IOException {
+        this(yamlFile, filter, true);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param yamlFile a supposedly YAML file
+     * @param filter {@code true} to filter out UTF-8 line break characters (U+2028, U+2029 and U+0085) that may not be
+     *               correctly supported by SonarQube
+     * @param checkSyntax {@code true} to parse the passed file to determine if it is syntactically correct,
+     *                    {@code false} to skip the parsing, typically when only line measures are computed
+     * @throws IOException if there is a problem reading the passed file
+     */
+    public YamlSourceCode(InputFile yamlFile, Optional<Boolean> filter, boolean checkSyntax) throws IOException {
         this.yamlFile = yamlFile;
         this.filter = filter.orElse(false);
 
-        LintProblem problem = Linter.getSyntaxError(getContent());
-        LOGGER.debug("File {} has syntax error? {}", yamlFile.uri(), problem != null);
-        if (problem != null) {
-            syntaxError = new YamlLintIssue(problem, null, true);
+        if (checkSyntax) {
+            checkSyntax();
         }
     }
 
+    /**
+     * Constructor for a part of a file (typically a group of documents of a multi-document file) whose syntax is known
+     * to be correct. The file is neither read nor parsed.
+     *
+     * @param yamlFile the file the passed content is part of
+     * @param content the YAML content to be analyzed, with line numbers starting from 1
+     */
+    public YamlSourceCode(InputFile yamlFile, String content) {
+        this.yamlFile = yamlFile;
+        this.content = content;
+    }
+
+
+    /**
+     * Parses the source code to determine if it is syntactically correct. This is done by the constructor unless told
+     * otherwise.
+     *
+     * @throws IOException if there is a problem reading the file
+     * @see #YamlSourceCode(InputFile, Optional, boolean)
+     * @see #hasCorrectSyntax()
+     */
+    public void checkSyntax() throws IOException {
+        LintProblem problem = Linter.getSyntaxError(getContent());
+        LOGGER.debug("File {} has syntax error? {}", yamlFile.uri(), problem != null);
+        syntaxError = problem != null ? new YamlLintIssue(problem, null, true) : null;
+    }
 
     /**
      * Returns the {@code InputFile} of this class.
@@ -96,15 +151,192 @@ public class YamlSourceCode {
     }
 
     /**
-     * Adds an issue to list of issues already discovered
+     * Returns the tokens of the YAML source code. The source code is scanned the first time this method is called.
+     *
+     * @return the tokens of the YAML source code, empty if the source code has a syntax error
+     * @throws IOException if an error occurred reading the YAML file
+     */
+    public YamlTokens getTokens() throws IOException {
+        if (tokens == null) {
+            String source = getContent();
+            tokens = hasCorrectSyntax() ? YamlTokens.parse(source) : YamlTokens.empty(source);
+        }
+        return tokens;
+    }
+
+    /**
+     * Returns a new cursor that walks through the tokens of the YAML source code with the anchors, aliases and merge
+     * keys resolved. A warning is logged once if the aliases cannot all be resolved.
+     *
+     * @return a new cursor on the resolved tokens, with no token if the source code has a syntax error
+     * @throws IOException if an error occurred reading the YAML file
+     * @see YamlTokens#resolvedCursor()
+     */
+    public YamlTokens.Cursor resolvedCursor() throws IOException {
+        YamlTokens.Cursor cursor = getTokens().resolvedCursor();
+        checkResolution();
+        return cursor;
+    }
+
+    /**
+     * Returns a new cursor that walks through a range of the tokens of the YAML source code, typically a document, with
+     * the anchors, aliases and merge keys resolved. A warning is logged once if the aliases cannot all be resolved.
+     *
+     * @param fromToken the index of the first token of the range
+     * @param toToken the index of the token that follows the range
+     * @return a new cursor on the resolved tokens of the range
+     * @throws IOException if an error occurred reading the YAML file
+     * @see YamlTokens#resolvedCursor(int, int)
+     * @see #getDocuments()
+     */
+    public YamlTokens.Cursor resolvedCursor(int fromToken, int toToken) throws IOException {
+        YamlTokens.Cursor cursor = getTokens().resolvedCursor(fromToken, toToken);
+        checkResolution();
+        return cursor;
+    }
+
+    /**
+     * Returns the documents of the YAML source code, classified by API version and kind. The documents are classified
+     * the first time this method is called.
+     *
+     * @return the documents of the YAML source code, none if the source code has a syntax error
+     * @throws IOException if an error occurred reading the YAML file
+     * @see #setDocumentKindKey(String)
+     */
+    public YamlDocuments getDocuments() throws IOException {
+        if (documents == null) {
+            documents = YamlDocuments.classify(getTokens(), documentKindKey);
+        }
+        return documents;
+    }
+
+    /**
+     * Returns the key whose value gives the kind of the documents
+     *
+     * @return the discriminator key of the documents
+     */
+    public String getDocumentKindKey() {
+        return documentKindKey;
+    }
+
+    /**
+     * Sets the key whose value, at the root of a document, gives the kind of the document. Defaults to {@code kind}.
+     *
+     * @param documentKindKey the discriminator key of the documents
+     */
+    public void setDocumentKindKey(String documentKindKey) {
+        this.documentKindKey = documentKindKey;
+        this.documents = null;
+    }
+
+    /**
+     * Returns the base directory of the project the YAML file belongs to, against which the relative paths found in the
+     * rule properties are resolved
+     *
+     * @return the base directory of the project, possibly {@code null} if unknown
+     */
+    public File getBaseDir() {
+        return baseDir;
+    }
+
+    /**
+     * Sets the base directory of the project the YAML file belongs to
+     *
+     * @param baseDir the base directory of the project
+     */
+    public void setBaseDir(File baseDir) {
+        this.baseDir = baseDir;
+    }
+
+    /**
+     * Returns the line-level facts of the YAML source code. The source code is scanned the first time this method is
+     * called.
+     *
+     * @return the lines of the YAML source code
+     * @throws IOException if an error occurred reading the YAML file
+     */
+    public YamlLines getLines() throws IOException {
+        if (lines == null) {
+            lines = new YamlLines(getContent());
+        }
+        return lines;
+    }
+
+    private void checkResolution() throws IOException {
+        if (!resolutionChecked) {
+            resolutionChecked = true;
+            if (!getTokens().isFullyResolved()) {
+                LOGGER.warn("Aliases of {} not all resolved: the expansion limits were reached", yamlFile.uri());
+            }
+        }
+    }
+
+    /**
+     * Adds an issue to list of issues already discovered. If an issue limit is reached, the issue is not kept but only
+     * recorded as an overflow.
      *
      * @param issue an issue that relates to this YAML source code
+     * @see #setIssueLimits(int, int)
      */
     public void addViolation(YamlIssue issue) {
-        this.yamlIssues.add(issue);
         if (issue.isSyntaxError() && syntaxError == null) {
             syntaxError = issue;
         }
+        if (recordIfOverflow(issue.getRuleKey(), issue.getLine())) {
+            return;
+        }
+        this.yamlIssues.add(issue);
+        if (issue.getRuleKey() != null) {
+            issueCount++;
+            issueCountPerRule.merge(issue.getRuleKey(), 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Sets the maximum number of issues that can be reported for this source code. Once a limit is reached, the
+     * additional issues are not kept but only recorded as overflows.
+     *
+     * @param maxIssuesPerFile the maximum number of issues for the whole file, all rules together. {@code 0} or a
+     *                         negative value means no limit.
+     * @param maxIssuesPerRule the maximum number of issues for a given rule. {@code 0} or a negative value means no
+     *                         limit.
+     * @see #getIssueOverflows()
+     */
+    public void setIssueLimits(int maxIssuesPerFile, int maxIssuesPerRule) {
+        this.maxIssuesPerFile = maxIssuesPerFile;
+        this.maxIssuesPerRule = maxIssuesPerRule;
+    }
+
+    /**
+     * Tells if a new issue for the passed rule would exceed the issue limits and, if so, records it as an overflow.
+     * Issues without rule key (syntax errors) are never limited.
+     *
+     * @param ruleKey the key of the rule that is about to raise an issue
+     * @param line the line of the issue
+     * @return {@code true} if the issue has been recorded as an overflow and must not be added, {@code false} if the
+     * issue can be added
+     */
+    private boolean recordIfOverflow(RuleKey ruleKey, int line) {
+        if (ruleKey == null) {
+            return false;
+        }
+        boolean fileLimitReached = maxIssuesPerFile > 0 && issueCount >= maxIssuesPerFile;
+        boolean ruleLimitReached = maxIssuesPerRule > 0 && issueCountPerRule.getOrDefault(ruleKey, 0) >= maxIssuesPerRule;
+        if (!fileLimitReached && !ruleLimitReached) {
+            return false;
+        }
+        overflows.computeIfAbsent(ruleKey, IssueOverflow::new).add(line);
+        return true;
+    }
+
+    /**
+     * Returns the issues that were not kept because of the issue limits, grouped by rule
+     *
+     * @return the issue overflows, one per rule (possibly empty but never {@code null})
+     * @see #setIssueLimits(int, int)
+     */
+    public Collection<IssueOverflow> getIssueOverflows() {
+        return overflows.values();
     }
 
     /**
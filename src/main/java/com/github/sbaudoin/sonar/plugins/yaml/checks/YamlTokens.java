@@ -0,0 +1,438 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import com.github.sbaudoin.yamllint.LintScanner;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.reader.StreamReader;
+import org.yaml.snakeyaml.tokens.ScalarToken;
+import org.yaml.snakeyaml.tokens.Token;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact representation of the tokens of a YAML source code. Tokens are stored as parallel primitive arrays (type,
+ * start offset and end offset) instead of SnakeYAML {@code Token} objects and their {@code Mark}s:
+ * <ul>
+ *     <li>scalar values are only kept when they differ from the source text (quoted, multi-line or block scalars);
+ *     the other ones are extracted from the source when asked for</li>
+ *     <li>lines and columns are computed from the offsets when asked for</li>
+ * </ul>
+ * <p>Offsets, lines and columns are those of SnakeYAML: offsets are expressed in code points, lines and columns
+ * start from 0.</p>
+ */
+public final class YamlTokens {
+    private static final Logger LOGGER = Loggers.get(YamlTokens.class);
+
+    private static final Token.ID[] TOKEN_IDS = Token.ID.values();
+
+    private final String content;
+    private final boolean supplementaryChars;
+    private byte[] types = new byte[64];
+    private int[] starts = new int[64];
+    private int[] ends = new int[64];
+    private int size = 0;
+    private final Map<Integer, String> values = new HashMap<>();
+    private int[] lineStarts = null;
+    private ResolvedTokens resolved = null;
+
+
+    /**
+     * Constructor
+     *
+     * @param content the YAML source code
+     */
+    private YamlTokens(String content) {
+        this.content = content;
+        this.supplementaryChars = content.codePointCount(0, content.length()) != content.length();
+    }
+
+
+    /**
+     * Scans the passed YAML source code and returns its tokens. If the source code is not valid YAML, only the tokens
+     * found before the first error are returned.
+     *
+     * @param content a YAML source code
+     * @return the tokens of the passed source code
+     */
+    public static YamlTokens parse(String content) {
+        YamlTokens tokens = new YamlTokens(content);
+        LintScanner scanner = new LintScanner(new StreamReader(content));
+        try {
+            while (scanner.hasMoreTokens()) {
+                tokens.add(scanner.getToken());
+            }
+        } catch (YAMLException e) {
+            LOGGER.debug("Scanning stopped on syntax error: {}", e.getMessage());
+        }
+        tokens.trim();
+        return tokens;
+    }
+
+    /**
+     * Returns an empty token list, used for source codes that cannot be scanned
+     *
+     * @param content the YAML source code
+     * @return an empty token list
+     */
+    static YamlTokens empty(String content) {
+        YamlTokens tokens = new YamlTokens(content);
+        tokens.trim();
+        return tokens;
+    }
+
+
+    /**
+     * Returns the number of tokens
+     *
+     * @return the number of tokens
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the type of a token
+     *
+     * @param index the index of the token
+     * @return the type of the token
+     */
+    public Token.ID getType(int index) {
+        checkIndex(index);
+        return TOKEN_IDS[types[index]];
+    }
+
+    /**
+     * Returns the offset (in code points) of the start of a token
+     *
+     * @param index the index of the token
+     * @return the start offset of the token
+     */
+    public int getStartOffset(int index) {
+        checkIndex(index);
+        return starts[index];
+    }
+
+    /**
+     * Returns the offset (in code points) of the end of a token
+     *
+     * @param index the index of the token
+     * @return the end offset of the token
+     */
+    public int getEndOffset(int index) {
+        checkIndex(index);
+        return ends[index];
+    }
+
+    /**
+     * Returns the line of the start of a token
+     *
+     * @param index the index of the token
+     * @return the line of the token, starting from 0
+     */
+    public int getLine(int index) {
+        return getLineOfOffset(getStartOffset(index));
+    }
+
+    /**
+     * Returns the column of the start of a token
+     *
+     * @param index the index of the token
+     * @return the column of the token, starting from 0
+     */
+    public int getColumn(int index) {
+        int offset = getStartOffset(index);
+        // The line is computed first: it builds the line starts on the first call
+        int line = getLineOfOffset(offset);
+        return offset - lineStarts[line];
+    }
+
+    /**
+     * Returns the value of a scalar token
+     *
+     * @param index the index of the token
+     * @return the value of the scalar token, or {@code null} if the token is not a scalar
+     */
+    public String getValue(int index) {
+        if (getType(index) != Token.ID.Scalar) {
+            return null;
+        }
+        String value = values.get(index);
+        return value != null ? value : content.substring(starts[index], ends[index]);
+    }
+
+    /**
+     * Returns the source text of a token
+     *
+     * @param index the index of the token
+     * @return the text of the token as found in the source code
+     */
+    String getText(int index) {
+        checkIndex(index);
+        if (!supplementaryChars) {
+            return content.substring(starts[index], ends[index]);
+        }
+        int start = content.offsetByCodePoints(0, starts[index]);
+        return content.substring(start, content.offsetByCodePoints(start, ends[index] - starts[index]));
+    }
+
+    /**
+     * Returns a new cursor positioned before the first token
+     *
+     * @return a new cursor
+     */
+    public Cursor cursor() {
+        return new Cursor(null, null, 0, size);
+    }
+
+    /**
+     * Returns a new cursor that walks through the tokens with the anchors, aliases and merge keys resolved: the value
+     * rules see the effective values of the keys, whether they are literal or come from an alias or a merged mapping.
+     * The aliases are resolved the first time this method is called.
+     *
+     * @return a new cursor positioned before the first resolved token
+     * @see #isFullyResolved()
+     */
+    public Cursor resolvedCursor() {
+        int[] order = getResolved().getOrder();
+        return new Cursor(order, getResolved().getSites(), 0, order.length);
+    }
+
+    /**
+     * Returns a new cursor that walks through a range of the tokens with the anchors, aliases and merge keys resolved,
+     * typically a document
+     *
+     * @param fromToken the index of the first token of the range
+     * @param toToken the index of the token that follows the range
+     * @return a new cursor positioned before the first resolved token of the range. The tokens that come from an alias
+     * or a merged mapping are part of the range if their alias or merge key is.
+     * @see #resolvedCursor()
+     */
+    public Cursor resolvedCursor(int fromToken, int toToken) {
+        int[] sites = getResolved().getSites();
+        return new Cursor(getResolved().getOrder(), sites, lowerBound(sites, fromToken), lowerBound(sites, toToken));
+    }
+
+    /**
+     * Tells if all the aliases could be resolved by {@link #resolvedCursor()}. The aliases are not resolved beyond a
+     * given number of expanded tokens and a given nesting depth, in order to protect against alias bombs.
+     *
+     * @return {@code false} if some aliases were left unresolved because of the expansion limits
+     */
+    public boolean isFullyResolved() {
+        return getResolved().isComplete();
+    }
+
+
+    /**
+     * Returns the index of the first value of a sorted array greater than or equal to the passed value
+     */
+    private static int lowerBound(int[] sorted, int value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private ResolvedTokens getResolved() {
+        if (resolved == null) {
+            resolved = ResolvedTokens.resolve(this);
+        }
+        return resolved;
+    }
+
+    private void add(Token token) {
+        if (size == types.length) {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+        }
+        int start = token.getStartMark().getIndex();
+        int end = token.getEndMark().getIndex();
+        types[size] = (byte) token.getTokenId().ordinal();
+        starts[size] = start;
+        ends[size] = end;
+        if (token instanceof ScalarToken) {
+            String value = ((ScalarToken) token).getValue();
+            // Only keep the values that cannot be extracted as is from the source code
+            if (supplementaryChars || value.length() != end - start || !content.regionMatches(start, value, 0, value.length())) {
+                values.put(size, value);
+            }
+        }
+        size++;
+    }
+
+    private void trim() {
+        types = Arrays.copyOf(types, size);
+        starts = Arrays.copyOf(starts, size);
+        ends = Arrays.copyOf(ends, size);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Token index: " + index + ", size: " + size);
+        }
+    }
+
+    private int getLineOfOffset(int offset) {
+        if (lineStarts == null) {
+            lineStarts = computeLineStarts(content);
+        }
+        int line = Arrays.binarySearch(lineStarts, offset);
+        return line >= 0 ? line : -line - 2;
+    }
+
+    /**
+     * Returns the offsets (in code points) of the starts of the lines of the passed content, using the same line
+     * breaks as SnakeYAML
+     *
+     * @param content a YAML source code
+     * @return the offsets of the line starts, the first one being 0
+     */
+    static int[] computeLineStarts(String content) {
+        int[] result = new int[16];
+        int count = 1;
+        int offset = 0;
+        int length = content.length();
+        for (int i = 0; i < length; offset++) {
+            int c = content.codePointAt(i);
+            i += Character.charCount(c);
+            if (c == '\n' || c == '\u0085' || c == '\u2028' || c == '\u2029' || (c == '\r' && (i == length || content.charAt(i) != '\n'))) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, count * 2);
+                }
+                result[count++] = offset + 1;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+
+    /**
+     * Cursor used to walk through the tokens, with the same {@code getToken()}/{@code peekToken()} semantic as the
+     * SnakeYAML scanner, but returning token indexes. A cursor walks either through the tokens as they are in the
+     * source code, or through a resolved view of them, in which a token may appear several times.
+     */
+    public final class Cursor {
+        private final int[] order;
+        private final int[] sites;
+        private final int start;
+        private final int length;
+        private int next;
+
+
+        private Cursor(int[] order, int[] sites, int start, int length) {
+            this.order = order;
+            this.sites = sites;
+            this.start = start;
+            this.length = length;
+            this.next = start;
+        }
+
+
+        /**
+         * Tells if there are tokens left
+         *
+         * @return {@code true} if there is at least one token left, {@code false} otherwise
+         */
+        public boolean hasMoreTokens() {
+            return next < length;
+        }
+
+        /**
+         * Moves to the next token and returns its index
+         *
+         * @return the index of the next token
+         * @throws IndexOutOfBoundsException if there is no token left
+         */
+        public int getToken() {
+            if (next >= length) {
+                throw new IndexOutOfBoundsException("Cursor position: " + next + ", length: " + length);
+            }
+            return order != null ? order[next++] : next++;
+        }
+
+        /**
+         * Returns the index of the next token without moving to it
+         *
+         * @return the index of the next token, or {@code -1} if there is no token left
+         */
+        public int peekToken() {
+            if (next >= length) {
+                return -1;
+            }
+            return order != null ? order[next] : next;
+        }
+
+        /**
+         * Returns the type of the next token without moving to it
+         *
+         * @return the type of the next token, or {@code null} if there is no token left
+         */
+        public Token.ID peekTokenType() {
+            int token = peekToken();
+            return token >= 0 ? TOKEN_IDS[types[token]] : null;
+        }
+
+        /**
+         * Returns the index of the token the issues about the next token are to be reported on
+         *
+         * @return the index of the next token itself or, if it comes from an alias or a merged mapping, the index of
+         * the alias or the merge key it was expanded from. {@code -1} if there is no token left.
+         */
+        public int peekSite() {
+            if (next >= length) {
+                return -1;
+            }
+            return sites != null ? sites[next] : peekToken();
+        }
+
+        /**
+         * Returns the index of the token the issues about the last token returned by {@link #getToken()} are to be
+         * reported on
+         *
+         * @return the index of the last token itself or, if it comes from an alias or a merged mapping, the index of
+         * the alias or the merge key it was expanded from. {@code -1} if no token was returned yet.
+         */
+        public int getSite() {
+            if (next == start) {
+                return -1;
+            }
+            return sites != null ? sites[next - 1] : (order != null ? order[next - 1] : next - 1);
+        }
+
+        /**
+         * Returns the tokens this cursor walks through
+         *
+         * @return the tokens of this cursor
+         */
+        public YamlTokens getTokens() {
+            return YamlTokens.this;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.highlighting;
+
+import org.sonar.api.batch.sensor.cpd.NewCpdTokens;
+
+/**
+ * Class that stores a token of YAML code used for copy-paste detection and that is responsible for reporting it to
+ * Sonar
+ */
+public class CpdTokenData {
+    private final String image;
+
+    private int startLine;
+    private int startColumnOffset;
+    private int endLine;
+    private int endColumnOffset;
+
+    /**
+     * Constructor
+     *
+     * @param startLine the line number where the token starts
+     * @param startColumnIndex the column number where the token starts
+     * @param endLine the line number where the token ends
+     * @param endColumnIndex the column number where the token ends (this column is not part of the token)
+     * @param image the normalized text of the token, the text compared to find duplications
+     */
+    public CpdTokenData(int startLine, int startColumnIndex, int endLine, int endColumnIndex, String image) {
+        this.startLine = startLine;
+        this.startColumnOffset = startColumnIndex - 1;
+        this.endLine = endLine;
+        this.endColumnOffset = endColumnIndex - 1;
+        this.image = image;
+    }
+
+    /**
+     * Adds the token described by this class to the copy-paste detection tokens of a file
+     *
+     * @param cpdTokens SonarQube's copy-paste detection tokens of the file
+     */
+    public void addTo(NewCpdTokens cpdTokens) {
+        cpdTokens.addToken(startLine, startColumnOffset, endLine, endColumnOffset, image);
+    }
+
+    /**
+     * Returns the line number where the token starts
+     *
+     * @return the line number where the token starts
+     */
+    public int getStartLine() {
+        return startLine;
+    }
+
+    /**
+     * Returns the column number where the token starts
+     *
+     * @return the column number where the token starts
+     */
+    public int getStartColumnIndex() {
+        return startColumnOffset + 1;
+    }
+
+    /**
+     * Returns the line number where the token ends
+     *
+     * @return the line number where the token ends
+     */
+    public int getEndLine() {
+        return endLine;
+    }
+
+    /**
+     * Returns the column number where the token ends
+     *
+     * @return the column number where the token ends
+     */
+    public int getEndColumnIndex() {
+        return endColumnOffset + 1;
+    }
+
+    /**
+     * Returns the normalized text of the token
+     *
+     * @return the normalized text of the token
+     */
+    public String getImage() {
+        return image;
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.highlighting;
+
+import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
+import org.sonar.api.batch.sensor.highlighting.TypeOfText;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact storage of the syntax highlighting of a file. The ranges are added in the order of the file and packed into
+ * primitive arrays instead of being kept as objects. A range of the same type of text as the previous range and that
+ * starts where it ends (or within it, as the consecutive comment lines that all end at the next token) is merged into
+ * the previous range. The number of ranges can be limited, in which case the ranges beyond the limit are dropped.
+ */
+public class HighlightingRanges {
+    private static final TypeOfText[] TYPES = TypeOfText.values();
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int maxRanges;
+    // Start line, start column, end line and end column of each range
+    private int[] positions = new int[4 * INITIAL_CAPACITY];
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private int size = 0;
+    private int dropped = 0;
+
+
+    /**
+     * Constructor
+     *
+     * @param maxRanges the maximum number of ranges, 0 (or less) for no limit
+     */
+    public HighlightingRanges(int maxRanges) {
+        this.maxRanges = maxRanges;
+    }
+
+
+    /**
+     * Adds a range, or merges it into the previous range if they have the same type of text and are contiguous. The
+     * range must not start before the previous range.
+     *
+     * @param startLine the line number where the range starts
+     * @param startColumnIndex the column number where the range starts
+     * @param endLine the line number where the range ends
+     * @param endColumnIndex the column number where the range ends (this column is not part of the range)
+     * @param typeOfText the type of text of the range
+     * @return {@code true} if the range was added or merged, {@code false} if it was dropped because the maximum number
+     * of ranges is reached
+     */
+    public boolean add(int startLine, int startColumnIndex, int endLine, int endColumnIndex, TypeOfText typeOfText) {
+        if (size > 0 && types[size - 1] == typeOfText.ordinal()) {
+            int last = 4 * (size - 1);
+            if (compare(startLine, startColumnIndex, positions[last + 2], positions[last + 3]) <= 0) {
+                // Contiguous or overlapping: extend the previous range if needed
+                if (compare(endLine, endColumnIndex, positions[last + 2], positions[last + 3]) > 0) {
+                    positions[last + 2] = endLine;
+                    positions[last + 3] = endColumnIndex;
+                }
+                return true;
+            }
+        }
+        if (maxRanges > 0 && size >= maxRanges) {
+            dropped++;
+            return false;
+        }
+        if (size == types.length) {
+            types = Arrays.copyOf(types, 2 * size);
+            positions = Arrays.copyOf(positions, 8 * size);
+        }
+        int i = 4 * size;
+        positions[i] = startLine;
+        positions[i + 1] = startColumnIndex;
+        positions[i + 2] = endLine;
+        positions[i + 3] = endColumnIndex;
+        types[size++] = (byte) typeOfText.ordinal();
+        return true;
+    }
+
+    /**
+     * Highlights the ranges in SonarQube
+     *
+     * @param highlighting SonarQube's highlighting of the file
+     */
+    public void highlight(NewHighlighting highlighting) {
+        for (int i = 0; i < size; i++) {
+            highlighting.highlight(positions[4 * i], positions[4 * i + 1] - 1, positions[4 * i + 2], positions[4 * i + 3] - 1, TYPES[types[i]]);
+        }
+    }
+
+    /**
+     * Returns the number of ranges
+     *
+     * @return the number of ranges, after merging
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of ranges dropped because the maximum number of ranges was reached
+     *
+     * @return the number of dropped ranges
+     */
+    public int getDroppedCount() {
+        return dropped;
+    }
+
+    /**
+     * Returns the ranges as highlighting data
+     *
+     * @return a read-only view of the ranges, whose elements are created on access
+     */
+    public List<HighlightingData> getHighlightingData() {
+        return new AbstractList<HighlightingData>() {
+            @Override
+            public HighlightingData get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+                }
+                return new HighlightingData(positions[4 * index], positions[4 * index + 1], positions[4 * index + 2], positions[4 * index + 3], TYPES[types[index]]);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+
+    private static int compare(int line1, int column1, int line2, int column2) {
+        return line1 == line2 ? Integer.compare(column1, column2) : Integer.compare(line1, line2);
+    }
+}
@@ -19,16 +19,24 @@ import com.github.sbaudoin.sonar.plugins.yaml.checks.YamlSourceCode;
 import org.sonar.api.batch.sensor.highlighting.TypeOfText;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.yaml.snakeyaml.tokens.ScalarToken;
 import org.yaml.snakeyaml.tokens.Token;
 import com.github.sbaudoin.yamllint.Parser;
 
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
 /**
- * Class in charge of YAML code highlighting in SonarQube
+ * Class in charge of YAML code highlighting in SonarQube. The highlighting ranges are streamed into a compact
+ * {@link HighlightingRanges} as the tokens are walked, where adjacent ranges of the same type are merged. The tokens
+ * used for copy-paste detection are collected during the same walk of the YAML tokens: scalars are reported with their
+ * unquoted value, the decimal numbers being written in a canonical form, so that copies that only differ by their
+ * quoting style or the way their numbers are written are still detected, while anchors, aliases, tags and indicators
+ * are kept as is.
  */
 public class YamlHighlighting {
     private static final Logger LOGGER = Loggers.get(YamlHighlighting.class);
@@ -39,7 +47,8 @@ public class YamlHighlighting {
     public static final String BOM_CHAR = "\ufeff";
 
 
-    private List<HighlightingData> highlighting = new ArrayList<>();
+    private final HighlightingRanges highlighting;
+    private final List<CpdTokenData> cpdTokens;
     private TypeOfText currentCode = TypeOfText.KEYWORD;
     private String content;
 
@@ -52,10 +61,40 @@ public class YamlHighlighting {
      * @throws IllegalArgumentException if {@code sourceCode} is {@code null}
      */
     public YamlHighlighting(YamlSourceCode sourceCode) throws IOException {
+        this(sourceCode, 0);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param sourceCode the YAML source code to be highlighted
+     * @param maxRanges the maximum number of highlighting ranges, 0 (or less) for no limit
+     * @throws IOException if an error occurred reading the file
+     * @throws IllegalArgumentException if {@code sourceCode} is {@code null}
+     */
+    public YamlHighlighting(YamlSourceCode sourceCode, int maxRanges) throws IOException {
+        this(sourceCode, maxRanges, true);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param sourceCode the YAML source code to be highlighted
+     * @param maxRanges the maximum number of highlighting ranges, 0 (or less) for no limit
+     * @param collectCpdTokens {@code false} not to collect the copy-paste detection tokens, to measure their cost
+     * @throws IOException if an error occurred reading the file
+     * @throws IllegalArgumentException if {@code sourceCode} is {@code null}
+     */
+    YamlHighlighting(YamlSourceCode sourceCode, int maxRanges, boolean collectCpdTokens) throws IOException {
         if (sourceCode == null) {
             throw new IllegalArgumentException("Input YAML source code cannot be null");
         }
+        highlighting = new HighlightingRanges(maxRanges);
+        cpdTokens = collectCpdTokens ? new ArrayList<>() : null;
         process(sourceCode.getContent());
+        if (highlighting.getDroppedCount() > 0) {
+            LOGGER.debug("Highlighting of file {} limited to {} ranges, {} range(s) dropped", sourceCode.getYamlFile().filename(), maxRanges, highlighting.getDroppedCount());
+        }
     }
 
 
@@ -83,11 +122,30 @@ public class YamlHighlighting {
      * Returns the list of highlighting data found for the YAML code
      *
      * @return the list of highlighting data found for the YAML code (possibly empty but never {@code null})
+     * @see HighlightingRanges#getHighlightingData()
      */
     public List<HighlightingData> getHighlightingData() {
+        return highlighting.getHighlightingData();
+    }
+
+    /**
+     * Returns the highlighting ranges found for the YAML code
+     *
+     * @return the highlighting ranges found for the YAML code (possibly empty but never {@code null})
+     */
+    public HighlightingRanges getHighlightingRanges() {
         return highlighting;
     }
 
+    /**
+     * Returns the list of copy-paste detection tokens found for the YAML code
+     *
+     * @return the list of copy-paste detection tokens (possibly empty but never {@code null})
+     */
+    public List<CpdTokenData> getCpdTokens() {
+        return cpdTokens == null ? Collections.emptyList() : cpdTokens;
+    }
+
 
     /**
      * Parses the YAML code to create highlightings
@@ -104,7 +162,7 @@ public class YamlHighlighting {
     }
 
     /**
-     * Creates an {@code HighlightingData} for a comment
+     * Creates a highlighting range for a comment
      *
      * @param comment a comment to be highlighted
      */
@@ -113,12 +171,12 @@ public class YamlHighlighting {
         // We stop the highlighting right before the next token, not at the very end of the comment
         YamlLocation endLocation = new YamlLocation(content, comment.getTokenAfter().getStartMark());
 
-        LOGGER.trace("Highlighting comment: " + comment);
+        LOGGER.trace("Highlighting comment: {}", comment);
         addHighlighting(startLocation, endLocation, TypeOfText.COMMENT);
     }
 
     /**
-     * Creates an {@code HighlightingData} for a code token
+     * Creates a highlighting range for a code token
      *
      * @param token a token to be highlighted
      */
@@ -131,36 +189,58 @@ public class YamlHighlighting {
             case DocumentStart: case DocumentEnd:
                 LOGGER.trace("Highlighting document start: ---");
                 addHighlighting(startLocation, endLocation, TypeOfText.CONSTANT);
+                addCpdToken(startLocation, endLocation, getText(currentToken));
                 break;
 
             case Key:
                 LOGGER.trace("Key to come");
                 currentCode = TypeOfText.KEYWORD;
+                addCpdToken(startLocation, endLocation, "?");
                 break;
 
             case Value:
                 LOGGER.trace("Value to come");
                 currentCode = TypeOfText.STRING;
+                addCpdToken(startLocation, endLocation, ":");
                 break;
 
             case Scalar:
-                LOGGER.trace("Highlighting scalar of type " + currentCode + ": " + content.substring(currentToken.getStartMark().getIndex(), currentToken.getEndMark().getIndex()));
+                if (LOGGER.isTraceEnabled()) {
+                    LOGGER.trace("Highlighting scalar of type {}: {}", currentCode, getText(currentToken));
+                }
                 addHighlighting(startLocation, endLocation, currentCode);
+                addCpdToken(startLocation, endLocation, currentCode == TypeOfText.KEYWORD ? ((ScalarToken) currentToken).getValue() : getValueImage(((ScalarToken) currentToken).getValue()));
+                break;
+
+            case BlockEntry:
+                addCpdToken(startLocation, endLocation, "-");
+                break;
+
+            case FlowEntry: case FlowMappingStart: case FlowMappingEnd: case FlowSequenceStart: case FlowSequenceEnd:
+                addCpdToken(startLocation, endLocation, getText(currentToken));
                 break;
 
             case Directive:
-                LOGGER.trace("Highlighting directive: " + content.substring(currentToken.getStartMark().getIndex(), currentToken.getEndMark().getIndex()));
+                if (LOGGER.isTraceEnabled()) {
+                    LOGGER.trace("Highlighting directive: {}", getText(currentToken));
+                }
                 addHighlighting(startLocation, endLocation, TypeOfText.COMMENT);
                 break;
 
             case Anchor: case Alias:
-                LOGGER.trace("Highlighting anchor or alias: " + content.substring(currentToken.getStartMark().getIndex(), currentToken.getEndMark().getIndex()));
+                if (LOGGER.isTraceEnabled()) {
+                    LOGGER.trace("Highlighting anchor or alias: {}", getText(currentToken));
+                }
                 addHighlighting(startLocation, endLocation, TypeOfText.ANNOTATION);
+                addCpdToken(startLocation, endLocation, getText(currentToken));
                 break;
 
             case Tag:
-                LOGGER.trace("Highlighting tag: " + content.substring(currentToken.getStartMark().getIndex(), currentToken.getEndMark().getIndex()));
+                if (LOGGER.isTraceEnabled()) {
+                    LOGGER.trace("Highlighting tag: {}", getText(currentToken));
+                }
                 addHighlighting(startLocation, endLocation, TypeOfText.PREPROCESS_DIRECTIVE);
+                addCpdToken(startLocation, endLocation, getText(currentToken));
                 break;
 
             default:
@@ -169,7 +249,7 @@ public class YamlHighlighting {
     }
 
     /**
-     * Creates an {@code HighlightingData} with the passed characteristics
+     * Adds a highlighting range with the passed characteristics
      *
      * @param start the highlighting start location
      * @param end the highlighting end location
@@ -180,6 +260,86 @@ public class YamlHighlighting {
             throw new IllegalArgumentException("Cannot highlight an empty range");
         }
 
-        highlighting.add(new HighlightingData(start.line(), start.column(), end.line(), end.column(), typeOfText));
+        highlighting.add(start.line(), start.column(), end.line(), end.column(), typeOfText);
+    }
+
+    /**
+     * Creates a copy-paste detection token, unless the token is empty (as the implicit keys and the block collection
+     * starts and ends are)
+     *
+     * @param start the token start location
+     * @param end the token end location
+     * @param image the normalized text of the token
+     */
+    private void addCpdToken(YamlLocation start, YamlLocation end, String image) {
+        if (cpdTokens != null && !start.isSameAs(end)) {
+            cpdTokens.add(new CpdTokenData(start.line(), start.column(), end.line(), end.column(), image));
+        }
+    }
+
+    /**
+     * Returns the copy-paste detection image of a scalar value: the value itself, unless it is a decimal number, which
+     * is written in a canonical form (e.g. {@code +1.50} and {@code 1.5} or {@code 1e3} and {@code 1000} have the same
+     * image)
+     *
+     * @param value the (unquoted) value of a scalar
+     * @return the image of the value
+     */
+    static String getValueImage(String value) {
+        if (!isDecimalNumber(value)) {
+            return value;
+        }
+        BigDecimal number = new BigDecimal(value).stripTrailingZeros();
+        return number.signum() == 0 ? "0" : number.toPlainString();
+    }
+
+    /**
+     * Tells if the passed value can be parsed by {@code new BigDecimal(String)}: an optional sign, digits with an
+     * optional decimal point and an optional exponent. This is checked first so that non-numeric values never cost an
+     * exception.
+     */
+    private static boolean isDecimalNumber(String value) {
+        int length = value.length();
+        int i = 0;
+        if (i < length && (value.charAt(i) == '+' || value.charAt(i) == '-')) {
+            i++;
+        }
+        boolean digits = false;
+        for (; i < length && value.charAt(i) >= '0' && value.charAt(i) <= '9'; i++) {
+            digits = true;
+        }
+        if (i < length && value.charAt(i) == '.') {
+            for (i++; i < length && value.charAt(i) >= '0' && value.charAt(i) <= '9'; i++) {
+                digits = true;
+            }
+        }
+        if (!digits) {
+            return false;
+        }
+        if (i < length && (value.charAt(i) == 'e' || value.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (value.charAt(i) == '+' || value.charAt(i) == '-')) {
+                i++;
+            }
+            int exponentStart = i;
+            while (i < length && value.charAt(i) >= '0' && value.charAt(i) <= '9') {
+                i++;
+            }
+            // Exponents are bounded so that the canonical form stays short
+            if (i == exponentStart || i - exponentStart > 2) {
+                return false;
+            }
+        }
+        return i == length;
+    }
+
+    /**
+     * Returns the source text of the passed token
+     *
+     * @param token a token
+     * @return the text of the token as found in the YAML source
+     */
+    private String getText(Token token) {
+        return content.substring(token.getStartMark().getIndex(), token.getEndMark().getIndex());
     }
 }
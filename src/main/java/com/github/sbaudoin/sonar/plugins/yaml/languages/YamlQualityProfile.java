@@ -18,10 +18,42 @@ package com.github.sbaudoin.sonar.plugins.yaml.languages;
 import com.github.sbaudoin.sonar.plugins.yaml.checks.CheckRepository;
 import org.sonar.api.server.profile.BuiltInQualityProfilesDefinition;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Default, built-in quality profile for the projects having YAML files
  */
 public class YamlQualityProfile implements BuiltInQualityProfilesDefinition {
+    /**
+     * Keys of the rules activated in the quality profile
+     */
+    public static final List<String> RULE_KEYS = Collections.unmodifiableList(Arrays.asList(
+            // Syntax error check
+            "ParsingErrorCheck",
+            // Other regular checks
+            "AnchorsCheck",
+            "BracesCheck",
+            "BracketsCheck",
+            "ColonsCheck",
+            "CommasCheck",
+            "CommentsCheck",
+            "CommentsIndentationCheck",
+            "DocumentStartCheck",
+            "EmptyLinesCheck",
+            "EmptyValuesCheck",
+            "HyphensCheck",
+            "IndentationCheck",
+            "KeyDuplicatesCheck",
+            "LineLengthCheck",
+            "NewLineAtEndOfFileCheck",
+            "NewLinesCheck",
+            "OctalValuesCheck",
+            "TrailingSpacesCheck",
+            "TruthyCheck"
+    ));
+
     private final boolean hasBuiltinYamlSupport;
 
     /**
@@ -39,29 +71,9 @@ public class YamlQualityProfile implements BuiltInQualityProfilesDefinition {
         NewBuiltInQualityProfile profile = context.createBuiltInQualityProfile("YAML Analyzer", YamlLanguage.KEY);
         profile.setDefault(!hasBuiltinYamlSupport);
 
-        // Syntax error check
-        profile.activateRule(CheckRepository.REPOSITORY_KEY, "ParsingErrorCheck");
-
-        // Other regular checks
-        profile.activateRule(CheckRepository.REPOSITORY_KEY, "AnchorsCheck");
-        profile.activateRule(CheckRepository.REPOSITORY_KEY, "BracesCheck");
-        profile.activateRule(CheckRepository.REPOSITORY_KEY, "BracketsCheck");
-        profile.activateRule(CheckRepository.REPOSITORY_KEY, "ColonsCheck");
-        profile.activateRule(CheckRepository.REPOSITORY_KEY, "CommasCheck");
-        profile.activateRule(CheckRepository.REPOSITORY_KEY, "CommentsCheck");
-        profile.activateRule(CheckRepository.REPOSITORY_KEY, "CommentsIndentationCheck");
-        profile.activateRule(CheckRepository.REPOSITORY_KEY, "DocumentStartCheck");
-        profile.activateRule(CheckRepository.REPOSITORY_KEY, "EmptyLinesCheck");
-        profile.activateRule(CheckRepository.REPOSITORY_KEY, "EmptyValuesCheck");
-        profile.activateRule(CheckRepository.REPOSITORY_KEY, "HyphensCheck");
-        profile.activateRule(CheckRepository.REPOSITORY_KEY, "IndentationCheck");
-        profile.activateRule(CheckRepository.REPOSITORY_KEY, "KeyDuplicatesCheck");
-        profile.activateRule(CheckRepository.REPOSITORY_KEY, "LineLengthCheck");
-        profile.activateRule(CheckRepository.REPOSITORY_KEY, "NewLineAtEndOfFileCheck");
-        profile.activateRule(CheckRepository.REPOSITORY_KEY, "NewLinesCheck");
-        profile.activateRule(CheckRepository.REPOSITORY_KEY, "OctalValuesCheck");
-        profile.activateRule(CheckRepository.REPOSITORY_KEY, "TrailingSpacesCheck");
-        profile.activateRule(CheckRepository.REPOSITORY_KEY, "TruthyCheck");
+        for (String ruleKey : RULE_KEYS) {
+            profile.activateRule(CheckRepository.REPOSITORY_KEY, ruleKey);
+        }
 
         profile.done();
     }
@@ -15,8 +15,7 @@
  */
 package com.github.sbaudoin.sonar.plugins.yaml.linecounter;
 
-import org.apache.commons.lang.StringUtils;
-import com.github.sbaudoin.yamllint.Parser;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.YamlLines;
 
 import java.util.*;
 
@@ -38,23 +37,26 @@ public final class LineCountParser {
      * @see #getLineCountData()
      */
     public LineCountParser(String contents) {
+        this(new YamlLines(contents));
+    }
+
+    /**
+     * Constructor. The passed lines are counted and an instance of {@code LineCountData} is created and ready for
+     * retrieval with the method {@linkplain #getLineCountData()}
+     *
+     * @param lines the lines of the YAML content, already scanned
+     * @see #getLineCountData()
+     */
+    public LineCountParser(YamlLines lines) {
         this.commentLines = new HashSet<>();
         this.linesOfCodeLines = new HashSet<>();
-        linesNumber = 0;
+        linesNumber = lines.getLineCount();
 
-        List<Parser.Line> lines = Parser.getLines(contents);
-
-        for (Parser.Line line : lines) {
-            String lineContent = line.getContent();
-            if (isCommentLine(lineContent)) {
-                commentLines.add(line.getLineNo());
-            } else if (!StringUtils.isBlank(lineContent)) {
-                linesOfCodeLines.add(line.getLineNo());
-            }
-
-            // Is it useful? Lists are ordered
-            if (line.getLineNo() > linesNumber) {
-                linesNumber = line.getLineNo();
+        for (int line = 1; line <= linesNumber; line++) {
+            if (lines.isComment(line)) {
+                commentLines.add(line);
+            } else if (!lines.isBlank(line)) {
+                linesOfCodeLines.add(line);
             }
         }
 
@@ -72,17 +74,4 @@ public final class LineCountParser {
     public LineCountData getLineCountData() {
         return data;
     }
-
-
-    /**
-     * Tells if the passed line is a comment line, i.e. a line with only a non-empty comment
-     *
-     * @param lineContent
-     * @return {@code true} if the passed string represents a line of comment. Inline comments return {@code false}.
-     */
-    private boolean isCommentLine(String lineContent) {
-        assert lineContent != null;
-
-        return lineContent.trim().matches("^\\h*#\\h*\\S.*");
-    }
 }
@@ -49,16 +49,38 @@ public class LineCounter {
      * @param sourceCode the source code to be analyzed
      */
     public static void analyse(SensorContext context, FileLinesContextFactory fileLinesContextFactory, YamlSourceCode sourceCode) {
+        save(context, fileLinesContextFactory, sourceCode.getYamlFile(), count(sourceCode));
+    }
+
+    /**
+     * Counts the code and comment lines of a file
+     *
+     * @param sourceCode the source code to be analyzed
+     * @return the line counts of the file or {@code null} if the file cannot be read
+     */
+    public static LineCountData count(YamlSourceCode sourceCode) {
         InputFile inputFile = sourceCode.getYamlFile();
         LOGGER.debug("Count lines in {}", inputFile.filename());
 
         try {
-            saveMeasures(
-                    inputFile,
-                    new LineCountParser(sourceCode.getContent()).getLineCountData(),
-                    fileLinesContextFactory.createFor(inputFile), context);
+            return new LineCountParser(sourceCode.getLines()).getLineCountData();
         } catch (IOException e) {
             LOGGER.warn("Unable to count lines for file " + inputFile.filename() + ", ignoring measures", e);
+            return null;
+        }
+    }
+
+    /**
+     * Saves the line measures of a file, possibly counted on another file with the same content
+     *
+     * @param context the {@code SensorContext}
+     * @param fileLinesContextFactory {@code FileLinesContextFactory} used to save line measures
+     * @param inputFile the file the measures are saved for
+     * @param data the line counts of the file. If {@code null}, nothing is saved.
+     */
+    public static void save(SensorContext context, FileLinesContextFactory fileLinesContextFactory, InputFile inputFile, LineCountData data) {
+        if (data != null) {
+            saveMeasures(inputFile, data, fileLinesContextFactory.createFor(inputFile), context);
         }
     }
 
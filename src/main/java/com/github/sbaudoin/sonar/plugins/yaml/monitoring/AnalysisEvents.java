@@ -0,0 +1,152 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.monitoring;
+
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.net.URI;
+import java.util.Collection;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Entry point to record the analysis events as Java Flight Recorder (JFR) events, so that the time spent by the plugin
+ * can be attributed to files and rules with {@code -XX:StartFlightRecording} and JDK Mission Control. If the JVM does
+ * not support JFR, nothing is recorded.
+ */
+public final class AnalysisEvents {
+    private static final Logger LOGGER = Loggers.get(AnalysisEvents.class);
+
+    private static final EventRecorder RECORDER = createRecorder();
+
+
+    /**
+     * Hide constructor
+     */
+    private AnalysisEvents() {
+    }
+
+
+    /**
+     * Starts the analysis of a file
+     *
+     * @param uri the URI of the analyzed file
+     * @return the timing of the analysis, to be ended with the number of issues found
+     */
+    public static Timing beginFileAnalysis(URI uri) {
+        return RECORDER.beginFileAnalysis(uri);
+    }
+
+    /**
+     * Starts the validation of a file by a check
+     *
+     * @param ruleKey the rule key of the check
+     * @param uri the URI of the analyzed file
+     * @return the timing of the validation, to be ended with the number of issues found
+     */
+    public static Timing beginCheckValidation(RuleKey ruleKey, URI uri) {
+        return RECORDER.beginCheckValidation(() -> String.valueOf(ruleKey), uri);
+    }
+
+    /**
+     * Starts the validation of a file by a group of checks validated together, whose time cannot be attributed to each
+     * check. The rule keys are only collected and formatted if the event is recorded.
+     *
+     * @param ruleKeys supplier of the rule keys of the checks
+     * @param uri the URI of the analyzed file
+     * @return the timing of the validation, to be ended with the number of issues found
+     */
+    public static Timing beginCheckValidation(Supplier<? extends Collection<RuleKey>> ruleKeys, URI uri) {
+        return RECORDER.beginCheckValidation(() -> join(ruleKeys.get()), uri);
+    }
+
+    /**
+     * Starts the building of the yamllint configuration of a check
+     *
+     * @param ruleKey the rule key of the check
+     * @return the timing of the configuration building
+     */
+    public static Timing beginLintConfig(RuleKey ruleKey) {
+        return RECORDER.beginLintConfig(() -> String.valueOf(ruleKey));
+    }
+
+    /**
+     * Starts the building of the yamllint configuration shared by several checks. The rule keys are only collected and
+     * formatted if the event is recorded, so that nothing is allocated when JFR is off.
+     *
+     * @param ruleKeys supplier of the rule keys of the checks
+     * @return the timing of the configuration building
+     */
+    public static Timing beginLintConfig(Supplier<? extends Collection<RuleKey>> ruleKeys) {
+        return RECORDER.beginLintConfig(() -> join(ruleKeys.get()));
+    }
+
+    /**
+     * Starts the syntax highlighting of a file
+     *
+     * @param uri the URI of the highlighted file
+     * @return the timing of the highlighting, to be ended with the number of highlighted ranges
+     */
+    public static Timing beginHighlighting(URI uri) {
+        return RECORDER.beginHighlighting(uri);
+    }
+
+    /**
+     * Starts the line counting of a file
+     *
+     * @param uri the URI of the file whose lines are counted
+     * @return the timing of the line counting, to be ended with the number of lines
+     */
+    public static Timing beginLineCount(URI uri) {
+        return RECORDER.beginLineCount(uri);
+    }
+
+    /**
+     * Tells if the events are recorded as JFR events
+     *
+     * @return {@code true} if the JVM supports JFR, {@code false} if no event is recorded
+     */
+    public static boolean isJfrSupported() {
+        return RECORDER != EventRecorder.NOOP;
+    }
+
+
+    /**
+     * Returns the passed rule keys separated by commas
+     */
+    private static String join(Collection<RuleKey> ruleKeys) {
+        return ruleKeys.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    /**
+     * Returns the JFR recorder if JFR is available (Java 11 or later), a recorder that does nothing otherwise. The JFR
+     * recorder is compiled for Java 11 and loaded by reflection so that no JFR class is loaded on JVMs that do not
+     * support it.
+     *
+     * @return an event recorder
+     */
+    private static EventRecorder createRecorder() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return (EventRecorder) Class.forName(AnalysisEvents.class.getPackage().getName() + ".JfrEventRecorder").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            LOGGER.debug("JFR not supported, analysis events will not be recorded");
+            return EventRecorder.NOOP;
+        }
+    }
+}
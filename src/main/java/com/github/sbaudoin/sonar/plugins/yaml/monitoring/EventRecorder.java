@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.monitoring;
+
+import java.net.URI;
+import java.util.function.Supplier;
+
+/**
+ * Recorder of the analysis events
+ */
+interface EventRecorder {
+    /**
+     * Recorder that records nothing
+     */
+    EventRecorder NOOP = new EventRecorder() {
+        @Override
+        public Timing beginFileAnalysis(URI uri) {
+            return Timing.NOOP;
+        }
+
+        @Override
+        public Timing beginCheckValidation(Supplier<String> ruleKeys, URI uri) {
+            return Timing.NOOP;
+        }
+
+        @Override
+        public Timing beginLintConfig(Supplier<String> ruleKeys) {
+            return Timing.NOOP;
+        }
+
+        @Override
+        public Timing beginHighlighting(URI uri) {
+            return Timing.NOOP;
+        }
+
+        @Override
+        public Timing beginLineCount(URI uri) {
+            return Timing.NOOP;
+        }
+    };
+
+
+    /**
+     * Starts the analysis of a file
+     *
+     * @param uri the URI of the analyzed file
+     * @return the timing of the analysis, to be ended with the number of issues found
+     */
+    Timing beginFileAnalysis(URI uri);
+
+    /**
+     * Starts the validation of a file by a check or by a group of checks validated together
+     *
+     * @param ruleKeys supplier of the rule keys of the checks, separated by commas. It is only called if the event is
+     *                 recorded.
+     * @param uri the URI of the analyzed file
+     * @return the timing of the validation, to be ended with the number of issues found
+     */
+    Timing beginCheckValidation(Supplier<String> ruleKeys, URI uri);
+
+    /**
+     * Starts the building of a yamllint configuration
+     *
+     * @param ruleKeys supplier of the rule keys of the checks that use the configuration, separated by commas. It is
+     *                 only called if the event is recorded.
+     * @return the timing of the configuration building
+     */
+    Timing beginLintConfig(Supplier<String> ruleKeys);
+
+    /**
+     * Starts the syntax highlighting of a file
+     *
+     * @param uri the URI of the highlighted file
+     * @return the timing of the highlighting, to be ended with the number of highlighted ranges
+     */
+    Timing beginHighlighting(URI uri);
+
+    /**
+     * Starts the line counting of a file
+     *
+     * @param uri the URI of the file whose lines are counted
+     * @return the timing of the line counting, to be ended with the number of lines
+     */
+    Timing beginLineCount(URI uri);
+}
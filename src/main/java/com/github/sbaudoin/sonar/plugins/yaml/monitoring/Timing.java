@@ -0,0 +1,34 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.monitoring;
+
+/**
+ * A measured operation of the analysis, started when this object is created
+ */
+public interface Timing {
+    /**
+     * Timing that records nothing
+     */
+    Timing NOOP = count -> {};
+
+
+    /**
+     * Ends the measured operation and records it
+     *
+     * @param count the number of items produced by the operation (issues, highlighted ranges, lines, etc.)
+     */
+    void end(int count);
+}
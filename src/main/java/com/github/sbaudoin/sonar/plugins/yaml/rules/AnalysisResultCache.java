@@ -0,0 +1,347 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.rules;
+
+import com.github.sbaudoin.sonar.plugins.yaml.checks.IssueOverflow;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.ProjectIndex;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.YamlCheck;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.YamlIssue;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.YamlSourceCode;
+import com.github.sbaudoin.sonar.plugins.yaml.highlighting.CpdTokenData;
+import com.github.sbaudoin.sonar.plugins.yaml.highlighting.HighlightingRanges;
+import com.github.sbaudoin.sonar.plugins.yaml.linecounter.LineCountData;
+import com.github.sbaudoin.sonar.plugins.yaml.settings.YamlSettings;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache of the analysis results of the files analyzed during a run, used to reuse these results for the files whose
+ * content is identical to an already analyzed file and to which the same rules apply. Results are keyed by a SHA-256
+ * digest of the content and of the keys of the active rules. The least recently used results are evicted when either
+ * the maximum number of entries or the maximum retained size of the cached results is reached. The retained size of a
+ * result is estimated from the number of objects it holds (copy-paste detection tokens, highlighting ranges, issues,
+ * lines and facts), which is what the heap actually pays for, rather than from the size of the file.
+ */
+public class AnalysisResultCache {
+    private static final Logger LOGGER = Loggers.get(AnalysisResultCache.class);
+
+    /**
+     * Maximum estimated heap size (in bytes) retained by the cached results
+     */
+    public static final long MAX_RETAINED_SIZE = 64L * 1024 * 1024;
+
+    private final int maxEntries;
+    private final long maxRetainedSize;
+    private final Map<String, Result> results = new LinkedHashMap<>(16, 0.75f, true);
+    private long retainedSize = 0;
+    private int hits = 0;
+
+
+    /**
+     * Constructor
+     *
+     * @param config the configuration, from which the maximum number of entries is read
+     */
+    public AnalysisResultCache(Configuration config) {
+        this(config.getInt(YamlSettings.DEDUP_MAX_ENTRIES_KEY).orElse(Integer.parseInt(YamlSettings.DEDUP_MAX_ENTRIES_DEFAULT_VALUE)), MAX_RETAINED_SIZE);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param maxEntries the maximum number of cached results. 0 (or less) disables the cache.
+     * @param maxRetainedSize the maximum estimated heap size (in bytes) retained by the cached results
+     */
+    AnalysisResultCache(int maxEntries, long maxRetainedSize) {
+        this.maxEntries = maxEntries;
+        this.maxRetainedSize = maxRetainedSize;
+    }
+
+
+    /**
+     * Returns the cache key of a source code
+     *
+     * @param sourceCode a source code about to be analyzed
+     * @param activeChecks the checks that apply to the source code
+     * @return the cache key of the source code and of its checks, or {@code null} if the cache is disabled
+     * @throws IOException if the source code cannot be read
+     */
+    @CheckForNull
+    public String getKey(YamlSourceCode sourceCode, List<YamlCheck> activeChecks) throws IOException {
+        if (maxEntries <= 0) {
+            return null;
+        }
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not supported", e);
+        }
+        digest.update(sourceCode.getContent().getBytes(StandardCharsets.UTF_8));
+        for (YamlCheck check : activeChecks) {
+            digest.update((byte) 0);
+            digest.update(String.valueOf(check.getRuleKey()).getBytes(StandardCharsets.UTF_8));
+        }
+        return Base64.getEncoder().encodeToString(digest.digest());
+    }
+
+    /**
+     * Returns the cached result for the passed key
+     *
+     * @param key a cache key, as returned by {@link #getKey(YamlSourceCode, List)}
+     * @return the analysis result of a file with the same content and checks or {@code null} if there is none
+     */
+    @CheckForNull
+    public Result get(@Nullable String key) {
+        if (key == null) {
+            return null;
+        }
+        Result result = results.get(key);
+        if (result != null) {
+            hits++;
+        }
+        return result;
+    }
+
+    /**
+     * Caches an analysis result, evicting the least recently used results if needed
+     *
+     * @param key a cache key, as returned by {@link #getKey(YamlSourceCode, List)}. If {@code null}, nothing is cached.
+     * @param result the analysis result of the file
+     */
+    public void put(@Nullable String key, Result result) {
+        if (key == null || result.getRetainedSize() > maxRetainedSize) {
+            return;
+        }
+        Result previous = results.put(key, result);
+        if (previous != null) {
+            retainedSize -= previous.getRetainedSize();
+        }
+        retainedSize += result.getRetainedSize();
+        Iterator<Result> it = results.values().iterator();
+        while (results.size() > maxEntries || retainedSize > maxRetainedSize) {
+            retainedSize -= it.next().getRetainedSize();
+            it.remove();
+        }
+    }
+
+    /**
+     * Returns the number of cached results
+     *
+     * @return the number of cached results
+     */
+    public int size() {
+        return results.size();
+    }
+
+    /**
+     * Returns the number of files for which a cached result was found
+     *
+     * @return the number of cache hits
+     */
+    public int getHits() {
+        return hits;
+    }
+
+    /**
+     * Logs the number of files for which the analysis results were reused
+     */
+    public void logSummary() {
+        if (hits > 0) {
+            LOGGER.info("{} YAML file(s) identical to an already analyzed file, analysis results reused", hits);
+        }
+    }
+
+
+    /**
+     * Analysis result of a file: line counts, highlighting, syntax error, issues and facts for the cross-file rules. The result does not depend on the
+     * analyzed file and can be saved for any file with the same content.
+     */
+    public static final class Result {
+        /**
+         * Estimated size (in bytes) of a result without its contents
+         */
+        static final long BASE_SIZE = 256;
+        /**
+         * Estimated size (in bytes) of a copy-paste detection token, without the characters of its image
+         */
+        static final long CPD_TOKEN_SIZE = 96;
+        /**
+         * Estimated size (in bytes) of a highlighting range, its arrays being grown by doubling
+         */
+        static final long RANGE_SIZE = 34;
+        /**
+         * Estimated size (in bytes) of an issue, without the characters of its message
+         */
+        static final long ISSUE_SIZE = 96;
+        /**
+         * Estimated size (in bytes) of the overflow of a rule, with its remembered lines
+         */
+        static final long OVERFLOW_SIZE = 64 + 4L * IssueOverflow.MAX_LINES;
+        /**
+         * Estimated size (in bytes) of a line number in the sets of the line counts (hash set entry and boxed integer)
+         */
+        static final long LINE_SIZE = 56;
+        /**
+         * Estimated size (in bytes) of a fact for the cross-file rules, with its key and value
+         */
+        static final long FACT_SIZE = 160;
+
+        private final LineCountData lineCountData;
+        private final HighlightingRanges highlightingRanges;
+        private final List<CpdTokenData> cpdTokens;
+        private final YamlIssue syntaxError;
+        private final List<YamlIssue> issues;
+        private final List<IssueOverflow> issueOverflows;
+        private final ProjectIndex.Facts indexFacts;
+        private long retainedSize = -1;
+
+
+        /**
+         * Constructor
+         *
+         * @param lineCountData the line counts of the file, {@code null} if they could not be computed
+         * @param highlightingRanges the highlighting of the file
+         * @param cpdTokens the copy-paste detection tokens of the file
+         * @param syntaxError the syntax error of the file, {@code null} if none or if it must not be reported
+         * @param issues the issues found in the file
+         * @param issueOverflows the issues not kept because of the issue limits
+         * @param indexFacts the facts of the file for the cross-file rules, {@code null} if not collected
+         */
+        public Result(@Nullable LineCountData lineCountData, HighlightingRanges highlightingRanges, List<CpdTokenData> cpdTokens,
+                      @Nullable YamlIssue syntaxError, List<YamlIssue> issues, Collection<IssueOverflow> issueOverflows,
+                      @Nullable ProjectIndex.Facts indexFacts) {
+            this.lineCountData = lineCountData;
+            this.highlightingRanges = highlightingRanges;
+            this.cpdTokens = cpdTokens;
+            this.syntaxError = syntaxError;
+            this.issues = new ArrayList<>(issues);
+            this.issueOverflows = new ArrayList<>(issueOverflows);
+            this.indexFacts = indexFacts;
+        }
+
+
+        /**
+         * Returns the line counts of the file
+         *
+         * @return the line counts, {@code null} if they could not be computed
+         */
+        @CheckForNull
+        public LineCountData getLineCountData() {
+            return lineCountData;
+        }
+
+        /**
+         * Returns the highlighting of the file
+         *
+         * @return the highlighting of the file
+         */
+        public HighlightingRanges getHighlightingRanges() {
+            return highlightingRanges;
+        }
+
+        /**
+         * Returns the copy-paste detection tokens of the file
+         *
+         * @return the copy-paste detection tokens of the file
+         */
+        public List<CpdTokenData> getCpdTokens() {
+            return cpdTokens;
+        }
+
+        /**
+         * Returns the syntax error of the file
+         *
+         * @return the syntax error of the file, {@code null} if none or if it must not be reported
+         */
+        @CheckForNull
+        public YamlIssue getSyntaxError() {
+            return syntaxError;
+        }
+
+        /**
+         * Returns the issues found in the file
+         *
+         * @return the issues found in the file
+         */
+        public List<YamlIssue> getIssues() {
+            return issues;
+        }
+
+        /**
+         * Returns the issues not kept because of the issue limits
+         *
+         * @return the issue overflows, one per rule
+         */
+        public List<IssueOverflow> getIssueOverflows() {
+            return issueOverflows;
+        }
+
+        /**
+         * Returns an estimate of the heap size retained by this result, computed on the first call from the number of
+         * tokens, ranges, issues, lines and facts it holds (strings are counted as 2 bytes per character)
+         *
+         * @return the estimated retained size in bytes
+         */
+        public long getRetainedSize() {
+            if (retainedSize < 0) {
+                long estimate = BASE_SIZE + RANGE_SIZE * highlightingRanges.size() + OVERFLOW_SIZE * issueOverflows.size();
+                for (CpdTokenData token : cpdTokens) {
+                    estimate += CPD_TOKEN_SIZE + 2L * token.getImage().length();
+                }
+                for (YamlIssue issue : issues) {
+                    estimate += ISSUE_SIZE + 2L * issue.getMessage().length();
+                }
+                if (syntaxError != null) {
+                    estimate += ISSUE_SIZE + 2L * syntaxError.getMessage().length();
+                }
+                if (lineCountData != null) {
+                    estimate += LINE_SIZE * (lineCountData.linesOfCodeLines().size() + lineCountData.effectiveCommentLines().size());
+                }
+                if (indexFacts != null) {
+                    estimate += FACT_SIZE * indexFacts.size();
+                }
+                retainedSize = estimate;
+            }
+            return retainedSize;
+        }
+
+        /**
+         * Returns the facts of the file for the cross-file rules
+         *
+         * @return the facts of the file, {@code null} if they were not collected
+         */
+        @CheckForNull
+        public ProjectIndex.Facts getIndexFacts() {
+            return indexFacts;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.rules;
+
+import com.github.sbaudoin.sonar.plugins.yaml.settings.YamlSettings;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Admission controller that decides, before a file is analyzed, how much of the analysis can be afforded with the
+ * heap left. The working set of the analysis of a file is estimated from its size and compared with the heap headroom,
+ * i.e. the maximum heap size minus the heap used by long-lived objects (see {@link #getRetainedHeap(List)}) and minus a
+ * reserve. When the
+ * headroom is too small, the most expensive stages (syntax highlighting and parallel analysis of the documents) are
+ * skipped, and if it is still too small only the line measures of the file are computed.
+ */
+public class MemoryAdmissionController {
+    private static final Logger LOGGER = Loggers.get(MemoryAdmissionController.class);
+
+    /**
+     * Estimated number of heap bytes needed per character of a file for a full analysis
+     */
+    public static final long FULL_COST_PER_CHAR = 64;
+
+    /**
+     * Estimated number of heap bytes needed per character of a file for an analysis without highlighting nor parallel
+     * analysis of the documents
+     */
+    public static final long DEGRADED_COST_PER_CHAR = 24;
+
+    /**
+     * Part of the maximum heap size that is never considered available
+     */
+    public static final double RESERVE_RATIO = 0.1;
+
+    private static final long MB = 1024L * 1024;
+
+    /**
+     * Possible admissions of a file
+     */
+    public enum Admission {
+        /**
+         * The file is fully analyzed
+         */
+        FULL,
+        /**
+         * The file is analyzed without syntax highlighting nor parallel analysis of its documents
+         */
+        DEGRADED,
+        /**
+         * Only the line measures of the file are computed
+         */
+        MEASURES_ONLY
+    }
+
+    private final boolean enabled;
+    private final LongSupplier usedHeap;
+    private final long maxHeap;
+    private int degradedFiles = 0;
+    private int measuresOnlyFiles = 0;
+
+
+    /**
+     * Constructor
+     *
+     * @param config the plugin configuration, used to know if the admission control is enabled
+     */
+    public MemoryAdmissionController(Configuration config) {
+        this(config.getBoolean(YamlSettings.MEMORY_ADMISSION_KEY).orElse(Boolean.parseBoolean(YamlSettings.MEMORY_ADMISSION_DEFAULT_VALUE)),
+                () -> getRetainedHeap(ManagementFactory.getMemoryPoolMXBeans()),
+                Runtime.getRuntime().maxMemory());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param enabled {@code true} to enable the admission control, {@code false} to fully analyze all files
+     * @param usedHeap supplier of the heap size (in bytes) considered as used
+     * @param maxHeap the maximum heap size in bytes. {@code Long.MAX_VALUE} (no limit) disables the admission control.
+     */
+    MemoryAdmissionController(boolean enabled, LongSupplier usedHeap, long maxHeap) {
+        this.enabled = enabled && maxHeap > 0 && maxHeap != Long.MAX_VALUE;
+        this.usedHeap = usedHeap;
+        this.maxHeap = maxHeap;
+    }
+
+
+    /**
+     * Decides how the passed file is to be analyzed, given its size and the current heap headroom
+     *
+     * @param filename the name of the file, for logging purpose
+     * @param length the length of the file in characters
+     * @return the admission of the file
+     */
+    public Admission admit(String filename, int length) {
+        if (!enabled) {
+            return Admission.FULL;
+        }
+        long headroom = maxHeap - (long) (maxHeap * RESERVE_RATIO) - usedHeap.getAsLong();
+        long fullCost = length * FULL_COST_PER_CHAR;
+        if (fullCost <= headroom) {
+            return Admission.FULL;
+        }
+        if (length * DEGRADED_COST_PER_CHAR <= headroom) {
+            degradedFiles++;
+            LOGGER.info("Low heap headroom ({} MB) for file {} (estimated cost: {} MB), analyzing it without syntax highlighting",
+                    Math.max(headroom, 0) / MB, filename, fullCost / MB);
+            return Admission.DEGRADED;
+        }
+        measuresOnlyFiles++;
+        LOGGER.warn("Not enough heap headroom ({} MB) to analyze file {} (estimated cost: {} MB), computing its line measures only",
+                Math.max(headroom, 0) / MB, filename, fullCost / MB);
+        return Admission.MEASURES_ONLY;
+    }
+
+    /**
+     * Logs the number of files not fully analyzed because of memory pressure
+     */
+    public void logSummary() {
+        if (degradedFiles > 0 || measuresOnlyFiles > 0) {
+            LOGGER.warn("{} YAML file(s) analyzed without syntax highlighting and {} YAML file(s) not analyzed because of memory pressure, consider increasing the maximum heap size",
+                    degradedFiles, measuresOnlyFiles);
+        }
+    }
+
+
+    /**
+     * Returns an upper bound of the heap retained by live objects. For the pools of long-lived objects (the old
+     * generation, recognized as the pools that support a usage threshold, which the eden and survivor spaces do not), the
+     * memory currently used is taken: the memory used after the last collection of such a pool ignores everything
+     * promoted since then, which is only collected by old or mixed collections and would overestimate the headroom under
+     * sustained pressure. For the other pools, whose current usage is mostly garbage, the memory used after their last
+     * collection is taken, or the memory currently used if they do not report it.
+     *
+     * @param pools the memory pools of the JVM
+     * @return the estimated retained heap in bytes
+     */
+    static long getRetainedHeap(List<MemoryPoolMXBean> pools) {
+        long retained = 0;
+        for (MemoryPoolMXBean pool : pools) {
+            if (pool.getType() != MemoryType.HEAP || !pool.isValid()) {
+                continue;
+            }
+            MemoryUsage usage = pool.isUsageThresholdSupported() ? null : pool.getCollectionUsage();
+            if (usage == null) {
+                usage = pool.getUsage();
+            }
+            retained += usage.getUsed();
+        }
+        return retained;
+    }
+}
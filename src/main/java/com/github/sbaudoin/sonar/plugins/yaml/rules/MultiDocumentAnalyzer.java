@@ -0,0 +1,293 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.rules;
+
+import com.github.sbaudoin.sonar.plugins.yaml.checks.ForbiddenCheck;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.YamlCheck;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.YamlIssue;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.YamlLintBatch;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.YamlLintCheck;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.YamlLintConfigCache;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.YamlSourceCode;
+import com.github.sbaudoin.sonar.plugins.yaml.settings.YamlSettings;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+/**
+ * Analyzer that splits the files made of many YAML documents (such as the output of {@code helm template} or
+ * {@code kustomize build}) at document boundaries and runs the checks that only need a document on the resulting parts
+ * in parallel. The issues found are reported with their line numbers in the whole file.
+ */
+public class MultiDocumentAnalyzer implements AutoCloseable {
+    private static final Logger LOGGER = Loggers.get(MultiDocumentAnalyzer.class);
+
+    /**
+     * IDs of the yamllint rules that need the whole file: they check its start or its end, or need to know about the
+     * other documents (consistent indentation)
+     */
+    static final Set<String> WHOLE_FILE_RULES = new HashSet<>(Arrays.asList(
+            "document-start", "document-end", "new-line-at-end-of-file", "empty-lines", "new-lines", "indentation", "parsing-error"));
+
+    /**
+     * {@code # yamllint disable} and {@code # yamllint enable} comments apply to the end of the file: files containing
+     * them are never split
+     */
+    private static final Pattern YAMLLINT_DIRECTIVE = Pattern.compile("#\\s*yamllint\\s+(disable|enable)(?!-line)");
+
+    private final int minDocuments;
+    private final int threads;
+    private final YamlLintConfigCache lintConfigCache;
+    private ExecutorService executor = null;
+
+
+    /**
+     * Constructor
+     *
+     * @param config the plugin configuration, used to get the number of documents from which a file is split and the
+     *               number of threads to be used
+     */
+    public MultiDocumentAnalyzer(Configuration config) {
+        this(config, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param config the plugin configuration, used to get the number of documents from which a file is split and the
+     *               number of threads to be used
+     * @param lintConfigCache the cache of the shared YAML Lint configurations, possibly {@code null}
+     */
+    public MultiDocumentAnalyzer(Configuration config, @Nullable YamlLintConfigCache lintConfigCache) {
+        this.lintConfigCache = lintConfigCache;
+        this.minDocuments = config.getInt(YamlSettings.SPLIT_MIN_DOCUMENTS_KEY).orElse(Integer.parseInt(YamlSettings.SPLIT_MIN_DOCUMENTS_DEFAULT_VALUE));
+        int configuredThreads = config.getInt(YamlSettings.SPLIT_THREADS_KEY).orElse(0);
+        this.threads = configuredThreads > 0 ? configuredThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+
+    /**
+     * Runs the passed checks that only need a document on the documents of the passed source code, in parallel, if the
+     * source code contains enough documents. The issues found are added to the passed source code.
+     *
+     * @param sourceCode the source code to be checked. Its syntax must be correct.
+     * @param checks the checks that apply to the source code
+     * @return the checks that have not been run and must be run on the whole source code
+     * @throws IOException if the source code cannot be read
+     */
+    public List<YamlCheck> analyze(YamlSourceCode sourceCode, List<YamlCheck> checks) throws IOException {
+        if (minDocuments <= 0 || threads <= 1 || !sourceCode.hasCorrectSyntax()) {
+            return checks;
+        }
+
+        String content = sourceCode.getContent();
+        int[] boundaries = findDocumentBoundaries(content);
+        if (boundaries == null || boundaries.length < minDocuments || YAMLLINT_DIRECTIVE.matcher(content).find()) {
+            return checks;
+        }
+
+        List<YamlCheck> documentChecks = new ArrayList<>();
+        List<YamlCheck> wholeFileChecks = new ArrayList<>();
+        for (YamlCheck check : checks) {
+            if (isDocumentCheck(check)) {
+                documentChecks.add(check);
+            } else {
+                wholeFileChecks.add(check);
+            }
+        }
+        if (documentChecks.isEmpty()) {
+            return checks;
+        }
+
+        List<Fragment> fragments = split(content, boundaries, threads * 2);
+        LOGGER.debug("Analyzing {} documents of file {} in {} parts", boundaries.length, sourceCode.getYamlFile().filename(), fragments.size());
+        List<Future<YamlSourceCode>> results = new ArrayList<>(fragments.size());
+        for (Fragment fragment : fragments) {
+            YamlSourceCode fragmentCode = new YamlSourceCode(sourceCode.getYamlFile(), fragment.content);
+            fragmentCode.setDocumentKindKey(sourceCode.getDocumentKindKey());
+            fragmentCode.setBaseDir(sourceCode.getBaseDir());
+            results.add(getExecutor().submit(() -> {
+                List<YamlCheck> copies = new ArrayList<>(documentChecks.size());
+                for (YamlCheck check : documentChecks) {
+                    copies.add(check.copy());
+                }
+                YamlLintBatch.validate(fragmentCode, copies, lintConfigCache);
+                return fragmentCode;
+            }));
+        }
+
+        // Issues are added rule by rule, then part by part, as if the checks had been run one after the other on the
+        // whole file, so that the issue limits apply the same way
+        List<List<YamlIssue>> fragmentIssues = new ArrayList<>(fragments.size());
+        for (Future<YamlSourceCode> result : results) {
+            fragmentIssues.add(getResult(result).getYamlIssues());
+        }
+        for (YamlCheck check : documentChecks) {
+            for (int i = 0; i < fragments.size(); i++) {
+                int lineOffset = fragments.get(i).lineOffset;
+                for (YamlIssue issue : fragmentIssues.get(i)) {
+                    if (check.getRuleKey().equals(issue.getRuleKey())) {
+                        sourceCode.addViolation(issue.atLine(issue.getLine() + lineOffset));
+                    }
+                }
+            }
+        }
+
+        return wholeFileChecks;
+    }
+
+    /**
+     * Stops the threads used to analyze the documents
+     */
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+
+    /**
+     * Returns the offsets of the lines that start a document, i.e. that start with the {@code ---} marker or that start
+     * the directives ({@code %YAML}, {@code %TAG}) placed before this marker
+     *
+     * @param content a YAML content
+     * @return the offsets of the document starts, or {@code null} if the passed content contains line breaks other than
+     * {@code \n} and {@code \r\n} and cannot be split safely
+     */
+    static int[] findDocumentBoundaries(String content) {
+        int[] boundaries = new int[16];
+        int count = 0;
+        int length = content.length();
+        boolean lineStart = true;
+        // Start of the directives (and of the comments and empty lines between them) that precede the current line
+        int directivesStart = -1;
+        for (int i = 0; i < length; i++) {
+            char c = content.charAt(i);
+            if (lineStart) {
+                if (c == '-' && content.startsWith("---", i)
+                        && (i + 3 == length || " \t\r\n".indexOf(content.charAt(i + 3)) >= 0)) {
+                    if (count == boundaries.length) {
+                        boundaries = Arrays.copyOf(boundaries, count * 2);
+                    }
+                    boundaries[count++] = directivesStart >= 0 ? directivesStart : i;
+                    directivesStart = -1;
+                } else if (c == '%') {
+                    directivesStart = directivesStart >= 0 ? directivesStart : i;
+                } else if (c != '#' && c != '\r' && c != '\n') {
+                    directivesStart = -1;
+                }
+            }
+            if ((c == '\r' && (i + 1 == length || content.charAt(i + 1) != '\n')) || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return null;
+            }
+            lineStart = c == '\n';
+        }
+        return Arrays.copyOf(boundaries, count);
+    }
+
+    /**
+     * Splits the passed content at the passed document boundaries into parts of about the same size
+     *
+     * @param content a YAML content
+     * @param boundaries the offsets of the document start markers
+     * @param maxFragments the maximum number of parts
+     * @return the parts of the content, in order
+     */
+    static List<Fragment> split(String content, int[] boundaries, int maxFragments) {
+        List<Fragment> fragments = new ArrayList<>();
+        int targetSize = Math.max(1, content.length() / maxFragments);
+        int start = 0;
+        int line = 0;
+        for (int boundary : boundaries) {
+            if (boundary - start >= targetSize) {
+                fragments.add(new Fragment(content.substring(start, boundary), line));
+                line += countLines(content, start, boundary);
+                start = boundary;
+            }
+        }
+        fragments.add(new Fragment(content.substring(start), line));
+        return fragments;
+    }
+
+
+    private static int countLines(String content, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (content.charAt(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean isDocumentCheck(YamlCheck check) {
+        return check instanceof ForbiddenCheck || (check instanceof YamlLintCheck && !WHOLE_FILE_RULES.contains(check.getId()));
+    }
+
+    private ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(threads, r -> {
+                Thread thread = new Thread(r, "yaml-document-analyzer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    private static YamlSourceCode getResult(Future<YamlSourceCode> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while analyzing documents", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+
+    /**
+     * Part of a YAML content made of consecutive documents
+     */
+    static class Fragment {
+        final String content;
+        final int lineOffset;
+
+        Fragment(String content, int lineOffset) {
+            this.content = content;
+            this.lineOffset = lineOffset;
+        }
+    }
+}
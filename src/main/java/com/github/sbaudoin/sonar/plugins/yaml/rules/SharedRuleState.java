@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.rules;
+
+import com.github.sbaudoin.sonar.plugins.yaml.checks.ProjectIndex;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.YamlLintConfigCache;
+import com.github.sbaudoin.yamllint.YamlLintConfig;
+import com.github.sbaudoin.yamllint.YamlLintConfigException;
+import org.sonar.api.batch.InstantiationStrategy;
+import org.sonar.api.scanner.ScannerSide;
+
+import javax.annotation.CheckForNull;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rule state shared by all the executions of the {@link YamlSensor} of a project analysis, so that a multi-module
+ * project does not build it again for every module: the YAML Lint configurations built from the rule properties, the
+ * local yamllint configuration files already read and the index of the files of all the modules, evaluated by the
+ * cross-file rules in {@link YamlProjectSensor}. This component is thread-safe.
+ */
+@ScannerSide
+@InstantiationStrategy(InstantiationStrategy.PER_PROJECT)
+public class SharedRuleState {
+    /**
+     * Maximum number of YAML Lint configurations kept
+     */
+    public static final int MAX_LINT_CONFIGS = 256;
+
+    private final YamlLintConfigCache lintConfigCache = new YamlLintConfigCache(MAX_LINT_CONFIGS);
+    private final Map<String, LocalConfig> localConfigs = new ConcurrentHashMap<>();
+    private ProjectIndex projectIndex = null;
+
+
+    /**
+     * Returns the cache of the YAML Lint configurations built from the rule properties
+     *
+     * @return the cache of the YAML Lint configurations
+     */
+    public YamlLintConfigCache getLintConfigCache() {
+        return lintConfigCache;
+    }
+
+    /**
+     * Returns the index of the files of the project, filled by the executions of the {@link YamlSensor} of all the
+     * modules
+     *
+     * @param maxEntries the maximum number of postings of the index, if it does not exist yet
+     * @return the index of the files of the project
+     */
+    public synchronized ProjectIndex getProjectIndex(int maxEntries) {
+        if (projectIndex == null) {
+            projectIndex = new ProjectIndex(maxEntries);
+        }
+        return projectIndex;
+    }
+
+    /**
+     * Returns the index of the files of the project and forgets it, so that its memory is released once the cross-file
+     * rules have been evaluated
+     *
+     * @return the index of the files of the project, {@code null} if no file was indexed
+     */
+    @CheckForNull
+    public synchronized ProjectIndex releaseProjectIndex() {
+        ProjectIndex index = projectIndex;
+        projectIndex = null;
+        return index;
+    }
+
+    /**
+     * Returns the {@code YamlLintConfig} that corresponds to the passed yamllint configuration file. The file is read
+     * again only if it has changed since it was last read.
+     *
+     * @param file an existing yamllint configuration file
+     * @return the corresponding {@code YamlLintConfig}
+     * @throws IOException if the file cannot be read
+     * @throws YamlLintConfigException if the configuration is invalid
+     */
+    public YamlLintConfig getLocalConfig(File file) throws IOException, YamlLintConfigException {
+        String path = file.getAbsolutePath();
+        long lastModified = file.lastModified();
+        long length = file.length();
+        LocalConfig localConfig = localConfigs.get(path);
+        if (localConfig == null || localConfig.lastModified != lastModified || localConfig.length != length) {
+            localConfig = new LocalConfig(new YamlLintConfig(file.toURI().toURL()), lastModified, length);
+            localConfigs.put(path, localConfig);
+        }
+        return localConfig.config;
+    }
+
+
+    /**
+     * A yamllint configuration file already read
+     */
+    private static class LocalConfig {
+        private final YamlLintConfig config;
+        private final long lastModified;
+        private final long length;
+
+
+        LocalConfig(YamlLintConfig config, long lastModified, long length) {
+            this.config = config;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+    }
+}
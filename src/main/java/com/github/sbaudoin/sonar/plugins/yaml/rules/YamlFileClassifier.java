@@ -0,0 +1,201 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.rules;
+
+import com.github.sbaudoin.sonar.plugins.yaml.checks.FileScopeMatcher;
+import com.github.sbaudoin.sonar.plugins.yaml.settings.YamlSettings;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.utils.WildcardPattern;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Cheap classifier used to identify generated and vendored YAML files before they are parsed. The classification
+ * relies on the file path, on a bounded read of the file header and on the file size, but never reads a whole file.
+ */
+public class YamlFileClassifier {
+    private static final Logger LOGGER = Loggers.get(YamlFileClassifier.class);
+
+    /**
+     * Maximum number of bytes read at the beginning of a file to look for generation markers
+     */
+    public static final int HEADER_READ_LIMIT = 4096;
+
+    /**
+     * Possible classifications of a YAML file
+     */
+    public enum Classification {
+        /**
+         * The file is fully analyzed
+         */
+        ANALYZE,
+        /**
+         * Only the line measures of the file are computed
+         */
+        MEASURES_ONLY,
+        /**
+         * The file is ignored
+         */
+        SKIP
+    }
+
+    private final Path baseDir;
+    private final WildcardPattern[] patterns;
+    private final String[] markers;
+    private final long maxFileSize;
+    private final int maxLineLength;
+    private final Classification action;
+    private int classifiedFiles = 0;
+
+
+    /**
+     * Constructor
+     *
+     * @param config the plugin configuration
+     * @param baseDir the base directory of the project, the path patterns are matched against the paths relative to it
+     */
+    public YamlFileClassifier(Configuration config, Path baseDir) {
+        this.baseDir = baseDir;
+        this.patterns = WildcardPattern.create(config.getStringArray(YamlSettings.GENERATED_FILE_PATTERNS_KEY));
+        this.markers = Arrays.stream(config.getStringArray(YamlSettings.GENERATED_HEADER_MARKERS_KEY))
+                .filter(m -> !m.isEmpty())
+                .toArray(String[]::new);
+        this.maxFileSize = config.getLong(YamlSettings.GENERATED_MAX_FILE_SIZE_KEY).orElse(0L) * 1024;
+        this.maxLineLength = config.getInt(YamlSettings.GENERATED_MAX_LINE_LENGTH_KEY).orElse(0);
+        this.action = YamlSettings.GENERATED_FILES_ACTION_SKIP.equals(config.get(YamlSettings.GENERATED_FILES_ACTION_KEY).orElse(YamlSettings.GENERATED_FILES_ACTION_MEASURES)) ?
+                Classification.SKIP : Classification.MEASURES_ONLY;
+    }
+
+
+    /**
+     * Classifies the passed file
+     *
+     * @param inputFile the file to classify
+     * @return {@link Classification#ANALYZE} if the file is not identified as a generated or vendored file, otherwise
+     * the classification configured for such files
+     */
+    public Classification classify(InputFile inputFile) {
+        String reason = getGeneratedReason(inputFile);
+        if (reason == null) {
+            return Classification.ANALYZE;
+        }
+        classifiedFiles++;
+        LOGGER.debug("File {} identified as generated or vendored ({}), action: {}", inputFile.filename(), reason, action);
+        return action;
+    }
+
+    /**
+     * Logs the number of files identified as generated or vendored so far
+     */
+    public void logSummary() {
+        if (classifiedFiles > 0) {
+            LOGGER.info("{} YAML file(s) identified as generated or vendored, action: {}", classifiedFiles, action);
+        }
+    }
+
+    /**
+     * Returns the reason why the passed file is identified as a generated or vendored file
+     *
+     * @param inputFile the file to classify
+     * @return a short description of the reason, or {@code null} if the file must be fully analyzed
+     */
+    String getGeneratedReason(InputFile inputFile) {
+        if (patterns.length > 0 && WildcardPattern.match(patterns, FileScopeMatcher.getRelativePath(baseDir, inputFile.path()))) {
+            return "path pattern";
+        }
+        if (maxFileSize > 0 && getFileSize(inputFile) > maxFileSize) {
+            return "file size";
+        }
+        if (markers.length == 0 && maxLineLength <= 0) {
+            return null;
+        }
+
+        String header = readHeader(inputFile);
+        for (String marker : markers) {
+            if (header.contains(marker)) {
+                return "header marker '" + marker + "'";
+            }
+        }
+        if (maxLineLength > 0 && hasLongLine(header)) {
+            return "line length";
+        }
+        return null;
+    }
+
+
+    /**
+     * Returns the size of the passed file in bytes
+     *
+     * @param inputFile a file
+     * @return the size in bytes of the file, or {@code -1} if it cannot be determined
+     */
+    private static long getFileSize(InputFile inputFile) {
+        try {
+            return Files.size(Paths.get(inputFile.uri()));
+        } catch (IOException | RuntimeException e) {
+            LOGGER.debug("Cannot get the size of file {}", inputFile.filename());
+            return -1;
+        }
+    }
+
+    /**
+     * Reads at most {@value #HEADER_READ_LIMIT} bytes at the beginning of the passed file
+     *
+     * @param inputFile a file
+     * @return the beginning of the file (possibly empty if the file cannot be read)
+     */
+    private static String readHeader(InputFile inputFile) {
+        byte[] buffer = new byte[HEADER_READ_LIMIT];
+        int length = 0;
+        try (InputStream is = inputFile.inputStream()) {
+            int read;
+            while (length < buffer.length && (read = is.read(buffer, length, buffer.length - length)) != -1) {
+                length += read;
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Cannot read the header of file {}", inputFile.filename());
+        }
+        return new String(buffer, 0, length, inputFile.charset());
+    }
+
+    /**
+     * Tells if the passed text contains a line longer than the configured maximum line length. The last line of the
+     * text is considered even if it is truncated.
+     *
+     * @param text a text
+     * @return {@code true} if a line is longer than the maximum line length
+     */
+    private boolean hasLongLine(String text) {
+        int lineLength = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || c == '\r') {
+                lineLength = 0;
+            } else if (++lineLength > maxLineLength) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
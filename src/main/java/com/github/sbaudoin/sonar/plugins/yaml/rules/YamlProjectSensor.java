@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.rules;
+
+import com.github.sbaudoin.sonar.plugins.yaml.checks.CheckRepository;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.FileScopeMatcher;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.ProjectCheck;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.ProjectIndex;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.YamlCheck;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.YamlIssue;
+import com.github.sbaudoin.sonar.plugins.yaml.languages.YamlLanguage;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.rule.CheckFactory;
+import org.sonar.api.batch.rule.Checks;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.batch.sensor.SensorDescriptor;
+import org.sonar.api.scanner.sensor.ProjectSensor;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sensor of the cross-file rules: executed once for the whole project, after the {@link YamlSensor} of every module
+ * has indexed its files, it evaluates the {@link ProjectCheck}s against the index of all the files of the project
+ */
+public class YamlProjectSensor implements ProjectSensor {
+    private static final Logger LOGGER = Loggers.get(YamlProjectSensor.class);
+
+    private final FileSystem fileSystem;
+    private final SharedRuleState sharedRuleState;
+    private final List<ProjectCheck> projectChecks = new ArrayList<>();
+    private final FileScopeMatcher fileScopeMatcher;
+
+
+    /**
+     * Constructor
+     *
+     * @param fileSystem the file system of the project
+     * @param checkFactory check factory used to get the cross-file checks to evaluate
+     * @param sharedRuleState the rule state shared with the {@link YamlSensor}s, that holds the index of the project
+     */
+    public YamlProjectSensor(FileSystem fileSystem, CheckFactory checkFactory, SharedRuleState sharedRuleState) {
+        this.fileSystem = fileSystem;
+        this.sharedRuleState = sharedRuleState;
+        Checks<Object> checks = checkFactory.create(CheckRepository.REPOSITORY_KEY).addAnnotatedChecks((Iterable<?>) CheckRepository.getCheckClasses());
+        List<YamlCheck> yamlChecks = new ArrayList<>();
+        for (Object check : checks.all()) {
+            if (check instanceof ProjectCheck) {
+                ((YamlCheck) check).setRuleKey(checks.ruleKey(check));
+                projectChecks.add((ProjectCheck) check);
+                yamlChecks.add((YamlCheck) check);
+            }
+        }
+        this.fileScopeMatcher = new FileScopeMatcher(yamlChecks);
+    }
+
+
+    @Override
+    public void describe(SensorDescriptor descriptor) {
+        descriptor.onlyOnLanguage(YamlLanguage.KEY);
+        descriptor.name("YAML Project Sensor");
+    }
+
+    @Override
+    public void execute(SensorContext context) {
+        ProjectIndex projectIndex = sharedRuleState.releaseProjectIndex();
+        if (projectIndex == null || projectChecks.isEmpty()) {
+            return;
+        }
+        LOGGER.debug("{} files indexed, evaluating {} cross-file rules", projectIndex.getFileCount(), projectChecks.size());
+        for (ProjectCheck check : projectChecks) {
+            for (Map.Entry<Integer, List<YamlIssue>> issues : check.evaluate(projectIndex).entrySet()) {
+                InputFile inputFile = projectIndex.getFile(issues.getKey());
+                if (fileScopeMatcher.getChecks(fileSystem.baseDir().toPath(), inputFile.path()).contains(check)) {
+                    YamlSensor.saveIssues(context, inputFile, issues.getValue(), Collections.emptyList());
+                }
+            }
+        }
+    }
+}
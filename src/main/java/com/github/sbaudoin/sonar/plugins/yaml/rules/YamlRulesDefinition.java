@@ -44,7 +44,7 @@ public class YamlRulesDefinition implements RulesDefinition {
 
         // Declare rule templates
         for (NewRule rule : repository.rules()) {
-            if (CheckRepository.getTemplateRuleKeys().contains(rule.key())) {
+            if (CheckRepository.isTemplate(rule.key())) {
                 rule.setTemplate(true);
             }
         }
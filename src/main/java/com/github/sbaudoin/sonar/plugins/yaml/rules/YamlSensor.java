@@ -27,6 +27,7 @@ import org.sonar.api.batch.rule.Checks;
 import org.sonar.api.batch.sensor.Sensor;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.SensorDescriptor;
+import org.sonar.api.batch.sensor.cpd.NewCpdTokens;
 import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
 import org.sonar.api.batch.sensor.issue.NewIssue;
 import org.sonar.api.batch.sensor.issue.NewIssueLocation;
@@ -34,19 +35,28 @@ import org.sonar.api.measures.FileLinesContextFactory;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import com.github.sbaudoin.sonar.plugins.yaml.linecounter.LineCountData;
 import com.github.sbaudoin.sonar.plugins.yaml.linecounter.LineCounter;
 import com.github.sbaudoin.sonar.plugins.yaml.checks.*;
-import com.github.sbaudoin.sonar.plugins.yaml.highlighting.HighlightingData;
+import com.github.sbaudoin.sonar.plugins.yaml.highlighting.CpdTokenData;
+import com.github.sbaudoin.sonar.plugins.yaml.highlighting.HighlightingRanges;
 import com.github.sbaudoin.sonar.plugins.yaml.highlighting.YamlHighlighting;
 import com.github.sbaudoin.sonar.plugins.yaml.languages.YamlLanguage;
+import com.github.sbaudoin.sonar.plugins.yaml.monitoring.AnalysisEvents;
+import com.github.sbaudoin.sonar.plugins.yaml.monitoring.Timing;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static com.github.sbaudoin.yamllint.Cli.*;
 
@@ -60,6 +70,10 @@ public class YamlSensor implements Sensor {
     private final FileSystem fileSystem;
     private final FilePredicate mainFilesPredicate;
     private final FileLinesContextFactory fileLinesContextFactory;
+    private final FileScopeMatcher fileScopeMatcher;
+    private final CheckRunner checkRunner;
+    private final List<ProjectCheck> projectChecks;
+    private final SharedRuleState sharedRuleState;
     private List<String> expectedSuffixes = null;
 
     /**
@@ -82,13 +96,34 @@ public class YamlSensor implements Sensor {
      * @param fileLinesContextFactory factory used to report measures
      */
     public YamlSensor(FileSystem fileSystem, CheckFactory checkFactory, FileLinesContextFactory fileLinesContextFactory) {
+        this(fileSystem, checkFactory, fileLinesContextFactory, new SharedRuleState());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param fileSystem the file system on which the sensor will find the files to be analyzed
+     * @param checkFactory check factory used to get the checks to execute against the files
+     * @param fileLinesContextFactory factory used to report measures
+     * @param sharedRuleState the rule state shared by all the modules of the project
+     */
+    public YamlSensor(FileSystem fileSystem, CheckFactory checkFactory, FileLinesContextFactory fileLinesContextFactory, SharedRuleState sharedRuleState) {
+        this.sharedRuleState = sharedRuleState;
         this.fileLinesContextFactory = fileLinesContextFactory;
         this.checks = checkFactory.create(CheckRepository.REPOSITORY_KEY).addAnnotatedChecks((Iterable<?>) CheckRepository.getCheckClasses());
         this.fileSystem = fileSystem;
         this.mainFilesPredicate = fileSystem.predicates().and(
                 fileSystem.predicates().hasType(InputFile.Type.MAIN),
                 fileSystem.predicates().hasLanguage(YamlLanguage.KEY));
-        this.localConfig = getLocalConfig();
+        this.localConfig = getLocalConfig(fileSystem.baseDir(), sharedRuleState);
+        List<YamlCheck> yamlChecks = new ArrayList<>();
+        for (Object check : checks.all()) {
+            ((YamlCheck) check).setRuleKey(checks.ruleKey(check));
+            yamlChecks.add((YamlCheck) check);
+        }
+        this.fileScopeMatcher = new FileScopeMatcher(yamlChecks);
+        this.checkRunner = new CheckRunner(yamlChecks, sharedRuleState.getLintConfigCache());
+        this.projectChecks = yamlChecks.stream().filter(ProjectCheck.class::isInstance).map(ProjectCheck.class::cast).collect(Collectors.toList());
     }
 
 
@@ -100,40 +135,87 @@ public class YamlSensor implements Sensor {
 
     @Override
     public void execute(SensorContext context) {
-        LOGGER.debug("YAML sensor executed with context: " + context);
+        LOGGER.debug("YAML sensor executed with context: {}", context);
         Optional<RuleKey> parsingErrorKey = getParsingErrorRuleKey();
 
+        int maxIssuesPerFile = context.config().getInt(YamlSettings.MAX_ISSUES_PER_FILE_KEY).orElse(0);
+        int maxIssuesPerRule = context.config().getInt(YamlSettings.MAX_ISSUES_PER_RULE_KEY).orElse(0);
+        String documentKindKey = context.config().get(YamlSettings.DOCUMENT_KIND_KEY).filter(k -> !k.trim().isEmpty()).map(String::trim).orElse(YamlSettings.DOCUMENT_KIND_KEY_DEFAULT_VALUE);
+        YamlFileClassifier classifier = new YamlFileClassifier(context.config(), fileSystem.baseDir().toPath());
+        MultiDocumentAnalyzer multiDocumentAnalyzer = new MultiDocumentAnalyzer(context.config(), sharedRuleState.getLintConfigCache());
+        AnalysisResultCache resultCache = new AnalysisResultCache(context.config());
+        int maxHighlightingRanges = context.config().getInt(YamlSettings.HIGHLIGHTING_MAX_RANGES_KEY).orElse(0);
+        MemoryAdmissionController admissionController = new MemoryAdmissionController(context.config());
+
         // Skip analysis if no rules enabled from this plugin
         boolean skipChecks = false;
         if (context.activeRules().findByRepository(CheckRepository.REPOSITORY_KEY).isEmpty()) {
             LOGGER.info("No active rules found for this plugin, skipping.");
             skipChecks = true;
         }
+        // The files of all the modules are indexed in the same index, evaluated by the YamlProjectSensor
+        ProjectIndex projectIndex = skipChecks || projectChecks.isEmpty() ? null
+                : sharedRuleState.getProjectIndex(context.config().getInt(YamlSettings.INDEX_MAX_ENTRIES_KEY).orElse(Integer.parseInt(YamlSettings.INDEX_MAX_ENTRIES_DEFAULT_VALUE)));
 
-        for (InputFile inputFile : fileSystem.inputFiles(mainFilesPredicate)) {
-            if (!fileHasExpectedSuffix(inputFile, context)) {
-                LOGGER.debug("File " + inputFile.filename() + " does not have an expected suffix, ignoring it");
-                continue;
-            }
+        try {
+            for (InputFile inputFile : fileSystem.inputFiles(mainFilesPredicate)) {
+                if (!fileHasExpectedSuffix(inputFile, context)) {
+                    LOGGER.debug("File {} does not have an expected suffix, ignoring it", inputFile.filename());
+                    continue;
+                }
+
+                YamlFileClassifier.Classification classification = classifier.classify(inputFile);
+                if (classification == YamlFileClassifier.Classification.SKIP) {
+                    continue;
+                }
 
-            LOGGER.debug("Analyzing file: " + inputFile.filename());
-            try {
-                YamlSourceCode sourceCode = new YamlSourceCode(inputFile, context.config().getBoolean(YamlSettings.FILTER_UTF8_LB_KEY));
-                computeLinesMeasures(context, sourceCode);
-                saveSyntaxHighlighting(context, sourceCode);
-
-                if (!skipChecks) {
-                    // First check for syntax errors
-                    if (!sourceCode.hasCorrectSyntax()) {
-                        LOGGER.debug("File has syntax errors");
-                        processAnalysisError(context, sourceCode, inputFile, parsingErrorKey);
+                LOGGER.debug("Analyzing file: {}", inputFile.filename());
+                try {
+                    YamlSourceCode sourceCode = new YamlSourceCode(inputFile, context.config().getBoolean(YamlSettings.FILTER_UTF8_LB_KEY), false);
+                    if (classification == YamlFileClassifier.Classification.MEASURES_ONLY) {
+                        LineCounter.save(context, fileLinesContextFactory, inputFile, countLines(sourceCode));
+                        continue;
                     }
-                    runChecks(context, sourceCode);
+                    MemoryAdmissionController.Admission admission = admissionController.admit(inputFile.filename(), sourceCode.getContent().length());
+                    if (admission == MemoryAdmissionController.Admission.MEASURES_ONLY) {
+                        LineCounter.save(context, fileLinesContextFactory, inputFile, countLines(sourceCode));
+                        continue;
+                    }
+
+                    Timing fileTiming = AnalysisEvents.beginFileAnalysis(inputFile.uri());
+                    List<YamlCheck> activeChecks = skipChecks ? Collections.emptyList() : fileScopeMatcher.getChecks(fileSystem.baseDir().toPath(), inputFile.path());
+                    sourceCode.setDocumentKindKey(documentKindKey);
+                    String cacheKey = resultCache.getKey(sourceCode, activeChecks);
+                    AnalysisResultCache.Result result = resultCache.get(cacheKey);
+                    if (result == null) {
+                        sourceCode.setIssueLimits(maxIssuesPerFile, maxIssuesPerRule);
+                        sourceCode.setBaseDir(fileSystem.baseDir());
+                        boolean degraded = admission == MemoryAdmissionController.Admission.DEGRADED;
+                        result = analyze(sourceCode, activeChecks, skipChecks, degraded ? null : multiDocumentAnalyzer, degraded ? -1 : maxHighlightingRanges, projectIndex != null);
+                        if (!degraded) {
+                            resultCache.put(cacheKey, result);
+                        }
+                    } else {
+                        LOGGER.debug("File {} is identical to an already analyzed file, reusing its analysis results", inputFile.filename());
+                    }
+                    saveResult(context, inputFile, result, parsingErrorKey.filter(key -> isRuleActive(activeChecks, key)));
+                    if (projectIndex != null && result.getIndexFacts() != null) {
+                        // Indexed even if the analysis result is reused: identical files are facts of the project too
+                        projectIndex.index(inputFile, result.getIndexFacts());
+                    }
+                    fileTiming.end(result.getIssues().size());
+                } catch (IOException e) {
+                    LOGGER.warn("Error reading source file " + inputFile.filename(), e);
                 }
-            } catch (IOException e) {
-                LOGGER.warn("Error reading source file " + inputFile.filename(), e);
             }
+        } finally {
+            // Stop the worker threads even if the analysis of a file failed unexpectedly
+            multiDocumentAnalyzer.close();
         }
+        classifier.logSummary();
+        admissionController.logSummary();
+        resultCache.logSummary();
+        RegexMemo.logStatistics();
     }
 
 
@@ -152,13 +234,71 @@ public class YamlSensor implements Sensor {
     }
 
     /**
-     * Calculates and feeds line measures (comments, actual number of code lines)
+     * Analyzes a YAML source code: counts its lines, computes its highlighting, checks its syntax and runs the passed
+     * checks against it
+     *
+     * @param sourceCode the YAML source code to be analyzed
+     * @param activeChecks the checks that apply to the source code, as per their file scope
+     * @param skipChecks {@code true} if no check must be run, {@code false} otherwise
+     * @param multiDocumentAnalyzer the analyzer used to run the checks on the documents of the source code in parallel,
+     *                              {@code null} to run them on the whole source code only
+     * @param maxHighlightingRanges the maximum number of highlighting ranges (0 for no limit), or a negative value to
+     *                              skip the syntax highlighting and the copy-paste detection tokens
+     * @param collectIndexFacts {@code true} to collect the facts of the source code for the cross-file rules
+     * @return the analysis result, independent of the analyzed file
+     * @throws IOException if the source code cannot be read
+     */
+    private AnalysisResultCache.Result analyze(YamlSourceCode sourceCode, List<YamlCheck> activeChecks, boolean skipChecks, @Nullable MultiDocumentAnalyzer multiDocumentAnalyzer, int maxHighlightingRanges, boolean collectIndexFacts) throws IOException {
+        sourceCode.checkSyntax();
+        LineCountData lineCountData = countLines(sourceCode);
+        YamlHighlighting highlighting = maxHighlightingRanges >= 0 ? computeSyntaxHighlighting(sourceCode, maxHighlightingRanges) : null;
+
+        YamlIssue syntaxError = null;
+        if (!skipChecks) {
+            // First check for syntax errors
+            if (!sourceCode.hasCorrectSyntax()) {
+                LOGGER.debug("File has syntax errors");
+                syntaxError = sourceCode.getSyntaxError();
+            }
+            runChecks(sourceCode, activeChecks, multiDocumentAnalyzer);
+        }
+        return new AnalysisResultCache.Result(lineCountData,
+                highlighting == null ? new HighlightingRanges(0) : highlighting.getHighlightingRanges(),
+                highlighting == null ? Collections.emptyList() : highlighting.getCpdTokens(),
+                syntaxError, sourceCode.getYamlIssues(), sourceCode.getIssueOverflows(),
+                collectIndexFacts ? ProjectIndex.collect(sourceCode) : null);
+    }
+
+    /**
+     * Saves the measures, highlighting, copy-paste detection tokens, syntax error and issues of an analysis result for
+     * the passed file
      *
      * @param context the sensor context
+     * @param inputFile the file the result is saved for
+     * @param result the analysis result of the file or of another file with the same content
+     * @param parsingErrorKey the {@link RuleKey} of the check that corresponds to a syntax error, if active for the file
+     */
+    private void saveResult(SensorContext context, InputFile inputFile, AnalysisResultCache.Result result, Optional<RuleKey> parsingErrorKey) {
+        LineCounter.save(context, fileLinesContextFactory, inputFile, result.getLineCountData());
+        saveSyntaxHighlighting(context, inputFile, result.getHighlightingRanges());
+        saveCpdTokens(context, inputFile, result.getCpdTokens());
+        if (result.getSyntaxError() != null) {
+            processAnalysisError(context, result.getSyntaxError(), inputFile, parsingErrorKey);
+        }
+        saveIssues(context, inputFile, result.getIssues(), result.getIssueOverflows());
+    }
+
+    /**
+     * Calculates line measures (comments, actual number of code lines)
+     *
      * @param sourceCode the YAML source code to be analyzed
+     * @return the line counts or {@code null} if the source code cannot be read
      */
-    private void computeLinesMeasures(SensorContext context, YamlSourceCode sourceCode) {
-        LineCounter.analyse(context, fileLinesContextFactory, sourceCode);
+    private static LineCountData countLines(YamlSourceCode sourceCode) {
+        Timing timing = AnalysisEvents.beginLineCount(sourceCode.getYamlFile().uri());
+        LineCountData data = LineCounter.count(sourceCode);
+        timing.end(sourceCode.getYamlFile().lines());
+        return data;
     }
 
     /**
@@ -170,7 +310,7 @@ public class YamlSensor implements Sensor {
         for (Object obj : checks.all()) {
             YamlCheck check = (YamlCheck) obj;
             if (check.getClass().equals(CheckRepository.getParsingErrorCheckClass())) {
-                LOGGER.debug("Parsing error rule key found: " + check.getRuleKey());
+                LOGGER.debug("Parsing error rule key found: {}", check.getRuleKey());
                 return Optional.of(checks.ruleKey(check));
             }
         }
@@ -179,40 +319,53 @@ public class YamlSensor implements Sensor {
     }
 
     /**
-     * Runs all checks (except the syntax check) against the passed YAML source code
+     * Tells if the rule whose key is passed is among the passed checks
+     *
+     * @param activeChecks the checks that apply to a file
+     * @param ruleKey a rule key
+     * @return {@code true} if one of the checks has the passed rule key, {@code false} otherwise
+     */
+    private static boolean isRuleActive(List<YamlCheck> activeChecks, RuleKey ruleKey) {
+        return activeChecks.stream().anyMatch(check -> ruleKey.equals(check.getRuleKey()));
+    }
+
+    /**
+     * Runs the passed checks (except the syntax check) against the passed YAML source code
      *
-     * @param context the sensor context
      * @param sourceCode the source code to be checked
+     * @param activeChecks the checks that apply to the source code, as per their file scope
+     * @param multiDocumentAnalyzer the analyzer used to run the checks on the documents of the source code in parallel,
+     *                              possibly {@code null}
+     * @throws IOException if the source code cannot be read
      */
-    private void runChecks(SensorContext context, YamlSourceCode sourceCode) {
-        for (Object check : checks.all()) {
-            ((YamlCheck) check).setRuleKey(checks.ruleKey(check));
-            ((YamlCheck) check).setYamlSourceCode(sourceCode);
-            LOGGER.debug("Checking rule: " + ((YamlCheck) check).getRuleKey());
-            setConfig(((YamlCheck) check));
-            ((YamlCheck) check).validate();
+    private void runChecks(YamlSourceCode sourceCode, List<YamlCheck> activeChecks, @Nullable MultiDocumentAnalyzer multiDocumentAnalyzer) throws IOException {
+        for (YamlCheck check : activeChecks) {
+            setConfig(check);
         }
-        saveIssues(context, sourceCode);
+        List<YamlCheck> remainingChecks = multiDocumentAnalyzer == null ? activeChecks : multiDocumentAnalyzer.analyze(sourceCode, activeChecks);
+        checkRunner.run(sourceCode, remainingChecks);
     }
 
     /**
      * Checks if there is a custom, local yamllint configuration file and returns the corresponding {@code YamlLintConfig}
      *
+     * @param baseDir the base directory of the project, where the local yamllint configuration file is looked for
+     * @param sharedRuleState the rule state that keeps the yamllint configuration files already read
      * @return the {@code YamlLintConfig} that corresponds to the local yamllint configuration file or {@code null} if the
      * file does not exist or is invalid
      */
-    private YamlLintConfig getLocalConfig() {
+    public static YamlLintConfig getLocalConfig(File baseDir, SharedRuleState sharedRuleState) {
         Path userGlobalConfig = getUserGlobalConfigPath();
 
         try {
-            if (fileExists(fileSystem.resolvePath(USER_CONF_FILENAME))) {
-                return new YamlLintConfig(fileSystem.resolvePath(USER_CONF_FILENAME).toURI().toURL());
-            } else if (fileExists(fileSystem.resolvePath(USER_CONF_FILENAME + ".yaml"))) {
-                return new YamlLintConfig(fileSystem.resolvePath(USER_CONF_FILENAME + ".yaml").toURI().toURL());
-            } else if (fileExists(fileSystem.resolvePath(USER_CONF_FILENAME + ".yml"))) {
-                return new YamlLintConfig(fileSystem.resolvePath(USER_CONF_FILENAME + ".yml").toURI().toURL());
+            if (fileExists(new File(baseDir, USER_CONF_FILENAME))) {
+                return sharedRuleState.getLocalConfig(new File(baseDir, USER_CONF_FILENAME));
+            } else if (fileExists(new File(baseDir, USER_CONF_FILENAME + ".yaml"))) {
+                return sharedRuleState.getLocalConfig(new File(baseDir, USER_CONF_FILENAME + ".yaml"));
+            } else if (fileExists(new File(baseDir, USER_CONF_FILENAME + ".yml"))) {
+                return sharedRuleState.getLocalConfig(new File(baseDir, USER_CONF_FILENAME + ".yml"));
             } else if (fileExists(userGlobalConfig.toString())) {
-                return new YamlLintConfig(userGlobalConfig.toUri().toURL());
+                return sharedRuleState.getLocalConfig(userGlobalConfig.toFile());
             }
         } catch (IOException e) {
             LOGGER.warn("Cannot read yamllint user configuration file: " + e.getMessage());
@@ -243,7 +396,7 @@ public class YamlSensor implements Sensor {
      *
      * @return the path to the user's global configuration file for yamllint
      */
-    private Path getUserGlobalConfigPath() {
+    private static Path getUserGlobalConfigPath() {
         Path userGlobalConfig;
 
         if (System.getenv(YAMLLINT_CONFIG_FILE_ENV_VAR) != null) {
@@ -263,7 +416,7 @@ public class YamlSensor implements Sensor {
      * @param path a path
      * @return <code>true</code> if the path exists and is a file, <code>false</code> otherwise
      */
-    private boolean fileExists(String path) {
+    private static boolean fileExists(String path) {
         File file = new File(path);
         return file.exists() && file.isFile();
     }
@@ -274,7 +427,7 @@ public class YamlSensor implements Sensor {
      * @param path a path
      * @return <code>true</code> if the path exists and is a file, <code>false</code> otherwise
      */
-    private boolean fileExists(File path) {
+    private static boolean fileExists(File path) {
         return path.exists() && path.isFile();
     }
 
@@ -282,42 +435,89 @@ public class YamlSensor implements Sensor {
      * Saves the found issues in SonarQube
      *
      * @param context the context
-     * @param sourceCode the analyzed YAML source
+     * @param inputFile the analyzed YAML file
+     * @param issues the issues found in the file
+     * @param issueOverflows the issues not kept because of the issue limits
      */
-    private void saveIssues(SensorContext context, YamlSourceCode sourceCode) {
-        for (YamlIssue yamlIssue : sourceCode.getYamlIssues()) {
-            LOGGER.debug("Saving issue: " + yamlIssue.getMessage());
+    static void saveIssues(SensorContext context, InputFile inputFile, List<YamlIssue> issues, Collection<IssueOverflow> issueOverflows) {
+        for (YamlIssue yamlIssue : issues) {
+            LOGGER.debug("Saving issue: {}", yamlIssue.getMessage());
             NewIssue newIssue = context.newIssue().forRule(yamlIssue.getRuleKey());
             NewIssueLocation location = newIssue.newLocation()
-                    .on(sourceCode.getYamlFile())
+                    .on(inputFile)
                     .message(yamlIssue.getMessage())
-                    .at(sourceCode.getYamlFile().selectLine(yamlIssue.getLine()==0?1:yamlIssue.getLine()));
+                    .at(inputFile.selectLine(yamlIssue.getLine()==0?1:yamlIssue.getLine()));
             newIssue.at(location).save();
         }
+        saveIssueOverflows(context, inputFile, issueOverflows);
     }
 
     /**
-     * Saves the syntax highlighting for the analyzed code
+     * Saves or logs the issues that were not kept because of the issue limits, depending on the
+     * {@value YamlSettings#ISSUES_OVERFLOW_KEY} setting
+     *
+     * @param context the context
+     * @param inputFile the analyzed YAML file
+     * @param issueOverflows the issues not kept because of the issue limits, grouped by rule
+     */
+    private static void saveIssueOverflows(SensorContext context, InputFile inputFile, Collection<IssueOverflow> issueOverflows) {
+        boolean summary = !YamlSettings.ISSUES_OVERFLOW_DROP.equals(context.config().get(YamlSettings.ISSUES_OVERFLOW_KEY).orElse(YamlSettings.ISSUES_OVERFLOW_SUMMARY));
+        for (IssueOverflow overflow : issueOverflows) {
+            if (!summary) {
+                LOGGER.info("{} issues of rule {} dropped for file {} (issue limit reached)", overflow.getCount(), overflow.getRuleKey(), inputFile.filename());
+                continue;
+            }
+            LOGGER.debug("Collapsing {} issues of rule {} for file {}", overflow.getCount(), overflow.getRuleKey(), inputFile.filename());
+            int[] lines = overflow.getLines();
+            NewIssue newIssue = context.newIssue().forRule(overflow.getRuleKey());
+            newIssue.at(newIssue.newLocation()
+                    .on(inputFile)
+                    .message(overflow.getCount() + " more issues of this rule were found in this file (issue limit reached)")
+                    .at(inputFile.selectLine(lines[0] == 0 ? 1 : lines[0])));
+            for (int i = 1; i < lines.length; i++) {
+                newIssue.addLocation(newIssue.newLocation()
+                        .on(inputFile)
+                        .message("Collapsed issue")
+                        .at(inputFile.selectLine(lines[i] == 0 ? 1 : lines[i])));
+            }
+            newIssue.save();
+        }
+    }
+
+    /**
+     * Computes the syntax highlighting and the copy-paste detection tokens for the analyzed code
      *
-     * @param context the sensor context
      * @param sourceCode the YAML source code
+     * @param maxRanges the maximum number of highlighting ranges, 0 for no limit
+     * @return the highlighting of the source code
      */
-    private static void saveSyntaxHighlighting(SensorContext context, YamlSourceCode sourceCode) {
-        List<HighlightingData> highlightingDataList;
+    private static YamlHighlighting computeSyntaxHighlighting(YamlSourceCode sourceCode, int maxRanges) {
+        Timing timing = AnalysisEvents.beginHighlighting(sourceCode.getYamlFile().uri());
+        YamlHighlighting highlighting;
         try {
-            highlightingDataList = new YamlHighlighting(sourceCode).getHighlightingData();
+            highlighting = new YamlHighlighting(sourceCode, maxRanges);
         } catch (IOException e) {
             throw new IllegalStateException("Could not analyze file " + sourceCode.getYamlFile().filename(), e);
         }
-        NewHighlighting highlighting = context.newHighlighting().onFile(sourceCode.getYamlFile());
+        timing.end(highlighting.getHighlightingRanges().size());
+        return highlighting;
+    }
 
-        for (HighlightingData highlightingData : highlightingDataList) {
-            highlightingData.highlight(highlighting);
-        }
+    /**
+     * Saves the syntax highlighting for the analyzed code
+     *
+     * @param context the sensor context
+     * @param inputFile the analyzed YAML file
+     * @param highlightingRanges the highlighting of the file
+     */
+    private static void saveSyntaxHighlighting(SensorContext context, InputFile inputFile, HighlightingRanges highlightingRanges) {
+        NewHighlighting highlighting = context.newHighlighting().onFile(inputFile);
+
+        highlightingRanges.highlight(highlighting);
         try {
             highlighting.save();
         } catch (UnsupportedOperationException e) {
-            String msg = "Cannot save highlighting for file " + sourceCode.getYamlFile().filename() + ", ignoring";
+            String msg = "Cannot save highlighting for file " + inputFile.filename() + ", ignoring";
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.warn(msg, e);
             } else {
@@ -326,18 +526,32 @@ public class YamlSensor implements Sensor {
         }
     }
 
+    /**
+     * Saves the copy-paste detection tokens of the analyzed code
+     *
+     * @param context the sensor context
+     * @param inputFile the analyzed YAML file
+     * @param cpdTokens the copy-paste detection tokens of the file
+     */
+    private static void saveCpdTokens(SensorContext context, InputFile inputFile, List<CpdTokenData> cpdTokens) {
+        NewCpdTokens newCpdTokens = context.newCpdTokens().onFile(inputFile);
+        for (CpdTokenData cpdToken : cpdTokens) {
+            cpdToken.addTo(newCpdTokens);
+        }
+        newCpdTokens.save();
+    }
+
     /**
      * Reports the passed issue as a syntax/parse error (aka {@link org.sonar.api.batch.sensor.error.AnalysisError} in
      * the SonarQube terminology)
      *
      * @param context the sensor context
-     * @param sourceCode the analyzed YAML source
+     * @param error the syntax error
      * @param inputFile the file that contains the error
      * @param parsingErrorKey the {@link RuleKey} of the check that corresponds to a syntax error. If present, an issue
      *                        is reported as well as the analysis error.
      */
-    private static void processAnalysisError(SensorContext context, YamlSourceCode sourceCode, InputFile inputFile, Optional<RuleKey> parsingErrorKey) {
-        final YamlIssue error = sourceCode.getSyntaxError();
+    private static void processAnalysisError(SensorContext context, YamlIssue error, InputFile inputFile, Optional<RuleKey> parsingErrorKey) {
 
         LOGGER.warn("Syntax error in file: {}", inputFile.filename());
         LOGGER.warn("Cause: {} at line {}, column {}", error.getMessage(), error.getLine(), error.getColumn());
@@ -345,7 +559,7 @@ public class YamlSensor implements Sensor {
         LOGGER.debug("Creating analysis error");
         context.newAnalysisError()
                 .onFile(inputFile)
-                .message(sourceCode.getSyntaxError().getMessage())
+                .message(error.getMessage())
                 .at(new TextPointer() {
                     @Override
                     public int line() {
@@ -371,7 +585,7 @@ public class YamlSensor implements Sensor {
             NewIssueLocation location = newIssue.newLocation()
                     .message("Parse error: " + error.getMessage())
                     .on(inputFile)
-                    .at(sourceCode.getYamlFile().selectLine(error.getLine()));
+                    .at(inputFile.selectLine(error.getLine()));
             newIssue.at(location).save();
         }
     }
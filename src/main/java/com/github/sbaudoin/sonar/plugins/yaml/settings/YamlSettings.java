@@ -46,6 +46,121 @@ public class YamlSettings {
      * Default path to the YAMLLint configuration ("": no specific configuration to be used)
      */
     public static final String YAML_LINT_CONF_PATH_DEFAULT_VALUE = "";
+    /**
+     * Configuration key to give the maximum number of issues reported per file ("sonar.yaml.issues.maxPerFile")
+     */
+    public static final String MAX_ISSUES_PER_FILE_KEY = "sonar.yaml.issues.maxPerFile";
+    /**
+     * Default maximum number of issues reported per file ("0": no limit)
+     */
+    public static final String MAX_ISSUES_PER_FILE_DEFAULT_VALUE = "0";
+    /**
+     * Configuration key to give the maximum number of issues reported per rule and per file ("sonar.yaml.issues.maxPerRule")
+     */
+    public static final String MAX_ISSUES_PER_RULE_KEY = "sonar.yaml.issues.maxPerRule";
+    /**
+     * Default maximum number of issues reported per rule and per file ("0": no limit)
+     */
+    public static final String MAX_ISSUES_PER_RULE_DEFAULT_VALUE = "0";
+    /**
+     * Configuration key to tell what to do with the issues beyond the limits ("sonar.yaml.issues.overflow")
+     */
+    public static final String ISSUES_OVERFLOW_KEY = "sonar.yaml.issues.overflow";
+    /**
+     * Overflow mode that collapses the issues beyond the limits into a single summary issue per rule ("summary")
+     */
+    public static final String ISSUES_OVERFLOW_SUMMARY = "summary";
+    /**
+     * Overflow mode that drops the issues beyond the limits, only logging their number ("drop")
+     */
+    public static final String ISSUES_OVERFLOW_DROP = "drop";
+    /**
+     * Configuration key to give the path patterns of the generated or vendored files ("sonar.yaml.generated.patterns")
+     */
+    public static final String GENERATED_FILE_PATTERNS_KEY = "sonar.yaml.generated.patterns";
+    /**
+     * Configuration key to give the markers that identify a generated file when found at the beginning of the file
+     * ("sonar.yaml.generated.markers")
+     */
+    public static final String GENERATED_HEADER_MARKERS_KEY = "sonar.yaml.generated.markers";
+    /**
+     * Configuration key to give the size (in KB) above which a file is considered as generated ("sonar.yaml.generated.maxFileSizeKb")
+     */
+    public static final String GENERATED_MAX_FILE_SIZE_KEY = "sonar.yaml.generated.maxFileSizeKb";
+    /**
+     * Configuration key to give the line length above which a file is considered as generated ("sonar.yaml.generated.maxLineLength")
+     */
+    public static final String GENERATED_MAX_LINE_LENGTH_KEY = "sonar.yaml.generated.maxLineLength";
+    /**
+     * Configuration key to tell what to do with the generated or vendored files ("sonar.yaml.generated.action")
+     */
+    public static final String GENERATED_FILES_ACTION_KEY = "sonar.yaml.generated.action";
+    /**
+     * Action that only computes the line measures of the generated or vendored files ("measures")
+     */
+    public static final String GENERATED_FILES_ACTION_MEASURES = "measures";
+    /**
+     * Action that ignores the generated or vendored files ("skip")
+     */
+    public static final String GENERATED_FILES_ACTION_SKIP = "skip";
+    /**
+     * Configuration key to give the number of documents from which a multi-document file is split and analyzed in
+     * parallel ("sonar.yaml.split.minDocuments")
+     */
+    public static final String SPLIT_MIN_DOCUMENTS_KEY = "sonar.yaml.split.minDocuments";
+    /**
+     * Default number of documents from which a multi-document file is split ("200")
+     */
+    public static final String SPLIT_MIN_DOCUMENTS_DEFAULT_VALUE = "200";
+    /**
+     * Configuration key to give the number of threads used to analyze the documents of a split file
+     * ("sonar.yaml.split.threads")
+     */
+    public static final String SPLIT_THREADS_KEY = "sonar.yaml.split.threads";
+    /**
+     * Configuration key to give the maximum number of analysis results kept in memory to be reused for files with an
+     * identical content ("sonar.yaml.dedup.maxEntries")
+     */
+    public static final String DEDUP_MAX_ENTRIES_KEY = "sonar.yaml.dedup.maxEntries";
+    /**
+     * Default maximum number of analysis results kept for identical files ("1000")
+     */
+    public static final String DEDUP_MAX_ENTRIES_DEFAULT_VALUE = "1000";
+    /**
+     * Configuration key to tell if the analysis of the files is adapted to the heap left ("sonar.yaml.memory.admission")
+     */
+    public static final String MEMORY_ADMISSION_KEY = "sonar.yaml.memory.admission";
+    /**
+     * Default value of the heap-aware admission control ("true")
+     */
+    public static final String MEMORY_ADMISSION_DEFAULT_VALUE = "true";
+    /**
+     * Configuration key to give the key whose value, at the root of a document, gives its kind for the document
+     * selectors of the rules ("sonar.yaml.documents.kindKey")
+     */
+    public static final String DOCUMENT_KIND_KEY = "sonar.yaml.documents.kindKey";
+    /**
+     * Default document kind key ("kind")
+     */
+    public static final String DOCUMENT_KIND_KEY_DEFAULT_VALUE = "kind";
+    /**
+     * Configuration key to give the maximum number of entries of the index of the project used by the cross-file rules
+     * ("sonar.yaml.index.maxEntries")
+     */
+    public static final String INDEX_MAX_ENTRIES_KEY = "sonar.yaml.index.maxEntries";
+    /**
+     * Default maximum number of entries of the index of the project ("1000000")
+     */
+    public static final String INDEX_MAX_ENTRIES_DEFAULT_VALUE = "1000000";
+    /**
+     * Configuration key to give the maximum number of syntax highlighting ranges saved per file
+     * ("sonar.yaml.highlighting.maxRanges")
+     */
+    public static final String HIGHLIGHTING_MAX_RANGES_KEY = "sonar.yaml.highlighting.maxRanges";
+    /**
+     * Default maximum number of syntax highlighting ranges per file ("0", i.e. no limit)
+     */
+    public static final String HIGHLIGHTING_MAX_RANGES_DEFAULT_VALUE = "0";
 
 
     /**
@@ -92,6 +207,140 @@ public class YamlSettings {
                 .category("YAML")
                 .onQualifiers(Qualifiers.PROJECT)
                 .build());
+        properties.add(
+            PropertyDefinition.builder(MAX_ISSUES_PER_FILE_KEY)
+                .name("Maximum Issues per File")
+                .description("Maximum number of issues reported for a single file, all rules together. Use 0 for no limit.")
+                .type(PropertyType.INTEGER)
+                .defaultValue(MAX_ISSUES_PER_FILE_DEFAULT_VALUE)
+                .category("YAML")
+                .onQualifiers(Qualifiers.PROJECT)
+                .build());
+        properties.add(
+            PropertyDefinition.builder(MAX_ISSUES_PER_RULE_KEY)
+                .name("Maximum Issues per Rule")
+                .description("Maximum number of issues reported for a single rule in a single file. Use 0 for no limit.")
+                .type(PropertyType.INTEGER)
+                .defaultValue(MAX_ISSUES_PER_RULE_DEFAULT_VALUE)
+                .category("YAML")
+                .onQualifiers(Qualifiers.PROJECT)
+                .build());
+        properties.add(
+            PropertyDefinition.builder(ISSUES_OVERFLOW_KEY)
+                .name("Issues Beyond Limits")
+                .description("Tells what to do with the issues beyond the maximum numbers of issues: '" + ISSUES_OVERFLOW_SUMMARY + "' to collapse them into a single issue per rule with secondary locations, '" + ISSUES_OVERFLOW_DROP + "' to drop them and only log their number.")
+                .type(PropertyType.SINGLE_SELECT_LIST)
+                .options(ISSUES_OVERFLOW_SUMMARY, ISSUES_OVERFLOW_DROP)
+                .defaultValue(ISSUES_OVERFLOW_SUMMARY)
+                .category("YAML")
+                .onQualifiers(Qualifiers.PROJECT)
+                .build());
+        properties.add(
+            PropertyDefinition.builder(GENERATED_FILE_PATTERNS_KEY)
+                .name("Generated File Patterns")
+                .description("Comma-separated list of Ant-style patterns (for example **/charts/*/charts/**) of the generated or vendored files, matched against the paths relative to the project base directory.")
+                .multiValues(true)
+                .category("YAML")
+                .onQualifiers(Qualifiers.PROJECT)
+                .build());
+        properties.add(
+            PropertyDefinition.builder(GENERATED_HEADER_MARKERS_KEY)
+                .name("Generated File Markers")
+                .description("Comma-separated list of markers (for example @generated or DO NOT EDIT) that identify a generated file when found in its first 4 KB.")
+                .multiValues(true)
+                .category("YAML")
+                .onQualifiers(Qualifiers.PROJECT)
+                .build());
+        properties.add(
+            PropertyDefinition.builder(GENERATED_MAX_FILE_SIZE_KEY)
+                .name("Generated File Size")
+                .description("Size in KB above which a file is considered as generated. Use 0 to disable.")
+                .type(PropertyType.INTEGER)
+                .defaultValue("0")
+                .category("YAML")
+                .onQualifiers(Qualifiers.PROJECT)
+                .build());
+        properties.add(
+            PropertyDefinition.builder(GENERATED_MAX_LINE_LENGTH_KEY)
+                .name("Generated File Line Length")
+                .description("Line length above which a file is considered as generated (only the first 4 KB of the file are read). Use 0 to disable.")
+                .type(PropertyType.INTEGER)
+                .defaultValue("0")
+                .category("YAML")
+                .onQualifiers(Qualifiers.PROJECT)
+                .build());
+        properties.add(
+            PropertyDefinition.builder(GENERATED_FILES_ACTION_KEY)
+                .name("Generated Files Action")
+                .description("Tells what to do with the generated or vendored files: '" + GENERATED_FILES_ACTION_MEASURES + "' to only compute their line measures, '" + GENERATED_FILES_ACTION_SKIP + "' to ignore them.")
+                .type(PropertyType.SINGLE_SELECT_LIST)
+                .options(GENERATED_FILES_ACTION_MEASURES, GENERATED_FILES_ACTION_SKIP)
+                .defaultValue(GENERATED_FILES_ACTION_MEASURES)
+                .category("YAML")
+                .onQualifiers(Qualifiers.PROJECT)
+                .build());
+        properties.add(
+            PropertyDefinition.builder(SPLIT_MIN_DOCUMENTS_KEY)
+                .name("Multi-Document Split Threshold")
+                .description("Number of documents (separated by ---) from which a file is split and its documents analyzed in parallel. Use 0 to disable.")
+                .type(PropertyType.INTEGER)
+                .defaultValue(SPLIT_MIN_DOCUMENTS_DEFAULT_VALUE)
+                .category("YAML")
+                .onQualifiers(Qualifiers.PROJECT)
+                .build());
+        properties.add(
+            PropertyDefinition.builder(SPLIT_THREADS_KEY)
+                .name("Multi-Document Split Threads")
+                .description("Number of threads used to analyze the documents of a split file. Use 0 to use as many threads as available processors.")
+                .type(PropertyType.INTEGER)
+                .defaultValue("0")
+                .category("YAML")
+                .onQualifiers(Qualifiers.PROJECT)
+                .build());
+        properties.add(
+            PropertyDefinition.builder(DEDUP_MAX_ENTRIES_KEY)
+                .name("Identical Files Cache Size")
+                .description("Maximum number of analysis results kept in memory to be reused for files whose content and active rules are identical to an already analyzed file. Use 0 to disable.")
+                .type(PropertyType.INTEGER)
+                .defaultValue(DEDUP_MAX_ENTRIES_DEFAULT_VALUE)
+                .category("YAML")
+                .onQualifiers(Qualifiers.PROJECT)
+                .build());
+        properties.add(
+            PropertyDefinition.builder(MEMORY_ADMISSION_KEY)
+                .name("Heap-Aware Analysis")
+                .description("Tells if the analysis of large files is degraded (no syntax highlighting) or limited to line measures when the heap left is not sufficient to analyze them fully.")
+                .type(PropertyType.BOOLEAN)
+                .defaultValue(MEMORY_ADMISSION_DEFAULT_VALUE)
+                .category("YAML")
+                .onQualifiers(Qualifiers.PROJECT)
+                .build());
+        properties.add(
+            PropertyDefinition.builder(DOCUMENT_KIND_KEY)
+                .name("Document Kind Key")
+                .description("Key whose value, at the root of a YAML document, gives the kind of the document that the document selectors of the rules are matched against, along with apiVersion.")
+                .defaultValue(DOCUMENT_KIND_KEY_DEFAULT_VALUE)
+                .category("YAML")
+                .onQualifiers(Qualifiers.PROJECT)
+                .build());
+        properties.add(
+            PropertyDefinition.builder(INDEX_MAX_ENTRIES_KEY)
+                .name("Project Index Size")
+                .description("Maximum number of entries (resources, references and images) of the index of the project used by the cross-file rules. When the limit is reached, the cross-file rules do not see the remaining files.")
+                .type(PropertyType.INTEGER)
+                .defaultValue(INDEX_MAX_ENTRIES_DEFAULT_VALUE)
+                .category("YAML")
+                .onQualifiers(Qualifiers.PROJECT)
+                .build());
+        properties.add(
+            PropertyDefinition.builder(HIGHLIGHTING_MAX_RANGES_KEY)
+                .name("Highlighting Ranges per File")
+                .description("Maximum number of syntax highlighting ranges saved for a file. Adjacent ranges of the same type are merged first; beyond the limit, the end of the file is not highlighted. 0 means no limit.")
+                .type(PropertyType.INTEGER)
+                .defaultValue(HIGHLIGHTING_MAX_RANGES_DEFAULT_VALUE)
+                .category("YAML")
+                .onQualifiers(Qualifiers.PROJECT)
+                .build());
         return properties;
     }
 }
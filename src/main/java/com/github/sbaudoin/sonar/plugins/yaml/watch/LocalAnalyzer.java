@@ -0,0 +1,212 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.watch;
+
+import com.github.sbaudoin.sonar.plugins.yaml.checks.CheckMetadata;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.CheckRepository;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.CheckRunner;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.FileScopeMatcher;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.ProjectCheck;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.YamlCheck;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.YamlIssue;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.YamlSourceCode;
+import com.github.sbaudoin.sonar.plugins.yaml.languages.YamlQualityProfile;
+import com.github.sbaudoin.sonar.plugins.yaml.rules.SharedRuleState;
+import com.github.sbaudoin.sonar.plugins.yaml.rules.YamlSensor;
+import com.github.sbaudoin.yamllint.YamlLintConfig;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Analyzer of local files, outside of a SonarQube analysis, with the same checks, rule parameters and yamllint
+ * configuration files as the {@link YamlSensor}. The checks are created and configured once, so that their compiled
+ * configurations and patterns are reused by all the analyses. An analyzer must not be used by several threads at the
+ * same time.
+ * <p>
+ * The rules are configured by properties: {@code <rule key>=true} activates a rule (for example
+ * {@code LineLengthCheck=true}) and {@code <rule key>.<parameter key>=<value>} sets a parameter of an active rule (for
+ * example {@code LineLengthCheck.max=120}). The parameters that are not set take their default value; the parameters of
+ * inactive rules are ignored. The cross-file
+ * rules are not supported.
+ */
+public class LocalAnalyzer {
+    private static final Logger LOGGER = Loggers.get(LocalAnalyzer.class);
+
+    private final File baseDir;
+    private final Charset charset;
+    private final boolean filterUtf8LineBreaks;
+    private final SharedRuleState sharedRuleState = new SharedRuleState();
+    private final List<YamlCheck> checks;
+    private final FileScopeMatcher fileScopeMatcher;
+    private final CheckRunner checkRunner;
+    private final RuleKey parsingErrorKey;
+
+
+    /**
+     * Constructor
+     *
+     * @param baseDir the base directory of the workspace, where the local yamllint configuration file is looked for
+     * @param rules the rule configuration
+     * @param charset the encoding of the files
+     * @param filterUtf8LineBreaks {@code true} to filter out UTF-8 line break characters, as with the
+     *                             {@code sonar.yaml.filter.utf8_lb} setting
+     * @throws IllegalArgumentException if a rule parameter is invalid
+     */
+    public LocalAnalyzer(File baseDir, Properties rules, Charset charset, boolean filterUtf8LineBreaks) {
+        this.baseDir = baseDir;
+        this.charset = charset;
+        this.filterUtf8LineBreaks = filterUtf8LineBreaks;
+        this.checks = createChecks(rules);
+        this.fileScopeMatcher = new FileScopeMatcher(checks);
+        this.checkRunner = new CheckRunner(checks, sharedRuleState.getLintConfigCache());
+        this.parsingErrorKey = checks.stream()
+                .filter(check -> check.getClass().equals(CheckRepository.getParsingErrorCheckClass()))
+                .map(YamlCheck::getRuleKey)
+                .findFirst().orElse(null);
+    }
+
+
+    /**
+     * Returns the rule configuration that activates the rules of the built-in quality profile, with their default
+     * parameters
+     *
+     * @return the default rule configuration
+     */
+    public static Properties getDefaultRules() {
+        Properties rules = new Properties();
+        for (String ruleKey : YamlQualityProfile.RULE_KEYS) {
+            rules.setProperty(ruleKey, "true");
+        }
+        return rules;
+    }
+
+    /**
+     * Returns the active checks
+     *
+     * @return the active checks
+     */
+    public List<YamlCheck> getChecks() {
+        return checks;
+    }
+
+    /**
+     * Analyzes a file with the checks that apply to it
+     *
+     * @param file the file to analyze
+     * @return the issues found in the file, including its syntax error if the syntax error rule is active, sorted by
+     * line
+     * @throws IOException if the file cannot be read
+     */
+    public List<YamlIssue> analyze(Path file) throws IOException {
+        YamlSourceCode sourceCode = new YamlSourceCode(LocalInputFile.create(baseDir.toPath(), file, charset), Optional.of(filterUtf8LineBreaks));
+        sourceCode.setBaseDir(baseDir);
+        List<YamlCheck> activeChecks = fileScopeMatcher.getChecks(baseDir.toPath(), file);
+
+        // The local configuration file is read again only if it has changed
+        YamlLintConfig localConfig = YamlSensor.getLocalConfig(baseDir, sharedRuleState);
+        for (YamlCheck check : activeChecks) {
+            check.setConfig(localConfig);
+        }
+        checkRunner.run(sourceCode, activeChecks);
+
+        List<YamlIssue> issues = new ArrayList<>();
+        if (!sourceCode.hasCorrectSyntax() && parsingErrorKey != null && activeChecks.stream().anyMatch(check -> parsingErrorKey.equals(check.getRuleKey()))) {
+            YamlIssue syntaxError = sourceCode.getSyntaxError();
+            issues.add(new YamlIssue(parsingErrorKey, syntaxError.getMessage(), syntaxError.getLine(), syntaxError.getColumn()));
+        }
+        issues.addAll(sourceCode.getYamlIssues());
+        issues.sort(Comparator.comparingInt(YamlIssue::getLine).thenComparingInt(YamlIssue::getColumn));
+        return issues;
+    }
+
+
+    /**
+     * Creates and configures the active checks
+     *
+     * @param rules the rule configuration
+     * @return the active checks
+     * @throws IllegalArgumentException if a rule parameter is invalid
+     */
+    private static List<YamlCheck> createChecks(Properties rules) {
+        List<YamlCheck> checks = new ArrayList<>();
+        Set<String> knownKeys = new HashSet<>();
+        for (Class<? extends YamlCheck> checkClass : CheckRepository.getCheckClasses()) {
+            String ruleKey = CheckMetadata.of(checkClass).getRuleKey();
+            knownKeys.add(ruleKey);
+            // The parameters of the inactive rules are known too, they are just not used
+            for (CheckMetadata.Property property : CheckMetadata.of(checkClass).getAllProperties()) {
+                knownKeys.add(ruleKey + "." + property.getKey());
+            }
+            if (!Boolean.parseBoolean(rules.getProperty(ruleKey, "false").trim())) {
+                continue;
+            }
+            if (ProjectCheck.class.isAssignableFrom(checkClass)) {
+                LOGGER.warn("Rule {} is a cross-file rule, it is not supported outside of a SonarQube analysis", ruleKey);
+                continue;
+            }
+            YamlCheck check;
+            try {
+                check = checkClass.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot create check " + checkClass.getName(), e);
+            }
+            check.setRuleKey(RuleKey.of(CheckRepository.REPOSITORY_KEY, ruleKey));
+            configure(check, ruleKey, rules);
+            checks.add(check);
+        }
+        for (String key : rules.stringPropertyNames()) {
+            if (!knownKeys.contains(key)) {
+                LOGGER.warn("Unknown rule or rule parameter: {}", key);
+            }
+        }
+        return checks;
+    }
+
+    /**
+     * Sets the rule parameters of a check, with their configured or default values
+     *
+     * @param check a check
+     * @param ruleKey the rule key of the check
+     * @param rules the rule configuration
+     * @throws IllegalArgumentException if a rule parameter is invalid
+     */
+    private static void configure(YamlCheck check, String ruleKey, Properties rules) {
+        for (CheckMetadata.Property property : CheckMetadata.of(check.getClass()).getAllProperties()) {
+            String value = rules.getProperty(ruleKey + "." + property.getKey(), property.getAnnotation().defaultValue());
+            if (value.isEmpty()) {
+                continue;
+            }
+            try {
+                property.setValue(check, value);
+            } catch (IllegalAccessException | IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid value of parameter " + property.getKey() + " of rule " + ruleKey + ": " + value, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.watch;
+
+import com.github.sbaudoin.sonar.plugins.yaml.languages.YamlLanguage;
+import org.sonar.api.batch.fs.InputFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * {@link InputFile} of a file of the local file system, outside of a SonarQube analysis. Only the methods used by the
+ * checks are supported (URI, file name, paths, charset and contents); the others throw an
+ * {@code UnsupportedOperationException}. The file is implemented as a dynamic proxy so that it works with any version
+ * of the SonarQube plugin API found on the class path, whatever the methods of the {@code InputFile} interface.
+ */
+final class LocalInputFile implements InvocationHandler {
+    private final Path baseDir;
+    private final Path file;
+    private final Charset charset;
+
+
+    /**
+     * Constructor
+     *
+     * @param baseDir the base directory of the workspace
+     * @param file the file
+     * @param charset the encoding of the file
+     */
+    private LocalInputFile(Path baseDir, Path file, Charset charset) {
+        this.baseDir = baseDir;
+        this.file = file.toAbsolutePath().normalize();
+        this.charset = charset;
+    }
+
+
+    /**
+     * Creates an {@code InputFile} for a local file
+     *
+     * @param baseDir the base directory of the workspace, used to compute the relative path (and key) of the file
+     * @param file the file
+     * @param charset the encoding of the file
+     * @return an {@code InputFile}
+     */
+    static InputFile create(Path baseDir, Path file, Charset charset) {
+        return (InputFile) Proxy.newProxyInstance(LocalInputFile.class.getClassLoader(), new Class<?>[] { InputFile.class },
+                new LocalInputFile(baseDir.toAbsolutePath().normalize(), file, charset));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws IOException {
+        switch (method.getName()) {
+            case "uri":
+                return file.toUri();
+            case "filename":
+                return file.getFileName().toString();
+            case "path":
+                return file;
+            case "file":
+                return file.toFile();
+            case "absolutePath":
+                return file.toString().replace('\\', '/');
+            case "relativePath":
+            case "key":
+            case "toString":
+                return getRelativePath();
+            case "language":
+                return YamlLanguage.KEY;
+            case "type":
+                return InputFile.Type.MAIN;
+            case "isFile":
+                return true;
+            case "charset":
+                return charset;
+            case "contents":
+                return new String(Files.readAllBytes(file), charset);
+            case "inputStream":
+                return new ByteArrayInputStream(Files.readAllBytes(file));
+            case "equals":
+                return proxy == args[0] || args[0] instanceof InputFile && Proxy.isProxyClass(args[0].getClass())
+                        && Proxy.getInvocationHandler(args[0]) instanceof LocalInputFile
+                        && file.equals(((LocalInputFile) Proxy.getInvocationHandler(args[0])).file);
+            case "hashCode":
+                return file.hashCode();
+            default:
+                throw new UnsupportedOperationException(method.getName() + " is not supported outside of a SonarQube analysis");
+        }
+    }
+
+
+    /**
+     * Returns the path of the file relative to the base directory, with forward slashes
+     *
+     * @return the relative path of the file, or its absolute path if it is not in the base directory
+     */
+    private String getRelativePath() {
+        Path path = file.startsWith(baseDir) ? baseDir.relativize(file) : file;
+        return path.toString().replace('\\', '/');
+    }
+}
@@ -0,0 +1,211 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.watch;
+
+import com.github.sbaudoin.sonar.plugins.yaml.checks.YamlIssue;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Publisher of the analysis results: the issues are printed (one line per issue, {@code file:line:column: message
+ * (rule)}) and, if a port is given, sent as JSON lines to the clients connected to a socket on the loopback interface.
+ * Each JSON line holds all the issues of a file, so that the clients can replace the issues they know for this file:
+ * <pre>
+ * {"file":"charts/app/values.yaml","issues":[{"line":3,"column":1,"rule":"yaml:TruthyCheck","message":"..."}]}
+ * </pre>
+ */
+public class ResultPublisher implements Closeable {
+    private static final Logger LOGGER = Loggers.get(ResultPublisher.class);
+
+    private final PrintStream out;
+    private final ServerSocket serverSocket;
+    private final List<Socket> clients = new CopyOnWriteArrayList<>();
+
+
+    /**
+     * Constructor
+     *
+     * @param out the stream the issues are printed to
+     * @param port the port of the socket the JSON results are sent to, {@code 0} for any free port, a negative value
+     *             for no socket
+     * @throws IOException if the socket cannot be opened
+     */
+    public ResultPublisher(PrintStream out, int port) throws IOException {
+        this.out = out;
+        if (port < 0) {
+            serverSocket = null;
+            return;
+        }
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "yaml-watch-results");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        LOGGER.info("Sending the results to the clients connected to {}:{}", serverSocket.getInetAddress().getHostAddress(), serverSocket.getLocalPort());
+    }
+
+
+    /**
+     * Returns the port of the socket the JSON results are sent to
+     *
+     * @return the port of the socket, -1 if there is no socket
+     */
+    public int getPort() {
+        return serverSocket == null ? -1 : serverSocket.getLocalPort();
+    }
+
+    /**
+     * Publishes the issues of a file
+     *
+     * @param file the path of the file, relative to the workspace
+     * @param issues the issues of the file, possibly empty
+     */
+    public void publish(String file, List<YamlIssue> issues) {
+        for (YamlIssue issue : issues) {
+            out.println(file + ":" + issue.getLine() + ":" + Math.max(issue.getColumn(), 1) + ": " + issue.getMessage()
+                    + (issue.getRuleKey() == null ? "" : " (" + issue.getRuleKey().rule() + ")"));
+        }
+        if (!clients.isEmpty()) {
+            byte[] line = (toJson(file, issues) + "\n").getBytes(StandardCharsets.UTF_8);
+            for (Socket client : clients) {
+                try {
+                    client.getOutputStream().write(line);
+                    client.getOutputStream().flush();
+                } catch (IOException e) {
+                    LOGGER.debug("Client disconnected: {}", e.getMessage());
+                    clients.remove(client);
+                    closeQuietly(client);
+                }
+            }
+        }
+    }
+
+    /**
+     * Prints the summary of an analysis
+     *
+     * @param files the number of files analyzed
+     * @param issues the number of issues found
+     * @param durationMillis the duration of the analysis, in milliseconds
+     */
+    public void publishSummary(int files, int issues, long durationMillis) {
+        out.println(files + " file(s) analyzed in " + durationMillis + " ms, " + issues + " issue(s)");
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (serverSocket != null) {
+            serverSocket.close();
+        }
+        for (Socket client : clients) {
+            closeQuietly(client);
+        }
+        clients.clear();
+    }
+
+    /**
+     * Returns the JSON line of the issues of a file
+     *
+     * @param file the path of the file
+     * @param issues the issues of the file
+     * @return a JSON object, on a single line
+     */
+    static String toJson(String file, List<YamlIssue> issues) {
+        StringBuilder json = new StringBuilder("{\"file\":").append(quote(file)).append(",\"issues\":[");
+        for (int i = 0; i < issues.size(); i++) {
+            YamlIssue issue = issues.get(i);
+            json.append(i == 0 ? "" : ",")
+                    .append("{\"line\":").append(issue.getLine())
+                    .append(",\"column\":").append(Math.max(issue.getColumn(), 1))
+                    .append(",\"rule\":").append(issue.getRuleKey() == null ? "null" : quote(issue.getRuleKey().toString()))
+                    .append(",\"message\":").append(quote(issue.getMessage()))
+                    .append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+
+    /**
+     * Accepts the clients until the socket is closed
+     */
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket client = serverSocket.accept();
+                LOGGER.debug("Client connected: {}", client.getRemoteSocketAddress());
+                clients.add(client);
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    LOGGER.warn("Cannot accept a client: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Nothing to do
+        }
+    }
+
+    /**
+     * Returns a JSON string
+     *
+     * @param value a string
+     * @return the string quoted and escaped as per JSON
+     */
+    private static String quote(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                    break;
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,364 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.watch;
+
+import com.github.sbaudoin.sonar.plugins.yaml.checks.YamlIssue;
+import com.github.sbaudoin.sonar.plugins.yaml.rules.YamlSensor;
+import com.github.sbaudoin.sonar.plugins.yaml.settings.YamlSettings;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.api.utils.log.Loggers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Watch mode for local development: the YAML files of a workspace are analyzed once, then the workspace is watched and
+ * the files are analyzed again as soon as they change, with the checks of a {@link LocalAnalyzer} that are kept warm
+ * between the analyses. Bursts of changes (such as the several events of an editor save) are debounced: the changed
+ * files are analyzed once no change has been seen for the debounce delay. A change of the local yamllint configuration
+ * file triggers the analysis of all the files.
+ * <p>
+ * Run with the plugin and the SonarQube plugin API on the class path:
+ * <pre>
+ * java -cp sonar-yaml-plugin.jar:sonar-plugin-api.jar com.github.sbaudoin.sonar.plugins.yaml.watch.YamlWatcher [options] [directory]
+ * </pre>
+ */
+public class YamlWatcher implements Closeable {
+    private static final Logger LOGGER = Loggers.get(YamlWatcher.class);
+    private static final String ROOT_LOGGER_NAME = "ROOT";
+
+    /**
+     * Default debounce delay, in milliseconds
+     */
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 50;
+
+    private static final String USAGE = "Usage: YamlWatcher [options] [directory]\n"
+            + "Options:\n"
+            + "  --rules <file>      rule configuration file (properties: <rule key>=true, <rule key>.<parameter>=<value>),\n"
+            + "                      default: the rules of the built-in quality profile\n"
+            + "  --suffixes <list>   comma-separated list of the suffixes of the YAML files (default: " + YamlSettings.FILE_SUFFIXES_DEFAULT_VALUE + ")\n"
+            + "  --debounce <ms>     delay without change before the changed files are analyzed (default: " + DEFAULT_DEBOUNCE_MILLIS + ")\n"
+            + "  --port <port>       send the results as JSON lines to the clients connected to localhost:<port> (0: any free port)\n"
+            + "  --once              analyze the files once and exit, with status 1 if issues are found\n"
+            + "  --verbose           print the debug logs";
+
+    private final Path baseDir;
+    private final LocalAnalyzer analyzer;
+    private final ResultPublisher publisher;
+    private final List<String> suffixes;
+    private final long debounceMillis;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    private WatchService watchService = null;
+
+
+    /**
+     * Constructor
+     *
+     * @param baseDir the directory of the workspace
+     * @param analyzer the analyzer of the files
+     * @param publisher the publisher of the results
+     * @param suffixes the suffixes of the YAML files
+     * @param debounceMillis the delay without change before the changed files are analyzed, in milliseconds
+     */
+    public YamlWatcher(Path baseDir, LocalAnalyzer analyzer, ResultPublisher publisher, List<String> suffixes, long debounceMillis) {
+        this.baseDir = baseDir.toAbsolutePath().normalize();
+        this.analyzer = analyzer;
+        this.publisher = publisher;
+        this.suffixes = suffixes;
+        this.debounceMillis = debounceMillis;
+    }
+
+
+    /**
+     * Runs the watch mode
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        int status = run(args, System.out, System.err);
+        if (status != 0) {
+            System.exit(status);
+        }
+    }
+
+    /**
+     * Runs the watch mode (or a single analysis with {@code --once})
+     *
+     * @param args the command line arguments
+     * @param out the stream the results are printed to
+     * @param err the stream the errors are printed to
+     * @return the exit status: 0 if successful, 1 if issues are found with {@code --once}, 2 if the arguments are
+     * invalid
+     */
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        Path directory = Paths.get(".");
+        Path rulesFile = null;
+        String suffixes = YamlSettings.FILE_SUFFIXES_DEFAULT_VALUE;
+        long debounceMillis = DEFAULT_DEBOUNCE_MILLIS;
+        int port = -1;
+        boolean once = false;
+        boolean verbose = false;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--rules":
+                        rulesFile = Paths.get(getValue(args, ++i));
+                        break;
+                    case "--suffixes":
+                        suffixes = getValue(args, ++i);
+                        break;
+                    case "--debounce":
+                        debounceMillis = Long.parseLong(getValue(args, ++i));
+                        break;
+                    case "--port":
+                        port = Integer.parseInt(getValue(args, ++i));
+                        break;
+                    case "--once":
+                        once = true;
+                        break;
+                    case "--verbose":
+                        verbose = true;
+                        break;
+                    default:
+                        if (args[i].startsWith("-")) {
+                            throw new IllegalArgumentException("Unknown option: " + args[i]);
+                        }
+                        directory = Paths.get(args[i]);
+                        break;
+                }
+            }
+            if (!Files.isDirectory(directory)) {
+                throw new IllegalArgumentException("Not a directory: " + directory);
+            }
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return 2;
+        }
+        Loggers.get(ROOT_LOGGER_NAME).setLevel(verbose ? LoggerLevel.DEBUG : LoggerLevel.INFO);
+
+        try (ResultPublisher resultPublisher = new ResultPublisher(out, once ? -1 : port)) {
+            LocalAnalyzer localAnalyzer = new LocalAnalyzer(directory.toFile(), rulesFile == null ? LocalAnalyzer.getDefaultRules() : loadRules(rulesFile), StandardCharsets.UTF_8, false);
+            try (YamlWatcher watcher = new YamlWatcher(directory, localAnalyzer, resultPublisher,
+                    Arrays.stream(suffixes.split(",")).map(String::trim).filter(s -> !s.isEmpty()).collect(Collectors.toList()), debounceMillis)) {
+                if (once) {
+                    return watcher.analyze(watcher.findFiles()) > 0 ? 1 : 0;
+                }
+                watcher.watch();
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            err.println(e.getMessage());
+            return 2;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return 0;
+    }
+
+    /**
+     * Analyzes all the files of the workspace, then watches the workspace and analyzes the files that change, until
+     * the current thread is interrupted
+     *
+     * @throws IOException if the workspace cannot be watched
+     * @throws InterruptedException if the current thread is interrupted
+     */
+    public void watch() throws IOException, InterruptedException {
+        watchService = baseDir.getFileSystem().newWatchService();
+        register(baseDir);
+        analyze(findFiles());
+        LOGGER.info("Watching {}", baseDir);
+        while (!Thread.currentThread().isInterrupted()) {
+            analyze(awaitChanges());
+        }
+    }
+
+    /**
+     * Analyzes files and publishes their issues. The files that do not exist anymore are published without issue.
+     *
+     * @param files the files to analyze
+     * @return the number of issues found
+     */
+    public int analyze(Collection<Path> files) {
+        long start = System.nanoTime();
+        int issueCount = 0;
+        for (Path file : files) {
+            String relativePath = getRelativePath(file);
+            List<YamlIssue> issues = Collections.emptyList();
+            if (Files.isRegularFile(file)) {
+                try {
+                    issues = analyzer.analyze(file);
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.warn("Cannot analyze " + relativePath + ": " + e.getMessage());
+                    LOGGER.debug("Complete error trace:", e);
+                }
+            }
+            publisher.publish(relativePath, issues);
+            issueCount += issues.size();
+        }
+        publisher.publishSummary(files.size(), issueCount, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return issueCount;
+    }
+
+    /**
+     * Returns the YAML files of the workspace
+     *
+     * @return the YAML files of the workspace, hidden directories excluded
+     * @throws IOException if the workspace cannot be read
+     */
+    public List<Path> findFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        Files.walkFileTree(baseDir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                return isHidden(dir) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile() && isYamlFile(file)) {
+                    files.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        Collections.sort(files);
+        return files;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+
+    /**
+     * Waits for changes, then collects the changes until no change is seen for the debounce delay
+     *
+     * @return the YAML files that have changed (possibly deleted), all the files if the yamllint configuration has
+     * changed or if events were lost
+     * @throws IOException if a new directory cannot be watched
+     * @throws InterruptedException if the current thread is interrupted
+     */
+    Set<Path> awaitChanges() throws IOException, InterruptedException {
+        Set<Path> changes = new LinkedHashSet<>();
+        boolean all = false;
+        WatchKey key = watchService.take();
+        while (key != null) {
+            Path dir = directories.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW || dir == null) {
+                    all = true;
+                    continue;
+                }
+                Path path = dir.resolve((Path) event.context());
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path) && !isHidden(path)) {
+                    // Files may have been created in the new directory before it is registered
+                    register(path);
+                    all = true;
+                } else if (path.getFileName().toString().startsWith(YamlSensor.USER_CONF_FILENAME) && dir.equals(baseDir)) {
+                    LOGGER.info("yamllint configuration changed, analyzing all the files");
+                    all = true;
+                } else if (isYamlFile(path)) {
+                    changes.add(path);
+                }
+            }
+            if (!key.reset()) {
+                directories.remove(key);
+            }
+            key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+        }
+        if (all) {
+            changes.addAll(findFiles());
+        }
+        return changes;
+    }
+
+    /**
+     * Watches a directory and its subdirectories, hidden directories excluded
+     *
+     * @param dir a directory
+     * @throws IOException if a directory cannot be watched
+     */
+    private void register(Path dir) throws IOException {
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path d, BasicFileAttributes attrs) throws IOException {
+                if (isHidden(d)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                directories.put(d.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE), d);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private boolean isHidden(Path dir) {
+        return !dir.equals(baseDir) && dir.getFileName().toString().startsWith(".");
+    }
+
+    private boolean isYamlFile(Path file) {
+        String filename = file.getFileName().toString();
+        return suffixes.stream().anyMatch(filename::endsWith);
+    }
+
+    private String getRelativePath(Path file) {
+        Path path = file.toAbsolutePath().normalize();
+        return (path.startsWith(baseDir) ? baseDir.relativize(path) : path).toString().replace('\\', '/');
+    }
+
+    private static String getValue(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value of option " + args[i - 1]);
+        }
+        return args[i];
+    }
+
+    private static Properties loadRules(Path rulesFile) throws IOException {
+        Properties rules = new Properties();
+        try (Reader reader = Files.newBufferedReader(rulesFile, StandardCharsets.UTF_8)) {
+            rules.load(reader);
+        }
+        return rules;
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.io.File;
+import java.net.URI;
+import java.util.function.Supplier;
+
+/**
+ * Recorder of the analysis events as JFR events. This class must only be loaded if the JVM supports JFR. It is compiled
+ * separately for Java 11 (see {@code src/main/java11}) since the rest of the plugin targets Java 8.
+ *
+ * @see AnalysisEvents
+ */
+class JfrEventRecorder implements EventRecorder {
+    @Override
+    public Timing beginFileAnalysis(URI uri) {
+        FileAnalysisEvent event = new FileAnalysisEvent();
+        if (!event.isEnabled()) {
+            return Timing.NOOP;
+        }
+        event.path = uri.getPath();
+        event.size = "file".equals(uri.getScheme()) ? new File(uri).length() : -1;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public Timing beginCheckValidation(Supplier<String> ruleKeys, URI uri) {
+        CheckValidationEvent event = new CheckValidationEvent();
+        if (!event.isEnabled()) {
+            return Timing.NOOP;
+        }
+        event.ruleKey = ruleKeys.get();
+        event.path = uri.getPath();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public Timing beginLintConfig(Supplier<String> ruleKeys) {
+        LintConfigEvent event = new LintConfigEvent();
+        if (!event.isEnabled()) {
+            return Timing.NOOP;
+        }
+        event.ruleKeys = ruleKeys.get();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public Timing beginHighlighting(URI uri) {
+        HighlightingEvent event = new HighlightingEvent();
+        if (!event.isEnabled()) {
+            return Timing.NOOP;
+        }
+        event.path = uri.getPath();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public Timing beginLineCount(URI uri) {
+        LineCountEvent event = new LineCountEvent();
+        if (!event.isEnabled()) {
+            return Timing.NOOP;
+        }
+        event.path = uri.getPath();
+        event.begin();
+        return event;
+    }
+
+
+    @Name("com.github.sbaudoin.sonar.yaml.FileAnalysis")
+    @Label("YAML File Analysis")
+    @Description("Analysis of a YAML file: parsing, measures, highlighting and checks")
+    @Category({ "SonarQube", "YAML" })
+    static class FileAnalysisEvent extends Event implements Timing {
+        @Label("Path")
+        String path;
+
+        @Label("Size")
+        @DataAmount
+        long size;
+
+        @Label("Issues")
+        int issues;
+
+        @Override
+        public void end(int count) {
+            issues = count;
+            commit();
+        }
+    }
+
+    @Name("com.github.sbaudoin.sonar.yaml.CheckValidation")
+    @Label("YAML Check Validation")
+    @Description("Validation of a YAML file by a check or by a group of checks validated together")
+    @Category({ "SonarQube", "YAML" })
+    static class CheckValidationEvent extends Event implements Timing {
+        @Label("Rule Key")
+        @Description("Rule key of the check, or comma-separated rule keys of the checks validated together")
+        String ruleKey;
+
+        @Label("Path")
+        String path;
+
+        @Label("Issues")
+        int issues;
+
+        @Override
+        public void end(int count) {
+            issues = count;
+            commit();
+        }
+    }
+
+    @Name("com.github.sbaudoin.sonar.yaml.LintConfig")
+    @Label("YAML Lint Configuration")
+    @Description("Building of the yamllint configuration of one or more checks")
+    @Category({ "SonarQube", "YAML" })
+    static class LintConfigEvent extends Event implements Timing {
+        @Label("Rule Keys")
+        String ruleKeys;
+
+        @Override
+        public void end(int count) {
+            commit();
+        }
+    }
+
+    @Name("com.github.sbaudoin.sonar.yaml.Highlighting")
+    @Label("YAML Highlighting")
+    @Description("Syntax highlighting of a YAML file")
+    @Category({ "SonarQube", "YAML" })
+    static class HighlightingEvent extends Event implements Timing {
+        @Label("Path")
+        String path;
+
+        @Label("Ranges")
+        int ranges;
+
+        @Override
+        public void end(int count) {
+            ranges = count;
+            commit();
+        }
+    }
+
+    @Name("com.github.sbaudoin.sonar.yaml.LineCount")
+    @Label("YAML Line Count")
+    @Description("Line counting and line measures of a YAML file")
+    @Category({ "SonarQube", "YAML" })
+    static class LineCountEvent extends Event implements Timing {
+        @Label("Path")
+        String path;
+
+        @Label("Lines")
+        int lines;
+
+        @Override
+        public void end(int count) {
+            lines = count;
+            commit();
+        }
+    }
+}
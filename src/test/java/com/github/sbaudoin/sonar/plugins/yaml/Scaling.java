@@ -0,0 +1,256 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.IntFunction;
+import java.util.function.ToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Complexity assertions for the scaling tests: a workload is run over inputs of growing sizes and the growth of its
+ * running time and of the memory it allocates is compared with a complexity bound.
+ * <p>
+ * The growth is measured as the exponent <i>e</i> of the best fit of <i>cost = a.size<sup>e</sup></i> (least squares
+ * of the logarithms), so that a linear workload has an exponent close to 1 and a quadratic one close to 2, whatever
+ * the speed of the machine. The scaling tests are tagged {@value #TAG} and only run with the {@code scaling} Maven
+ * profile ({@code mvn test -Pscaling}).
+ */
+public final class Scaling {
+    /**
+     * Tag of the scaling tests
+     */
+    public static final String TAG = "scaling";
+    /**
+     * Maximal growth exponent of a linear workload, with a margin for the measurement noise (garbage collections,
+     * caches)
+     */
+    public static final double LINEAR = 1.4;
+
+    /**
+     * Factors applied to the size of the inputs
+     */
+    private static final int[] FACTORS = { 1, 2, 4, 8 };
+    /**
+     * Number of measurements per input: the lowest values are kept
+     */
+    private static final int RUNS = 3;
+    /**
+     * Number of measurements of each workload when measuring an overhead: the lowest values are kept
+     */
+    private static final int OVERHEAD_RUNS = 20;
+
+
+    private Scaling() {
+    }
+
+
+    /**
+     * Asserts that the running time and the allocated memory of a workload grow at most linearly with the length of
+     * its YAML input
+     *
+     * @param stage the name of the measured stage, for the failure message
+     * @param input the function that generates the input for a size factor (1, 2, 4 and 8)
+     * @param workload the workload
+     * @throws Exception if the workload fails
+     */
+    public static void assertLinear(String stage, IntFunction<String> input, Workload<String> workload) throws Exception {
+        assertScaling(stage, LINEAR, input, String::length, workload);
+    }
+
+    /**
+     * Asserts that the running time and the allocated memory of a workload grow at most as the power
+     * {@code maxExponent} of the size of its input
+     *
+     * @param stage the name of the measured stage, for the failure message
+     * @param maxExponent the complexity bound
+     * @param input the function that generates the input for a size factor (1, 2, 4 and 8)
+     * @param size the function that gives the size of an input, for example its length in characters
+     * @param workload the workload
+     * @param <T> the type of the inputs
+     * @throws Exception if the workload fails
+     */
+    public static <T> void assertScaling(String stage, double maxExponent, IntFunction<T> input, ToLongFunction<T> size, Workload<T> workload) throws Exception {
+        assertScaling(stage, maxExponent, input, size, t -> t, workload);
+    }
+
+    /**
+     * Asserts that the running time and the allocated memory of a workload grow at most as the power
+     * {@code maxExponent} of the size of its input. Before each run, the input is prepared by a setup function whose
+     * cost is not measured, so that a fixed setup cost does not flatten the growth of the workload.
+     *
+     * @param stage the name of the measured stage, for the failure message
+     * @param maxExponent the complexity bound
+     * @param input the function that generates the input for a size factor (1, 2, 4 and 8)
+     * @param size the function that gives the size of an input, for example its length in characters
+     * @param setup the function that prepares an input before each run of the workload
+     * @param workload the workload
+     * @param <T> the type of the inputs
+     * @param <U> the type of the prepared inputs
+     * @throws Exception if the setup or the workload fails
+     */
+    public static <T, U> void assertScaling(String stage, double maxExponent, IntFunction<T> input, ToLongFunction<T> size, Setup<T, U> setup, Workload<U> workload) throws Exception {
+        List<T> inputs = new ArrayList<>();
+        double[] sizes = new double[FACTORS.length];
+        for (int i = 0; i < FACTORS.length; i++) {
+            inputs.add(input.apply(FACTORS[i]));
+            sizes[i] = size.applyAsLong(inputs.get(i));
+        }
+
+        // Warm-up (class loading, JIT compilation)
+        for (int i = 0; i < FACTORS.length; i++) {
+            workload.run(setup.prepare(inputs.get(i)));
+        }
+
+        double[] times = new double[FACTORS.length];
+        double[] allocations = new double[FACTORS.length];
+        boolean allocationMeasured = true;
+        for (int i = 0; i < FACTORS.length; i++) {
+            times[i] = Double.MAX_VALUE;
+            allocations[i] = Double.MAX_VALUE;
+            for (int r = 0; r < RUNS; r++) {
+                U prepared = setup.prepare(inputs.get(i));
+                long allocated = getAllocatedBytes();
+                long start = System.nanoTime();
+                workload.run(prepared);
+                times[i] = Math.min(times[i], System.nanoTime() - (double) start);
+                if (allocated < 0) {
+                    allocationMeasured = false;
+                } else {
+                    allocations[i] = Math.min(allocations[i], getAllocatedBytes() - (double) allocated);
+                }
+            }
+        }
+
+        double timeExponent = getExponent(sizes, times);
+        double allocationExponent = allocationMeasured ? getExponent(sizes, allocations) : 0;
+        if (timeExponent > maxExponent || allocationExponent > maxExponent) {
+            StringBuilder message = new StringBuilder(String.format(Locale.ROOT,
+                    "%s does not scale: time grows as size^%.2f, allocated memory as size^%.2f (max size^%.2f)",
+                    stage, timeExponent, allocationExponent, maxExponent));
+            for (int i = 0; i < FACTORS.length; i++) {
+                message.append(String.format(Locale.ROOT, "%n  size %.0f: %.1f ms, %.0f KB", sizes[i], times[i] / 1e6, allocations[i] / 1024));
+            }
+            fail(message.toString());
+        }
+    }
+
+
+    /**
+     * Asserts that a workload costs at most {@code maxOverhead} more time than a baseline workload on the same input.
+     * Both workloads are warmed up, then run alternately so that they suffer from the same noise, and their fastest runs
+     * are compared.
+     *
+     * @param stage the name of the measured stage, for the failure message
+     * @param maxOverhead the maximal overhead, for example 0.1 for 10%
+     * @param input the input of the workloads
+     * @param baseline the baseline workload
+     * @param workload the workload whose overhead is measured
+     * @param <T> the type of the input
+     * @throws Exception if a workload fails
+     */
+    public static <T> void assertOverhead(String stage, double maxOverhead, T input, Workload<T> baseline, Workload<T> workload) throws Exception {
+        for (int r = 0; r < OVERHEAD_RUNS; r++) {
+            baseline.run(input);
+            workload.run(input);
+        }
+
+        double baselineTime = Double.MAX_VALUE;
+        double time = Double.MAX_VALUE;
+        for (int r = 0; r < OVERHEAD_RUNS; r++) {
+            long start = System.nanoTime();
+            baseline.run(input);
+            baselineTime = Math.min(baselineTime, System.nanoTime() - (double) start);
+            start = System.nanoTime();
+            workload.run(input);
+            time = Math.min(time, System.nanoTime() - (double) start);
+        }
+
+        double overhead = time / baselineTime - 1;
+        if (overhead > maxOverhead) {
+            fail(String.format(Locale.ROOT, "%s costs too much: %.1f ms instead of %.1f ms, i.e. %.0f%% overhead (max %.0f%%)",
+                    stage, time / 1e6, baselineTime / 1e6, overhead * 100, maxOverhead * 100));
+        }
+    }
+
+
+    /**
+     * Returns the slope of the least squares regression of {@code log(costs)} against {@code log(sizes)}
+     */
+    private static double getExponent(double[] sizes, double[] costs) {
+        int n = sizes.length;
+        double sumX = 0, sumY = 0, sumXX = 0, sumXY = 0;
+        for (int i = 0; i < n; i++) {
+            double x = Math.log(sizes[i]);
+            double y = Math.log(Math.max(costs[i], 1));
+            sumX += x;
+            sumY += y;
+            sumXX += x * x;
+            sumXY += x * y;
+        }
+        return (n * sumXY - sumX * sumY) / (n * sumXX - sumX * sumX);
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread, -1 if the JVM does not support this measurement
+     */
+    private static long getAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * Measured workload
+     *
+     * @param <T> the type of the inputs
+     */
+    @FunctionalInterface
+    public interface Workload<T> {
+        /**
+         * Runs the workload
+         *
+         * @param input an input
+         * @throws Exception if the workload fails
+         */
+        void run(T input) throws Exception;
+    }
+
+    /**
+     * Preparation of the input of a workload, not measured
+     *
+     * @param <T> the type of the inputs
+     * @param <U> the type of the prepared inputs
+     */
+    @FunctionalInterface
+    public interface Setup<T, U> {
+        /**
+         * Prepares an input
+         *
+         * @param input an input
+         * @return the prepared input, to be passed to the workload
+         * @throws Exception if the preparation fails
+         */
+        U prepare(T input) throws Exception;
+    }
+}
@@ -38,9 +38,13 @@ public class Utils {
 
 
     public static InputFile getInputFile(String relativePath) throws IOException {
+        return getInputFile(relativePath, new String(Files.readAllBytes(BASE_DIR.resolve(relativePath))));
+    }
+
+    public static InputFile getInputFile(String relativePath, String contents) {
         return TestInputFileBuilder.create(MODULE_KEY, BASE_DIR.resolve(relativePath).toString())
                 .setModuleBaseDir(Paths.get("."))
-                .setContents(new String(Files.readAllBytes(BASE_DIR.resolve(relativePath))))
+                .setContents(contents)
                 .setLanguage(YamlLanguage.KEY)
                 .setCharset(StandardCharsets.UTF_8)
                 .build();
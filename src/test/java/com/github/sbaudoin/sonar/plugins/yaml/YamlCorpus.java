@@ -0,0 +1,236 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic generator of synthetic YAML files, used to test how the analysis scales with the shape of its input.
+ * The same parameters always generate the same content.
+ * <p>
+ * Each document is a mapping (with {@code apiVersion}, {@code kind} and {@code metadata.name} keys) whose first entry
+ * nests down to the requested depth, alternating mappings and sequences, while the other entries are scalars, so that
+ * the size of a document grows linearly with its width, its sequence length and its depth (plus the indentation).
+ * Mapping keys are named {@code k<i>}, where {@code i} is the position of the entry in its mapping.
+ */
+public final class YamlCorpus {
+    private static final String[] WORDS = { "alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel" };
+
+    private long seed = 42L;
+    private int documents = 1;
+    private int minLength = 0;
+    private int depth = 3;
+    private int width = 5;
+    private int sequenceLength = 3;
+    private double anchorDensity = 0;
+    private double commentRatio = 0;
+
+    private Random random;
+    private StringBuilder content;
+    private List<String> anchors;
+    private List<String> mappingAnchors;
+    private int anchorCount;
+    private int valueCount;
+
+
+    /**
+     * Sets the seed of the random generator (default 42)
+     */
+    public YamlCorpus seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Sets the number of documents (default 1)
+     */
+    public YamlCorpus documents(int documents) {
+        this.documents = documents;
+        return this;
+    }
+
+    /**
+     * Sets the minimal length of the content: documents are added beyond the number of documents until it is reached
+     * (default 0)
+     */
+    public YamlCorpus minLength(int minLength) {
+        this.minLength = minLength;
+        return this;
+    }
+
+    /**
+     * Sets the nesting depth of the documents, below their root mapping (default 3)
+     */
+    public YamlCorpus depth(int depth) {
+        this.depth = depth;
+        return this;
+    }
+
+    /**
+     * Sets the number of entries of the mappings (default 5)
+     */
+    public YamlCorpus width(int width) {
+        this.width = width;
+        return this;
+    }
+
+    /**
+     * Sets the number of items of the sequences (default 3)
+     */
+    public YamlCorpus sequenceLength(int sequenceLength) {
+        this.sequenceLength = sequenceLength;
+        return this;
+    }
+
+    /**
+     * Sets the probability, between 0 and 1, for a collection to get an anchor and for a value (or the last entry of
+     * a mapping, as a merge key) to be an alias of an already defined anchor (default 0)
+     */
+    public YamlCorpus anchorDensity(double anchorDensity) {
+        this.anchorDensity = anchorDensity;
+        return this;
+    }
+
+    /**
+     * Sets the probability, between 0 and 1, for a line to be preceded by a comment line (default 0)
+     */
+    public YamlCorpus commentRatio(double commentRatio) {
+        this.commentRatio = commentRatio;
+        return this;
+    }
+
+    /**
+     * Generates the content
+     *
+     * @return YAML content
+     */
+    public String generate() {
+        random = new Random(seed);
+        content = new StringBuilder();
+        anchorCount = 0;
+        valueCount = 0;
+        for (int d = 0; d < documents || content.length() < minLength; d++) {
+            anchors = new ArrayList<>();
+            mappingAnchors = new ArrayList<>();
+            content.append("---\n");
+            comment(0);
+            content.append("apiVersion: v1\nkind: Generated\nmetadata:\n  name: doc-").append(d).append('\n');
+            mapping(0, 0, false);
+        }
+        return content.toString();
+    }
+
+
+    private void mapping(int indent, int level, boolean inline) {
+        for (int i = 0; i < width; i++) {
+            if (!inline) {
+                comment(indent);
+                indent(indent);
+            }
+            inline = false;
+            content.append('k').append(i).append(':');
+            if (i == 0 && level < depth) {
+                String anchor = anchor();
+                content.append('\n');
+                boolean nestedMapping = random.nextBoolean();
+                if (nestedMapping) {
+                    mapping(indent + 2, level + 1, false);
+                } else {
+                    sequence(indent + 2, level + 1);
+                }
+                if (anchor != null) {
+                    // Only complete nodes are aliased, so that no alias is recursive
+                    anchors.add(anchor);
+                    if (nestedMapping) {
+                        mappingAnchors.add(anchor);
+                    }
+                }
+            } else {
+                content.append(' ');
+                value();
+            }
+        }
+        // Merge key last, once the nested nodes (and their anchors) are complete
+        if (!mappingAnchors.isEmpty() && random.nextDouble() < anchorDensity) {
+            indent(indent);
+            content.append("<<: *").append(mappingAnchors.get(random.nextInt(mappingAnchors.size()))).append('\n');
+        }
+    }
+
+    private void sequence(int indent, int level) {
+        for (int i = 0; i < sequenceLength; i++) {
+            comment(indent);
+            indent(indent);
+            content.append("- ");
+            if (i == 0 && level < depth) {
+                mapping(indent + 2, level + 1, true);
+            } else {
+                value();
+            }
+        }
+    }
+
+    private String anchor() {
+        if (random.nextDouble() >= anchorDensity) {
+            return null;
+        }
+        String anchor = "a" + anchorCount++;
+        content.append(" &").append(anchor);
+        return anchor;
+    }
+
+    private void value() {
+        if (!anchors.isEmpty() && random.nextDouble() < anchorDensity) {
+            content.append('*').append(anchors.get(random.nextInt(anchors.size()))).append('\n');
+            return;
+        }
+        String word = WORDS[random.nextInt(WORDS.length)];
+        switch (random.nextInt(5)) {
+            case 0:
+                content.append(random.nextInt(10000));
+                break;
+            case 1:
+                content.append(random.nextBoolean());
+                break;
+            case 2:
+                content.append('"').append(word).append(' ').append(valueCount).append('"');
+                break;
+            case 3:
+                content.append(random.nextInt(100)).append('.').append(random.nextInt(10));
+                break;
+            default:
+                content.append(word).append('-').append(valueCount);
+                break;
+        }
+        valueCount++;
+        content.append('\n');
+    }
+
+    private void comment(int indent) {
+        if (random.nextDouble() < commentRatio) {
+            indent(indent);
+            content.append("# ").append(WORDS[random.nextInt(WORDS.length)]).append(" comment\n");
+        }
+    }
+
+    private void indent(int indent) {
+        for (int i = 0; i < indent; i++) {
+            content.append(' ');
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml;
+
+import org.junit.jupiter.api.Test;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class YamlCorpusTest {
+    @Test
+    void testDeterministic() {
+        String content = new YamlCorpus().documents(3).anchorDensity(0.3).commentRatio(0.3).generate();
+        assertEquals(content, new YamlCorpus().documents(3).anchorDensity(0.3).commentRatio(0.3).generate());
+        assertNotEquals(content, new YamlCorpus().seed(1).documents(3).anchorDensity(0.3).commentRatio(0.3).generate());
+    }
+
+    @Test
+    void testShape() {
+        String content = new YamlCorpus().documents(3).depth(4).width(6).sequenceLength(4).anchorDensity(0.3).commentRatio(0.3).generate();
+        assertTrue(content.contains("&a"));
+        assertTrue(content.contains("*a"));
+        assertTrue(content.contains("<<: *a"));
+        assertTrue(content.contains("# "));
+
+        int documents = 0;
+        for (Object document : getYaml().loadAll(content)) {
+            Map<?, ?> mapping = (Map<?, ?>) document;
+            assertEquals("Generated", mapping.get("kind"));
+            assertTrue(mapping.containsKey("k5"));
+            documents++;
+        }
+        assertEquals(3, documents);
+
+        // Plain documents
+        content = new YamlCorpus().depth(2).generate();
+        assertFalse(content.contains("&"));
+        assertFalse(content.contains("#"));
+    }
+
+    @Test
+    void testSize() {
+        assertTrue(new YamlCorpus().minLength(100000).generate().length() >= 100000);
+        int length = new YamlCorpus().documents(100).generate().length();
+        assertTrue(new YamlCorpus().documents(200).generate().length() > length * 19 / 10);
+        assertTrue(new YamlCorpus().documents(100).width(10).generate().length() > length * 3 / 2);
+        assertTrue(new YamlCorpus().documents(100).depth(6).generate().length() > length * 3 / 2);
+    }
+
+
+    private static Yaml getYaml() {
+        LoaderOptions options = new LoaderOptions();
+        options.setMaxAliasesForCollections(Integer.MAX_VALUE);
+        return new Yaml(options);
+    }
+}
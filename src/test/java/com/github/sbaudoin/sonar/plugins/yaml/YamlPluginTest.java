@@ -29,13 +29,13 @@ class YamlPluginTest {
     void testExtensionCounts() {
         Plugin.Context context = new Plugin.Context(SonarRuntimeImpl.forSonarQube(Version.create(6, 2), SonarQubeSide.SERVER, SonarEdition.COMMUNITY));
         new YamlPlugin().define(context);
-        assertEquals(7, context.getExtensions().size());
+        assertEquals(24, context.getExtensions().size());
     }
 
     @Test
     void testExtensionCountsWithYamlBuiltinSupport() {
         Plugin.Context context = new Plugin.Context(SonarRuntimeImpl.forSonarQube(YamlPlugin.SONARQUBE_WITH_YAML_SUPPORT_VERSION, SonarQubeSide.SERVER, SonarEdition.COMMUNITY));
         new YamlPlugin().define(context);
-        assertEquals(5, context.getExtensions().size());
+        assertEquals(22, context.getExtensions().size());
     }
 }
@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import org.junit.jupiter.api.Test;
+import org.sonar.check.RuleProperty;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckMetadataTest {
+    @Test
+    void testOf() {
+        assertSame(CheckMetadata.of(HyphensCheck.class), CheckMetadata.of(HyphensCheck.class));
+        assertNotSame(CheckMetadata.of(HyphensCheck.class), CheckMetadata.of(ColonsCheck.class));
+    }
+
+    @Test
+    void testGetId() {
+        assertEquals("hyphens", CheckMetadata.of(HyphensCheck.class).getId());
+        assertEquals("new-line-at-end-of-file", CheckMetadata.of(NewLineAtEndOfFileCheck.class).getId());
+        assertEquals("check-metadata-test$-no-rule", CheckMetadata.of(NoRuleCheck.class).getId());
+        for (Class<? extends YamlCheck> c : CheckRepository.getCheckClasses()) {
+            assertEquals(c.getName().replaceAll("^.*\\.([^.])", "$1").replaceAll("Check$", "").replaceAll("([A-Z])", "-$1").substring(1).toLowerCase(),
+                    CheckMetadata.of(c).getId());
+        }
+    }
+
+    @Test
+    void testGetRuleKey() {
+        assertEquals("HyphensCheck", CheckMetadata.of(HyphensCheck.class).getRuleKey());
+        assertNull(CheckMetadata.of(NoRuleCheck.class).getRuleKey());
+    }
+
+    @Test
+    void testGetProperties() throws IllegalAccessException {
+        List<String> keys = CheckMetadata.of(ColonsCheck.class).getProperties().stream().map(CheckMetadata.Property::getKey).collect(Collectors.toList());
+        assertTrue(keys.contains("max-spaces-before"));
+        assertTrue(keys.contains("max-spaces-after"));
+        assertFalse(keys.contains("included-files"));
+        assertTrue(CheckMetadata.of(NoRuleCheck.class).getProperties().isEmpty());
+
+        CheckMetadata.Property p = CheckMetadata.of(HyphensCheck.class).getProperties().stream().filter(prop -> "maxSpacesAfter".equals(prop.getFieldName())).findFirst().get();
+        assertEquals("max-spaces-after", p.getKey());
+        assertEquals("max-spaces-after", p.getAnnotation().key());
+        assertEquals(1, p.getValue(new HyphensCheck()));
+
+        CheckMetadata.Property pp = CheckMetadata.of(PrivatePropertyCheck.class).getProperties().get(0);
+        assertEquals("foo", pp.getFieldName());
+        assertThrows(IllegalAccessException.class, () -> pp.getValue(new PrivatePropertyCheck()));
+    }
+
+    @Test
+    void testGetAllProperties() {
+        List<String> keys = CheckMetadata.of(ForbiddenValueCheck.class).getAllProperties().stream().map(CheckMetadata.Property::getKey).collect(Collectors.toList());
+        // Declared by the class, then by its superclasses
+        assertEquals("value", keys.get(0));
+        assertTrue(keys.contains("key-name"));
+        assertTrue(keys.contains("included-files"));
+        assertTrue(keys.contains("excluded-files"));
+        assertEquals(keys.size(), keys.stream().distinct().count());
+        assertSame(CheckMetadata.of(YamlCheck.class).getProperties(), CheckMetadata.of(YamlCheck.class).getAllProperties());
+        assertEquals(2, CheckMetadata.of(NoRuleCheck.class).getAllProperties().size());
+    }
+
+    @Test
+    void testSetValue() throws IllegalAccessException {
+        HardcodedSecretCheck check = new HardcodedSecretCheck();
+        CheckMetadata.of(HardcodedSecretCheck.class).getProperties().stream().filter(p -> "min-length".equals(p.getKey())).findFirst().get().setValue(check, " 12 ");
+        assertEquals(12, check.minLength);
+        CheckMetadata.of(HardcodedSecretCheck.class).getProperties().stream().filter(p -> "min-entropy".equals(p.getKey())).findFirst().get().setValue(check, "3.5");
+        assertEquals(3.5, check.minEntropy);
+        CheckMetadata.of(HardcodedSecretCheck.class).getProperties().stream().filter(p -> "check-all-values".equals(p.getKey())).findFirst().get().setValue(check, "true");
+        assertTrue(check.checkAllValues);
+        CheckMetadata.of(HardcodedSecretCheck.class).getProperties().stream().filter(p -> "secret-keys".equals(p.getKey())).findFirst().get().setValue(check, " pass.* ");
+        assertEquals(" pass.* ", check.secretKeys);
+
+        CheckMetadata.Property p = CheckMetadata.of(HardcodedSecretCheck.class).getProperties().stream().filter(prop -> "min-length".equals(prop.getKey())).findFirst().get();
+        assertThrows(IllegalArgumentException.class, () -> p.setValue(check, "twelve"));
+        CheckMetadata.Property pp = CheckMetadata.of(UnsupportedPropertyCheck.class).getProperties().get(0);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> pp.setValue(new UnsupportedPropertyCheck(), "a,b"));
+        assertEquals("Unsupported type of rule property foo: java.util.List", e.getMessage());
+    }
+
+
+    private static class NoRuleCheck extends YamlCheck {
+        @Override
+        public void validate() {
+        }
+    }
+
+    private static class UnsupportedPropertyCheck extends YamlCheck {
+        @RuleProperty(key = "foo")
+        List<String> foo;
+
+        @Override
+        public void validate() {
+        }
+    }
+
+    private static class PrivatePropertyCheck extends YamlCheck {
+        @RuleProperty(key = "foo")
+        private String foo;
+
+        @Override
+        public void validate() {
+        }
+    }
+}
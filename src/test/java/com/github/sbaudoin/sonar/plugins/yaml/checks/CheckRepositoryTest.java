@@ -18,6 +18,7 @@ package com.github.sbaudoin.sonar.plugins.yaml.checks;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class CheckRepositoryTest {
@@ -28,14 +29,22 @@ class CheckRepositoryTest {
 
     @Test
     void testGetCheckClasses() {
-        assertEquals(28, CheckRepository.getCheckClasses().size());
+        assertEquals(33, CheckRepository.getCheckClasses().size());
         assertTrue(CheckRepository.getCheckClasses().contains(ParsingErrorCheck.class));
     }
 
     @Test
     void testGetTemplateRuleKeys() {
-        assertEquals(4, CheckRepository.getTemplateRuleKeys().size());
+        assertEquals(5, CheckRepository.getTemplateRuleKeys().size());
         assertTrue(CheckRepository.getTemplateRuleKeys().contains("ForbiddenKeyCheck"));
         assertTrue(CheckRepository.getTemplateRuleKeys().contains("IntValueInRangeCheck"));
+        assertTrue(CheckRepository.getTemplateRuleKeys().contains("JsonSchemaCheck"));
+    }
+
+    @Test
+    void testIsTemplate() {
+        assertTrue(CheckRepository.isTemplate("RequiredKeyCheck"));
+        assertFalse(CheckRepository.isTemplate("BracesCheck"));
+        assertFalse(CheckRepository.isTemplate("foo"));
     }
 }
@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import com.github.sbaudoin.sonar.plugins.yaml.Utils;
+import org.junit.jupiter.api.Test;
+import org.sonar.api.rule.RuleKey;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckRunnerTest {
+    @Test
+    void testRun() throws IOException {
+        TruthyCheck truthyCheck = new TruthyCheck();
+        truthyCheck.setRuleKey(RuleKey.of(CheckRepository.REPOSITORY_KEY, "TruthyCheck"));
+        RequiredKeyCheck readinessCheck = getRequiredCheck("readinessProbe");
+        RequiredKeyCheck livenessCheck = getRequiredCheck("livenessProbe");
+        CheckRunner runner = new CheckRunner(Arrays.asList(truthyCheck, readinessCheck, livenessCheck), null);
+
+        // All checks active
+        YamlSourceCode code = getSourceCode();
+        runner.run(code, Arrays.asList(truthyCheck, readinessCheck, livenessCheck));
+        assertEquals(Arrays.asList("yaml:RequiredKeyCheck-livenessProbe", "yaml:RequiredKeyCheck-readinessProbe", "yaml:TruthyCheck"), getRuleKeys(code));
+
+        // Only the active checks are run
+        code = getSourceCode();
+        runner.run(code, Collections.singletonList(readinessCheck));
+        assertEquals(Collections.singletonList("yaml:RequiredKeyCheck-readinessProbe"), getRuleKeys(code));
+
+        code = getSourceCode();
+        runner.run(code, Collections.emptyList());
+        assertTrue(code.getYamlIssues().isEmpty());
+    }
+
+
+    private static List<String> getRuleKeys(YamlSourceCode code) {
+        return code.getYamlIssues().stream().map(issue -> issue.getRuleKey().toString()).sorted().collect(Collectors.toList());
+    }
+
+    private static RequiredKeyCheck getRequiredCheck(String requiredKeyName) {
+        RequiredKeyCheck check = new RequiredKeyCheck();
+        check.parentKeyName = "kind";
+        check.parentKeyValue = "Deployment";
+        check.isParentKeyAtRoot = "yes";
+        check.requiredKeyName = requiredKeyName;
+        check.setRuleKey(RuleKey.of(CheckRepository.REPOSITORY_KEY, "RequiredKeyCheck-" + requiredKeyName));
+        return check;
+    }
+
+    private static YamlSourceCode getSourceCode() throws IOException {
+        return new YamlSourceCode(Utils.getInputFile("check-runner.yaml", "---\nkind: Deployment\nenabled: yes\n"), Optional.of(Boolean.FALSE));
+    }
+}
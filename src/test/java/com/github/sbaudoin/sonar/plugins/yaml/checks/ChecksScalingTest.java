@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import com.github.sbaudoin.sonar.plugins.yaml.Scaling;
+import com.github.sbaudoin.sonar.plugins.yaml.Utils;
+import com.github.sbaudoin.sonar.plugins.yaml.YamlCorpus;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+@Tag(Scaling.TAG)
+class ChecksScalingTest {
+    @Test
+    void testForbiddenKeyAncestorsDocuments() throws Exception {
+        Scaling.assertLinear("Forbidden key check with ancestors (documents)", f -> new YamlCorpus().documents(200 * f).depth(6).generate(), ChecksScalingTest::forbiddenKey);
+    }
+
+    @Test
+    void testForbiddenKeyAncestorsDepth() throws Exception {
+        Scaling.assertLinear("Forbidden key check with ancestors (depth)", f -> new YamlCorpus().documents(20).depth(25 * f).generate(), ChecksScalingTest::forbiddenKey);
+    }
+
+    @Test
+    void testForbiddenValueAnchors() throws Exception {
+        Scaling.assertLinear("Forbidden value check (anchors)", f -> new YamlCorpus().documents(200 * f).depth(4).anchorDensity(0.3).generate(), content -> {
+            ForbiddenValueCheck check = new ForbiddenValueCheck();
+            check.keyName = "k1";
+            check.value = "alpha.*";
+            validate(check, content);
+        });
+    }
+
+    @Test
+    void testDocumentSelector() throws Exception {
+        Scaling.assertLinear("Forbidden key check with document selector (documents)", f -> new YamlCorpus().documents(200 * f).depth(4).generate(), content -> {
+            ForbiddenKeyCheck check = new ForbiddenKeyCheck();
+            check.keyName = "k2";
+            check.documentSelector = "v1/Generated";
+            validate(check, content);
+        });
+    }
+
+
+    private static void forbiddenKey(String content) throws Exception {
+        ForbiddenKeyCheck check = new ForbiddenKeyCheck();
+        check.keyName = "k1";
+        check.includedAncestors = "<root>(:k0)*";
+        validate(check, content);
+    }
+
+    private static void validate(YamlCheck check, String content) throws Exception {
+        check.setYamlSourceCode(new YamlSourceCode(Utils.getInputFile("scaling.yaml", content), Optional.of(Boolean.FALSE)));
+        check.validate();
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentSelectorTest {
+    @Test
+    void testEmpty() {
+        assertNull(DocumentSelector.of(null));
+        assertNull(DocumentSelector.of(""));
+        assertNull(DocumentSelector.of("  "));
+    }
+
+    @Test
+    void testShared() {
+        assertSame(DocumentSelector.of("Deployment"), DocumentSelector.of(" Deployment "));
+        assertEquals("Deployment,Job", DocumentSelector.of("Deployment,Job").toString());
+    }
+
+    @Test
+    void testKinds() {
+        DocumentSelector selector = DocumentSelector.of("Deployment, StatefulSet,,");
+        assertTrue(selector.matches("apps/v1", "Deployment"));
+        assertTrue(selector.matches(null, "StatefulSet"));
+        assertFalse(selector.matches("apps/v1", "DaemonSet"));
+        assertFalse(selector.matches("apps/v1", "deployment"));
+        assertFalse(selector.matches("apps/v1", null));
+    }
+
+    @Test
+    void testApiVersions() {
+        DocumentSelector selector = DocumentSelector.of("networking.k8s.io/v1/Ingress,batch/*/Job");
+        assertTrue(selector.matches("networking.k8s.io/v1", "Ingress"));
+        assertFalse(selector.matches("extensions/v1beta1", "Ingress"));
+        assertTrue(selector.matches("batch/v1", "Job"));
+        assertTrue(selector.matches("batch/v1beta1", "Job"));
+        assertFalse(selector.matches(null, "Job"));
+    }
+
+    @Test
+    void testWildcards() {
+        DocumentSelector selector = DocumentSelector.of("*Set,Cron*");
+        assertTrue(selector.matches("apps/v1", "StatefulSet"));
+        assertTrue(selector.matches("apps/v1", "DaemonSet"));
+        assertTrue(selector.matches("batch/v1", "CronJob"));
+        assertFalse(selector.matches("batch/v1", "Job"));
+        // Regex characters are literal
+        assertFalse(DocumentSelector.of("a.c").matches(null, "abc"));
+        assertTrue(DocumentSelector.of("*").matches(null, null));
+    }
+}
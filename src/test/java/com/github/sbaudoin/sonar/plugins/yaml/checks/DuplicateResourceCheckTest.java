@@ -0,0 +1,45 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DuplicateResourceCheckTest {
+    @Test
+    void testCheck() throws IOException {
+        ProjectIndex index = ProjectIndexTest.index(1000, "project-index/app-1.yaml", "project-index/app-2.yaml", "project-index/app-3.yaml");
+        Map<Integer, List<YamlIssue>> issues = new DuplicateResourceCheck().evaluate(index);
+        assertEquals(1, issues.size());
+        assertEquals(1, issues.get(1).size());
+        YamlIssue issue = issues.get(1).get(0);
+        assertEquals(5, issue.getLine());
+        assertEquals(1, issue.getColumn());
+        assertTrue(issue.getMessage().startsWith("Duplicate Deployment 'web' in namespace 'default', already defined in "));
+        assertTrue(issue.getMessage().endsWith("app-1.yaml:4"));
+    }
+
+    @Test
+    void testNoDuplicate() throws IOException {
+        ProjectIndex index = ProjectIndexTest.index(1000, "project-index/app-1.yaml", "project-index/app-3.yaml");
+        assertTrue(new DuplicateResourceCheck().evaluate(index).isEmpty());
+    }
+}
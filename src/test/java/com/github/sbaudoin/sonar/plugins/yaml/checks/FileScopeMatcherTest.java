@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileScopeMatcherTest {
+    @Test
+    void testUnscoped() {
+        BracesCheck check1 = new BracesCheck();
+        BracketsCheck check2 = new BracketsCheck();
+        check2.includedFiles = " ";
+        FileScopeMatcher matcher = new FileScopeMatcher(Arrays.asList(check1, check2));
+
+        assertEquals(Arrays.asList(check1, check2), matcher.getChecks("/project/file.yaml"));
+        assertTrue(new FileScopeMatcher(Collections.emptyList()).getChecks("/project/file.yaml").isEmpty());
+    }
+
+    @Test
+    void testScoped() {
+        BracesCheck check1 = new BracesCheck();
+        check1.includedFiles = "**/charts/**, **/values.yaml";
+        BracketsCheck check2 = new BracketsCheck();
+        check2.excludedFiles = "**/templates/**";
+        CommasCheck check3 = new CommasCheck();
+        check3.includedFiles = "**/charts/**";
+        check3.excludedFiles = "**/templates/**";
+        ColonsCheck check4 = new ColonsCheck();
+        FileScopeMatcher matcher = new FileScopeMatcher(Arrays.asList(check1, check2, check3, check4));
+
+        assertEquals(Arrays.asList(check1, check2, check3, check4), matcher.getChecks("/project/charts/app/values.yaml"));
+        assertEquals(Arrays.asList(check1, check4), matcher.getChecks("/project/charts/app/templates/deployment.yaml"));
+        List<YamlCheck> checks = matcher.getChecks("/project/values.yaml");
+        assertEquals(Arrays.asList(check1, check2, check4), checks);
+        assertEquals(Arrays.asList(check2, check4), matcher.getChecks("/project/config.yaml"));
+    }
+
+    @Test
+    void testRelativePaths() {
+        BracesCheck check1 = new BracesCheck();
+        check1.includedFiles = "charts/**/values.yaml";
+        BracketsCheck check2 = new BracketsCheck();
+        check2.excludedFiles = "**/templates/**";
+        FileScopeMatcher matcher = new FileScopeMatcher(Arrays.asList(check1, check2));
+        Path baseDir = Paths.get("project");
+
+        assertEquals(Arrays.asList(check1, check2), matcher.getChecks(baseDir, baseDir.resolve("charts/app/values.yaml")));
+        assertEquals(Arrays.asList(check1, check2), matcher.getChecks(baseDir.toAbsolutePath(), baseDir.resolve("charts/values.yaml")));
+        assertEquals(Collections.singletonList(check1), matcher.getChecks(baseDir, baseDir.resolve("charts/app/templates/values.yaml")));
+        assertEquals(Collections.singletonList(check2), matcher.getChecks(baseDir, baseDir.resolve("sub/charts/app/values.yaml")));
+        // Files outside of the base directory are matched by their absolute path
+        assertEquals(Collections.singletonList(check2), matcher.getChecks(baseDir, Paths.get("other", "charts", "app", "values.yaml")));
+
+        assertEquals("charts/app/values.yaml", FileScopeMatcher.getRelativePath(baseDir, baseDir.resolve("charts").resolve("app").resolve("values.yaml")));
+        assertEquals(Paths.get("other.yaml").toAbsolutePath().toString().replace(File.separatorChar, '/'), FileScopeMatcher.getRelativePath(baseDir, Paths.get("other.yaml")));
+    }
+
+    @Test
+    void testCompile() {
+        assertSame(FileScopeMatcher.compile("**/*.yaml"), FileScopeMatcher.compile("**/*.yaml"));
+        assertTrue(FileScopeMatcher.compile("**/*.yaml").match("/project/file.yaml"));
+        assertFalse(FileScopeMatcher.compile("**/*.yaml").match("/project/file.yml"));
+    }
+}
@@ -16,10 +16,13 @@
 package com.github.sbaudoin.sonar.plugins.yaml.checks;
 
 import com.github.sbaudoin.sonar.plugins.yaml.Utils;
+import com.github.sbaudoin.yamllint.LintScanner;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.sonar.api.utils.log.LogTesterJUnit5;
 import org.sonar.api.utils.log.LoggerLevel;
+import org.yaml.snakeyaml.tokens.ScalarToken;
+import org.yaml.snakeyaml.tokens.Token;
 
 import java.io.IOException;
 import java.util.Optional;
@@ -160,6 +163,48 @@ class ForbiddenKeyCheckTest {
         assertEquals(5, code.getYamlIssues().get(1).getColumn());
     }
 
+    @Test
+    void testAncestorsDepth() throws IOException {
+        // Ancestors deeper than the strings memoized by the regexes
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 60; i++) {
+            content.append(indent(2 * i)).append("level").append(i).append(":\n");
+        }
+        content.append(indent(120)).append("forbidden: 1\n").append("forbidden: 2\n");
+
+        ForbiddenKeyCheck check = new ForbiddenKeyCheck();
+        check.keyName = "forbidden";
+        check.includedAncestors = "<root>(:level\\d+){60}";
+        YamlSourceCode code = new YamlSourceCode(Utils.getInputFile("forbidden-key/deep.yaml", content.toString()), Optional.of(false));
+        check.setYamlSourceCode(code);
+        check.validate();
+        assertEquals(1, code.getYamlIssues().size());
+        assertEquals(61, code.getYamlIssues().get(0).getLine());
+
+        check = new ForbiddenKeyCheck();
+        check.keyName = "forbidden";
+        check.excludedAncestors = ".*:level59";
+        code = new YamlSourceCode(Utils.getInputFile("forbidden-key/deep.yaml", content.toString()), Optional.of(false));
+        check.setYamlSourceCode(code);
+        check.validate();
+        assertEquals(1, code.getYamlIssues().size());
+        assertEquals(62, code.getYamlIssues().get(0).getLine());
+    }
+
+    @Test
+    void testAncestorsMatchedOncePerMapping() throws IOException {
+        // The ancestors of the keys of a mapping are matched once, not once per key
+        ForbiddenKeyCheck check = new ForbiddenKeyCheck();
+        check.keyName = "[abc]";
+        check.includedAncestors = "<root>:parent|testAncestorsMatchedOncePerMapping";
+        YamlSourceCode code = new YamlSourceCode(Utils.getInputFile("forbidden-key/once.yaml", "parent:\n  a: 1\n  b: 2\n  c: 3\n"), Optional.of(false));
+        check.setYamlSourceCode(code);
+        check.validate();
+        assertEquals(3, code.getYamlIssues().size());
+        RegexMemo memo = RegexMemo.matching(check.includedAncestors);
+        assertEquals(1, memo.getHits() + memo.getMisses());
+    }
+
     @Test
     void testValidateWithForbiddenKey4() throws IOException {
         ForbiddenKeyCheck check = new ForbiddenKeyCheck();
@@ -177,7 +222,72 @@ class ForbiddenKeyCheckTest {
         assertEquals(5, code.getYamlIssues().get(0).getColumn());
     }
 
+    @Test
+    void testLegacySubclass() throws IOException {
+        // Subclasses written against the former scanner-based API are still called
+        LegacyCheck check = new LegacyCheck();
+        check.keyName = "allowed";
+        YamlSourceCode code = getSourceCode("forbidden-key-02.yaml", false);
+        check.setYamlSourceCode(code);
+        check.validate();
+        assertEquals(1, code.getYamlIssues().size());
+        assertEquals("Legacy allowed", code.getYamlIssues().get(0).getMessage());
+        assertEquals(4, code.getYamlIssues().get(0).getLine());
+        assertEquals(3, code.getYamlIssues().get(0).getColumn());
+
+        // The scanner is moved forward from key to key
+        check = new LegacyCheck();
+        check.keyName = "subkey|allowed";
+        code = getSourceCode("forbidden-key-02.yaml", false);
+        check.setYamlSourceCode(code);
+        check.validate();
+        assertEquals(2, code.getYamlIssues().size());
+        assertEquals("Legacy subkey", code.getYamlIssues().get(0).getMessage());
+        assertEquals(3, code.getYamlIssues().get(0).getLine());
+        assertEquals("Legacy allowed", code.getYamlIssues().get(1).getMessage());
+        assertEquals(4, code.getYamlIssues().get(1).getLine());
+
+        // Keys that come from an alias are passed at the position of the anchored key
+        check = new LegacyCheck();
+        check.keyName = "allowed";
+        code = new YamlSourceCode(Utils.getInputFile("forbidden-key/alias.yaml", "a: &x\n  allowed: 1\nb: *x\n"), Optional.of(false));
+        check.setYamlSourceCode(code);
+        check.validate();
+        assertEquals(2, code.getYamlIssues().size());
+        assertEquals(2, code.getYamlIssues().get(0).getLine());
+        assertEquals(2, code.getYamlIssues().get(1).getLine());
+
+        // Subclasses that implement neither callback report nothing and are logged once
+        ForbiddenCheck incomplete = new ForbiddenCheck() {};
+        incomplete.keyName = "allowed";
+        code = getSourceCode("forbidden-key-02.yaml", false);
+        incomplete.setYamlSourceCode(code);
+        incomplete.validate();
+        incomplete.validate();
+        assertEquals(0, code.getYamlIssues().size());
+        assertEquals(1, logTester.logs(LoggerLevel.WARN).stream().filter(l -> l.contains("overrides neither checkNextToken")).count());
+    }
+
+
+    private static String indent(int spaces) {
+        StringBuilder indent = new StringBuilder();
+        for (int i = 0; i < spaces; i++) {
+            indent.append(' ');
+        }
+        return indent.toString();
+    }
+
     private YamlSourceCode getSourceCode(String filename, boolean filter) throws IOException {
         return new YamlSourceCode(Utils.getInputFile("forbidden-key/" + filename), Optional.of(filter));
     }
+
+
+    private static class LegacyCheck extends ForbiddenCheck {
+        @Override
+        @SuppressWarnings("deprecation")
+        protected void checkNextToken(LintScanner parser) {
+            Token t = parser.getToken();
+            addViolation("Legacy " + ((ScalarToken) t).getValue(), t);
+        }
+    }
 }
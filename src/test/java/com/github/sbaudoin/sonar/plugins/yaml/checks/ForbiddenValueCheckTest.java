@@ -202,6 +202,69 @@ class ForbiddenValueCheckTest {
         assertEquals(4, code.getYamlIssues().get(0).getLine());
         assertEquals(5, code.getYamlIssues().get(0).getColumn());
     }
+    @Test
+    void testValidateAliases() throws IOException {
+        ForbiddenValueCheck check = new ForbiddenValueCheck();
+        check.keyName = "image";
+        check.value = ":latest$";
+
+        YamlSourceCode code = getSourceCode("forbidden-value-08.yaml", false);
+        check.setYamlSourceCode(code);
+        check.validate();
+        assertTrue(code.hasCorrectSyntax());
+        assertEquals(3, code.getYamlIssues().size());
+        // Anchored value
+        assertEquals(5, code.getYamlIssues().get(0).getLine());
+        assertEquals(3, code.getYamlIssues().get(0).getColumn());
+        // Merged value, reported on the merge key
+        assertEquals(12, code.getYamlIssues().get(1).getLine());
+        assertEquals(5, code.getYamlIssues().get(1).getColumn());
+        // Alias value
+        assertEquals(14, code.getYamlIssues().get(2).getLine());
+        assertEquals(5, code.getYamlIssues().get(2).getColumn());
+
+        check.includedAncestors = "<root>:services:.*";
+        code = getSourceCode("forbidden-value-08.yaml", false);
+        check.setYamlSourceCode(code);
+        check.validate();
+        assertEquals(2, code.getYamlIssues().size());
+        assertEquals(12, code.getYamlIssues().get(0).getLine());
+        assertEquals(14, code.getYamlIssues().get(1).getLine());
+    }
+
+    @Test
+    void testValidateDocumentSelector() throws IOException {
+        ForbiddenValueCheck check = new ForbiddenValueCheck();
+        check.keyName = "image";
+        check.value = ":latest$";
+
+        YamlSourceCode code = getSourceCode("forbidden-value-09.yaml", false);
+        check.setYamlSourceCode(code);
+        check.validate();
+        assertEquals(2, code.getYamlIssues().size());
+
+        check.documentSelector = "Deployment";
+        code = getSourceCode("forbidden-value-09.yaml", false);
+        check.setYamlSourceCode(code);
+        check.validate();
+        assertEquals(1, code.getYamlIssues().size());
+        assertEquals(11, code.getYamlIssues().get(0).getLine());
+        assertEquals(11, code.getYamlIssues().get(0).getColumn());
+
+        check.documentSelector = "batch/*/Job, StatefulSet";
+        code = getSourceCode("forbidden-value-09.yaml", false);
+        check.setYamlSourceCode(code);
+        check.validate();
+        assertEquals(1, code.getYamlIssues().size());
+        assertEquals(22, code.getYamlIssues().get(0).getLine());
+
+        check.documentSelector = "Ingress";
+        code = getSourceCode("forbidden-value-09.yaml", false);
+        check.setYamlSourceCode(code);
+        check.validate();
+        assertEquals(0, code.getYamlIssues().size());
+    }
+
     private YamlSourceCode getSourceCode(String filename, boolean filter) throws IOException {
         return new YamlSourceCode(Utils.getInputFile("forbidden-value/" + filename), Optional.of(filter));
     }
@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import com.github.sbaudoin.sonar.plugins.yaml.Utils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.sonar.api.utils.log.LogTesterJUnit5;
+import org.sonar.api.utils.log.LoggerLevel;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+class HardcodedSecretCheckTest {
+    @RegisterExtension
+    LogTesterJUnit5 logTester = new LogTesterJUnit5();
+
+    @Test
+    void testFailedValidateNoSource() {
+        HardcodedSecretCheck check = new HardcodedSecretCheck();
+        try {
+            check.validate();
+            fail("No source code should raise an exception");
+        } catch (IllegalStateException e) {
+            assertEquals("Source code not set, cannot validate anything", e.getMessage());
+        }
+    }
+
+    @Test
+    void testFailedValidateIOException() throws IOException {
+        YamlSourceCode spy = spy(getSourceCode("hardcoded-secret-01.yaml"));
+        when(spy.getContent()).thenThrow(new IOException("Cannot read file"));
+
+        HardcodedSecretCheck check = new HardcodedSecretCheck();
+        check.setYamlSourceCode(spy);
+        check.validate();
+        assertEquals(1, logTester.logs(LoggerLevel.WARN).size());
+        assertTrue(logTester.logs(LoggerLevel.WARN).get(0).contains("Cannot read source code"));
+        assertEquals(0, spy.getYamlIssues().size());
+    }
+
+    @Test
+    void testValidateSyntaxError() throws IOException {
+        HardcodedSecretCheck check = new HardcodedSecretCheck();
+        YamlSourceCode code = getSourceCode("hardcoded-secret-02.yaml");
+        check.setYamlSourceCode(code);
+        check.validate();
+        assertEquals(1, logTester.logs(LoggerLevel.WARN).size());
+        assertTrue(logTester.logs(LoggerLevel.WARN).get(0).startsWith("Syntax error found, cannot continue checking secrets: "));
+        assertEquals(0, code.getYamlIssues().size());
+    }
+
+    @Test
+    void testValidate() throws IOException {
+        HardcodedSecretCheck check = new HardcodedSecretCheck();
+        YamlSourceCode code = getSourceCode("hardcoded-secret-01.yaml");
+        check.setYamlSourceCode(code);
+        check.validate();
+
+        assertEquals(Arrays.asList(
+                "3:18 Hardcoded AWS access key ID found",
+                "7:13 Hardcoded secret found for key 'password'",
+                "16:5 Hardcoded GitHub token found",
+                "18:8 Hardcoded private key found"),
+                toStrings(code.getYamlIssues()));
+    }
+
+    @Test
+    void testValidateAllValues() throws IOException {
+        HardcodedSecretCheck check = new HardcodedSecretCheck();
+        check.checkAllValues = true;
+        YamlSourceCode code = getSourceCode("hardcoded-secret-01.yaml");
+        check.setYamlSourceCode(code);
+        check.validate();
+
+        List<String> issues = toStrings(code.getYamlIssues());
+        assertEquals(5, issues.size());
+        assertEquals("24:9 Hardcoded high-entropy value found", issues.get(4));
+    }
+
+    @Test
+    void testValidateParameters() throws IOException {
+        HardcodedSecretCheck check = new HardcodedSecretCheck();
+        check.secretKeys = ".*_password";
+        check.minLength = 5;
+        check.minEntropy = 0;
+        YamlSourceCode code = getSourceCode("hardcoded-secret-01.yaml");
+        check.setYamlSourceCode(code);
+        check.validate();
+
+        // Known credential formats are reported whatever the parameters
+        assertEquals(Arrays.asList(
+                "3:18 Hardcoded AWS access key ID found",
+                "10:18 Hardcoded secret found for key 'user_password'",
+                "11:20 Hardcoded secret found for key 'legacy_password'",
+                "16:5 Hardcoded GitHub token found",
+                "18:8 Hardcoded private key found"),
+                toStrings(code.getYamlIssues()));
+
+        check = new HardcodedSecretCheck();
+        check.secretKeys = "";
+        code = getSourceCode("hardcoded-secret-01.yaml");
+        check.setYamlSourceCode(code);
+        check.validate();
+        assertEquals(3, code.getYamlIssues().size());
+    }
+
+    @Test
+    void testIsPlaceholder() {
+        assertTrue(HardcodedSecretCheck.isPlaceholder("${DB_PASSWORD}"));
+        assertTrue(HardcodedSecretCheck.isPlaceholder("$ANSIBLE_VAULT;1.1;AES256"));
+        assertTrue(HardcodedSecretCheck.isPlaceholder("{{ .Values.password }}"));
+        assertTrue(HardcodedSecretCheck.isPlaceholder("((concourse-password))"));
+        assertTrue(HardcodedSecretCheck.isPlaceholder("ENC[AES256_GCM,data:abc]"));
+        assertTrue(HardcodedSecretCheck.isPlaceholder("vault:secret/data/db#password"));
+        assertTrue(HardcodedSecretCheck.isPlaceholder("<your-password-here>"));
+        assertTrue(HardcodedSecretCheck.isPlaceholder("/run/secrets/db"));
+        assertFalse(HardcodedSecretCheck.isPlaceholder("S3cr3t-Pa55w0rd!"));
+    }
+
+
+    private static List<String> toStrings(List<YamlIssue> issues) {
+        return issues.stream().map(i -> i.getLine() + ":" + i.getColumn() + " " + i.getMessage()).collect(Collectors.toList());
+    }
+
+    private static YamlSourceCode getSourceCode(String name) throws IOException {
+        return new YamlSourceCode(Utils.getInputFile("hardcoded-secret/" + name), Optional.of(false));
+    }
+}
@@ -220,6 +220,87 @@ class IntValueInRangeCheckTest {
         assertEquals(5, code.getYamlIssues().get(0).getColumn());
     }
 
+    @Test
+    void testValidateQuantities() throws IOException {
+        IntValueInRangeCheck check = new IntValueInRangeCheck();
+        check.keyName = "cpu";
+        check.includedAncestors = ".*:limits";
+        check.valueType = "quantity";
+        check.minBound = "100m";
+        check.maxBound = "2";
+
+        YamlSourceCode code = getSourceCode("int-value-in-range-08.yaml", false);
+        check.setYamlSourceCode(code);
+        check.validate();
+        assertTrue(code.hasCorrectSyntax());
+        assertEquals(1, code.getYamlIssues().size());
+        assertEquals("Value out of range found. Range: min=100m max=2", code.getYamlIssues().get(0).getMessage());
+        assertEquals(15, code.getYamlIssues().get(0).getLine());
+        assertEquals(9, code.getYamlIssues().get(0).getColumn());
+
+        check = new IntValueInRangeCheck();
+        check.keyName = "memory";
+        check.valueType = "quantity";
+        check.minBound = "32Mi";
+        check.maxBound = "4Gi";
+
+        code = getSourceCode("int-value-in-range-08.yaml", false);
+        check.setYamlSourceCode(code);
+        check.validate();
+        assertEquals(2, code.getYamlIssues().size());
+        assertEquals("Value out of range found. Range: min=32Mi max=4Gi", code.getYamlIssues().get(0).getMessage());
+        assertEquals(16, code.getYamlIssues().get(0).getLine());
+        assertEquals("Parse error: Invalid quantity found for int-value-range-check", code.getYamlIssues().get(1).getMessage());
+        assertEquals(19, code.getYamlIssues().get(1).getLine());
+    }
+
+    @Test
+    void testValidateTemplateExpression() throws IOException {
+        IntValueInRangeCheck check = new IntValueInRangeCheck();
+        check.keyName = "replicas";
+        check.minValue = 1;
+        check.maxValue = 5;
+
+        YamlSourceCode code = getSourceCode("int-value-in-range-08.yaml", false);
+        check.setYamlSourceCode(code);
+        check.validate();
+        assertTrue(code.hasCorrectSyntax());
+        assertEquals(0, code.getYamlIssues().size());
+    }
+
+    @Test
+    void testValidateNumbers() throws IOException {
+        IntValueInRangeCheck check = new IntValueInRangeCheck();
+        check.keyName = "parseError\\d";
+        check.valueType = "number";
+        check.minBound = "1.05";
+        check.maxBound = "5";
+
+        YamlSourceCode code = getSourceCode("int-value-in-range-05.yaml", false);
+        check.setYamlSourceCode(code);
+        check.validate();
+        assertEquals(2, code.getYamlIssues().size());
+        assertEquals("Parse error: Non-numeric value found for int-value-range-check", code.getYamlIssues().get(0).getMessage());
+        assertEquals(9, code.getYamlIssues().get(0).getLine());
+        assertEquals("Value out of range found. Range: min=1.05 max=5", code.getYamlIssues().get(1).getMessage());
+        assertEquals(11, code.getYamlIssues().get(1).getLine());
+    }
+
+    @Test
+    void testInvalidSettings() throws IOException {
+        IntValueInRangeCheck check = new IntValueInRangeCheck();
+        check.keyName = "inRange";
+        check.valueType = "string";
+        check.setYamlSourceCode(getSourceCode("int-value-in-range-05.yaml", false));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, check::validate);
+        assertEquals("Invalid value-type for int-value-range-check: string", e.getMessage());
+
+        check.valueType = "quantity";
+        check.maxBound = "1GB";
+        e = assertThrows(IllegalArgumentException.class, check::validate);
+        assertEquals("Invalid max-bound for int-value-range-check: 1GB", e.getMessage());
+    }
+
     private YamlSourceCode getSourceCode(String filename, boolean filter) throws IOException {
         return new YamlSourceCode(Utils.getInputFile("int-value-in-range/" + filename), Optional.of(filter));
     }
@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import com.github.sbaudoin.sonar.plugins.yaml.Utils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonSchemaCatalogTest {
+    @Test
+    void testLoad() {
+        File file = Utils.BASE_DIR.resolve("json-schema/deployment.schema.json").toFile();
+        JsonSchema schema = JsonSchemaCatalog.load(file);
+        assertNotNull(schema);
+        assertEquals("deployment.schema.json#", schema.getLocation());
+        // Compiled once
+        assertSame(schema, JsonSchemaCatalog.load(file));
+        assertSame(schema, JsonSchemaCatalog.load(new File(file.getParentFile(), "../json-schema/deployment.schema.json")));
+
+        JsonSchema metadata = schema.properties.get("metadata");
+        assertEquals("deployment.schema.json#/properties/metadata", metadata.getLocation());
+        assertEquals(3, schema.required.size());
+        assertTrue(metadata.additionalProperties.isFalse());
+
+        // References are resolved once, across files
+        JsonSchema name = metadata.properties.get("name").getRefSchema();
+        assertEquals("common.schema.json#/definitions/name", name.getLocation());
+        assertSame(name, metadata.properties.get("name").getRefSchema());
+        assertEquals(20, name.maxLength);
+    }
+
+    @Test
+    void testLoadYaml() {
+        JsonSchema schema = JsonSchemaCatalog.load(Utils.BASE_DIR.resolve("json-schema/recursive.schema.yaml").toFile());
+        assertEquals(1, schema.minProperties);
+        assertSame(schema, schema.properties.get("items").items.getRefSchema());
+        // Unresolvable references are ignored
+        assertSame(JsonSchema.TRUE, schema.properties.get("missing").getRefSchema());
+        assertSame(JsonSchema.TRUE, schema.properties.get("remote").getRefSchema());
+    }
+
+    @Test
+    void testLoadInvalid() {
+        try {
+            JsonSchemaCatalog.load(Utils.BASE_DIR.resolve("json-schema/invalid.schema.json").toFile());
+            fail("Invalid schemas should raise an exception");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid JSON schema invalid.schema.json#/properties/name/pattern: invalid regular expression: Unclosed character class", e.getMessage());
+        }
+
+        File missing = Utils.BASE_DIR.resolve("json-schema/missing.schema.json").toFile();
+        try {
+            JsonSchemaCatalog.load(missing);
+            fail("Missing schemas should raise an exception");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Cannot read JSON schema " + missing.getAbsoluteFile().toPath().normalize() + ": file not found", e.getMessage());
+        }
+    }
+
+    @Test
+    void testReload(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("schema.json");
+        Files.write(file, "{\"maxLength\": 5}".getBytes(StandardCharsets.UTF_8));
+        JsonSchema schema = JsonSchemaCatalog.load(file.toFile());
+        assertEquals(5, schema.maxLength);
+
+        Files.write(file, "{\"maxLength\": 10}".getBytes(StandardCharsets.UTF_8));
+        JsonSchema reloaded = JsonSchemaCatalog.load(file.toFile());
+        assertNotSame(schema, reloaded);
+        assertEquals(10, reloaded.maxLength);
+    }
+}
@@ -0,0 +1,160 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import com.github.sbaudoin.sonar.plugins.yaml.Utils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.sonar.api.utils.log.LogTesterJUnit5;
+import org.sonar.api.utils.log.LoggerLevel;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+class JsonSchemaCheckTest {
+    private static final String SCHEMA = "src/test/resources/json-schema/deployment.schema.json";
+
+    @RegisterExtension
+    LogTesterJUnit5 logTester = new LogTesterJUnit5();
+
+    @Test
+    void testFailedValidateNoSource() {
+        JsonSchemaCheck check = new JsonSchemaCheck();
+        try {
+            check.validate();
+            fail("No source code should raise an exception");
+        } catch (IllegalStateException e) {
+            assertEquals("Source code not set, cannot validate anything", e.getMessage());
+        }
+    }
+
+    @Test
+    void testFailedValidateIOException() throws IOException {
+        YamlSourceCode spy = spy(getSourceCode("json-schema-01.yaml"));
+        when(spy.getContent()).thenThrow(new IOException("Cannot read file"));
+
+        JsonSchemaCheck check = new JsonSchemaCheck();
+        check.schema = SCHEMA;
+        check.setYamlSourceCode(spy);
+        check.validate();
+        assertEquals(1, logTester.logs(LoggerLevel.WARN).size());
+        assertTrue(logTester.logs(LoggerLevel.WARN).get(0).contains("Cannot read source code"));
+        assertEquals(0, spy.getYamlIssues().size());
+    }
+
+    @Test
+    void testValidateSyntaxError() throws IOException {
+        JsonSchemaCheck check = new JsonSchemaCheck();
+        check.schema = SCHEMA;
+        YamlSourceCode code = getSourceCode("json-schema-02.yaml");
+        check.setYamlSourceCode(code);
+        check.validate();
+        assertEquals(1, logTester.logs(LoggerLevel.WARN).size());
+        assertTrue(logTester.logs(LoggerLevel.WARN).get(0).startsWith("Syntax error found, cannot continue checking the schema: "));
+        assertEquals(0, code.getYamlIssues().size());
+    }
+
+    @Test
+    void testValidateNoSchema() throws IOException {
+        JsonSchemaCheck check = new JsonSchemaCheck();
+        YamlSourceCode code = getSourceCode("json-schema-01.yaml");
+        check.setYamlSourceCode(code);
+        check.validate();
+        assertEquals(0, code.getYamlIssues().size());
+
+        check.schema = "src/test/resources/json-schema/invalid.schema.json";
+        check.validate();
+        assertEquals(0, code.getYamlIssues().size());
+
+        check.schema = "src/test/resources/json-schema/missing.schema.json";
+        check.validate();
+        assertEquals(0, code.getYamlIssues().size());
+    }
+
+    @Test
+    void testValidate() throws IOException {
+        JsonSchemaCheck check = new JsonSchemaCheck();
+        check.schema = SCHEMA;
+        YamlSourceCode code = getSourceCode("json-schema-01.yaml");
+        check.setYamlSourceCode(code);
+        check.validate();
+
+        assertEquals(Arrays.asList(
+                "20:13 Schema violation at /apiVersion: unexpected value 'v1', expected apps/v1",
+                "21:7 Schema violation at /kind: unexpected value 'Pod', expected one of [Deployment, StatefulSet]",
+                "23:9 Schema violation at /metadata/name: string does not match the pattern '^[a-z0-9-]+$'",
+                "25:10 Schema violation at /metadata/labels/app: expected string but found integer",
+                "26:3 Schema violation at /metadata/extra: property 'extra' is not allowed",
+                "28:13 Schema violation at /spec/replicas: expected integer but found string",
+                "29:10 Schema violation at /spec/ports: array has more than 2 items",
+                "29:11 Schema violation at /spec/ports/0: value 0 is not greater than 0",
+                "29:18 Schema violation at /spec/ports/2: value 70000 is greater than the maximum 65535",
+                "31:12 Schema violation at /spec/tree/value: expected integer but found string",
+                "34:9 Schema violation at /spec/tree/children/0/bad: property 'bad' is not allowed",
+                "35:13 Schema violation at /spec/strategy: value does not match any of the schemas of oneOf",
+                "36:11 Schema violation at /spec/paused: value does not match any of the schemas of anyOf",
+                "37:12 Schema violation at /spec/command: value must not match the schema of not",
+                "39:1 Schema violation: missing required property 'apiVersion'",
+                "39:1 Schema violation: missing required property 'kind'",
+                "45:13 Schema violation at /spec/replicas: value 11 is greater than the maximum 10",
+                "48:1 Schema violation: expected object but found array"),
+                toStrings(code.getYamlIssues()));
+    }
+
+    @Test
+    void testValidateRelativeToBaseDir() throws IOException {
+        JsonSchemaCheck check = new JsonSchemaCheck();
+        check.schema = "json-schema/deployment.schema.json";
+        YamlSourceCode code = getSourceCode("json-schema-03.yaml");
+        code.setBaseDir(Utils.BASE_DIR.toFile());
+        check.setYamlSourceCode(code);
+        assertEquals(new File(Utils.BASE_DIR.toFile(), "json-schema/deployment.schema.json"), check.getSchemaFile());
+        check.validate();
+        assertEquals(6, code.getYamlIssues().size());
+    }
+
+    @Test
+    void testValidateDocumentSelector() throws IOException {
+        JsonSchemaCheck check = new JsonSchemaCheck();
+        check.schema = SCHEMA;
+        check.documentSelector = "Deployment,StatefulSet";
+        YamlSourceCode code = getSourceCode("json-schema-03.yaml");
+        check.setYamlSourceCode(code);
+        check.validate();
+
+        assertEquals(Arrays.asList(
+                "6:13 Schema violation at /spec/replicas: value 20 is greater than the maximum 10",
+                "18:13 Schema violation at /spec/replicas: value 0 is less than the minimum 1"),
+                toStrings(code.getYamlIssues()));
+    }
+
+
+    private static List<String> toStrings(List<YamlIssue> issues) {
+        return issues.stream().map(i -> i.getLine() + ":" + i.getColumn() + " " + i.getMessage()).collect(Collectors.toList());
+    }
+
+    private static YamlSourceCode getSourceCode(String name) throws IOException {
+        return new YamlSourceCode(Utils.getInputFile("json-schema/" + name), Optional.of(false));
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import com.github.sbaudoin.sonar.plugins.yaml.Utils;
+import org.junit.jupiter.api.Test;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.events.DocumentStartEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.events.StreamEndEvent;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonSchemaValidatorTest {
+    @Test
+    void testValidate() throws IOException {
+        JsonSchema schema = JsonSchemaCatalog.load(Utils.BASE_DIR.resolve("json-schema/recursive.schema.yaml").toFile());
+        Iterator<Event> events = parse(new String(Files.readAllBytes(Utils.BASE_DIR.resolve("json-schema/json-schema-04.yaml")), StandardCharsets.UTF_8));
+        assertTrue(events.next() instanceof DocumentStartEvent);
+
+        List<JsonSchemaValidator.Violation> violations = JsonSchemaValidator.validate(schema, events.next(), events);
+        assertEquals(Arrays.asList(
+                "/items/0/items/0/name: expected string but found integer (line 5)",
+                "/items/0/items/1: object has fewer than 1 properties (line 6)",
+                "/items/1/unknown: property 'unknown' is not allowed (line 7)"),
+                violations.stream().map(JsonSchemaValidator.Violation::toString).collect(Collectors.toList()));
+        assertEquals(15, violations.get(0).getColumn());
+        // Only the events of the document have been consumed
+        events.next();
+        assertTrue(events.next() instanceof StreamEndEvent);
+    }
+
+    @Test
+    void testValidateTrue() {
+        Iterator<Event> events = parse("a: [1, {b: c}]\n");
+        events.next();
+        assertTrue(JsonSchemaValidator.validate(JsonSchema.TRUE, events.next(), events).isEmpty());
+        events.next();
+        assertTrue(events.next() instanceof StreamEndEvent);
+
+        events = parse("a: 1\n");
+        events.next();
+        assertEquals("/: no value is allowed here (line 1)", JsonSchemaValidator.validate(JsonSchema.FALSE, events.next(), events).get(0).toString());
+    }
+
+    @Test
+    void testGetType() {
+        assertEquals("null", getType("~"));
+        assertEquals("null", getType(""));
+        assertEquals("boolean", getType("yes"));
+        assertEquals("boolean", getType("False"));
+        assertEquals("integer", getType("0x1F"));
+        assertEquals("integer", getType("1_000"));
+        assertEquals("number", getType("1.5"));
+        assertEquals("number", getType(".inf"));
+        assertEquals("string", getType("foo"));
+        assertEquals("string", getType("'12'"));
+        assertEquals("string", getType("!!str 12"));
+        assertEquals("integer", getType("!!int '12'"));
+        assertEquals("string", getType("2001-12-14"));
+    }
+
+
+    private static String getType(String scalar) {
+        Iterator<Event> events = parse("key: " + scalar + "\n");
+        events.next();
+        events.next();
+        events.next();
+        return JsonSchemaValidator.getType((ScalarEvent) events.next());
+    }
+
+    private static Iterator<Event> parse(String content) {
+        Iterator<Event> events = new Yaml().parse(new StringReader(content)).iterator();
+        // Stream start
+        events.next();
+        return events;
+    }
+}
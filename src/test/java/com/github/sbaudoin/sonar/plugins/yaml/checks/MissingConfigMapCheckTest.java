@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.sonar.api.utils.log.LogTesterJUnit5;
+import org.sonar.api.utils.log.LoggerLevel;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MissingConfigMapCheckTest {
+    @RegisterExtension
+    LogTesterJUnit5 logTester = new LogTesterJUnit5();
+
+
+    @Test
+    void testCheck() throws IOException {
+        ProjectIndex index = ProjectIndexTest.index(1000, "project-index/app-1.yaml", "project-index/app-2.yaml", "project-index/app-3.yaml");
+        Map<Integer, List<YamlIssue>> issues = new MissingConfigMapCheck().evaluate(index);
+        assertEquals(3, issues.size());
+        assertEquals(1, issues.get(0).size());
+        assertEquals(16, issues.get(0).get(0).getLine());
+        assertEquals("ConfigMap 'missing-config' is not defined in namespace 'default'", issues.get(0).get(0).getMessage());
+        // Defined in another namespace
+        assertEquals(1, issues.get(1).size());
+        assertEquals(16, issues.get(1).get(0).getLine());
+        assertEquals("ConfigMap 'shared-config' is not defined in namespace 'default'", issues.get(1).get(0).getMessage());
+        assertEquals(2, issues.get(2).size());
+        assertEquals(15, issues.get(2).get(0).getLine());
+        assertEquals("ConfigMap 'shared-config' is not defined in namespace 'prod'", issues.get(2).get(0).getMessage());
+        assertEquals(19, issues.get(2).get(1).getLine());
+        assertEquals("ConfigMap 'web-config' is not defined in namespace 'prod'", issues.get(2).get(1).getMessage());
+    }
+
+    @Test
+    void testTruncatedIndex() throws IOException {
+        ProjectIndex index = ProjectIndexTest.index(3, "project-index/app-1.yaml");
+        assertTrue(new MissingConfigMapCheck().evaluate(index).isEmpty());
+        assertTrue(logTester.logs(LoggerLevel.WARN).contains("Project index incomplete, cannot check the ConfigMap references"));
+    }
+}
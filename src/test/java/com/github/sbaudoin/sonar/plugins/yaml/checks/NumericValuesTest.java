@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NumericValuesTest {
+    @Test
+    void testType() {
+        assertEquals(NumericValues.Type.INT, NumericValues.Type.of("int"));
+        assertEquals(NumericValues.Type.NUMBER, NumericValues.Type.of(" Number "));
+        assertEquals(NumericValues.Type.QUANTITY, NumericValues.Type.of("QUANTITY"));
+        assertEquals(NumericValues.Type.YAML_INT, NumericValues.Type.of("yaml-int"));
+        assertEquals(NumericValues.Type.YAML_INT, NumericValues.Type.of("YAML_INT"));
+        assertNull(NumericValues.Type.of("string"));
+    }
+
+    @Test
+    void testInt() {
+        assertEquals(0, NumericValues.parse("0", NumericValues.Type.INT));
+        assertEquals(42, NumericValues.parse("42", NumericValues.Type.INT));
+        assertEquals(-42, NumericValues.parse("-42", NumericValues.Type.INT));
+        assertEquals(42, NumericValues.parse("+42", NumericValues.Type.INT));
+        assertEquals(10, NumericValues.parse("010", NumericValues.Type.INT));
+        assertEquals(8, NumericValues.parse("08", NumericValues.Type.INT));
+        assertEquals(9, NumericValues.parse("09", NumericValues.Type.INT));
+        assertEquals(Integer.MAX_VALUE, NumericValues.parse("2147483647", NumericValues.Type.INT));
+        assertEquals(Integer.MIN_VALUE, NumericValues.parse("-2147483648", NumericValues.Type.INT));
+        assertTrue(Double.isNaN(NumericValues.parse("2147483648", NumericValues.Type.INT)));
+        assertTrue(Double.isNaN(NumericValues.parse("3000000000", NumericValues.Type.INT)));
+        assertTrue(Double.isNaN(NumericValues.parse("0x10", NumericValues.Type.INT)));
+        assertTrue(Double.isNaN(NumericValues.parse("1_000", NumericValues.Type.INT)));
+        assertTrue(Double.isNaN(NumericValues.parse("", NumericValues.Type.INT)));
+        assertTrue(Double.isNaN(NumericValues.parse("-", NumericValues.Type.INT)));
+        assertTrue(Double.isNaN(NumericValues.parse("1.0", NumericValues.Type.INT)));
+        assertTrue(Double.isNaN(NumericValues.parse("1e3", NumericValues.Type.INT)));
+        assertTrue(Double.isNaN(NumericValues.parse("12abc", NumericValues.Type.INT)));
+        assertTrue(Double.isNaN(NumericValues.parse("string", NumericValues.Type.INT)));
+    }
+
+    @Test
+    void testYamlInt() {
+        assertEquals(0, NumericValues.parse("0", NumericValues.Type.YAML_INT));
+        assertEquals(42, NumericValues.parse("42", NumericValues.Type.YAML_INT));
+        assertEquals(-42, NumericValues.parse("-42", NumericValues.Type.YAML_INT));
+        assertEquals(42, NumericValues.parse("+42", NumericValues.Type.YAML_INT));
+        assertEquals(1000000, NumericValues.parse("1_000_000", NumericValues.Type.YAML_INT));
+        assertEquals(3000000000L, NumericValues.parse("3000000000", NumericValues.Type.YAML_INT));
+        assertEquals(31, NumericValues.parse("0x1F", NumericValues.Type.YAML_INT));
+        assertEquals(15, NumericValues.parse("0o17", NumericValues.Type.YAML_INT));
+        assertEquals(15, NumericValues.parse("017", NumericValues.Type.YAML_INT));
+        assertEquals(-5, NumericValues.parse("-0b101", NumericValues.Type.YAML_INT));
+        assertTrue(Double.isNaN(NumericValues.parse("", NumericValues.Type.YAML_INT)));
+        assertTrue(Double.isNaN(NumericValues.parse("-", NumericValues.Type.YAML_INT)));
+        assertTrue(Double.isNaN(NumericValues.parse("0x", NumericValues.Type.YAML_INT)));
+        assertTrue(Double.isNaN(NumericValues.parse("09", NumericValues.Type.YAML_INT)));
+        assertTrue(Double.isNaN(NumericValues.parse("1.0", NumericValues.Type.YAML_INT)));
+        assertTrue(Double.isNaN(NumericValues.parse("1e3", NumericValues.Type.YAML_INT)));
+        assertTrue(Double.isNaN(NumericValues.parse("12abc", NumericValues.Type.YAML_INT)));
+        assertTrue(Double.isNaN(NumericValues.parse("string", NumericValues.Type.YAML_INT)));
+    }
+
+    @Test
+    void testNumber() {
+        assertEquals(42, NumericValues.parse("42", NumericValues.Type.NUMBER));
+        assertEquals(31, NumericValues.parse("0x1f", NumericValues.Type.NUMBER));
+        assertEquals(1.5, NumericValues.parse("1.5", NumericValues.Type.NUMBER));
+        assertEquals(0.5, NumericValues.parse(".5", NumericValues.Type.NUMBER));
+        assertEquals(0.5, NumericValues.parse("0.5", NumericValues.Type.NUMBER));
+        assertEquals(-1.25, NumericValues.parse("-1.25", NumericValues.Type.NUMBER));
+        assertEquals(2500, NumericValues.parse("2.5e3", NumericValues.Type.NUMBER));
+        assertEquals(0.025, NumericValues.parse("2.5E-2", NumericValues.Type.NUMBER));
+        assertEquals(1000.5, NumericValues.parse("1_000.5", NumericValues.Type.NUMBER));
+        assertTrue(Double.isNaN(NumericValues.parse(".", NumericValues.Type.NUMBER)));
+        assertTrue(Double.isNaN(NumericValues.parse("1.5.", NumericValues.Type.NUMBER)));
+        assertTrue(Double.isNaN(NumericValues.parse("1e", NumericValues.Type.NUMBER)));
+        assertTrue(Double.isNaN(NumericValues.parse("1e+", NumericValues.Type.NUMBER)));
+        assertTrue(Double.isNaN(NumericValues.parse("500m", NumericValues.Type.NUMBER)));
+    }
+
+    @Test
+    void testQuantity() {
+        assertEquals(0.5, NumericValues.parse("500m", NumericValues.Type.QUANTITY));
+        assertEquals(0.5, NumericValues.parse("0.5", NumericValues.Type.QUANTITY));
+        assertEquals(0.1, NumericValues.parse("100m", NumericValues.Type.QUANTITY));
+        assertEquals(2, NumericValues.parse("2", NumericValues.Type.QUANTITY));
+        assertEquals(2500, NumericValues.parse("2.5e3", NumericValues.Type.QUANTITY));
+        assertEquals(1e-9, NumericValues.parse("1n", NumericValues.Type.QUANTITY));
+        assertEquals(1e-6, NumericValues.parse("1u", NumericValues.Type.QUANTITY));
+        assertEquals(1500, NumericValues.parse("1.5k", NumericValues.Type.QUANTITY));
+        assertEquals(128e6, NumericValues.parse("128M", NumericValues.Type.QUANTITY));
+        assertEquals(1e18, NumericValues.parse("1E", NumericValues.Type.QUANTITY));
+        assertEquals(1024, NumericValues.parse("1Ki", NumericValues.Type.QUANTITY));
+        assertEquals(128 * 1024 * 1024, NumericValues.parse("128Mi", NumericValues.Type.QUANTITY));
+        assertEquals(1024L * 1024 * 1024, NumericValues.parse("1Gi", NumericValues.Type.QUANTITY));
+        assertEquals(1.5 * 1024 * 1024 * 1024, NumericValues.parse("1.5Gi", NumericValues.Type.QUANTITY));
+        assertEquals(10, NumericValues.parse("010", NumericValues.Type.QUANTITY));
+        assertTrue(Double.isNaN(NumericValues.parse("1gi", NumericValues.Type.QUANTITY)));
+        assertTrue(Double.isNaN(NumericValues.parse("1Gb", NumericValues.Type.QUANTITY)));
+        assertTrue(Double.isNaN(NumericValues.parse("1mm", NumericValues.Type.QUANTITY)));
+        assertTrue(Double.isNaN(NumericValues.parse("1_000", NumericValues.Type.QUANTITY)));
+        assertTrue(Double.isNaN(NumericValues.parse("0x10", NumericValues.Type.QUANTITY)));
+        assertTrue(Double.isNaN(NumericValues.parse("Gi", NumericValues.Type.QUANTITY)));
+    }
+}
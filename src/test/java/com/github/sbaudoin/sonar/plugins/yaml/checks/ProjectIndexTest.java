@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import com.github.sbaudoin.sonar.plugins.yaml.Utils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.sonar.api.utils.log.LogTesterJUnit5;
+import org.sonar.api.utils.log.LoggerLevel;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectIndexTest {
+    @RegisterExtension
+    LogTesterJUnit5 logTester = new LogTesterJUnit5();
+
+
+    static ProjectIndex index(int maxEntries, String... files) throws IOException {
+        ProjectIndex index = new ProjectIndex(maxEntries);
+        for (String file : files) {
+            index.index(new YamlSourceCode(Utils.getInputFile(file), Optional.of(Boolean.FALSE)));
+        }
+        return index;
+    }
+
+    @Test
+    void testResources() throws IOException {
+        ProjectIndex index = index(1000, "project-index/app-1.yaml", "project-index/app-2.yaml", "project-index/app-3.yaml");
+        assertEquals(3, index.getFileCount());
+        assertTrue(index.getFile(1).toString().endsWith("app-2.yaml"));
+        assertFalse(index.isTruncated());
+
+        ProjectIndex.Postings postings = index.get(ProjectIndex.Category.RESOURCE, "apps/Deployment/default/web");
+        assertEquals(2, postings.size());
+        assertEquals(0, postings.getFile(0));
+        assertEquals(4, postings.getLine(0));
+        assertEquals(1, postings.getFile(1));
+        assertEquals(5, postings.getLine(1));
+        assertNull(postings.getValue(0));
+        assertEquals(1, index.get(ProjectIndex.Category.RESOURCE, "/Service/default/web").size());
+        assertEquals(1, index.get(ProjectIndex.Category.RESOURCE, "batch/Job/prod/migrate").size());
+
+        Set<String> keys = new HashSet<>();
+        index.forEach(ProjectIndex.Category.RESOURCE, (key, p) -> keys.add(key));
+        assertEquals(5, keys.size());
+        assertTrue(keys.contains("/ConfigMap/dev/shared-config"));
+    }
+
+    @Test
+    void testConfigMaps() throws IOException {
+        ProjectIndex index = index(1000, "project-index/app-1.yaml", "project-index/app-2.yaml", "project-index/app-3.yaml");
+
+        ProjectIndex.Postings postings = index.get(ProjectIndex.Category.CONFIG_MAP, "shared-config");
+        assertEquals(1, postings.size());
+        assertEquals("dev", postings.getValue(0));
+
+        // Key references, flow mappings and volumes; optional references and templates are ignored
+        postings = index.get(ProjectIndex.Category.CONFIG_MAP_REFERENCE, "shared-config");
+        assertEquals(2, postings.size());
+        assertEquals("default", postings.getValue(0));
+        assertEquals(2, postings.getFile(1));
+        assertEquals(15, postings.getLine(1));
+        assertEquals("prod", postings.getValue(1));
+        postings = index.get(ProjectIndex.Category.CONFIG_MAP_REFERENCE, "web-config");
+        assertEquals(2, postings.size());
+        assertEquals(14, postings.getLine(0));
+        assertEquals(19, postings.getLine(1));
+        assertNull(index.get(ProjectIndex.Category.CONFIG_MAP_REFERENCE, "optional-config"));
+        Set<String> keys = new HashSet<>();
+        index.forEach(ProjectIndex.Category.CONFIG_MAP_REFERENCE, (key, p) -> keys.add(key));
+        assertEquals(3, keys.size());
+    }
+
+    @Test
+    void testImages() throws IOException {
+        ProjectIndex index = index(1000, "project-index/app-1.yaml", "project-index/app-2.yaml", "project-index/app-3.yaml");
+
+        ProjectIndex.Postings postings = index.get(ProjectIndex.Category.IMAGE, "nginx");
+        assertEquals(3, postings.size());
+        assertEquals("1.25", postings.getValue(0));
+        assertEquals("1.24", postings.getValue(1));
+        assertEquals(11, postings.getLine(1));
+        assertEquals("1.25", postings.getValue(2));
+        // The values are interned
+        assertSame(postings.getValue(0), postings.getValue(2));
+
+        // Registry port and digest
+        postings = index.get(ProjectIndex.Category.IMAGE, "registry.example.com:5000/team/sidecar");
+        assertEquals(1, postings.size());
+        assertEquals("@sha256:0123456789abcdef", postings.getValue(0));
+    }
+
+    @Test
+    void testFacts() throws IOException {
+        YamlSourceCode sourceCode = new YamlSourceCode(Utils.getInputFile("project-index/app-3.yaml"), Optional.of(Boolean.FALSE));
+        ProjectIndex.Facts facts = ProjectIndex.collect(sourceCode);
+        ProjectIndex index = new ProjectIndex(1000);
+        // The same facts, indexed for two files
+        index.index(sourceCode.getYamlFile(), facts);
+        index.index(Utils.getInputFile("project-index/app-1.yaml"), facts);
+
+        assertEquals(2, index.getFileCount());
+        ProjectIndex.Postings postings = index.get(ProjectIndex.Category.RESOURCE, "batch/Job/prod/migrate");
+        assertEquals(2, postings.size());
+        assertEquals(0, postings.getFile(0));
+        assertEquals(1, postings.getFile(1));
+        assertEquals(postings.getLine(0), postings.getLine(1));
+    }
+
+    @Test
+    void testMaxEntries() throws IOException {
+        ProjectIndex index = index(3, "project-index/app-1.yaml", "project-index/app-2.yaml");
+        assertTrue(index.isTruncated());
+        assertEquals(2, index.getFileCount());
+        assertNull(index.get(ProjectIndex.Category.RESOURCE, "/Service/default/web"));
+        assertEquals(1, logTester.logs(LoggerLevel.WARN).size());
+        assertEquals("Project index full (3 entries): the cross-file rules will not see all the files", logTester.logs(LoggerLevel.WARN).get(0));
+    }
+}
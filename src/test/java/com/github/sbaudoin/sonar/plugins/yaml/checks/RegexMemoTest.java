@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.regex.PatternSyntaxException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegexMemoTest {
+    @Test
+    void testMatching() {
+        RegexMemo memo = RegexMemo.matching("na.e");
+        assertSame(memo, RegexMemo.matching("na.e"));
+        assertEquals("na.e", memo.getRegex());
+        long hits = memo.getHits();
+        long misses = memo.getMisses();
+
+        assertTrue(memo.test("name"));
+        assertTrue(memo.test("name"));
+        assertFalse(memo.test("names"));
+        assertFalse(memo.test("names"));
+        assertTrue(memo.getHits() >= hits + 2);
+        assertTrue(memo.getMisses() <= misses + 2);
+        assertTrue(memo.getHitRate() > 0);
+        assertTrue(RegexMemo.all().contains(memo));
+    }
+
+    @Test
+    void testFinding() {
+        RegexMemo memo = RegexMemo.finding("(?m)^bad$");
+        assertNotSame(memo, RegexMemo.matching("(?m)^bad$"));
+        assertTrue(memo.test("good\nbad\ngood"));
+        assertFalse(memo.test("good\nbad value"));
+    }
+
+    @Test
+    void testLongStrings() {
+        RegexMemo memo = RegexMemo.matching("a+");
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i <= RegexMemo.MAX_MEMOIZED_LENGTH; i++) {
+            sb.append('a');
+        }
+        int size = memo.size();
+        assertTrue(memo.test(sb.toString()));
+        assertFalse(memo.test(sb.append('b').toString()));
+        assertEquals(size, memo.size());
+    }
+
+    @Test
+    void testClear() {
+        RegexMemo memo = RegexMemo.matching("x");
+        RegexMemo.clear();
+        assertNotSame(memo, RegexMemo.matching("x"));
+        assertEquals(0, RegexMemo.matching("y").getHitRate());
+    }
+
+    @Test
+    void testInvalidRegex() {
+        assertThrows(PatternSyntaxException.class, () -> RegexMemo.matching("("));
+    }
+}
@@ -315,6 +315,40 @@ class RequiredKeyCheckTest {
     }
 
 
+    @Test
+    void testValidateWithMergedKey() throws IOException {
+        RequiredKeyCheck check = getRequiredCheck("", "", "", "restart");
+        check.includedAncestors = "<root>:services:[^:]+";
+        check.excludedAncestors = "";
+
+        YamlSourceCode code = getSourceCode("required-key-15.yaml", false);
+        check.setYamlSourceCode(code);
+        check.validate();
+        assertTrue(code.hasCorrectSyntax());
+        // The required key of the web service comes from the merged mapping
+        assertEquals(1, code.getYamlIssues().size());
+        assertEquals("Required restart key not found", code.getYamlIssues().get(0).getMessage());
+        assertEquals(9, code.getYamlIssues().get(0).getLine());
+    }
+
+    @Test
+    void testValidateWithDocumentSelector() throws IOException {
+        RequiredKeyCheck check = getRequiredCheck("", "", "", "namespace");
+        check.includedAncestors = "<root>:metadata";
+        check.excludedAncestors = "";
+        check.documentSelector = "Deployment,Job";
+
+        YamlSourceCode code = getSourceCode("required-key-16.yaml", false);
+        check.setYamlSourceCode(code);
+        check.validate();
+        assertTrue(code.hasCorrectSyntax());
+        // Each selected document is evaluated on its own, the Ingress is ignored
+        assertEquals(2, code.getYamlIssues().size());
+        assertEquals("Required namespace key not found", code.getYamlIssues().get(0).getMessage());
+        assertEquals(4, code.getYamlIssues().get(0).getLine());
+        assertEquals(15, code.getYamlIssues().get(1).getLine());
+    }
+
     private RequiredKeyCheck getRequiredCheck(String parentKeyName, String parentKeyValue, String isParentKeyAtRoot, String requiredKeyName) {
       RequiredKeyCheck check = new RequiredKeyCheck();
       check.parentKeyName = parentKeyName;
@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import com.github.sbaudoin.sonar.plugins.yaml.Utils;
+import org.junit.jupiter.api.Test;
+import org.sonar.api.rule.RuleKey;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequiredKeyEvaluatorTest {
+    @Test
+    void testGroup() {
+        RequiredKeyCheck c1 = getRequiredCheck("kind", "Deployment", "yes", "readinessProbe");
+        RequiredKeyCheck c2 = getRequiredCheck("kind", "Deployment", "yes", "livenessProbe");
+        RequiredKeyCheck c3 = getRequiredCheck("kind", "Pod", "yes", "readinessProbe");
+
+        List<RequiredKeyEvaluator> evaluators = RequiredKeyEvaluator.group(Arrays.asList(c1, new BracesCheck(), c2, c3));
+        assertEquals(2, evaluators.size());
+        assertEquals(Arrays.asList(c1, c2), evaluators.get(0).getChecks());
+        assertEquals(Collections.singletonList(c3), evaluators.get(1).getChecks());
+        assertThrows(IllegalArgumentException.class, () -> new RequiredKeyEvaluator(Collections.emptyList()));
+    }
+
+    @Test
+    void testSameAsSingleChecks() throws IOException {
+        for (String file : Arrays.asList("required-key-05.yaml", "required-key-06.yaml", "required-key-07.yaml", "required-key-08.yaml", "required-key-10.yaml")) {
+            List<RequiredKeyCheck> checks = Arrays.asList(
+                    getRequiredCheck("kind", "Deployment", "yes", "readinessProbe"),
+                    getRequiredCheck("kind", "Deployment", "yes", "livenessProbe"),
+                    getRequiredCheck("kind", "Deployment", "yes", "image"),
+                    getRequiredCheck("", "", "", "required.*", ".*:nesting\\d", ".*:nesting2:nesting3"),
+                    getRequiredCheck("", "", "", "nesting3", ".*:nesting\\d", ".*:nesting2:nesting3"));
+            for (int i = 0; i < checks.size(); i++) {
+                checks.get(i).setRuleKey(RuleKey.of(CheckRepository.REPOSITORY_KEY, "RequiredKeyCheck" + i));
+            }
+
+            // One check at a time
+            List<String> expected = new ArrayList<>();
+            for (RequiredKeyCheck check : checks) {
+                YamlSourceCode code = getSourceCode(file);
+                check.setYamlSourceCode(code);
+                check.validate();
+                expected.addAll(toStrings(code.getYamlIssues()));
+            }
+
+            // Grouped checks
+            YamlSourceCode code = getSourceCode(file);
+            List<RequiredKeyEvaluator> evaluators = RequiredKeyEvaluator.group(checks);
+            assertEquals(2, evaluators.size());
+            for (RequiredKeyEvaluator evaluator : evaluators) {
+                evaluator.validate(code, checks);
+            }
+            List<String> actual = toStrings(code.getYamlIssues());
+            Collections.sort(expected);
+            Collections.sort(actual);
+            assertEquals(expected, actual, file);
+        }
+    }
+
+    @Test
+    void testInactiveChecks() throws IOException {
+        RequiredKeyCheck c1 = getRequiredCheck("kind", "Deployment", "yes", "readinessProbe");
+        RequiredKeyCheck c2 = getRequiredCheck("kind", "Deployment", "yes", "livenessProbe");
+        RequiredKeyEvaluator evaluator = new RequiredKeyEvaluator(Arrays.asList(c1, c2));
+
+        YamlSourceCode code = getSourceCode("required-key-04.yaml");
+        evaluator.validate(code, Collections.singletonList(c1));
+        assertEquals(1, code.getYamlIssues().size());
+        assertEquals("Required readinessProbe key not found", code.getYamlIssues().get(0).getMessage());
+
+        code = getSourceCode("required-key-04.yaml");
+        evaluator.validate(code, Collections.emptyList());
+        assertEquals(0, code.getYamlIssues().size());
+    }
+
+
+    private static List<String> toStrings(List<YamlIssue> issues) {
+        return issues.stream().map(i -> i.getRuleKey() + ":" + i.getLine() + ":" + i.getMessage()).collect(Collectors.toList());
+    }
+
+    private static RequiredKeyCheck getRequiredCheck(String parentKeyName, String parentKeyValue, String isParentKeyAtRoot, String requiredKeyName) {
+        return getRequiredCheck(parentKeyName, parentKeyValue, isParentKeyAtRoot, requiredKeyName, null, null);
+    }
+
+    private static RequiredKeyCheck getRequiredCheck(String parentKeyName, String parentKeyValue, String isParentKeyAtRoot, String requiredKeyName, String includedAncestors, String excludedAncestors) {
+        RequiredKeyCheck check = new RequiredKeyCheck();
+        check.parentKeyName = parentKeyName;
+        check.parentKeyValue = parentKeyValue;
+        check.isParentKeyAtRoot = isParentKeyAtRoot;
+        check.requiredKeyName = requiredKeyName;
+        check.includedAncestors = includedAncestors;
+        check.excludedAncestors = excludedAncestors;
+        return check;
+    }
+
+    private static YamlSourceCode getSourceCode(String filename) throws IOException {
+        return new YamlSourceCode(Utils.getInputFile("required-key/" + filename), Optional.of(Boolean.FALSE));
+    }
+}
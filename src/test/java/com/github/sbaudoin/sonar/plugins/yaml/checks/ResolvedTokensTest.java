@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import org.junit.jupiter.api.Test;
+import org.yaml.snakeyaml.tokens.Token;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResolvedTokensTest {
+    @Test
+    void testNoAlias() {
+        YamlTokens tokens = YamlTokens.parse("a: 1\nb: [2, 3]\n");
+        ResolvedTokens resolved = ResolvedTokens.resolve(tokens);
+        assertTrue(resolved.isComplete());
+        assertEquals(tokens.size(), resolved.getOrder().length);
+        for (int i = 0; i < tokens.size(); i++) {
+            assertEquals(i, resolved.getOrder()[i]);
+            assertEquals(i, resolved.getSites()[i]);
+        }
+    }
+
+    @Test
+    void testAlias() {
+        YamlTokens tokens = YamlTokens.parse("a: &x foo\nb: *x\nc: &m\n  d: 1\ne: *m\n");
+        ResolvedTokens resolved = ResolvedTokens.resolve(tokens);
+        assertTrue(resolved.isComplete());
+        assertEquals(Arrays.asList("a", "foo", "b", "foo", "c", "d", "1", "e", "d", "1"), getScalars(tokens, resolved));
+        // Anchors are removed, aliases are replaced
+        for (int token : resolved.getOrder()) {
+            assertNotEquals(Token.ID.Anchor, tokens.getType(token));
+            assertNotEquals(Token.ID.Alias, tokens.getType(token));
+        }
+        // Expanded tokens are located on the alias
+        int[] order = resolved.getOrder();
+        int[] sites = resolved.getSites();
+        int last = order.length - 1;
+        while (tokens.getType(order[last]) != Token.ID.Scalar) {
+            last--;
+        }
+        assertEquals(Token.ID.Alias, tokens.getType(sites[last]));
+        assertEquals(4, tokens.getLine(sites[last]));
+    }
+
+    @Test
+    void testMergeKey() {
+        YamlTokens tokens = YamlTokens.parse("base: &b\n  x: 1\n  y: 2\nother: &o {z: 3, x: 4}\n" +
+                "c:\n  <<: *b\n  y: 5\nd:\n  <<: [*o, *b]\n");
+        ResolvedTokens resolved = ResolvedTokens.resolve(tokens);
+        assertTrue(resolved.isComplete());
+        assertEquals(Arrays.asList("base", "x", "1", "y", "2", "other", "z", "3", "x", "4",
+                // Keys of the mapping override the merged keys
+                "c", "x", "1", "y", "5",
+                // Keys of the first merged mappings override those of the next ones
+                "d", "z", "3", "x", "4", "y", "2"), getScalars(tokens, resolved));
+    }
+
+    @Test
+    void testQuotedMergeKey() {
+        YamlTokens tokens = YamlTokens.parse("base: &b\n  x: 1\nc:\n  '<<': *b\n");
+        assertEquals(Arrays.asList("base", "x", "1", "c", "<<", "x", "1"), getScalars(tokens, ResolvedTokens.resolve(tokens)));
+    }
+
+    @Test
+    void testUnresolvedAliases() {
+        // Unknown anchor
+        YamlTokens tokens = YamlTokens.parse("a: *x\n");
+        ResolvedTokens resolved = ResolvedTokens.resolve(tokens);
+        assertTrue(resolved.isComplete());
+        assertEquals(tokens.size(), resolved.getOrder().length);
+
+        // Anchors are local to their document
+        tokens = YamlTokens.parse("---\na: &x 1\n---\nb: *x\n");
+        assertEquals(Arrays.asList("a", "1", "b"), getScalars(tokens, ResolvedTokens.resolve(tokens)));
+
+        // Recursive alias
+        tokens = YamlTokens.parse("a: &a [1, *a]\nb: *a\n");
+        resolved = ResolvedTokens.resolve(tokens);
+        assertTrue(resolved.isComplete());
+        assertEquals(Arrays.asList("a", "1", "1", "b", "1"), getScalars(tokens, resolved));
+    }
+
+    @Test
+    void testAliasBomb() {
+        StringBuilder yaml = new StringBuilder("a0: &a0 [x, x, x, x, x, x, x, x, x]\n");
+        for (int i = 1; i < 12; i++) {
+            yaml.append('a').append(i).append(": &a").append(i).append(" [");
+            for (int j = 0; j < 9; j++) {
+                yaml.append(j > 0 ? ", " : "").append("*a").append(i - 1);
+            }
+            yaml.append("]\n");
+        }
+        YamlTokens tokens = YamlTokens.parse(yaml.toString());
+        ResolvedTokens resolved = ResolvedTokens.resolve(tokens);
+        assertFalse(resolved.isComplete());
+        assertTrue(resolved.getOrder().length <= tokens.size() + ResolvedTokens.MAX_ADDED_TOKENS);
+        assertEquals(resolved.getOrder().length, resolved.getSites().length);
+    }
+
+    @Test
+    void testDeepAliases() {
+        // Anchors are expanded once: a long chain of aliases is resolved without nesting the expansions
+        StringBuilder yaml = new StringBuilder("a0: &a0 x\n");
+        for (int i = 1; i <= ResolvedTokens.MAX_DEPTH + 1; i++) {
+            yaml.append('a').append(i).append(": &a").append(i).append(" [*a").append(i - 1).append("]\n");
+        }
+        yaml.append("last: *a").append(ResolvedTokens.MAX_DEPTH + 1).append('\n');
+        YamlTokens tokens = YamlTokens.parse(yaml.toString());
+        ResolvedTokens resolved = ResolvedTokens.resolve(tokens);
+        assertTrue(resolved.isComplete());
+        List<String> scalars = getScalars(tokens, resolved);
+        assertEquals(Arrays.asList("last", "x"), scalars.subList(scalars.size() - 2, scalars.size()));
+    }
+
+
+    private static List<String> getScalars(YamlTokens tokens, ResolvedTokens resolved) {
+        List<String> scalars = new ArrayList<>();
+        for (int token : resolved.getOrder()) {
+            if (tokens.getType(token) == Token.ID.Scalar) {
+                scalars.add(tokens.getValue(token));
+            }
+        }
+        return scalars;
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import com.github.sbaudoin.sonar.plugins.yaml.Utils;
+import org.junit.jupiter.api.Test;
+import org.yaml.snakeyaml.tokens.Token;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class YamlDocumentsTest {
+    @Test
+    void testClassify() throws IOException {
+        YamlSourceCode code = new YamlSourceCode(Utils.getInputFile("forbidden-value/forbidden-value-09.yaml"), Optional.of(Boolean.FALSE));
+        YamlDocuments documents = code.getDocuments();
+        assertSame(documents, code.getDocuments());
+        assertEquals(3, documents.size());
+        assertEquals("apps/v1", documents.getApiVersion(0));
+        assertEquals("Deployment", documents.getKind(0));
+        assertEquals("batch/v1", documents.getApiVersion(1));
+        assertEquals("Job", documents.getKind(1));
+        assertEquals("networking.k8s.io/v1", documents.getApiVersion(2));
+        assertEquals("Ingress", documents.getKind(2));
+
+        // Documents are consecutive token ranges starting with the document start marker
+        YamlTokens tokens = code.getTokens();
+        for (int i = 0; i < documents.size(); i++) {
+            assertEquals(Token.ID.DocumentStart, tokens.getType(documents.getStartToken(i)));
+            assertEquals(i + 1 < documents.size() ? documents.getStartToken(i + 1) : tokens.size() - 1, documents.getEndToken(i));
+        }
+    }
+
+    @Test
+    void testClassifyWithKindKey() throws IOException {
+        YamlSourceCode code = new YamlSourceCode(Utils.getInputFile("forbidden-value/forbidden-value-09.yaml"), Optional.of(Boolean.FALSE));
+        code.setDocumentKindKey("metadata");
+        // The value of the key is not a scalar
+        assertNull(code.getDocuments().getKind(0));
+        assertEquals("metadata", code.getDocumentKindKey());
+
+        YamlDocuments documents = YamlDocuments.classify(YamlTokens.parse("type: job\nkind: Pod\nspec:\n  type: nested\n"), "type");
+        assertEquals(1, documents.size());
+        assertEquals("job", documents.getKind(0));
+        assertNull(documents.getApiVersion(0));
+    }
+
+    @Test
+    void testClassifyDocuments() {
+        // Implicit first document, document end marker, nested keys and non-mapping documents
+        YamlDocuments documents = YamlDocuments.classify(YamlTokens.parse(
+                "kind: A\n...\n---\nspec:\n  kind: B\n---\n- kind: C\n--- plain\n---\napiVersion: &v v1\nkind: !!str D\n"), "kind");
+        assertEquals(5, documents.size());
+        assertEquals("A", documents.getKind(0));
+        assertNull(documents.getKind(1));
+        assertNull(documents.getKind(2));
+        assertNull(documents.getKind(3));
+        assertEquals("v1", documents.getApiVersion(4));
+        assertEquals("D", documents.getKind(4));
+
+        assertEquals(0, YamlDocuments.classify(YamlTokens.parse(""), "kind").size());
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import com.github.sbaudoin.sonar.plugins.yaml.Utils;
+import com.github.sbaudoin.yamllint.Parser;
+import org.apache.commons.lang.StringUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class YamlLinesTest {
+    @Test
+    void testSameAsParser() throws IOException {
+        assertSameAsParser(new YamlSourceCode(Utils.getInputFile("dummy-file.yaml"), Optional.of(Boolean.FALSE)).getContent());
+        assertSameAsParser(new YamlSourceCode(Utils.getInputFile("k8s.yml"), Optional.of(Boolean.FALSE)).getContent());
+        assertSameAsParser("");
+        assertSameAsParser("\n\n");
+        assertSameAsParser("# comment\n  #  indented comment\n#\n# \t\nkey: value # inline\n");
+        assertSameAsParser("a: 1\r\n# c\r\n\r\n  \t\r\n\u0001\n");
+        assertSameAsParser("\u00A0# nbsp\n#\u00A0x\n# \u2028x\n#x\u0085y\n#\u00A0\u2029\n\u3000\n");
+    }
+
+    @Test
+    void testLineOffsets() {
+        YamlLines lines = new YamlLines("a: 1\r\nbb: 2\n\nc");
+        assertEquals(4, lines.getLineCount());
+        assertEquals(0, lines.getLineStart(1));
+        assertEquals(4, lines.getLineEnd(1));
+        assertEquals(6, lines.getLineStart(2));
+        assertEquals(11, lines.getLineEnd(2));
+        assertEquals(12, lines.getLineStart(3));
+        assertEquals(12, lines.getLineEnd(3));
+        assertEquals(13, lines.getLineStart(4));
+        assertEquals(14, lines.getLineEnd(4));
+        assertEquals(5, lines.getMaxLineLength());
+        assertTrue(lines.hasCarriageReturn());
+        assertThrows(IndexOutOfBoundsException.class, () -> lines.getLineStart(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> lines.isBlank(5));
+    }
+
+    @Test
+    void testTrailingWhitespace() {
+        YamlLines lines = new YamlLines("a: 1 \nb: 2\t\r\nc: 3\r \nd: 4\n");
+        assertTrue(lines.hasTrailingWhitespace(1));
+        assertTrue(lines.hasTrailingWhitespace(2));
+        assertFalse(lines.hasTrailingWhitespace(3));
+        assertFalse(lines.hasTrailingWhitespace(4));
+        assertTrue(lines.hasTrailingWhitespace());
+        assertFalse(new YamlLines("a: 1\nb: 2\n").hasTrailingWhitespace());
+        assertFalse(new YamlLines("a: 1\nb: 2\n").hasCarriageReturn());
+    }
+
+    private static void assertSameAsParser(String content) {
+        YamlLines lines = new YamlLines(content);
+        List<Parser.Line> expected = Parser.getLines(content);
+        assertEquals(expected.size(), lines.getLineCount());
+        for (Parser.Line line : expected) {
+            String lineContent = line.getContent();
+            assertEquals(lineContent.length(), lines.getLineEnd(line.getLineNo()) - lines.getLineStart(line.getLineNo()));
+            assertEquals(lineContent.trim().matches("^\\h*#\\h*\\S.*"), lines.isComment(line.getLineNo()), lineContent);
+            assertEquals(StringUtils.isBlank(lineContent), lines.isBlank(line.getLineNo()), lineContent);
+        }
+    }
+}
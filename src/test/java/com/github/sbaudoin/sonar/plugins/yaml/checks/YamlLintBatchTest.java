@@ -0,0 +1,208 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import com.github.sbaudoin.sonar.plugins.yaml.Utils;
+import com.github.sbaudoin.yamllint.YamlLintConfig;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.check.RuleProperty;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class YamlLintBatchTest {
+    private static final List<Class<? extends YamlCheck>> CHECK_CLASSES = Arrays.asList(
+            IndentationCheck.class,
+            HyphensCheck.class,
+            ColonsCheck.class,
+            CommasCheck.class,
+            BracesCheck.class,
+            BracketsCheck.class,
+            KeyDuplicatesCheck.class,
+            KeyOrderingCheck.class,
+            TrailingSpacesCheck.class,
+            LineLengthCheck.class,
+            TruthyCheck.class,
+            QuotedStringsCheck.class,
+            ParsingErrorCheck.class);
+
+
+    @Test
+    void testSameAsSingleChecks() throws Exception {
+        for (String file : Arrays.asList("yamllint/structural.yaml", "k8s.yml", "dummy-file.yaml", "braces/many-issues.yaml", "multi-documents/bundle.yaml", "required-key/required-key-07.yaml")) {
+            // One check at a time
+            List<String> expected = new ArrayList<>();
+            for (YamlCheck check : getChecks()) {
+                YamlSourceCode code = getSourceCode(file);
+                check.setYamlSourceCode(code);
+                check.validate();
+                expected.addAll(toStrings(code.getYamlIssues()));
+            }
+
+            // All checks at once
+            YamlSourceCode code = getSourceCode(file);
+            YamlLintBatch.validate(code, getChecks());
+            List<String> actual = toStrings(code.getYamlIssues());
+
+            Collections.sort(expected);
+            Collections.sort(actual);
+            assertEquals(expected, actual, file);
+        }
+        assertFalse(toStrings(validate("yamllint/structural.yaml", getChecks())).isEmpty());
+    }
+
+    @Test
+    void testRuleByRule() throws Exception {
+        List<YamlCheck> checks = getChecks();
+        List<YamlIssue> issues = validate("yamllint/structural.yaml", checks);
+        // Issues are grouped by rule, in the order of the checks
+        List<RuleKey> order = issues.stream().map(YamlIssue::getRuleKey).distinct().collect(Collectors.toList());
+        List<RuleKey> expected = checks.stream().map(YamlCheck::getRuleKey).filter(order::contains).collect(Collectors.toList());
+        assertEquals(expected, order);
+    }
+
+    @Test
+    void testLocalConfig() throws Exception {
+        YamlLintConfig config = new YamlLintConfig("---\nextends: default\n");
+        List<YamlCheck> checks = getChecks();
+        for (YamlCheck check : checks) {
+            check.setConfig(config);
+        }
+        List<String> actual = toStrings(validate("yamllint/structural.yaml", checks));
+
+        List<String> expected = new ArrayList<>();
+        for (YamlCheck check : getChecks()) {
+            check.setConfig(config);
+            expected.addAll(toStrings(validate("yamllint/structural.yaml", Collections.singletonList(check))));
+        }
+        Collections.sort(expected);
+        Collections.sort(actual);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void testChecksWithoutLocalConfig() throws Exception {
+        String content = "---\nkey: yes\nother: \"no\"\n";
+        List<YamlCheck> checks = getChecks().stream().filter(c -> c instanceof TruthyCheck || c instanceof QuotedStringsCheck).collect(Collectors.toList());
+        YamlSourceCode code = new YamlSourceCode(Utils.getInputFile("local-config.yaml", content), Optional.of(Boolean.FALSE));
+        YamlLintBatch.validate(code, checks);
+        List<String> expected = toStrings(code.getYamlIssues());
+        assertFalse(expected.isEmpty());
+
+        // The local configuration disables the rules but these checks use their own properties
+        YamlLintConfig config = new YamlLintConfig("---\nrules:\n  truthy: disable\n  quoted-strings: disable\n");
+        for (YamlCheck check : checks) {
+            check.setConfig(config);
+        }
+        code = new YamlSourceCode(Utils.getInputFile("local-config.yaml", content), Optional.of(Boolean.FALSE));
+        YamlLintBatch.validate(code, checks);
+        assertEquals(expected, toStrings(code.getYamlIssues()));
+    }
+
+    @Test
+    void testSingleCheck() throws Exception {
+        YamlLintConfigCache cache = new YamlLintConfigCache(10);
+        List<YamlCheck> checks = getChecks().stream().filter(c -> c instanceof BracesCheck).collect(Collectors.toList());
+        YamlSourceCode code = getSourceCode("yamllint/structural.yaml");
+        YamlLintBatch.validate(code, checks, cache);
+
+        // The configuration of a single check is cached too
+        assertEquals(1, cache.size());
+        assertEquals(toStrings(validate("yamllint/structural.yaml", checks)), toStrings(code.getYamlIssues()));
+    }
+
+    @Test
+    void testLintConfigEvent(@TempDir Path temporaryFolder) throws Exception {
+        Path dump = temporaryFolder.resolve("recording.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.github.sbaudoin.sonar.yaml.LintConfig");
+            recording.start();
+            YamlLintBatch.validate(getSourceCode("yamllint/structural.yaml"), getChecks(), new YamlLintConfigCache(10));
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump).stream()
+                .filter(e -> e.getEventType().getName().equals("com.github.sbaudoin.sonar.yaml.LintConfig"))
+                .collect(Collectors.toList());
+        // One event for the configuration shared by the checks
+        assertEquals(1, events.size());
+        List<String> ruleKeys = Arrays.asList(events.get(0).getString("ruleKeys").split(","));
+        assertTrue(ruleKeys.size() > 1);
+        assertEquals("yaml:IndentationCheck", ruleKeys.get(0));
+    }
+
+
+    private static List<YamlIssue> validate(String file, List<YamlCheck> checks) throws IOException {
+        YamlSourceCode code = getSourceCode(file);
+        if (checks.size() == 1) {
+            checks.get(0).setYamlSourceCode(code);
+            checks.get(0).validate();
+        } else {
+            YamlLintBatch.validate(code, checks);
+        }
+        return code.getYamlIssues();
+    }
+
+    private static List<String> toStrings(List<YamlIssue> issues) {
+        return issues.stream().map(i -> i.getRuleKey() + ":" + i.getLine() + ":" + i.getColumn() + ":" + i.getMessage()).collect(Collectors.toList());
+    }
+
+    /**
+     * Returns new instances of the checks, with their rule key and the default values of their properties, as set by
+     * SonarQube
+     */
+    private static List<YamlCheck> getChecks() throws ReflectiveOperationException {
+        List<YamlCheck> checks = new ArrayList<>();
+        for (Class<? extends YamlCheck> checkClass : CHECK_CLASSES) {
+            YamlCheck check = checkClass.getDeclaredConstructor().newInstance();
+            check.setRuleKey(RuleKey.of(CheckRepository.REPOSITORY_KEY, checkClass.getSimpleName()));
+            for (Field f : checkClass.getDeclaredFields()) {
+                RuleProperty rp = f.getAnnotation(RuleProperty.class);
+                if (rp == null || rp.defaultValue().isEmpty()) {
+                    continue;
+                }
+                if (f.getType() == int.class) {
+                    f.setInt(check, Integer.parseInt(rp.defaultValue()));
+                } else if (f.getType() == boolean.class) {
+                    f.setBoolean(check, Boolean.parseBoolean(rp.defaultValue()));
+                } else {
+                    f.set(check, rp.defaultValue());
+                }
+            }
+            checks.add(check);
+        }
+        return checks;
+    }
+
+    private static YamlSourceCode getSourceCode(String path) throws IOException {
+        return new YamlSourceCode(Utils.getInputFile(path), Optional.of(Boolean.FALSE));
+    }
+}
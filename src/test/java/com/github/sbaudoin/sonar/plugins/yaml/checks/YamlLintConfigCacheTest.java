@@ -0,0 +1,56 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import com.github.sbaudoin.yamllint.YamlLintConfig;
+import com.github.sbaudoin.yamllint.YamlLintConfigException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class YamlLintConfigCacheTest {
+    private static final String CONF1 = "---\nrules:\n  braces: enable\n";
+    private static final String CONF2 = "---\nrules:\n  brackets: enable\n";
+    private static final String CONF3 = "---\nrules:\n  commas: enable\n";
+
+
+    @Test
+    void testGet() throws YamlLintConfigException {
+        YamlLintConfigCache cache = new YamlLintConfigCache(2);
+        YamlLintConfig config1 = cache.get(CONF1);
+        assertNotNull(config1.getRuleConf("braces"));
+        assertSame(config1, cache.get(CONF1));
+        assertEquals(1, cache.size());
+
+        YamlLintConfig config2 = cache.get(CONF2);
+        assertNotSame(config1, config2);
+        assertEquals(2, cache.size());
+
+        // Cache full: configurations are built but not kept
+        YamlLintConfig config3 = cache.get(CONF3);
+        assertNotNull(config3.getRuleConf("commas"));
+        assertNotSame(config3, cache.get(CONF3));
+        assertEquals(2, cache.size());
+        assertSame(config1, cache.get(CONF1));
+    }
+
+    @Test
+    void testInvalidConfig() {
+        YamlLintConfigCache cache = new YamlLintConfigCache(2);
+        assertThrows(YamlLintConfigException.class, () -> cache.get("---\nrules: [\n"));
+        assertEquals(0, cache.size());
+    }
+}
@@ -20,6 +20,7 @@ import com.github.sbaudoin.yamllint.LintProblem;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.rule.RuleKey;
 
 import java.io.IOException;
 import java.util.Optional;
@@ -74,6 +75,29 @@ class YamlSourceCodeTest {
         assertEquals(issue2, code.getYamlIssues().get(1));
     }
 
+    @Test
+    void testIssueLimits() {
+        RuleKey rule1 = RuleKey.of(CheckRepository.REPOSITORY_KEY, "rule1");
+        RuleKey rule2 = RuleKey.of(CheckRepository.REPOSITORY_KEY, "rule2");
+        code.setIssueLimits(3, 2);
+
+        code.addViolation(new YamlIssue(rule1, "error 1", 1, 1));
+        code.addViolation(new YamlIssue(rule1, "error 2", 2, 1));
+        code.addViolation(new YamlIssue(rule1, "error 3", 3, 1));
+        code.addViolation(new YamlIssue(rule1, "error 4", 4, 1));
+        code.addViolation(new YamlIssue(rule2, "error 5", 5, 1));
+        code.addViolation(new YamlIssue(rule2, "error 6", 6, 1));
+        // Issues without rule key are never limited
+        code.addViolation(new YamlIssue(null, "error 7", 7, 1));
+
+        assertEquals(4, code.getYamlIssues().size());
+        assertEquals(2, code.getIssueOverflows().size());
+        IssueOverflow overflow = code.getIssueOverflows().iterator().next();
+        assertEquals(rule1, overflow.getRuleKey());
+        assertEquals(2, overflow.getCount());
+        assertArrayEquals(new int[] { 3, 4 }, overflow.getLines());
+    }
+
     @Test
     void testFilter() throws IOException {
         String code = "---\nlist: ['one',\u2028 'two']";
@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.checks;
+
+import com.github.sbaudoin.sonar.plugins.yaml.Utils;
+import com.github.sbaudoin.yamllint.LintScanner;
+import org.junit.jupiter.api.Test;
+import org.yaml.snakeyaml.reader.StreamReader;
+import org.yaml.snakeyaml.tokens.ScalarToken;
+import org.yaml.snakeyaml.tokens.Token;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class YamlTokensTest {
+    @Test
+    void testSameAsScanner() throws IOException {
+        assertSameAsScanner(new YamlSourceCode(Utils.getInputFile("k8s.yml"), Optional.of(Boolean.FALSE)).getContent());
+        assertSameAsScanner(new YamlSourceCode(Utils.getInputFile("required-key/required-key-01.yaml"), Optional.of(Boolean.FALSE)).getContent());
+        assertSameAsScanner("a: \"x\\ty\"\nb: 'it''s'\nc: |\n  l1\n  l2\nd: >\n  f\n  g\ne: plain\n  multi\n");
+        assertSameAsScanner("a: 1\r\nb: 2\rc: 3\u2028d: \uD83D\uDE00 smile\n");
+    }
+
+    @Test
+    void testValues() {
+        YamlTokens tokens = YamlTokens.parse("key: value\nquoted: 'it''s'\n");
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.getType(i) == Token.ID.Scalar) {
+                values.add(tokens.getValue(i));
+            }
+        }
+        assertEquals(4, values.size());
+        assertEquals("value", values.get(1));
+        assertEquals("it's", values.get(3));
+        assertNull(tokens.getValue(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> tokens.getType(tokens.size()));
+    }
+
+    @Test
+    void testCursor() {
+        YamlTokens tokens = YamlTokens.parse("key: value\n");
+        YamlTokens.Cursor cursor = tokens.cursor();
+        assertSame(tokens, cursor.getTokens());
+        assertEquals(Token.ID.StreamStart, cursor.peekTokenType());
+        assertEquals(0, cursor.peekToken());
+        assertEquals(0, cursor.getToken());
+        int count = 1;
+        while (cursor.hasMoreTokens()) {
+            cursor.getToken();
+            count++;
+        }
+        assertEquals(tokens.size(), count);
+        assertEquals(-1, cursor.peekToken());
+        assertNull(cursor.peekTokenType());
+        assertThrows(IndexOutOfBoundsException.class, cursor::getToken);
+    }
+
+    @Test
+    void testResolvedCursor() {
+        YamlTokens tokens = YamlTokens.parse("a: &x foo\nb: *x\n");
+        YamlTokens.Cursor cursor = tokens.resolvedCursor();
+        assertTrue(tokens.isFullyResolved());
+        assertEquals(-1, cursor.getSite());
+        List<String> values = new ArrayList<>();
+        while (cursor.hasMoreTokens()) {
+            int site = cursor.peekSite();
+            int token = cursor.getToken();
+            assertEquals(site, cursor.getSite());
+            if (tokens.getType(token) == Token.ID.Scalar) {
+                values.add(tokens.getValue(token) + "@" + tokens.getLine(site));
+            }
+        }
+        assertEquals("[a@0, foo@0, b@1, foo@1]", values.toString());
+        assertEquals(-1, cursor.peekSite());
+        assertThrows(IndexOutOfBoundsException.class, cursor::getToken);
+    }
+
+    @Test
+    void testSyntaxError() throws IOException {
+        // Tokens are returned up to the error
+        assertTrue(YamlTokens.parse("a: 'unterminated\n").size() > 0);
+        // No token if the source code has a syntax error
+        YamlSourceCode code = new YamlSourceCode(Utils.getInputFile("braces/min-spaces-01.yaml"), Optional.of(Boolean.FALSE));
+        assertEquals(0, code.getTokens().size());
+        assertSame(code.getTokens(), code.getTokens());
+    }
+
+    @Test
+    void testColumnBeforeLine() {
+        // getColumn must not depend on an earlier call to getLine
+        YamlTokens tokens = YamlTokens.parse("a: 1\nbc:\n  d: x\n");
+        int last = tokens.size() - 1;
+        while (tokens.getType(last) != Token.ID.Scalar) {
+            last--;
+        }
+        assertEquals("x", tokens.getValue(last));
+        assertEquals(5, tokens.getColumn(last));
+        assertEquals(2, tokens.getLine(last));
+    }
+
+    @Test
+    void testComputeLineStarts() {
+        assertArrayEquals(new int[] { 0 }, YamlTokens.computeLineStarts(""));
+        assertArrayEquals(new int[] { 0, 2, 5, 7 }, YamlTokens.computeLineStarts("a\nb\r\nc\rd"));
+        assertArrayEquals(new int[] { 0, 2 }, YamlTokens.computeLineStarts("\uD83D\uDE00\na"));
+    }
+
+
+    private static void assertSameAsScanner(String content) {
+        List<Token> expected = new ArrayList<>();
+        LintScanner scanner = new LintScanner(new StreamReader(content));
+        while (scanner.hasMoreTokens()) {
+            expected.add(scanner.getToken());
+        }
+
+        YamlTokens tokens = YamlTokens.parse(content);
+        assertEquals(expected.size(), tokens.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Token token = expected.get(i);
+            assertEquals(token.getTokenId(), tokens.getType(i));
+            assertEquals(token.getStartMark().getIndex(), tokens.getStartOffset(i));
+            assertEquals(token.getEndMark().getIndex(), tokens.getEndOffset(i));
+            assertEquals(token.getStartMark().getLine(), tokens.getLine(i));
+            assertEquals(token.getStartMark().getColumn(), tokens.getColumn(i));
+            if (token instanceof ScalarToken) {
+                assertEquals(((ScalarToken) token).getValue(), tokens.getValue(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.highlighting;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
+import org.sonar.api.batch.sensor.highlighting.TypeOfText;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class HighlightingRangesTest {
+    @Test
+    void testMerge() {
+        HighlightingRanges ranges = new HighlightingRanges(0);
+        assertTrue(ranges.add(1, 1, 2, 1, TypeOfText.COMMENT));
+        // Nested (consecutive comment lines end at the same token)
+        assertTrue(ranges.add(1, 5, 2, 1, TypeOfText.COMMENT));
+        // Contiguous
+        assertTrue(ranges.add(2, 1, 2, 10, TypeOfText.COMMENT));
+        // Contiguous but of another type
+        assertTrue(ranges.add(2, 10, 2, 12, TypeOfText.STRING));
+        // Same type but not contiguous
+        assertTrue(ranges.add(3, 1, 3, 4, TypeOfText.STRING));
+
+        assertEquals(3, ranges.size());
+        assertEquals(0, ranges.getDroppedCount());
+        List<HighlightingData> data = ranges.getHighlightingData();
+        assertEquals(3, data.size());
+        assertRange(data.get(0), 1, 1, 2, 10, TypeOfText.COMMENT);
+        assertRange(data.get(1), 2, 10, 2, 12, TypeOfText.STRING);
+        assertRange(data.get(2), 3, 1, 3, 4, TypeOfText.STRING);
+        assertThrows(IndexOutOfBoundsException.class, () -> data.get(3));
+    }
+
+    @Test
+    void testMaxRanges() {
+        HighlightingRanges ranges = new HighlightingRanges(2);
+        assertTrue(ranges.add(1, 1, 1, 4, TypeOfText.KEYWORD));
+        assertTrue(ranges.add(1, 6, 1, 9, TypeOfText.STRING));
+        assertFalse(ranges.add(2, 1, 2, 4, TypeOfText.KEYWORD));
+        // Merged ranges are not dropped
+        assertTrue(ranges.add(1, 9, 1, 12, TypeOfText.STRING));
+        assertFalse(ranges.add(3, 1, 3, 4, TypeOfText.KEYWORD));
+
+        assertEquals(2, ranges.size());
+        assertEquals(2, ranges.getDroppedCount());
+        assertRange(ranges.getHighlightingData().get(1), 1, 6, 1, 12, TypeOfText.STRING);
+    }
+
+    @Test
+    void testHighlight() {
+        HighlightingRanges ranges = new HighlightingRanges(0);
+        // More ranges than the initial capacity
+        for (int line = 1; line <= 100; line++) {
+            ranges.add(line, 1, line, 4, TypeOfText.KEYWORD);
+            ranges.add(line, 6, line, 11, TypeOfText.STRING);
+        }
+        assertEquals(200, ranges.size());
+
+        NewHighlighting highlighting = mock(NewHighlighting.class);
+        ranges.highlight(highlighting);
+        InOrder inOrder = inOrder(highlighting);
+        inOrder.verify(highlighting).highlight(1, 0, 1, 3, TypeOfText.KEYWORD);
+        inOrder.verify(highlighting).highlight(1, 5, 1, 10, TypeOfText.STRING);
+        inOrder.verify(highlighting).highlight(100, 0, 100, 3, TypeOfText.KEYWORD);
+        inOrder.verify(highlighting).highlight(100, 5, 100, 10, TypeOfText.STRING);
+        verify(highlighting, times(200)).highlight(anyInt(), anyInt(), anyInt(), anyInt(), any(TypeOfText.class));
+    }
+
+
+    private static void assertRange(HighlightingData data, int startLine, int startColumnIndex, int endLine, int endColumnIndex, TypeOfText typeOfText) {
+        assertEquals(startLine, data.getStartLine());
+        assertEquals(startColumnIndex, data.getStartColumnIndex());
+        assertEquals(endLine, data.getEndLine());
+        assertEquals(endColumnIndex, data.getEndColumnIndex());
+        assertEquals(typeOfText, data.getTypeOfText());
+    }
+}
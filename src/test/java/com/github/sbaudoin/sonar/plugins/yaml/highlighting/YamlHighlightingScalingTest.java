@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.highlighting;
+
+import com.github.sbaudoin.sonar.plugins.yaml.Scaling;
+import com.github.sbaudoin.sonar.plugins.yaml.Utils;
+import com.github.sbaudoin.sonar.plugins.yaml.YamlCorpus;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.YamlSourceCode;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+@Tag(Scaling.TAG)
+class YamlHighlightingScalingTest {
+    @Test
+    void testDocuments() throws Exception {
+        Scaling.assertLinear("Highlighting (documents)", f -> new YamlCorpus().documents(200 * f).depth(4).width(6).generate(), YamlHighlightingScalingTest::highlight);
+    }
+
+    @Test
+    void testWidth() throws Exception {
+        Scaling.assertLinear("Highlighting (mapping width)", f -> new YamlCorpus().documents(20).width(100 * f).generate(), YamlHighlightingScalingTest::highlight);
+    }
+
+    @Test
+    void testSequenceLength() throws Exception {
+        Scaling.assertLinear("Highlighting (sequence length)", f -> new YamlCorpus().documents(20).depth(1).sequenceLength(100 * f).generate(), YamlHighlightingScalingTest::highlight);
+    }
+
+    @Test
+    void testDepth() throws Exception {
+        Scaling.assertLinear("Highlighting (depth)", f -> new YamlCorpus().documents(20).depth(25 * f).generate(), YamlHighlightingScalingTest::highlight);
+    }
+
+    @Test
+    void testComments() throws Exception {
+        Scaling.assertLinear("Highlighting (comments)", f -> new YamlCorpus().documents(200 * f).depth(4).commentRatio(0.5).generate(), YamlHighlightingScalingTest::highlight);
+    }
+
+    @Test
+    void testAnchors() throws Exception {
+        Scaling.assertLinear("Highlighting (anchors)", f -> new YamlCorpus().documents(200 * f).depth(4).anchorDensity(0.3).generate(), YamlHighlightingScalingTest::highlight);
+    }
+
+    @Test
+    void testCpdTokensOverhead() throws Exception {
+        // Collecting the copy-paste detection tokens adds less than 10% to the highlighting
+        YamlSourceCode sourceCode = new YamlSourceCode(Utils.getInputFile("scaling.yaml", new YamlCorpus().documents(400).depth(4).width(6).anchorDensity(0.1).generate()), Optional.of(Boolean.FALSE));
+        Scaling.assertOverhead("Copy-paste detection tokens", 0.1, sourceCode,
+                code -> new YamlHighlighting(code, 0, false),
+                code -> new YamlHighlighting(code, 0, true));
+    }
+
+
+    private static void highlight(String content) throws Exception {
+        YamlHighlighting highlighting = new YamlHighlighting(new YamlSourceCode(Utils.getInputFile("scaling.yaml", content), Optional.of(Boolean.FALSE)));
+        highlighting.getHighlightingRanges();
+        highlighting.getCpdTokens();
+    }
+}
@@ -24,7 +24,10 @@ import org.sonar.api.utils.log.LogTesterJUnit5;
 import org.sonar.api.utils.log.LoggerLevel;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.spy;
@@ -90,6 +93,62 @@ class YamlHighlightingTest {
         assertHighlightingData(yh.getHighlightingData().get(2), 2, 6, 2, 11, TypeOfText.STRING);
     }
 
+    @Test
+    void testCpdTokens() throws IOException {
+        YamlHighlighting yh = new YamlHighlighting(getSourceCode("---\n" +
+                "key: \"value\"  # Comment\n" +
+                "list: [1, 2]\n" +
+                "seq:\n" +
+                "  - &anc item\n" +
+                "  - *anc\n" +
+                "...\n"));
+
+        assertEquals(Arrays.asList(
+                "1:1-1:4 ---",
+                "2:1-2:4 key", "2:4-2:5 :", "2:6-2:13 value",
+                "3:1-3:5 list", "3:5-3:6 :", "3:7-3:8 [", "3:8-3:9 1", "3:9-3:10 ,", "3:11-3:12 2", "3:12-3:13 ]",
+                "4:1-4:4 seq", "4:4-4:5 :",
+                "5:3-5:4 -", "5:5-5:9 &anc", "5:10-5:14 item",
+                "6:3-6:4 -", "6:5-6:9 *anc",
+                "7:1-7:4 ..."),
+                yh.getCpdTokens().stream()
+                        .map(t -> t.getStartLine() + ":" + t.getStartColumnIndex() + "-" + t.getEndLine() + ":" + t.getEndColumnIndex() + " " + t.getImage())
+                        .collect(Collectors.toList()));
+    }
+
+    @Test
+    void testCpdTokensNormalization() throws IOException {
+        // Copies that only differ by their quotes, the way their numbers are written, spacing and comments have the same
+        // tokens
+        List<String> images1 = getCpdImages("image:\n  repository: nginx\n  tag: \"1.19\"\n  ports: [80, 443]\n");
+        List<String> images2 = getCpdImages("'image':\n    \"repository\": 'nginx'\n    tag: 1.190  # Comment\n    ports: [ +80 , 4.43e2 ]\n");
+        assertEquals(images1, images2);
+        assertFalse(images1.isEmpty());
+
+        // Copies with different keys or values are different
+        assertNotEquals(images1, getCpdImages("image:\n  repository: nginx\n  version: \"1.19\"\n  ports: [80, 443]\n"));
+        assertNotEquals(images1, getCpdImages("image:\n  repository: httpd\n  tag: latest\n  ports: [8080, 8443]\n"));
+        assertTrue(getCpdImages("").isEmpty());
+    }
+
+    @Test
+    void testValueImage() {
+        assertEquals("nginx", YamlHighlighting.getValueImage("nginx"));
+        assertEquals("", YamlHighlighting.getValueImage(""));
+        assertEquals("1.5", YamlHighlighting.getValueImage("+1.50"));
+        assertEquals("-0.5", YamlHighlighting.getValueImage("-.5"));
+        assertEquals("1000", YamlHighlighting.getValueImage("1e3"));
+        assertEquals("1000", YamlHighlighting.getValueImage("1000.0"));
+        assertEquals("0", YamlHighlighting.getValueImage("-0.0"));
+        assertEquals("1.19.2", YamlHighlighting.getValueImage("1.19.2"));
+        assertEquals("500m", YamlHighlighting.getValueImage("500m"));
+        assertEquals("1e", YamlHighlighting.getValueImage("1e"));
+        assertEquals("1e999", YamlHighlighting.getValueImage("1e999"));
+        assertEquals("0x10", YamlHighlighting.getValueImage("0x10"));
+        assertEquals(".", YamlHighlighting.getValueImage("."));
+        assertEquals("2020-01-01", YamlHighlighting.getValueImage("2020-01-01"));
+    }
+
     @Test
     void testHighlightAllTokenTypes() throws IOException {
         YamlHighlighting yh = new YamlHighlighting(getSourceCode("%YAML 1.1\n" +
@@ -132,6 +191,26 @@ class YamlHighlightingTest {
         assertHighlightingData(yh.getHighlightingData().get(15), 9, 1, 9, 4, TypeOfText.CONSTANT);
     }
 
+    @Test
+    void testMergedRanges() throws IOException {
+        // The comment ends where the directive starts and has the same type
+        YamlHighlighting yh = new YamlHighlighting(getSourceCode("# Comment\n%YAML 1.1\n---\nkey: value\n"));
+
+        assertEquals(4, yh.getHighlightingData().size());
+        assertHighlightingData(yh.getHighlightingData().get(0), 1, 1, 2, 10, TypeOfText.COMMENT);
+        assertHighlightingData(yh.getHighlightingData().get(1), 3, 1, 3, 4, TypeOfText.CONSTANT);
+    }
+
+    @Test
+    void testMaxRanges() throws IOException {
+        YamlHighlighting yh = new YamlHighlighting(getSourceCode("---\nkey1: value1\nkey2: value2\n"), 2);
+
+        assertEquals(2, yh.getHighlightingRanges().size());
+        assertEquals(3, yh.getHighlightingRanges().getDroppedCount());
+        assertHighlightingData(yh.getHighlightingData().get(1), 2, 1, 2, 5, TypeOfText.KEYWORD);
+        assertTrue(logTester.logs(LoggerLevel.DEBUG).contains("Highlighting of file dummy-file.yaml limited to 2 ranges, 3 range(s) dropped"));
+    }
+
     private void assertHighlightingData(HighlightingData hd, int startLine, int startColumnIndex, int endLine, int endColumnIndex, TypeOfText typeOfText) {
         assertEquals(startLine, hd.getStartLine());
         assertEquals(startColumnIndex, hd.getStartColumnIndex());
@@ -146,4 +225,8 @@ class YamlHighlightingTest {
         when(spy.getContent()).thenReturn(code);
         return spy;
     }
+
+    private List<String> getCpdImages(String content) throws IOException {
+        return new YamlHighlighting(getSourceCode(content)).getCpdTokens().stream().map(CpdTokenData::getImage).collect(Collectors.toList());
+    }
 }
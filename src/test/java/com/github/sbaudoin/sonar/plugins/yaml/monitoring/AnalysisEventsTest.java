@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.monitoring;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.rule.RuleKey;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisEventsTest {
+    private static final URI FILE_URI = Paths.get("src", "test", "resources", "k8s.yml").toUri();
+
+    @TempDir
+    Path temporaryFolder;
+
+
+    @Test
+    void testNoRecording() {
+        assertTrue(AnalysisEvents.isJfrSupported());
+        assertSame(Timing.NOOP, AnalysisEvents.beginFileAnalysis(FILE_URI));
+        assertSame(Timing.NOOP, AnalysisEvents.beginLineCount(FILE_URI));
+        assertSame(Timing.NOOP, AnalysisEvents.beginLintConfig(() -> {
+            throw new AssertionError("Rule keys must not be formatted when the event is not recorded");
+        }));
+    }
+
+    @Test
+    void testRecording() throws IOException {
+        Path dump = temporaryFolder.resolve("recording.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.github.sbaudoin.sonar.yaml.FileAnalysis");
+            recording.enable("com.github.sbaudoin.sonar.yaml.CheckValidation");
+            recording.enable("com.github.sbaudoin.sonar.yaml.LintConfig");
+            recording.enable("com.github.sbaudoin.sonar.yaml.Highlighting");
+            recording.enable("com.github.sbaudoin.sonar.yaml.LineCount");
+            recording.start();
+
+            AnalysisEvents.beginLintConfig(() -> Arrays.asList(RuleKey.of("yaml", "BracesCheck"), RuleKey.of("yaml", "BracketsCheck"))).end(0);
+            AnalysisEvents.beginCheckValidation(RuleKey.of("yaml", "BracesCheck"), FILE_URI).end(2);
+            AnalysisEvents.beginCheckValidation(() -> Arrays.asList(RuleKey.of("yaml", "RequiredKeyCheck"), RuleKey.of("yaml", "OtherRequiredKeyCheck")), FILE_URI).end(1);
+            AnalysisEvents.beginHighlighting(FILE_URI).end(10);
+            AnalysisEvents.beginLineCount(FILE_URI).end(5);
+            AnalysisEvents.beginFileAnalysis(FILE_URI).end(2);
+
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump).stream()
+                .filter(e -> e.getEventType().getName().startsWith("com.github.sbaudoin.sonar.yaml."))
+                .collect(Collectors.toList());
+        assertEquals(6, events.size());
+        assertEquals("yaml:BracesCheck,yaml:BracketsCheck", getEvent(events, "LintConfig").getString("ruleKeys"));
+        List<String> validations = events.stream()
+                .filter(e -> e.getEventType().getName().endsWith(".CheckValidation"))
+                .map(e -> e.getString("ruleKey") + "=" + e.getInt("issues"))
+                .sorted()
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList("yaml:BracesCheck=2", "yaml:RequiredKeyCheck,yaml:OtherRequiredKeyCheck=1"), validations);
+        assertEquals(10, getEvent(events, "Highlighting").getInt("ranges"));
+        assertEquals(5, getEvent(events, "LineCount").getInt("lines"));
+        RecordedEvent fileAnalysis = getEvent(events, "FileAnalysis");
+        assertEquals(FILE_URI.getPath(), fileAnalysis.getString("path"));
+        assertEquals(Paths.get("src", "test", "resources", "k8s.yml").toFile().length(), fileAnalysis.getLong("size"));
+        assertEquals(2, fileAnalysis.getInt("issues"));
+    }
+
+
+    private static RecordedEvent getEvent(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(e -> e.getEventType().getName().equals("com.github.sbaudoin.sonar.yaml." + name))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Event " + name + " not found"));
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.rules;
+
+import com.github.sbaudoin.sonar.plugins.yaml.Utils;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.BracesCheck;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.CheckRepository;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.YamlCheck;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.YamlIssue;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.YamlSourceCode;
+import com.github.sbaudoin.sonar.plugins.yaml.highlighting.CpdTokenData;
+import com.github.sbaudoin.sonar.plugins.yaml.highlighting.HighlightingRanges;
+import com.github.sbaudoin.sonar.plugins.yaml.linecounter.LineCountData;
+import com.github.sbaudoin.sonar.plugins.yaml.settings.YamlSettings;
+import org.junit.jupiter.api.Test;
+import org.sonar.api.batch.sensor.highlighting.TypeOfText;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.rule.RuleKey;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisResultCacheTest {
+    @Test
+    void testGetKey() throws IOException {
+        AnalysisResultCache cache = new AnalysisResultCache(new MapSettings().asConfig());
+        YamlCheck check = new BracesCheck();
+        check.setRuleKey(RuleKey.of(CheckRepository.REPOSITORY_KEY, "BracesCheck"));
+        List<YamlCheck> checks = Collections.singletonList(check);
+
+        String key = cache.getKey(getSourceCode("braces/min-spaces-02.yaml"), checks);
+        assertNotNull(key);
+        assertEquals(key, cache.getKey(getSourceCode("braces/min-spaces-02.yaml"), checks));
+        assertNotEquals(key, cache.getKey(getSourceCode("braces/min-spaces-01.yaml"), checks));
+        assertNotEquals(key, cache.getKey(getSourceCode("braces/min-spaces-02.yaml"), Collections.emptyList()));
+
+        MapSettings settings = new MapSettings();
+        settings.setProperty(YamlSettings.DEDUP_MAX_ENTRIES_KEY, "0");
+        AnalysisResultCache disabled = new AnalysisResultCache(settings.asConfig());
+        assertNull(disabled.getKey(getSourceCode("braces/min-spaces-02.yaml"), checks));
+        disabled.put(null, getResult(10));
+        assertNull(disabled.get(null));
+        assertEquals(0, disabled.size());
+    }
+
+    @Test
+    void testEviction() {
+        AnalysisResultCache cache = new AnalysisResultCache(2, getResult(100).getRetainedSize());
+        AnalysisResultCache.Result a = getResult(10);
+        cache.put("a", a);
+        cache.put("b", getResult(10));
+        assertSame(a, cache.get("a"));
+        cache.put("c", getResult(10));
+        assertEquals(2, cache.size());
+        assertNull(cache.get("b"));
+        assertSame(a, cache.get("a"));
+        assertEquals(2, cache.getHits());
+
+        // Size limit
+        cache.put("d", getResult(90));
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get("d"));
+        cache.put("e", getResult(101));
+        assertNull(cache.get("e"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testRetainedSize() {
+        assertEquals(AnalysisResultCache.Result.BASE_SIZE + 10 * AnalysisResultCache.Result.CPD_TOKEN_SIZE, getResult(10).getRetainedSize());
+
+        HighlightingRanges ranges = new HighlightingRanges(0);
+        ranges.add(1, 0, 1, 3, TypeOfText.KEYWORD);
+        ranges.add(1, 5, 1, 8, TypeOfText.STRING);
+        RuleKey ruleKey = RuleKey.of(CheckRepository.REPOSITORY_KEY, "BracesCheck");
+        AnalysisResultCache.Result result = new AnalysisResultCache.Result(
+                new LineCountData(3, new HashSet<>(Arrays.asList(1, 2)), Collections.singleton(3)),
+                ranges,
+                Collections.singletonList(new CpdTokenData(1, 0, 1, 3, "key")),
+                null,
+                Collections.singletonList(new YamlIssue(ruleKey, "message", 1, 1)),
+                Collections.emptyList(),
+                null);
+        assertEquals(AnalysisResultCache.Result.BASE_SIZE
+                        + 2 * AnalysisResultCache.Result.RANGE_SIZE
+                        + AnalysisResultCache.Result.CPD_TOKEN_SIZE + 2 * 3
+                        + AnalysisResultCache.Result.ISSUE_SIZE + 2 * 7
+                        + 3 * AnalysisResultCache.Result.LINE_SIZE,
+                result.getRetainedSize());
+    }
+
+    private static YamlSourceCode getSourceCode(String path) throws IOException {
+        return new YamlSourceCode(Utils.getInputFile(path), Optional.of(Boolean.FALSE), false);
+    }
+
+    private static AnalysisResultCache.Result getResult(int cpdTokens) {
+        return new AnalysisResultCache.Result(null, new HighlightingRanges(0), Collections.nCopies(cpdTokens, new CpdTokenData(1, 0, 1, 1, "")),
+                null, Collections.emptyList(), Collections.emptyList(), null);
+    }
+}
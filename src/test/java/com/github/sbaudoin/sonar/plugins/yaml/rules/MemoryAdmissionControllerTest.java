@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.rules;
+
+import com.github.sbaudoin.sonar.plugins.yaml.settings.YamlSettings;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.utils.log.LogTesterJUnit5;
+import org.sonar.api.utils.log.LoggerLevel;
+
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MemoryAdmissionControllerTest {
+    private static final long MAX_HEAP = 1000L * 1024 * 1024;
+
+    @RegisterExtension
+    LogTesterJUnit5 logTester = new LogTesterJUnit5();
+
+
+    @Test
+    void testAdmit() {
+        AtomicLong used = new AtomicLong(0);
+        MemoryAdmissionController controller = new MemoryAdmissionController(true, used::get, MAX_HEAP);
+
+        // 900 MB available
+        assertEquals(MemoryAdmissionController.Admission.FULL, controller.admit("small.yaml", 1024));
+        assertEquals(MemoryAdmissionController.Admission.FULL, controller.admit("big.yaml", 10 * 1024 * 1024));
+        assertTrue(logTester.logs().isEmpty());
+
+        // 300 MB available: a 10 MB file needs 640 MB to be fully analyzed, 240 MB without highlighting
+        used.set(600L * 1024 * 1024);
+        assertEquals(MemoryAdmissionController.Admission.FULL, controller.admit("small.yaml", 1024));
+        assertEquals(MemoryAdmissionController.Admission.DEGRADED, controller.admit("big.yaml", 10 * 1024 * 1024));
+        assertEquals(1, logTester.logs(LoggerLevel.INFO).size());
+        assertEquals("Low heap headroom (300 MB) for file big.yaml (estimated cost: 640 MB), analyzing it without syntax highlighting", logTester.logs(LoggerLevel.INFO).get(0));
+
+        // 100 MB available
+        used.set(800L * 1024 * 1024);
+        assertEquals(MemoryAdmissionController.Admission.MEASURES_ONLY, controller.admit("big.yaml", 10 * 1024 * 1024));
+        assertEquals("Not enough heap headroom (100 MB) to analyze file big.yaml (estimated cost: 640 MB), computing its line measures only", logTester.logs(LoggerLevel.WARN).get(0));
+
+        // No headroom at all
+        used.set(MAX_HEAP);
+        assertEquals(MemoryAdmissionController.Admission.MEASURES_ONLY, controller.admit("small.yaml", 1024));
+        assertTrue(logTester.logs(LoggerLevel.WARN).get(1).startsWith("Not enough heap headroom (0 MB) to analyze file small.yaml"));
+
+        logTester.clear();
+        controller.logSummary();
+        assertEquals("1 YAML file(s) analyzed without syntax highlighting and 2 YAML file(s) not analyzed because of memory pressure, consider increasing the maximum heap size",
+                logTester.logs(LoggerLevel.WARN).get(0));
+    }
+
+    @Test
+    void testDisabled() {
+        MemoryAdmissionController controller = new MemoryAdmissionController(false, () -> MAX_HEAP, MAX_HEAP);
+        assertEquals(MemoryAdmissionController.Admission.FULL, controller.admit("big.yaml", 10 * 1024 * 1024));
+
+        controller = new MemoryAdmissionController(true, () -> Long.MAX_VALUE, Long.MAX_VALUE);
+        assertEquals(MemoryAdmissionController.Admission.FULL, controller.admit("big.yaml", 10 * 1024 * 1024));
+
+        MapSettings settings = new MapSettings();
+        settings.setProperty(YamlSettings.MEMORY_ADMISSION_KEY, "false");
+        controller = new MemoryAdmissionController(settings.asConfig());
+        assertEquals(MemoryAdmissionController.Admission.FULL, controller.admit("huge.yaml", Integer.MAX_VALUE));
+
+        controller.logSummary();
+        assertTrue(logTester.logs().isEmpty());
+    }
+
+    @Test
+    void testRetainedHeap() {
+        // Eden: only what survived the last young collection counts
+        MemoryPoolMXBean eden = getPool(MemoryType.HEAP, false, 10, 400);
+        // Old generation: everything promoted since the last old collection counts
+        MemoryPoolMXBean old = getPool(MemoryType.HEAP, true, 100, 700);
+        // Survivor space that does not report its collection usage
+        MemoryPoolMXBean survivor = getPool(MemoryType.HEAP, false, -1, 20);
+        MemoryPoolMXBean metaspace = getPool(MemoryType.NON_HEAP, true, -1, 5000);
+        assertEquals(10 + 700 + 20, MemoryAdmissionController.getRetainedHeap(Arrays.asList(eden, old, survivor, metaspace)));
+    }
+
+    @Test
+    void testDefault() {
+        MemoryAdmissionController controller = new MemoryAdmissionController(new MapSettings().asConfig());
+        assertEquals(MemoryAdmissionController.Admission.FULL, controller.admit("small.yaml", 10));
+        assertEquals(MemoryAdmissionController.Admission.MEASURES_ONLY, controller.admit("huge.yaml", Integer.MAX_VALUE));
+    }
+
+
+    private static MemoryPoolMXBean getPool(MemoryType type, boolean usageThreshold, long collectionUsed, long used) {
+        MemoryPoolMXBean pool = mock(MemoryPoolMXBean.class);
+        when(pool.getType()).thenReturn(type);
+        when(pool.isValid()).thenReturn(true);
+        when(pool.isUsageThresholdSupported()).thenReturn(usageThreshold);
+        when(pool.getCollectionUsage()).thenReturn(collectionUsed < 0 ? null : new MemoryUsage(0, collectionUsed, collectionUsed, -1));
+        when(pool.getUsage()).thenReturn(new MemoryUsage(0, used, used, -1));
+        return pool;
+    }
+}
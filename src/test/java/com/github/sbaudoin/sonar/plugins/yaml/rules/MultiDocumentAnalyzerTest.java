@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.rules;
+
+import com.github.sbaudoin.sonar.plugins.yaml.Utils;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.BracesCheck;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.CheckRepository;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.DocumentStartCheck;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.YamlCheck;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.YamlIssue;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.YamlSourceCode;
+import com.github.sbaudoin.sonar.plugins.yaml.settings.YamlSettings;
+import org.junit.jupiter.api.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.rule.RuleKey;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiDocumentAnalyzerTest {
+    @Test
+    void testFindDocumentBoundaries() {
+        assertArrayEquals(new int[] { 5, 14 }, MultiDocumentAnalyzer.findDocumentBoundaries("a: 1\n---\nb: 2\n--- # c\n----\nc: ---\n"));
+        assertArrayEquals(new int[] { 0, 11 }, MultiDocumentAnalyzer.findDocumentBoundaries("---\r\na: 1\r\n---"));
+        assertArrayEquals(new int[0], MultiDocumentAnalyzer.findDocumentBoundaries("a: 1\n"));
+        assertNull(MultiDocumentAnalyzer.findDocumentBoundaries("---\ra: 1\r---\r"));
+        assertNull(MultiDocumentAnalyzer.findDocumentBoundaries("---\na: 1\u2028---\n"));
+    }
+
+    @Test
+    void testFindDocumentBoundariesWithDirectives() {
+        // The directives, and the comments between them, belong to the document that follows
+        assertArrayEquals(new int[] { 0, 9 }, MultiDocumentAnalyzer.findDocumentBoundaries("---\na: 1\n%YAML 1.2\n# c\n%TAG ! tag:a,2000:\n---\nb: 2\n"));
+        assertArrayEquals(new int[] { 9 }, MultiDocumentAnalyzer.findDocumentBoundaries("a: 1\n...\n%YAML 1.2\n\n---\nb: 2\n"));
+        // Not a directive block
+        assertArrayEquals(new int[] { 15 }, MultiDocumentAnalyzer.findDocumentBoundaries("%YAML 1.2\nb: 2\n---\n"));
+    }
+
+    @Test
+    void testSplit() {
+        String content = "# Comment\n---\na: 1\n---\nb: 2\nc: 3\n---\nd: 4\n";
+        List<MultiDocumentAnalyzer.Fragment> fragments = MultiDocumentAnalyzer.split(content, MultiDocumentAnalyzer.findDocumentBoundaries(content), 2);
+
+        assertEquals(2, fragments.size());
+        assertEquals("# Comment\n---\na: 1\n---\nb: 2\nc: 3\n", fragments.get(0).content);
+        assertEquals(0, fragments.get(0).lineOffset);
+        assertEquals("---\nd: 4\n", fragments.get(1).content);
+        assertEquals(6, fragments.get(1).lineOffset);
+
+        assertEquals(1, MultiDocumentAnalyzer.split(content, MultiDocumentAnalyzer.findDocumentBoundaries(content), 1).size());
+    }
+
+    @Test
+    void testAnalyze() throws IOException {
+        MapSettings settings = new MapSettings();
+        settings.setProperty(YamlSettings.SPLIT_MIN_DOCUMENTS_KEY, "2");
+        settings.setProperty(YamlSettings.SPLIT_THREADS_KEY, "2");
+        MultiDocumentAnalyzer analyzer = new MultiDocumentAnalyzer(settings.asConfig());
+        InputFile inputFile = Utils.getInputFile("multi-documents/bundle.yaml");
+
+        YamlSourceCode parallelCode = new YamlSourceCode(inputFile, Optional.of(Boolean.FALSE));
+        List<YamlCheck> checks = getChecks();
+        List<YamlCheck> remainingChecks = analyzer.analyze(parallelCode, checks);
+        analyzer.close();
+        assertEquals(1, remainingChecks.size());
+        assertTrue(remainingChecks.get(0) instanceof DocumentStartCheck);
+
+        // Only the braces check has been run: run it on the whole file to compare the issues
+        YamlSourceCode serialCode = new YamlSourceCode(inputFile, Optional.of(Boolean.FALSE));
+        YamlCheck check = getChecks().get(0);
+        check.setYamlSourceCode(serialCode);
+        check.validate();
+
+        assertEquals(8, parallelCode.getYamlIssues().size());
+        assertEquals(serialCode.getYamlIssues().size(), parallelCode.getYamlIssues().size());
+        for (int i = 0; i < serialCode.getYamlIssues().size(); i++) {
+            YamlIssue expected = serialCode.getYamlIssues().get(i);
+            YamlIssue actual = parallelCode.getYamlIssues().get(i);
+            assertEquals(expected.getRuleKey(), actual.getRuleKey());
+            assertEquals(expected.getMessage(), actual.getMessage());
+            assertEquals(expected.getLine(), actual.getLine());
+            assertEquals(expected.getColumn(), actual.getColumn());
+            assertSame(expected.getClass(), actual.getClass());
+            assertEquals(expected.isSyntaxError(), actual.isSyntaxError());
+        }
+    }
+
+    @Test
+    void testNoSplit() throws IOException {
+        MultiDocumentAnalyzer analyzer = new MultiDocumentAnalyzer(new MapSettings().asConfig());
+        YamlSourceCode code = new YamlSourceCode(Utils.getInputFile("multi-documents/bundle.yaml"), Optional.of(Boolean.FALSE));
+        List<YamlCheck> checks = getChecks();
+
+        assertSame(checks, analyzer.analyze(code, checks));
+        assertTrue(code.getYamlIssues().isEmpty());
+        assertSame(Collections.emptyList(), analyzer.analyze(code, Collections.emptyList()));
+    }
+
+
+    private static List<YamlCheck> getChecks() {
+        YamlCheck braces = new BracesCheck();
+        braces.setRuleKey(RuleKey.of(CheckRepository.REPOSITORY_KEY, "BracesCheck"));
+        YamlCheck documentStart = new DocumentStartCheck();
+        documentStart.setRuleKey(RuleKey.of(CheckRepository.REPOSITORY_KEY, "DocumentStartCheck"));
+        return Arrays.asList(braces, documentStart);
+    }
+}
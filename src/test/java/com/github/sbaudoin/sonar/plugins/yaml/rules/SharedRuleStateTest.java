@@ -0,0 +1,63 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.rules;
+
+import com.github.sbaudoin.yamllint.YamlLintConfig;
+import com.github.sbaudoin.yamllint.YamlLintConfigException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedRuleStateTest {
+    @TempDir
+    Path temporaryFolder;
+
+
+    @Test
+    void testGetLintConfigCache() {
+        SharedRuleState state = new SharedRuleState();
+        assertSame(state.getLintConfigCache(), state.getLintConfigCache());
+        assertNotSame(state.getLintConfigCache(), new SharedRuleState().getLintConfigCache());
+    }
+
+    @Test
+    void testGetLocalConfig() throws Exception {
+        SharedRuleState state = new SharedRuleState();
+        File file = temporaryFolder.resolve(".yamllint").toFile();
+        Files.write(file.toPath(), "---\nrules:\n  braces: enable\n".getBytes(StandardCharsets.UTF_8));
+
+        YamlLintConfig config = state.getLocalConfig(file);
+        assertNotNull(config.getRuleConf("braces"));
+        assertSame(config, state.getLocalConfig(file));
+        assertNotSame(config, new SharedRuleState().getLocalConfig(file));
+
+        // The file is read again if it has changed
+        Files.write(file.toPath(), "---\nrules:\n  comments: enable\n  braces: disable\n".getBytes(StandardCharsets.UTF_8));
+        YamlLintConfig newConfig = state.getLocalConfig(file);
+        assertNotSame(config, newConfig);
+        assertNotNull(newConfig.getRuleConf("comments"));
+        assertSame(newConfig, state.getLocalConfig(file));
+
+        Files.write(file.toPath(), "---\nrules: [\n".getBytes(StandardCharsets.UTF_8));
+        assertThrows(YamlLintConfigException.class, () -> state.getLocalConfig(file));
+    }
+}
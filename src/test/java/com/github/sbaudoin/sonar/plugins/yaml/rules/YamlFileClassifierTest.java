@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.rules;
+
+import com.github.sbaudoin.sonar.plugins.yaml.Utils;
+import com.github.sbaudoin.sonar.plugins.yaml.settings.YamlSettings;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.utils.log.LogTesterJUnit5;
+import org.sonar.api.utils.log.LoggerLevel;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class YamlFileClassifierTest {
+    @RegisterExtension
+    LogTesterJUnit5 logTester = new LogTesterJUnit5();
+
+    @Test
+    void testNoConfiguration() throws IOException {
+        YamlFileClassifier classifier = new YamlFileClassifier(new MapSettings().asConfig(), Utils.BASE_DIR);
+        assertEquals(YamlFileClassifier.Classification.ANALYZE, classifier.classify(Utils.getInputFile("generated/generated-01.yaml")));
+        assertEquals(YamlFileClassifier.Classification.ANALYZE, classifier.classify(Utils.getInputFile("k8s.yml")));
+        classifier.logSummary();
+        assertTrue(logTester.logs(LoggerLevel.INFO).isEmpty());
+    }
+
+    @Test
+    void testPathPattern() throws IOException {
+        MapSettings settings = new MapSettings();
+        settings.setProperty(YamlSettings.GENERATED_FILE_PATTERNS_KEY, "**/generated/**,**/*.lock.yaml");
+        YamlFileClassifier classifier = new YamlFileClassifier(settings.asConfig(), Utils.BASE_DIR);
+
+        assertEquals(YamlFileClassifier.Classification.MEASURES_ONLY, classifier.classify(Utils.getInputFile("generated/generated-01.yaml")));
+        assertEquals(YamlFileClassifier.Classification.ANALYZE, classifier.classify(Utils.getInputFile("k8s.yml")));
+        assertEquals("path pattern", classifier.getGeneratedReason(Utils.getInputFile("generated/generated-01.yaml")));
+
+        classifier.logSummary();
+        assertEquals("1 YAML file(s) identified as generated or vendored, action: MEASURES_ONLY", logTester.logs(LoggerLevel.INFO).get(0));
+    }
+
+    @Test
+    void testRelativePathPattern() throws IOException {
+        MapSettings settings = new MapSettings();
+        // The directories above the base directory are not matched
+        settings.setProperty(YamlSettings.GENERATED_FILE_PATTERNS_KEY, "generated/*.yaml,**/resources/**");
+        YamlFileClassifier classifier = new YamlFileClassifier(settings.asConfig(), Utils.BASE_DIR);
+
+        assertEquals("path pattern", classifier.getGeneratedReason(Utils.getInputFile("generated/generated-01.yaml")));
+        assertNull(classifier.getGeneratedReason(Utils.getInputFile("k8s.yml")));
+    }
+
+    @Test
+    void testHeaderMarker() throws IOException {
+        MapSettings settings = new MapSettings();
+        settings.setProperty(YamlSettings.GENERATED_HEADER_MARKERS_KEY, "@generated,DO NOT EDIT");
+        settings.setProperty(YamlSettings.GENERATED_FILES_ACTION_KEY, YamlSettings.GENERATED_FILES_ACTION_SKIP);
+        YamlFileClassifier classifier = new YamlFileClassifier(settings.asConfig(), Utils.BASE_DIR);
+
+        assertEquals(YamlFileClassifier.Classification.SKIP, classifier.classify(Utils.getInputFile("generated/generated-01.yaml")));
+        assertEquals("header marker 'DO NOT EDIT'", classifier.getGeneratedReason(Utils.getInputFile("generated/generated-01.yaml")));
+        assertEquals(YamlFileClassifier.Classification.ANALYZE, classifier.classify(Utils.getInputFile("k8s.yml")));
+    }
+
+    @Test
+    void testFileSize() throws IOException {
+        MapSettings settings = new MapSettings();
+        settings.setProperty(YamlSettings.GENERATED_MAX_FILE_SIZE_KEY, "1");
+        YamlFileClassifier classifier = new YamlFileClassifier(settings.asConfig(), Utils.BASE_DIR);
+
+        assertEquals("file size", classifier.getGeneratedReason(Utils.getInputFile("generated/generated-01.yaml")));
+        assertNull(classifier.getGeneratedReason(Utils.getInputFile("k8s.yml")));
+    }
+
+    @Test
+    void testLineLength() throws IOException {
+        MapSettings settings = new MapSettings();
+        settings.setProperty(YamlSettings.GENERATED_MAX_LINE_LENGTH_KEY, "120");
+        YamlFileClassifier classifier = new YamlFileClassifier(settings.asConfig(), Utils.BASE_DIR);
+
+        assertEquals("line length", classifier.getGeneratedReason(Utils.getInputFile("generated/generated-01.yaml")));
+        assertNull(classifier.getGeneratedReason(Utils.getInputFile("k8s.yml")));
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.rules;
+
+import com.github.sbaudoin.sonar.plugins.yaml.Scaling;
+import com.github.sbaudoin.sonar.plugins.yaml.Utils;
+import com.github.sbaudoin.sonar.plugins.yaml.YamlCorpus;
+import com.github.sbaudoin.sonar.plugins.yaml.checks.CheckRepository;
+import com.github.sbaudoin.sonar.plugins.yaml.settings.YamlSettings;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.batch.rule.CheckFactory;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.batch.rule.internal.NewActiveRule;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.measures.FileLinesContext;
+import org.sonar.api.measures.FileLinesContextFactory;
+import org.sonar.api.rule.RuleKey;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@Tag(Scaling.TAG)
+class YamlSensorScalingTest {
+    /**
+     * yamllint rules (each one lints the files again) and token-based rules
+     */
+    private static final String[] RULES = { "BracesCheck", "ColonsCheck", "CommentsCheck", "IndentationCheck",
+            "KeyDuplicatesCheck", "LineLengthCheck", "TruthyCheck", "ForbiddenKeyCheck", "DuplicateResourceCheck" };
+
+    @TempDir
+    Path temporaryFolder;
+
+    private final ActiveRules activeRules = getActiveRules();
+
+
+    @Test
+    void testDocuments() throws Exception {
+        Scaling.assertScaling("Sensor (documents)", Scaling.LINEAR, f -> new YamlCorpus().documents(100 * f).depth(4).commentRatio(0.1).generate(), String::length,
+                content -> prepare(Collections.singletonList(content)), YamlSensorScalingTest::execute);
+    }
+
+    @Test
+    void testFiles() throws Exception {
+        Scaling.assertScaling("Sensor (files)", Scaling.LINEAR, f -> {
+            List<String> files = new ArrayList<>();
+            for (int i = 0; i < 50 * f; i++) {
+                files.add(new YamlCorpus().seed(i).documents(2).depth(4).generate());
+            }
+            return files;
+        }, files -> files.stream().mapToLong(String::length).sum(), this::prepare, YamlSensorScalingTest::execute);
+    }
+
+
+    private static ActiveRules getActiveRules() {
+        ActiveRulesBuilder builder = new ActiveRulesBuilder();
+        for (String rule : RULES) {
+            NewActiveRule.Builder activeRule = new NewActiveRule.Builder().setRuleKey(RuleKey.of(CheckRepository.REPOSITORY_KEY, rule));
+            if ("ForbiddenKeyCheck".equals(rule)) {
+                activeRule.setParam("key-name", "k1");
+            }
+            builder.addRule(activeRule.build());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Creates the context, the file system and the sensor of an analysis, out of the measured workload
+     */
+    private Analysis prepare(List<String> files) {
+        SensorContextTester context = Utils.getSensorContext();
+        context.setActiveRules(activeRules);
+        // Files analyzed in the current thread, where the allocations are measured
+        context.settings().setProperty(YamlSettings.SPLIT_MIN_DOCUMENTS_KEY, "0");
+        DefaultFileSystem fs = Utils.getFileSystem();
+        fs.setWorkDir(temporaryFolder);
+        for (int i = 0; i < files.size(); i++) {
+            fs.add(Utils.getInputFile("scaling/file-" + i + ".yaml", files.get(i)));
+        }
+        FileLinesContextFactory fileLinesContextFactory = mock(FileLinesContextFactory.class);
+        when(fileLinesContextFactory.createFor(any(InputFile.class))).thenReturn(mock(FileLinesContext.class));
+
+        return new Analysis(new YamlSensor(fs, new CheckFactory(activeRules), fileLinesContextFactory), context);
+    }
+
+    private static void execute(Analysis analysis) {
+        analysis.sensor.execute(analysis.context);
+    }
+
+
+    private static final class Analysis {
+        private final YamlSensor sensor;
+        private final SensorContextTester context;
+
+        Analysis(YamlSensor sensor, SensorContextTester context) {
+            this.sensor = sensor;
+            this.context = context;
+        }
+    }
+}
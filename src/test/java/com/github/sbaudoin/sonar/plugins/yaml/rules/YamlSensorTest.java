@@ -19,6 +19,7 @@ import com.github.sbaudoin.sonar.plugins.yaml.Utils;
 import com.github.sbaudoin.sonar.plugins.yaml.checks.CheckRepository;
 import com.github.sbaudoin.sonar.plugins.yaml.checks.YamlSourceCode;
 import com.github.sbaudoin.sonar.plugins.yaml.languages.YamlLanguage;
+import com.github.sbaudoin.sonar.plugins.yaml.settings.YamlSettings;
 import com.github.sbaudoin.yamllint.Cli;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
@@ -28,15 +29,18 @@ import org.mockito.AdditionalAnswers;
 import org.mockito.MockedConstruction;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.batch.rule.ActiveRules;
 import org.sonar.api.batch.rule.CheckFactory;
 import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
 import org.sonar.api.batch.rule.internal.NewActiveRule;
 import org.sonar.api.batch.sensor.SensorDescriptor;
 import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
+import org.sonar.api.batch.sensor.highlighting.TypeOfText;
 import org.sonar.api.batch.sensor.highlighting.internal.DefaultHighlighting;
 import org.sonar.api.batch.sensor.internal.SensorContextTester;
 import org.sonar.api.batch.sensor.internal.SensorStorage;
+import org.sonar.api.batch.sensor.issue.Issue;
 import org.sonar.api.config.Configuration;
 import org.sonar.api.measures.FileLinesContext;
 import org.sonar.api.measures.FileLinesContextFactory;
@@ -46,12 +50,17 @@ import org.sonar.api.utils.log.LoggerLevel;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import static com.github.sbaudoin.yamllint.Cli.XDG_CONFIG_HOME_ENV_VAR;
 import static com.github.sbaudoin.yamllint.Cli.YAMLLINT_CONFIG_FILE_ENV_VAR;
@@ -97,6 +106,34 @@ class YamlSensorTest {
         });
     }
 
+    @Test
+    void testSensorCpdTokens() throws Exception {
+        init(false);
+        InputFile inputFile = Utils.getInputFile("k8s.yml");
+        fs.add(inputFile);
+
+        sensor.execute(context);
+
+        assertNotNull(context.cpdTokens(inputFile.key()));
+        assertFalse(context.cpdTokens(inputFile.key()).isEmpty());
+        assertTrue(context.cpdTokens(inputFile.key()).stream().anyMatch(line -> line.getValue().contains("nginx")));
+    }
+
+    @Test
+    void testSensorHighlightingMaxRanges() throws Exception {
+        init(false);
+        context.settings().setProperty(YamlSettings.HIGHLIGHTING_MAX_RANGES_KEY, "2");
+        InputFile inputFile = Utils.getInputFile("highlighting.yaml", "---\nkey1: value1\nkey2: value2\n");
+        fs.add(inputFile);
+
+        sensor.execute(context);
+
+        assertEquals(Collections.singletonList(TypeOfText.CONSTANT), context.highlightingTypeAt(inputFile.key(), 1, 0));
+        assertEquals(Collections.singletonList(TypeOfText.KEYWORD), context.highlightingTypeAt(inputFile.key(), 2, 0));
+        assertTrue(context.highlightingTypeAt(inputFile.key(), 2, 6).isEmpty());
+        assertTrue(context.highlightingTypeAt(inputFile.key(), 3, 0).isEmpty());
+    }
+
     @Test
     void testSensor2() throws Exception {
         withEnvironmentVariable("XDG_CONFIG_HOME", "src" + File.separator + "test" + File.separator + "resources" + File.separator + "config" + File.separator + "XDG").execute(() -> {
@@ -148,6 +185,150 @@ class YamlSensorTest {
         });
     }
 
+    @Test
+    void testSensorIssueLimitSummary() throws Exception {
+        init(false);
+        context.settings().setProperty(YamlSettings.MAX_ISSUES_PER_RULE_KEY, "2");
+        fs.add(Utils.getInputFile("braces/many-issues.yaml"));
+
+        sensor.execute(context);
+
+        assertEquals(3, context.allIssues().size());
+        Issue summary = context.allIssues().stream()
+                .filter(issue -> issue.primaryLocation().message().startsWith("3 more issues"))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Summary issue not found"));
+        assertEquals(ruleKey, summary.ruleKey());
+        assertEquals(4, summary.primaryLocation().textRange().start().line());
+        assertEquals(2, summary.flows().size());
+        assertEquals(6, summary.flows().get(1).locations().get(0).textRange().start().line());
+    }
+
+    @Test
+    void testSensorIssueLimitDrop() throws Exception {
+        init(false);
+        context.settings().setProperty(YamlSettings.MAX_ISSUES_PER_FILE_KEY, "1");
+        context.settings().setProperty(YamlSettings.ISSUES_OVERFLOW_KEY, YamlSettings.ISSUES_OVERFLOW_DROP);
+        fs.add(Utils.getInputFile("braces/many-issues.yaml"));
+
+        sensor.execute(context);
+
+        assertEquals(1, context.allIssues().size());
+        assertEquals(2, context.allIssues().iterator().next().primaryLocation().textRange().start().line());
+        assertTrue(logTester.logs(LoggerLevel.INFO).contains("4 issues of rule " + ruleKey + " dropped for file many-issues.yaml (issue limit reached)"));
+    }
+
+    @Test
+    void testSensorGeneratedFiles() throws Exception {
+        init(false);
+        context.settings().setProperty(YamlSettings.GENERATED_FILE_PATTERNS_KEY, "**/braces/many-*.yaml");
+        fs.add(Utils.getInputFile("braces/many-issues.yaml"));
+        fs.add(Utils.getInputFile("braces/min-spaces-02.yaml"));
+
+        sensor.execute(context);
+
+        assertEquals(1, context.allIssues().size());
+        assertTrue(context.allIssues().iterator().next().primaryLocation().inputComponent().key().endsWith("min-spaces-02.yaml"));
+        assertTrue(logTester.logs(LoggerLevel.INFO).contains("1 YAML file(s) identified as generated or vendored, action: MEASURES_ONLY"));
+    }
+
+    @Test
+    void testSensorFileScope() throws Exception {
+        init(false);
+        ActiveRules activeRules = new ActiveRulesBuilder()
+                .addRule(new NewActiveRule.Builder().setRuleKey(ruleKey).setParam("excluded-files", "**/braces/many-*.yaml").build())
+                .build();
+        context.setActiveRules(activeRules);
+        FileLinesContextFactory fileLinesContextFactory = mock(FileLinesContextFactory.class);
+        when(fileLinesContextFactory.createFor(any(InputFile.class))).thenReturn(mock(FileLinesContext.class));
+        sensor = new YamlSensor(fs, new CheckFactory(activeRules), fileLinesContextFactory);
+        fs.add(Utils.getInputFile("braces/many-issues.yaml"));
+        fs.add(Utils.getInputFile("braces/min-spaces-02.yaml"));
+
+        sensor.execute(context);
+
+        assertEquals(1, context.allIssues().size());
+        assertTrue(context.allIssues().iterator().next().primaryLocation().inputComponent().key().endsWith("min-spaces-02.yaml"));
+    }
+
+    @Test
+    void testSensorCrossFileRules() throws Exception {
+        init(false);
+        ActiveRules activeRules = new ActiveRulesBuilder()
+                .addRule(new NewActiveRule.Builder().setRuleKey(RuleKey.of(CheckRepository.REPOSITORY_KEY, "DuplicateResourceCheck")).build())
+                .build();
+        context.setActiveRules(activeRules);
+        FileLinesContextFactory fileLinesContextFactory = mock(FileLinesContextFactory.class);
+        when(fileLinesContextFactory.createFor(any(InputFile.class))).thenReturn(mock(FileLinesContext.class));
+        SharedRuleState sharedRuleState = new SharedRuleState();
+
+        // Two modules, indexed in the same project index
+        DefaultFileSystem module1 = Utils.getFileSystem();
+        module1.add(Utils.getInputFile("project-index/app-1.yaml"));
+        new YamlSensor(module1, new CheckFactory(activeRules), fileLinesContextFactory, sharedRuleState).execute(context);
+        DefaultFileSystem module2 = Utils.getFileSystem();
+        module2.add(Utils.getInputFile("project-index/app-2.yaml"));
+        // Same content as app-2.yaml: its analysis result, and its facts, are reused
+        module2.add(Utils.getInputFile("project-index/app-2-copy.yaml", new String(Files.readAllBytes(Paths.get("src", "test", "resources", "project-index", "app-2.yaml")), StandardCharsets.UTF_8)));
+        new YamlSensor(module2, new CheckFactory(activeRules), fileLinesContextFactory, sharedRuleState).execute(context);
+        assertTrue(context.allIssues().isEmpty());
+
+        YamlProjectSensor projectSensor = new YamlProjectSensor(fs, new CheckFactory(activeRules), sharedRuleState);
+        DummySensorDescriptor descriptor = new DummySensorDescriptor();
+        projectSensor.describe(descriptor);
+        assertEquals("YAML Project Sensor", descriptor.sensorName);
+        projectSensor.execute(context);
+
+        // The copy duplicates all the resources of app-2.yaml
+        List<String> issues = context.allIssues().stream()
+                .map(i -> Paths.get(i.primaryLocation().inputComponent().key()).getFileName() + ":" + i.primaryLocation().textRange().start().line())
+                .sorted()
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList("app-2-copy.yaml:24", "app-2-copy.yaml:30", "app-2-copy.yaml:5", "app-2.yaml:5"), issues);
+        // The index is released once evaluated
+        assertNull(sharedRuleState.releaseProjectIndex());
+    }
+
+    @Test
+    void testSensorIdenticalFiles() throws Exception {
+        init(false);
+        InputFile original = Utils.getInputFile("braces/min-spaces-02.yaml");
+        InputFile copy = TestInputFileBuilder.create(Utils.MODULE_KEY, "copy/min-spaces-02.yaml")
+                .setModuleBaseDir(Paths.get("."))
+                .setContents(original.contents())
+                .setLanguage(YamlLanguage.KEY)
+                .setCharset(StandardCharsets.UTF_8)
+                .build();
+        fs.add(original);
+        fs.add(copy);
+
+        sensor.execute(context);
+
+        assertEquals(2, context.allIssues().size());
+        assertEquals(1, context.allIssues().stream().filter(issue -> issue.primaryLocation().inputComponent().equals(copy)).count());
+        assertFalse(context.highlightingTypeAt(copy.key(), 2, 0).isEmpty());
+        assertTrue(logTester.logs(LoggerLevel.INFO).contains("1 YAML file(s) identical to an already analyzed file, analysis results reused"));
+    }
+
+    @Test
+    void testSensorIdenticalFilesNoCache() throws Exception {
+        init(false);
+        context.settings().setProperty(YamlSettings.DEDUP_MAX_ENTRIES_KEY, "0");
+        InputFile original = Utils.getInputFile("braces/min-spaces-02.yaml");
+        fs.add(original);
+        fs.add(TestInputFileBuilder.create(Utils.MODULE_KEY, "copy/min-spaces-02.yaml")
+                .setModuleBaseDir(Paths.get("."))
+                .setContents(original.contents())
+                .setLanguage(YamlLanguage.KEY)
+                .setCharset(StandardCharsets.UTF_8)
+                .build());
+
+        sensor.execute(context);
+
+        assertEquals(2, context.allIssues().size());
+        assertTrue(logTester.logs(LoggerLevel.INFO).stream().noneMatch(log -> log.contains("analysis results reused")));
+    }
+
     @Test
     void testSensorHighlightingUnsupportedOperationException() throws Exception {
         init(false);
@@ -237,6 +418,21 @@ class YamlSensorTest {
         assertNotNull(sensor.localConfig.getRuleConf("braces"));
     }
 
+    @Test
+    void testSharedRuleState() throws Exception {
+        Files.copy(Paths.get("src", "test", "resources", "config", "local", Cli.USER_CONF_FILENAME), Utils.BASE_DIR.resolve(Cli.USER_CONF_FILENAME), StandardCopyOption.REPLACE_EXISTING);
+
+        init(false);
+        FileLinesContextFactory fileLinesContextFactory = mock(FileLinesContextFactory.class);
+        when(fileLinesContextFactory.createFor(any(InputFile.class))).thenReturn(mock(FileLinesContext.class));
+        SharedRuleState sharedRuleState = new SharedRuleState();
+        YamlSensor sensor1 = new YamlSensor(fs, new CheckFactory(context.activeRules()), fileLinesContextFactory, sharedRuleState);
+        YamlSensor sensor2 = new YamlSensor(fs, new CheckFactory(context.activeRules()), fileLinesContextFactory, sharedRuleState);
+        assertNotNull(sensor1.localConfig);
+        assertSame(sensor1.localConfig, sensor2.localConfig);
+        assertNotSame(sensor.localConfig, sensor1.localConfig);
+    }
+
     @AfterEach
     void cleanEnv() throws IOException {
         Files.deleteIfExists(Utils.BASE_DIR.resolve(Cli.USER_CONF_FILENAME));
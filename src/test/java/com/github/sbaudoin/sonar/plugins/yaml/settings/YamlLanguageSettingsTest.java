@@ -27,23 +27,55 @@ class YamlLanguageSettingsTest {
     void testGetPropertiesWithoutYamlBuiltinSupport() {
         List<PropertyDefinition> defs = YamlSettings.getProperties(false);
 
-        assertEquals(3, defs.size());
+        assertEquals(18, defs.size());
         assertEquals(YamlSettings.FILE_SUFFIXES_KEY, defs.get(0).key());
         assertEquals(YamlSettings.FILE_SUFFIXES_DEFAULT_VALUE, defs.get(0).defaultValue());
         assertEquals(YamlSettings.FILTER_UTF8_LB_KEY, defs.get(1).key());
         assertEquals("false", defs.get(1).defaultValue());
         assertEquals(YamlSettings.YAML_LINT_CONF_PATH_KEY, defs.get(2).key());
         assertEquals("", defs.get(2).defaultValue());
+        assertEquals(YamlSettings.MAX_ISSUES_PER_FILE_KEY, defs.get(3).key());
+        assertEquals("0", defs.get(3).defaultValue());
+        assertEquals(YamlSettings.MAX_ISSUES_PER_RULE_KEY, defs.get(4).key());
+        assertEquals("0", defs.get(4).defaultValue());
+        assertEquals(YamlSettings.ISSUES_OVERFLOW_KEY, defs.get(5).key());
+        assertEquals(YamlSettings.ISSUES_OVERFLOW_SUMMARY, defs.get(5).defaultValue());
+        assertEquals(YamlSettings.GENERATED_FILE_PATTERNS_KEY, defs.get(6).key());
+        assertEquals(YamlSettings.GENERATED_HEADER_MARKERS_KEY, defs.get(7).key());
+        assertEquals(YamlSettings.GENERATED_MAX_FILE_SIZE_KEY, defs.get(8).key());
+        assertEquals("0", defs.get(8).defaultValue());
+        assertEquals(YamlSettings.GENERATED_MAX_LINE_LENGTH_KEY, defs.get(9).key());
+        assertEquals("0", defs.get(9).defaultValue());
+        assertEquals(YamlSettings.GENERATED_FILES_ACTION_KEY, defs.get(10).key());
+        assertEquals(YamlSettings.GENERATED_FILES_ACTION_MEASURES, defs.get(10).defaultValue());
+        assertEquals(YamlSettings.SPLIT_MIN_DOCUMENTS_KEY, defs.get(11).key());
+        assertEquals(YamlSettings.SPLIT_MIN_DOCUMENTS_DEFAULT_VALUE, defs.get(11).defaultValue());
+        assertEquals(YamlSettings.SPLIT_THREADS_KEY, defs.get(12).key());
+        assertEquals("0", defs.get(12).defaultValue());
+        assertEquals(YamlSettings.DEDUP_MAX_ENTRIES_KEY, defs.get(13).key());
+        assertEquals(YamlSettings.DEDUP_MAX_ENTRIES_DEFAULT_VALUE, defs.get(13).defaultValue());
+        assertEquals(YamlSettings.DOCUMENT_KIND_KEY, defs.get(15).key());
+        assertEquals(YamlSettings.DOCUMENT_KIND_KEY_DEFAULT_VALUE, defs.get(15).defaultValue());
+        assertEquals(YamlSettings.INDEX_MAX_ENTRIES_KEY, defs.get(16).key());
+        assertEquals(YamlSettings.INDEX_MAX_ENTRIES_DEFAULT_VALUE, defs.get(16).defaultValue());
+        assertEquals(YamlSettings.HIGHLIGHTING_MAX_RANGES_KEY, defs.get(17).key());
+        assertEquals("0", defs.get(17).defaultValue());
     }
 
     @Test
     void testGetPropertiesWithYamlBuiltinSupport() {
         List<PropertyDefinition> defs = YamlSettings.getProperties(true);
 
-        assertEquals(2, defs.size());
+        assertEquals(17, defs.size());
         assertEquals(YamlSettings.FILTER_UTF8_LB_KEY, defs.get(0).key());
         assertEquals("false", defs.get(0).defaultValue());
         assertEquals(YamlSettings.YAML_LINT_CONF_PATH_KEY, defs.get(1).key());
         assertEquals("", defs.get(1).defaultValue());
+        assertEquals(YamlSettings.MAX_ISSUES_PER_FILE_KEY, defs.get(2).key());
+        assertEquals(YamlSettings.MAX_ISSUES_PER_RULE_KEY, defs.get(3).key());
+        assertEquals(YamlSettings.ISSUES_OVERFLOW_KEY, defs.get(4).key());
+        assertEquals(YamlSettings.GENERATED_FILES_ACTION_KEY, defs.get(9).key());
+        assertEquals(YamlSettings.SPLIT_THREADS_KEY, defs.get(11).key());
+        assertEquals(YamlSettings.DEDUP_MAX_ENTRIES_KEY, defs.get(12).key());
     }
 }
@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.watch;
+
+import com.github.sbaudoin.sonar.plugins.yaml.checks.YamlIssue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.utils.log.LogTesterJUnit5;
+import org.sonar.api.utils.log.LoggerLevel;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalAnalyzerTest {
+    @RegisterExtension
+    LogTesterJUnit5 logTester = new LogTesterJUnit5();
+
+    @TempDir
+    Path baseDir;
+
+
+    @Test
+    void testDefaultRules() throws IOException {
+        LocalAnalyzer analyzer = new LocalAnalyzer(baseDir.toFile(), LocalAnalyzer.getDefaultRules(), StandardCharsets.UTF_8, false);
+        assertEquals(20, analyzer.getChecks().size());
+
+        List<YamlIssue> issues = analyzer.analyze(write("test.yaml", "---\nkey: yes\n"));
+        assertEquals(1, issues.size());
+        assertEquals("TruthyCheck", issues.get(0).getRuleKey().rule());
+        assertEquals(2, issues.get(0).getLine());
+        assertTrue(analyzer.analyze(write("test.yaml", "---\nkey: true\n")).isEmpty());
+    }
+
+    @Test
+    void testRuleParameters() throws IOException {
+        Path file = write("test.yaml", "---\nkey: a not so long value\n");
+        Properties rules = new Properties();
+        rules.setProperty("LineLengthCheck", "true");
+        assertTrue(new LocalAnalyzer(baseDir.toFile(), rules, StandardCharsets.UTF_8, false).analyze(file).isEmpty());
+
+        rules.setProperty("LineLengthCheck.max", "20");
+        List<YamlIssue> issues = new LocalAnalyzer(baseDir.toFile(), rules, StandardCharsets.UTF_8, false).analyze(file);
+        assertEquals(1, issues.size());
+        assertEquals("LineLengthCheck", issues.get(0).getRuleKey().rule());
+        assertEquals(2, issues.get(0).getLine());
+    }
+
+    @Test
+    void testFileScope() throws IOException {
+        Files.createDirectories(baseDir.resolve("charts/app"));
+        Path chart = write("charts/app/values.yaml", "---\nkey: yes\n");
+        Path other = write("other.yaml", "---\nkey: yes\n");
+        Properties rules = new Properties();
+        rules.setProperty("TruthyCheck", "true");
+        rules.setProperty("TruthyCheck.included-files", "charts/**/values.yaml");
+        LocalAnalyzer analyzer = new LocalAnalyzer(baseDir.toFile(), rules, StandardCharsets.UTF_8, false);
+        assertEquals(1, analyzer.analyze(chart).size());
+        assertTrue(analyzer.analyze(other).isEmpty());
+        assertTrue(logTester.logs(LoggerLevel.WARN).isEmpty());
+    }
+
+    @Test
+    void testInvalidParameter() {
+        Properties rules = new Properties();
+        rules.setProperty("LineLengthCheck", "true");
+        rules.setProperty("LineLengthCheck.max", "abc");
+        File baseDirFile = baseDir.toFile();
+        Throwable t = assertThrows(IllegalArgumentException.class, () -> new LocalAnalyzer(baseDirFile, rules, StandardCharsets.UTF_8, false));
+        assertEquals("Invalid value of parameter max of rule LineLengthCheck: abc", t.getMessage());
+    }
+
+    @Test
+    void testUnknownAndCrossFileRules() {
+        Properties rules = new Properties();
+        rules.setProperty("DuplicateResourceCheck", "true");
+        rules.setProperty("TruthyCheck", "false");
+        rules.setProperty("TruthyCheck.allowed-values", "true");
+        rules.setProperty("FooCheck", "true");
+        rules.setProperty("LineLengthCheck.max", "120");
+        rules.setProperty("LineLengthCheck.foo", "bar");
+        LocalAnalyzer analyzer = new LocalAnalyzer(baseDir.toFile(), rules, StandardCharsets.UTF_8, false);
+        assertTrue(analyzer.getChecks().isEmpty());
+        assertTrue(logTester.logs(LoggerLevel.WARN).contains("Rule DuplicateResourceCheck is a cross-file rule, it is not supported outside of a SonarQube analysis"));
+        assertTrue(logTester.logs(LoggerLevel.WARN).contains("Unknown rule or rule parameter: FooCheck"));
+        assertFalse(logTester.logs(LoggerLevel.WARN).contains("Unknown rule or rule parameter: TruthyCheck.allowed-values"));
+        assertFalse(logTester.logs(LoggerLevel.WARN).contains("Unknown rule or rule parameter: LineLengthCheck.max"));
+        assertTrue(logTester.logs(LoggerLevel.WARN).contains("Unknown rule or rule parameter: LineLengthCheck.foo"));
+    }
+
+    @Test
+    void testSyntaxError() throws IOException {
+        Path file = write("test.yaml", "---\nkey: [\n");
+        List<YamlIssue> issues = new LocalAnalyzer(baseDir.toFile(), LocalAnalyzer.getDefaultRules(), StandardCharsets.UTF_8, false).analyze(file);
+        assertEquals(1, issues.size());
+        assertEquals("ParsingErrorCheck", issues.get(0).getRuleKey().rule());
+
+        Properties rules = new Properties();
+        rules.setProperty("TruthyCheck", "true");
+        assertTrue(new LocalAnalyzer(baseDir.toFile(), rules, StandardCharsets.UTF_8, false).analyze(file).isEmpty());
+    }
+
+    @Test
+    void testLocalConfig() throws IOException {
+        Path file = write("test.yaml", "---\nkey: yes\n");
+        LocalAnalyzer analyzer = new LocalAnalyzer(baseDir.toFile(), LocalAnalyzer.getDefaultRules(), StandardCharsets.UTF_8, false);
+        assertEquals(1, analyzer.analyze(file).size());
+
+        write(".yamllint", "extends: default\nrules:\n  truthy: disable\n");
+        assertTrue(analyzer.analyze(file).isEmpty());
+    }
+
+
+    private Path write(String filename, String contents) throws IOException {
+        return Files.write(baseDir.resolve(filename), contents.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.watch;
+
+import com.github.sbaudoin.sonar.plugins.yaml.checks.YamlIssue;
+import org.junit.jupiter.api.Test;
+import org.sonar.api.rule.RuleKey;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultPublisherTest {
+    private static final List<YamlIssue> ISSUES = Arrays.asList(
+            new YamlIssue(RuleKey.of("yaml", "TruthyCheck"), "truthy value should be one of [false, true]", 2, 6),
+            new YamlIssue(null, "Say \"hello\"\n\t\\ \u0001", 3, 0));
+
+
+    @Test
+    void testToJson() {
+        assertEquals("{\"file\":\"a/b.yaml\",\"issues\":[]}", ResultPublisher.toJson("a/b.yaml", Collections.emptyList()));
+        assertEquals("{\"file\":\"a/b.yaml\",\"issues\":["
+                        + "{\"line\":2,\"column\":6,\"rule\":\"yaml:TruthyCheck\",\"message\":\"truthy value should be one of [false, true]\"},"
+                        + "{\"line\":3,\"column\":1,\"rule\":null,\"message\":\"Say \\\"hello\\\"\\n\\t\\\\ \\u0001\"}]}",
+                ResultPublisher.toJson("a/b.yaml", ISSUES));
+    }
+
+    @Test
+    void testPublish() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ResultPublisher publisher = new ResultPublisher(new PrintStream(out, true, "UTF-8"), -1)) {
+            assertEquals(-1, publisher.getPort());
+            publisher.publish("a/b.yaml", ISSUES.subList(0, 1));
+            publisher.publishSummary(3, 1, 12);
+        }
+        assertEquals("a/b.yaml:2:6: truthy value should be one of [false, true] (TruthyCheck)" + System.lineSeparator()
+                + "3 file(s) analyzed in 12 ms, 1 issue(s)" + System.lineSeparator(), out.toString("UTF-8"));
+    }
+
+    @Test
+    void testSocket() throws IOException {
+        try (ResultPublisher publisher = new ResultPublisher(new PrintStream(new ByteArrayOutputStream()), 0)) {
+            assertTrue(publisher.getPort() > 0);
+            try (Socket client = new Socket(InetAddress.getLoopbackAddress(), publisher.getPort());
+                 BufferedReader reader = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8))) {
+                // The client is accepted asynchronously: publish until it receives a line
+                client.setSoTimeout(100);
+                String line = null;
+                for (int i = 0; i < 100 && line == null; i++) {
+                    publisher.publish("a/b.yaml", ISSUES.subList(0, 1));
+                    try {
+                        line = reader.readLine();
+                    } catch (SocketTimeoutException e) {
+                        // Not accepted yet
+                    }
+                }
+                assertEquals(ResultPublisher.toJson("a/b.yaml", ISSUES.subList(0, 1)), line);
+            }
+        }
+    }
+}
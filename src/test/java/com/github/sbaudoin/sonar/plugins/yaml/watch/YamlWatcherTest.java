@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) 2018-2023, Sylvain Baudoin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sbaudoin.sonar.plugins.yaml.watch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class YamlWatcherTest {
+    @TempDir
+    Path baseDir;
+
+
+    @Test
+    void testOnce() throws IOException {
+        write("a.yaml", "---\nkey: yes\n");
+        write("sub/b.yml", "---\nkey: true\n");
+        write("sub/c.txt", "key: yes\n");
+        write(".hidden/d.yaml", "key: yes\n");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        assertEquals(1, YamlWatcher.run(new String[] { "--once", baseDir.toString() }, new PrintStream(out), new PrintStream(err)));
+        String[] lines = out.toString().split("\\R");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("a.yaml:2:6: "));
+        assertTrue(lines[0].endsWith(" (TruthyCheck)"));
+        assertTrue(lines[1].matches("2 file\\(s\\) analyzed in \\d+ ms, 1 issue\\(s\\)"));
+
+        write("a.yaml", "---\nkey: true\n");
+        assertEquals(0, YamlWatcher.run(new String[] { "--once", "--suffixes", ".yaml", baseDir.toString() }, new PrintStream(out), new PrintStream(err)));
+        assertEquals("", err.toString());
+    }
+
+    @Test
+    void testRulesFile() throws IOException {
+        write("a.yaml", "---\nkey: yes\n");
+        write("rules.properties", "LineLengthCheck=true\nLineLengthCheck.max=5\n");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(1, YamlWatcher.run(new String[] { "--once", "--rules", baseDir.resolve("rules.properties").toString(), baseDir.toString() }, new PrintStream(out), System.err));
+        assertTrue(out.toString().contains("(LineLengthCheck)"));
+        assertFalse(out.toString().contains("(TruthyCheck)"));
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertInvalid("Unknown option: --foo", "--foo");
+        assertInvalid("Missing value of option --port", "--once", "--port");
+        assertInvalid("Not a directory: " + baseDir.resolve("foo"), baseDir.resolve("foo").toString());
+    }
+
+    @Test
+    void testWatch() throws Exception {
+        write("a.yaml", "---\nkey: true\n");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<String> suffixes = Arrays.asList(".yaml", ".yml");
+        try (ResultPublisher publisher = new ResultPublisher(new PrintStream(out, true, "UTF-8"), -1);
+             YamlWatcher watcher = new YamlWatcher(baseDir, new LocalAnalyzer(baseDir.toFile(), LocalAnalyzer.getDefaultRules(), StandardCharsets.UTF_8, false), publisher, suffixes, 20)) {
+            Thread thread = new Thread(() -> {
+                try {
+                    watcher.watch();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            thread.start();
+            try {
+                awaitOutput(out, "1 file(s) analyzed in ");
+
+                // Changes in existing and new directories are analyzed
+                write("a.yaml", "---\nkey: yes\n");
+                awaitOutput(out, "a.yaml:2:6: ");
+                write("sub/b.yml", "---\nkey: on\n");
+                awaitOutput(out, "sub/b.yml:2:6: ");
+            } finally {
+                thread.interrupt();
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            }
+            assertFalse(thread.isAlive());
+        }
+    }
+
+
+    private void assertInvalid(String message, String... args) {
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        assertEquals(2, YamlWatcher.run(args, new PrintStream(new ByteArrayOutputStream()), new PrintStream(err)));
+        assertTrue(err.toString().startsWith(message + System.lineSeparator() + "Usage: "));
+    }
+
+    private void write(String path, String contents) throws IOException {
+        Path file = baseDir.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, contents.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Waits until some text is printed. The file system events may be polled (e.g. on macOS), hence the long timeout.
+     */
+    private static void awaitOutput(ByteArrayOutputStream out, String text) throws InterruptedException, UnsupportedEncodingException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!out.toString("UTF-8").contains(text)) {
+            assertTrue(System.nanoTime() < deadline, "Timeout waiting for: " + text);
+            Thread.sleep(10);
+        }
+    }
+}